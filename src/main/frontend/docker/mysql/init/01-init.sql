@@ -17,6 +17,7 @@ CREATE TABLE IF NOT EXISTS j_employee (
     active BOOLEAN DEFAULT TRUE,
     creation_date DATETIME DEFAULT CURRENT_TIMESTAMP,
     modification_date DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
 
     INDEX idx_employee_active (active),
     INDEX idx_employee_name (last_name, first_name),
@@ -24,6 +25,30 @@ CREATE TABLE IF NOT EXISTS j_employee (
     INDEX idx_employee_role (role)
 );
 
+-- ========== CREATION TABLES employee availability ==========
+-- 96 slots of 15 minutes per day: bit i of slots_low = slot i from 00:00, bit i of slots_high = slot 64 + i
+CREATE TABLE IF NOT EXISTS j_employee_availability_pattern (
+    employee_id BINARY(16) NOT NULL,
+    day_of_week TINYINT NOT NULL,
+    slots_low BIGINT NOT NULL DEFAULT 0,
+    slots_high BIGINT NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (employee_id, day_of_week),
+    FOREIGN KEY (employee_id) REFERENCES j_employee(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS j_employee_availability_exception (
+    employee_id BINARY(16) NOT NULL,
+    exception_date DATE NOT NULL,
+    slots_low BIGINT NOT NULL DEFAULT 0,
+    slots_high BIGINT NOT NULL DEFAULT 0,
+    reason VARCHAR(255),
+
+    PRIMARY KEY (employee_id, exception_date),
+    FOREIGN KEY (employee_id) REFERENCES j_employee(id) ON DELETE CASCADE,
+    INDEX idx_availability_exception_date (exception_date)
+);
+
 -- ========== CREATION TABLE order ==========
 CREATE TABLE IF NOT EXISTS `order` (
                                        id BINARY(16) NOT NULL PRIMARY KEY,
@@ -61,19 +86,85 @@ CREATE TABLE IF NOT EXISTS j_planning (
     card_count INT DEFAULT 1,
     notes TEXT,
     progress_percentage INT DEFAULT 0,
+    estimated_end_time DATETIME,
+    actual_start_time DATETIME,
+    actual_end_time DATETIME,
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
+    stage VARCHAR(20),
+    predecessor_id BINARY(16),
+    chunk_index INT NOT NULL DEFAULT 0,
+    chunk_count INT NOT NULL DEFAULT 1,
+    card_range_start INT,
+    card_range_end INT,
 
     FOREIGN KEY (order_id) REFERENCES `order`(id) ON DELETE CASCADE,
     FOREIGN KEY (employee_id) REFERENCES j_employee(id) ON DELETE CASCADE,
 
     INDEX idx_planning_date (planning_date),
+    INDEX idx_planning_date_time (planning_date, start_time),
     INDEX idx_planning_employee (employee_id),
+    INDEX idx_planning_employee_time (employee_id, planning_date, start_time),
     INDEX idx_planning_order (order_id),
     INDEX idx_planning_status (status),
-    INDEX idx_planning_start_time (start_time)
+    INDEX idx_planning_start_time (start_time),
+    INDEX idx_planning_predecessor (predecessor_id)
     );
 
+-- ========== PLANNING GENERATIONS ==========
+-- Copy of j_planning after each (re)generation, keyed for a sort-merge diff between generations
+CREATE TABLE IF NOT EXISTS j_planning_generation (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    source VARCHAR(50),
+    planning_count INT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS j_planning_snapshot (
+    generation_id BIGINT NOT NULL,
+    order_id BINARY(16) NOT NULL,
+    chunk_index INT NOT NULL DEFAULT 0,
+    stage_key VARCHAR(20) NOT NULL DEFAULT '',
+    employee_id BINARY(16),
+    start_time DATETIME,
+    end_time DATETIME,
+    status VARCHAR(20),
+
+    PRIMARY KEY (generation_id, order_id, chunk_index, stage_key),
+    FOREIGN KEY (generation_id) REFERENCES j_planning_generation(id) ON DELETE CASCADE
+);
+
+-- ========== PLANNING STAGING ==========
+-- Plannings of a partitioned generation, committed partition by partition and copied
+-- into j_planning in one statement once every partition is done
+CREATE TABLE IF NOT EXISTS j_planning_staging (
+    run_id CHAR(32) NOT NULL,
+    id BINARY(16) NOT NULL,
+    order_id BINARY(16) NOT NULL,
+    employee_id BINARY(16) NOT NULL,
+    planning_date DATE NOT NULL,
+    start_time DATETIME NOT NULL,
+    end_time DATETIME,
+    estimated_duration_minutes INT NOT NULL DEFAULT 0,
+    estimated_end_time DATETIME,
+    priority ENUM('EXCELSIOR', 'FAST+', 'FAST', 'CLASSIC') DEFAULT 'CLASSIC',
+    status ENUM('SCHEDULED', 'IN_PROGRESS', 'COMPLETED', 'CANCELLED') DEFAULT 'SCHEDULED',
+    completed BOOLEAN DEFAULT FALSE,
+    card_count INT DEFAULT 1,
+    notes TEXT,
+    stage VARCHAR(20),
+    predecessor_id BINARY(16),
+    chunk_index INT NOT NULL DEFAULT 0,
+    chunk_count INT NOT NULL DEFAULT 1,
+    card_range_start INT,
+    card_range_end INT,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (run_id, id)
+);
+
 -- ========== INSERTING TEST DATA ==========
 
 -- Test employees
@@ -0,0 +1,109 @@
+-- ===============================================
+-- SCHEMA UPGRADES FOR EXISTING DATABASES
+-- ===============================================
+-- Fichier: docker/mysql/init/02-schema-upgrades.sql
+-- Idempotent: safe to run on a database created by 01-init.sql
+
+USE dev;
+
+-- ========== OPTIMISTIC LOCKING ==========
+ALTER TABLE j_employee ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE j_planning ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE j_planning ADD COLUMN IF NOT EXISTS estimated_end_time DATETIME;
+ALTER TABLE j_planning ADD COLUMN IF NOT EXISTS actual_start_time DATETIME;
+ALTER TABLE j_planning ADD COLUMN IF NOT EXISTS actual_end_time DATETIME;
+
+-- ========== FLOW-SHOP STAGES ==========
+ALTER TABLE j_planning ADD COLUMN IF NOT EXISTS stage VARCHAR(20);
+ALTER TABLE j_planning ADD COLUMN IF NOT EXISTS predecessor_id BINARY(16);
+CREATE INDEX IF NOT EXISTS idx_planning_predecessor ON j_planning (predecessor_id);
+
+-- ========== ORDER CHUNKS ==========
+ALTER TABLE j_planning ADD COLUMN IF NOT EXISTS chunk_index INT NOT NULL DEFAULT 0;
+ALTER TABLE j_planning ADD COLUMN IF NOT EXISTS chunk_count INT NOT NULL DEFAULT 1;
+ALTER TABLE j_planning ADD COLUMN IF NOT EXISTS card_range_start INT;
+ALTER TABLE j_planning ADD COLUMN IF NOT EXISTS card_range_end INT;
+
+-- ========== EMPLOYEE AVAILABILITY ==========
+-- 96 slots of 15 minutes per day: bit i of slots_low = slot i from 00:00, bit i of slots_high = slot 64 + i
+CREATE TABLE IF NOT EXISTS j_employee_availability_pattern (
+    employee_id BINARY(16) NOT NULL,
+    day_of_week TINYINT NOT NULL,
+    slots_low BIGINT NOT NULL DEFAULT 0,
+    slots_high BIGINT NOT NULL DEFAULT 0,
+
+    PRIMARY KEY (employee_id, day_of_week),
+    FOREIGN KEY (employee_id) REFERENCES j_employee(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS j_employee_availability_exception (
+    employee_id BINARY(16) NOT NULL,
+    exception_date DATE NOT NULL,
+    slots_low BIGINT NOT NULL DEFAULT 0,
+    slots_high BIGINT NOT NULL DEFAULT 0,
+    reason VARCHAR(255),
+
+    PRIMARY KEY (employee_id, exception_date),
+    FOREIGN KEY (employee_id) REFERENCES j_employee(id) ON DELETE CASCADE,
+    INDEX idx_availability_exception_date (exception_date)
+);
+
+-- ========== PLANNING GENERATIONS ==========
+-- Copy of j_planning after each (re)generation, keyed for a sort-merge diff between generations
+CREATE TABLE IF NOT EXISTS j_planning_generation (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    source VARCHAR(50),
+    planning_count INT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS j_planning_snapshot (
+    generation_id BIGINT NOT NULL,
+    order_id BINARY(16) NOT NULL,
+    chunk_index INT NOT NULL DEFAULT 0,
+    stage_key VARCHAR(20) NOT NULL DEFAULT '',
+    employee_id BINARY(16),
+    start_time DATETIME,
+    end_time DATETIME,
+    status VARCHAR(20),
+
+    PRIMARY KEY (generation_id, order_id, chunk_index, stage_key),
+    FOREIGN KEY (generation_id) REFERENCES j_planning_generation(id) ON DELETE CASCADE
+);
+
+-- ========== PLANNING STAGING ==========
+-- Plannings of a partitioned generation, committed partition by partition and copied
+-- into j_planning in one statement once every partition is done
+CREATE TABLE IF NOT EXISTS j_planning_staging (
+    run_id CHAR(32) NOT NULL,
+    id BINARY(16) NOT NULL,
+    order_id BINARY(16) NOT NULL,
+    employee_id BINARY(16) NOT NULL,
+    planning_date DATE NOT NULL,
+    start_time DATETIME NOT NULL,
+    end_time DATETIME,
+    estimated_duration_minutes INT NOT NULL DEFAULT 0,
+    estimated_end_time DATETIME,
+    priority ENUM('EXCELSIOR', 'FAST+', 'FAST', 'CLASSIC') DEFAULT 'CLASSIC',
+    status ENUM('SCHEDULED', 'IN_PROGRESS', 'COMPLETED', 'CANCELLED') DEFAULT 'SCHEDULED',
+    completed BOOLEAN DEFAULT FALSE,
+    card_count INT DEFAULT 1,
+    notes TEXT,
+    stage VARCHAR(20),
+    predecessor_id BINARY(16),
+    chunk_index INT NOT NULL DEFAULT 0,
+    chunk_count INT NOT NULL DEFAULT 1,
+    card_range_start INT,
+    card_range_end INT,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (run_id, id)
+);
+
+-- ========== PLANNING LISTING ==========
+-- Serves the employee + date range reads of GET /api/planning and /api/planning/employee/{id}
+DROP INDEX IF EXISTS idx_planning_employee_date ON j_planning;
+CREATE INDEX IF NOT EXISTS idx_planning_employee_time ON j_planning (employee_id, planning_date, start_time);
+-- Serves the (planning_date, start_time, id) keyset order of GET /api/planning
+CREATE INDEX IF NOT EXISTS idx_planning_date_time ON j_planning (planning_date, start_time);
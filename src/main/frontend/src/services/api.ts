@@ -97,27 +97,29 @@ class ApiService {
   }
 
   /**
-   * PLANNINGS - Test several possible endpoints
+   * PLANNINGS - Every page of /api/planning, following nextCursor
    */
-  async getPlanning() {
-    const endpoints = [
-      '/api/planning',
-      '/api/planning/view-simple'
-    ]
-
-    for (const endpoint of endpoints) {
-      try {
-        const data = await this.request(endpoint)
-        console.log(`Planning retrieved via: ${endpoint}`)
-        return Array.isArray(data) ? data : []
-      } catch (error) {
-        console.log(`Failed endpoint ${endpoint}`)
-        continue
-      }
-    }
+  async getPlanning(from?: string) {
+    const plannings: any[] = []
+    let cursor: string | null = null
 
-    console.warn('No planning endpoints available')
-    return []
+    try {
+      do {
+        const params = new URLSearchParams({ limit: '5000' })
+        if (from) params.set('from', from)
+        if (cursor) params.set('cursor', cursor)
+
+        const data = await this.request(`/api/planning?${params}`)
+        plannings.push(...(data.plannings || []))
+        cursor = data.hasMore ? data.nextCursor : null
+      } while (cursor)
+
+      console.log(`${plannings.length} plannings retrieved`)
+      return plannings
+    } catch (error) {
+      console.warn('Planning retrieval error:', error)
+      return plannings
+    }
   }
 
   /**
@@ -0,0 +1,355 @@
+package com.pcagrade.order.algorithm;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Employee availability as a bitset of 15-minute slots
+ *
+ * A day is 96 slots stored in two longs (bit i of the first word = slot i, from
+ * 00:00; slot 64 + i is bit i of the second word). Days of a window starting at the
+ * horizon start are materialized from a weekly pattern overridden by dated exceptions
+ * (absences, part-time days); after the window the weekly pattern repeats.
+ * Availability checks are O(1) and free runs are found with word-level shifts. As a
+ * {@link WorkCalendar} the working-minute axis is the concatenation of available
+ * slots, so every planning algorithm only places work when the employee is in.
+ */
+public class AvailabilityCalendar implements WorkCalendar {
+
+    // ========== CONSTANTS ==========
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    private static final long MINUTES_PER_DAY = 24 * 60;
+    private static final long HIGH_WORD_MASK = (1L << (SLOTS_PER_DAY - 64)) - 1;
+
+    private final long baseEpochMinute;
+    private final int windowDays;
+
+    /**
+     * Materialized window: words 2d and 2d+1 for day d
+     */
+    private final long[] days;
+
+    /**
+     * Working minutes before day d of the window (windowDays + 1 entries)
+     */
+    private final long[] cumulative;
+
+    /**
+     * Weekly pattern, Monday first, two words per day
+     */
+    private final long[] week;
+
+    /**
+     * Working minutes before each day of the week after the window, and per full week
+     */
+    private final long[] weekCumulative = new long[8];
+    private final int firstWeekDay;
+
+    /**
+     * @param horizonStart first day of the window (working minute 0 is its first available slot)
+     * @param windowDays days materialized with their exceptions (> 0)
+     * @param weeklyPattern 14 words, Monday first (see {@link #slots})
+     * @param exceptions day -> 2 words replacing the weekly pattern on that day
+     */
+    public AvailabilityCalendar(LocalDate horizonStart, int windowDays, long[] weeklyPattern,
+                                Map<LocalDate, long[]> exceptions) {
+        if (windowDays <= 0 || weeklyPattern.length != 14) {
+            throw new IllegalArgumentException("Invalid availability window or pattern");
+        }
+        this.baseEpochMinute = WorkCalendar.epochMinute(horizonStart.atStartOfDay());
+        this.windowDays = windowDays;
+        this.week = new long[14];
+        for (int w = 0; w < 14; w++) {
+            week[w] = w % 2 == 0 ? weeklyPattern[w] : weeklyPattern[w] & HIGH_WORD_MASK;
+        }
+        for (int d = 0; d < 7; d++) {
+            weekCumulative[d + 1] = weekCumulative[d] + dayMinutes(week[2 * d], week[2 * d + 1]);
+        }
+        if (weekCumulative[7] == 0) {
+            throw new IllegalArgumentException("Weekly pattern has no available slot");
+        }
+
+        this.days = new long[2 * windowDays];
+        this.cumulative = new long[windowDays + 1];
+        for (int d = 0; d < windowDays; d++) {
+            LocalDate date = horizonStart.plusDays(d);
+            long[] exception = exceptions.get(date);
+            int weekDay = date.getDayOfWeek().getValue() - 1;
+            days[2 * d] = exception != null ? exception[0] : week[2 * weekDay];
+            days[2 * d + 1] = (exception != null ? exception[1] : week[2 * weekDay + 1]) & HIGH_WORD_MASK;
+            cumulative[d + 1] = cumulative[d] + dayMinutes(days[2 * d], days[2 * d + 1]);
+        }
+        this.firstWeekDay = horizonStart.plusDays(windowDays).getDayOfWeek().getValue() - 1;
+    }
+
+    // ========== SLOT HELPERS ==========
+
+    /**
+     * Slots of a time range as two words, e.g. 09:00-17:00 -> slots 36..67
+     * @param start first minute (rounded down to a slot)
+     * @param minutes length (rounded up to whole slots, clipped at midnight)
+     * @return {low word, high word}
+     */
+    public static long[] slots(LocalTime start, int minutes) {
+        int from = start.toSecondOfDay() / 60 / SLOT_MINUTES;
+        int to = Math.min(SLOTS_PER_DAY, (start.toSecondOfDay() / 60 + minutes + SLOT_MINUTES - 1) / SLOT_MINUTES);
+        long[] words = new long[2];
+        for (int slot = from; slot < to; slot++) {
+            words[slot >>> 6] |= 1L << (slot & 63);
+        }
+        return words;
+    }
+
+    /**
+     * Same slots on every day of the week
+     * @param day two words of one day
+     * @return 14-word weekly pattern
+     */
+    public static long[] everyDay(long[] day) {
+        long[] pattern = new long[14];
+        for (int d = 0; d < 7; d++) {
+            pattern[2 * d] = day[0];
+            pattern[2 * d + 1] = day[1];
+        }
+        return pattern;
+    }
+
+    /**
+     * Available [start, end) time ranges of a day, e.g. for display
+     * @param low low word
+     * @param high high word
+     * @return ranges as {start, end} pairs, end 00:00 meaning midnight
+     */
+    public static List<LocalTime[]> ranges(long low, long high) {
+        List<LocalTime[]> ranges = new ArrayList<>();
+        int slot = 0;
+        while (slot < SLOTS_PER_DAY) {
+            if (!isSet(low, high, slot)) {
+                slot++;
+                continue;
+            }
+            int end = slot;
+            while (end < SLOTS_PER_DAY && isSet(low, high, end)) {
+                end++;
+            }
+            ranges.add(new LocalTime[]{
+                    LocalTime.ofSecondOfDay((long) slot * SLOT_MINUTES * 60),
+                    LocalTime.ofSecondOfDay((long) end * SLOT_MINUTES * 60 % (24 * 3600))});
+            slot = end;
+        }
+        return ranges;
+    }
+
+    /**
+     * First slot >= from that starts a run of k available slots
+     * Builds the mask of run starts by and-ing the day with itself shifted by doubling
+     * distances: O(log k) word operations.
+     * @param low low word
+     * @param high high word
+     * @param k run length in slots (> 0)
+     * @param from first candidate slot
+     * @return first slot of the run, -1 if the day has none
+     */
+    public static int findFreeRun(long low, long high, int k, int from) {
+        if (k <= 0 || k > SLOTS_PER_DAY || from >= SLOTS_PER_DAY) {
+            return -1;
+        }
+        long runLow = low;
+        long runHigh = high & HIGH_WORD_MASK;
+        int length = 1;
+        while (length < k) {
+            int shift = Math.min(length, k - length);
+            long shiftedLow = shift >= 64 ? runHigh >>> (shift - 64) : runLow >>> shift | runHigh << (64 - shift);
+            long shiftedHigh = shift >= 64 ? 0 : runHigh >>> shift;
+            runLow &= shiftedLow;
+            runHigh &= shiftedHigh;
+            length += shift;
+        }
+        from = Math.max(0, from);
+        if (from < 64) {
+            long candidates = runLow & (-1L << from);
+            if (candidates != 0) {
+                return Long.numberOfTrailingZeros(candidates);
+            }
+            from = 64;
+        }
+        long candidates = runHigh & (-1L << (from - 64));
+        return candidates != 0 ? 64 + Long.numberOfTrailingZeros(candidates) : -1;
+    }
+
+    private static boolean isSet(long low, long high, int slot) {
+        return ((slot < 64 ? low >>> slot : high >>> (slot - 64)) & 1L) != 0;
+    }
+
+    private static long dayMinutes(long low, long high) {
+        return (long) (Long.bitCount(low) + Long.bitCount(high)) * SLOT_MINUTES;
+    }
+
+    // ========== AVAILABILITY QUERIES ==========
+
+    /**
+     * Whether the employee is in at a wall-clock instant: O(1)
+     * @param epochMinute epoch minute
+     * @return true if the slot containing the minute is available
+     */
+    public boolean isAvailable(long epochMinute) {
+        long offset = epochMinute - baseEpochMinute;
+        if (offset < 0) {
+            return false;
+        }
+        long day = offset / MINUTES_PER_DAY;
+        int slot = (int) (offset % MINUTES_PER_DAY / SLOT_MINUTES);
+        return isSet(low(day), high(day), slot);
+    }
+
+    /**
+     * Start of the first run of k available slots at or after a wall-clock instant
+     * @param epochMinute lower bound
+     * @param k run length in slots
+     * @param maxDays days to scan
+     * @return epoch minute of the run start, -1 if none within maxDays
+     */
+    public long findFreeRun(long epochMinute, int k, int maxDays) {
+        long offset = Math.max(0, epochMinute - baseEpochMinute);
+        long day = offset / MINUTES_PER_DAY;
+        int from = (int) ((offset % MINUTES_PER_DAY + SLOT_MINUTES - 1) / SLOT_MINUTES);
+        for (int scanned = 0; scanned < maxDays; scanned++, day++, from = 0) {
+            int slot = findFreeRun(low(day), high(day), k, from);
+            if (slot >= 0) {
+                return baseEpochMinute + day * MINUTES_PER_DAY + (long) slot * SLOT_MINUTES;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Available minutes on a day of the window (or of the repeating pattern after it)
+     * @param date day
+     * @return minutes
+     */
+    public long availableMinutes(LocalDate date) {
+        long day = (WorkCalendar.epochMinute(date.atStartOfDay()) - baseEpochMinute) / MINUTES_PER_DAY;
+        return day < 0 ? 0 : dayMinutes(low(day), high(day));
+    }
+
+    /**
+     * Both words of a day relative to the horizon start
+     * @param date day
+     * @return {low word, high word}
+     */
+    public long[] daySlots(LocalDate date) {
+        long day = (WorkCalendar.epochMinute(date.atStartOfDay()) - baseEpochMinute) / MINUTES_PER_DAY;
+        return day < 0 ? new long[2] : new long[]{low(day), high(day)};
+    }
+
+    /**
+     * Copy of this calendar with some days of the window replaced, e.g. {0, 0} for a day off
+     * @param overrides day -> 2 words; days outside the window are ignored
+     * @return new calendar, this one is unchanged
+     */
+    public AvailabilityCalendar withDays(Map<LocalDate, long[]> overrides) {
+        LocalDate horizonStart = WorkCalendar.dateTime(baseEpochMinute).toLocalDate();
+        Map<LocalDate, long[]> exceptions = new HashMap<>();
+        for (int d = 0; d < windowDays; d++) {
+            exceptions.put(horizonStart.plusDays(d), new long[]{days[2 * d], days[2 * d + 1]});
+        }
+        exceptions.putAll(overrides);
+        return new AvailabilityCalendar(horizonStart, windowDays, week, exceptions);
+    }
+
+    private long low(long day) {
+        return day < windowDays ? days[2 * (int) day] : week[2 * patternDay(day)];
+    }
+
+    private long high(long day) {
+        return day < windowDays ? days[2 * (int) day + 1] : week[2 * patternDay(day) + 1];
+    }
+
+    private int patternDay(long day) {
+        return (int) ((firstWeekDay + day - windowDays) % 7);
+    }
+
+    // ========== WORK CALENDAR ==========
+
+    @Override
+    public long toEpochMinute(long workingMinute) {
+        long day;
+        long inDay;
+        if (workingMinute < cumulative[windowDays]) {
+            // Last day whose cumulative start is <= workingMinute
+            int index = Arrays.binarySearch(cumulative, workingMinute);
+            if (index < 0) {
+                index = -index - 2;
+            }
+            while (index + 1 < cumulative.length && cumulative[index + 1] == workingMinute) {
+                index++;
+            }
+            day = index;
+            inDay = workingMinute - cumulative[index];
+        } else {
+            long remaining = workingMinute - cumulative[windowDays];
+            long weeks = remaining / weekCumulative[7];
+            remaining %= weekCumulative[7];
+            int d = 0;
+            while (true) {
+                long minutes = dayMinutes(week[2 * ((firstWeekDay + d) % 7)], week[2 * ((firstWeekDay + d) % 7) + 1]);
+                if (remaining < minutes) {
+                    break;
+                }
+                remaining -= minutes;
+                d++;
+            }
+            day = windowDays + weeks * 7 + d;
+            inDay = remaining;
+        }
+
+        long low = low(day);
+        long high = high(day);
+        int nth = (int) (inDay / SLOT_MINUTES);
+        int lowCount = Long.bitCount(low);
+        int slot = nth < lowCount ?
+                Long.numberOfTrailingZeros(Long.expand(1L << nth, low)) :
+                64 + Long.numberOfTrailingZeros(Long.expand(1L << (nth - lowCount), high));
+        return baseEpochMinute + day * MINUTES_PER_DAY + (long) slot * SLOT_MINUTES + inDay % SLOT_MINUTES;
+    }
+
+    @Override
+    public long toWorkingMinute(long epochMinute) {
+        if (epochMinute <= baseEpochMinute) {
+            return 0;
+        }
+        long offset = epochMinute - baseEpochMinute;
+        long day = offset / MINUTES_PER_DAY;
+        long minuteOfDay = offset % MINUTES_PER_DAY;
+        int slot = (int) (minuteOfDay / SLOT_MINUTES);
+
+        long before;
+        if (day < windowDays) {
+            before = cumulative[(int) day];
+        } else {
+            long extra = day - windowDays;
+            before = cumulative[windowDays] + extra / 7 * weekCumulative[7];
+            for (int d = 0; d < extra % 7; d++) {
+                int weekDay = (firstWeekDay + d) % 7;
+                before += dayMinutes(week[2 * weekDay], week[2 * weekDay + 1]);
+            }
+        }
+
+        long low = low(day);
+        long high = high(day);
+        long slotsBefore = slot < 64 ?
+                Long.bitCount(low & ((1L << slot) - 1)) :
+                Long.bitCount(low) + Long.bitCount(high & ((1L << (slot - 64)) - 1));
+        long minutes = slotsBefore * SLOT_MINUTES;
+        if (isSet(low, high, slot)) {
+            minutes += minuteOfDay % SLOT_MINUTES;
+        }
+        return before + minutes;
+    }
+}
@@ -0,0 +1,14 @@
+package com.pcagrade.order.algorithm;
+
+import lombok.Value;
+
+/**
+ * Half-open interval [start, end) already occupied on a resource axis
+ */
+@Value
+public class BusyInterval {
+
+    long start;
+
+    long end;
+}
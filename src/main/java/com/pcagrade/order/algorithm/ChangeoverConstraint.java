@@ -0,0 +1,113 @@
+package com.pcagrade.order.algorithm;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Setup time between consecutive tasks of each employee, from their setup keys
+ * Each employee's tasks are kept ordered by start, so inserting or retracting one only
+ * re-prices the pairs with its two neighbours (O(log n)).
+ */
+@Component
+public class ChangeoverConstraint implements ScoreConstraint {
+
+    // ========== CONSTANTS ==========
+    private static final String KEY_SEPARATOR = "\\|";
+    private static final Comparator<PlanningAssignment> START_ORDER = Comparator
+            .comparing(PlanningAssignment::getStartTime)
+            .thenComparing(assignment -> assignment.getTask().getOrderId())
+            .thenComparingInt(assignment -> assignment.getTask().getChunkIndex())
+            .thenComparing(assignment -> assignment.getTask().getStage(), Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    @Value("${planning.setup.changeover-minutes:15}")
+    private int changeoverMinutes;
+
+    @Override
+    public String getName() {
+        return "changeover";
+    }
+
+    @Override
+    public double getDefaultWeight() {
+        return 1.0;
+    }
+
+    @Override
+    public State newState(Collection<PlanningResource> resources) {
+        return new State() {
+            private final Map<String, TreeSet<PlanningAssignment>> sequences = new HashMap<>();
+            private long penalty;
+
+            @Override
+            public void insert(PlanningAssignment assignment) {
+                TreeSet<PlanningAssignment> sequence = sequences.computeIfAbsent(
+                        assignment.getResource().getEmployeeId(), id -> new TreeSet<>(START_ORDER));
+                if (sequence.add(assignment)) {
+                    penalty += delta(sequence, assignment);
+                }
+            }
+
+            @Override
+            public void retract(PlanningAssignment assignment) {
+                TreeSet<PlanningAssignment> sequence = sequences.get(assignment.getResource().getEmployeeId());
+                if (sequence != null && sequence.contains(assignment)) {
+                    penalty -= delta(sequence, assignment);
+                    sequence.remove(assignment);
+                }
+            }
+
+            /**
+             * Setup added by the assignment between its neighbours
+             */
+            private long delta(TreeSet<PlanningAssignment> sequence, PlanningAssignment assignment) {
+                PlanningAssignment previous = sequence.lower(assignment);
+                PlanningAssignment next = sequence.higher(assignment);
+                return setup(previous, assignment) + setup(assignment, next) - setup(previous, next);
+            }
+
+            @Override
+            public double getPenalty() {
+                return penalty;
+            }
+        };
+    }
+
+    private int setup(PlanningAssignment from, PlanningAssignment to) {
+        if (from == null || to == null) {
+            return 0;
+        }
+        return changeover(from.getTask().getSetupKey(), to.getTask().getSetupKey(), changeoverMinutes);
+    }
+
+    /**
+     * Changeover time between two setup keys: full changeover times the share of differing fields
+     * @param fromKey setup key of the previous task, may be null
+     * @param toKey setup key of the next task, may be null
+     * @param fullMinutes changeover when every field differs
+     * @return minutes
+     */
+    public static int changeover(String fromKey, String toKey, int fullMinutes) {
+        if (fromKey == null || toKey == null) {
+            return fromKey == null && toKey == null ? 0 : fullMinutes;
+        }
+        if (fromKey.equals(toKey)) {
+            return 0;
+        }
+        String[] from = fromKey.split(KEY_SEPARATOR, -1);
+        String[] to = toKey.split(KEY_SEPARATOR, -1);
+        int fields = Math.max(from.length, to.length);
+        int differing = 0;
+        for (int f = 0; f < fields; f++) {
+            if (f >= from.length || f >= to.length || !from[f].equals(to[f])) {
+                differing++;
+            }
+        }
+        return (int) Math.round((double) fullMinutes * differing / fields);
+    }
+}
@@ -0,0 +1,311 @@
+package com.pcagrade.order.algorithm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Free-slot index of one employee
+ *
+ * Stores the free gaps between scheduled intervals in a treap keyed by gap start
+ * and augmented with the longest gap of each subtree, so that the earliest gap
+ * that fits a duration is found without visiting shorter gaps. The last gap is
+ * open-ended. insert, release and findEarliestGap are O(log n) expected.
+ * Positions are plain longs (working minutes for planners, epoch minutes for
+ * wall-clock checks). Not thread-safe: build one per planning run.
+ */
+public class EmployeeTimeline {
+
+    private static final long OPEN_END = Long.MAX_VALUE;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+    private Node root;
+    private long busyMinutes;
+
+    /**
+     * Empty timeline starting at origin (everything from origin on is free)
+     * @param origin first usable position
+     */
+    public EmployeeTimeline(long origin) {
+        root = new Node(origin, OPEN_END, random.nextInt());
+    }
+
+    /**
+     * Timeline with already scheduled intervals; overlapping intervals are merged
+     * @param origin first usable position
+     * @param busy scheduled intervals (any order)
+     * @return timeline
+     */
+    public static EmployeeTimeline of(long origin, List<BusyInterval> busy) {
+        EmployeeTimeline timeline = new EmployeeTimeline(origin);
+        List<BusyInterval> sorted = new ArrayList<>(busy);
+        sorted.sort(Comparator.comparingLong(BusyInterval::getStart));
+
+        long mergedStart = Long.MIN_VALUE;
+        long mergedEnd = Long.MIN_VALUE;
+        for (BusyInterval interval : sorted) {
+            long start = Math.max(origin, interval.getStart());
+            long end = interval.getEnd();
+            if (end <= start) {
+                continue;
+            }
+            if (start <= mergedEnd) {
+                mergedEnd = Math.max(mergedEnd, end);
+                continue;
+            }
+            if (mergedEnd > mergedStart) {
+                timeline.insert(mergedStart, mergedEnd);
+            }
+            mergedStart = start;
+            mergedEnd = end;
+        }
+        if (mergedEnd > mergedStart) {
+            timeline.insert(mergedStart, mergedEnd);
+        }
+        return timeline;
+    }
+
+    // ========== QUERIES ==========
+
+    /**
+     * Earliest start >= notBefore of a free slot of the given duration
+     * @param duration slot length (> 0)
+     * @param notBefore lower bound of the start
+     * @return start position (always exists, the last gap is open-ended)
+     */
+    public long findEarliestGap(long duration, long notBefore) {
+        Node containing = floor(root, notBefore);
+        if (containing != null && containing.end > notBefore && containing.end - notBefore >= duration) {
+            return notBefore;
+        }
+        Node next = firstFitting(root, notBefore, duration);
+        return next.start;
+    }
+
+    /**
+     * @return true if [start, end) doesn't overlap any scheduled interval
+     */
+    public boolean isFree(long start, long end) {
+        Node gap = floor(root, start);
+        return gap != null && gap.end >= end;
+    }
+
+    /**
+     * @return end of the last scheduled interval (start of the open-ended gap)
+     */
+    public long getTailStart() {
+        Node node = root;
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.start;
+    }
+
+    /**
+     * @return total scheduled length
+     */
+    public long getBusyMinutes() {
+        return busyMinutes;
+    }
+
+    // ========== UPDATES ==========
+
+    /**
+     * Mark [start, end) as scheduled
+     * @return false (and no change) if the interval overlaps a scheduled one
+     */
+    public boolean tryInsert(long start, long end) {
+        if (end <= start) {
+            return true;
+        }
+        Node gap = floor(root, start);
+        if (gap == null || gap.end < end) {
+            return false;
+        }
+        root = delete(root, gap.start);
+        if (gap.start < start) {
+            root = insertNode(root, new Node(gap.start, start, random.nextInt()));
+        }
+        if (end < gap.end) {
+            root = insertNode(root, new Node(end, gap.end, random.nextInt()));
+        }
+        busyMinutes += end - start;
+        return true;
+    }
+
+    /**
+     * Mark [start, end) as scheduled
+     * @throws IllegalStateException if the interval overlaps a scheduled one
+     */
+    public void insert(long start, long end) {
+        if (!tryInsert(start, end)) {
+            throw new IllegalStateException("Interval [" + start + ", " + end + ") overlaps a scheduled interval");
+        }
+    }
+
+    /**
+     * Free a previously scheduled interval [start, end), merging adjacent gaps
+     */
+    public void release(long start, long end) {
+        if (end <= start || isFree(start, end)) {
+            return;
+        }
+        long gapStart = start;
+        long gapEnd = end;
+
+        Node before = floor(root, start - 1);
+        if (before != null && before.end == start) {
+            gapStart = before.start;
+            root = delete(root, before.start);
+        }
+        Node after = floor(root, end);
+        if (after != null && after.start == end) {
+            gapEnd = after.end;
+            root = delete(root, after.start);
+        }
+        root = insertNode(root, new Node(gapStart, gapEnd, random.nextInt()));
+        busyMinutes -= end - start;
+    }
+
+    // ========== TREAP ==========
+
+    private static final class Node {
+        final long start;
+        final long end;
+        final int priority;
+        Node left;
+        Node right;
+        long maxLength;
+
+        Node(long start, long end, int priority) {
+            this.start = start;
+            this.end = end;
+            this.priority = priority;
+            this.maxLength = length();
+        }
+
+        long length() {
+            return end == OPEN_END ? OPEN_END : end - start;
+        }
+
+        void update() {
+            long max = length();
+            if (left != null && left.maxLength > max) {
+                max = left.maxLength;
+            }
+            if (right != null && right.maxLength > max) {
+                max = right.maxLength;
+            }
+            maxLength = max;
+        }
+    }
+
+    /**
+     * Gap with the greatest start <= key
+     */
+    private static Node floor(Node node, long key) {
+        Node result = null;
+        while (node != null) {
+            if (node.start <= key) {
+                result = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Leftmost gap with start > minStart and length >= minLength
+     */
+    private static Node firstFitting(Node node, long minStart, long minLength) {
+        if (node == null || node.maxLength < minLength) {
+            return null;
+        }
+        if (node.start <= minStart) {
+            return firstFitting(node.right, minStart, minLength);
+        }
+        Node left = firstFitting(node.left, minStart, minLength);
+        if (left != null) {
+            return left;
+        }
+        if (node.length() >= minLength) {
+            return node;
+        }
+        return firstFitting(node.right, minStart, minLength);
+    }
+
+    private static Node insertNode(Node node, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (inserted.priority > node.priority) {
+            Node[] parts = split(node, inserted.start);
+            inserted.left = parts[0];
+            inserted.right = parts[1];
+            inserted.update();
+            return inserted;
+        }
+        if (inserted.start < node.start) {
+            node.left = insertNode(node.left, inserted);
+        } else {
+            node.right = insertNode(node.right, inserted);
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node delete(Node node, long start) {
+        if (node == null) {
+            return null;
+        }
+        if (node.start == start) {
+            return merge(node.left, node.right);
+        }
+        if (start < node.start) {
+            node.left = delete(node.left, start);
+        } else {
+            node.right = delete(node.right, start);
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Split into (start < key, start >= key)
+     */
+    private static Node[] split(Node node, long key) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (node.start < key) {
+            Node[] parts = split(node.right, key);
+            node.right = parts[0];
+            node.update();
+            return new Node[]{node, parts[1]};
+        }
+        Node[] parts = split(node.left, key);
+        node.left = parts[1];
+        node.update();
+        return new Node[]{parts[0], node};
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+}
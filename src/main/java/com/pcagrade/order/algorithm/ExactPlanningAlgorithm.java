@@ -0,0 +1,477 @@
+package com.pcagrade.order.algorithm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solution;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.loop.lns.INeighborFactory;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.search.strategy.selectors.values.IntDomainLast;
+import org.chocosolver.solver.search.strategy.selectors.values.IntDomainMin;
+import org.chocosolver.solver.search.strategy.selectors.variables.InputOrder;
+import org.chocosolver.solver.variables.BoolVar;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Task;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Exact constraint-programming mode for the critical tiers (Choco solver)
+ *
+ * The most urgent EXCELSIOR / FAST_PLUS orders (planning.exact.tiers, at most
+ * planning.exact.max-tasks) are modelled on a shared wall-clock minute axis:
+ * <ul>
+ *   <li>each order runs on exactly one eligible employee, inside one shift of that
+ *       employee, not before its release time</li>
+ *   <li>non-overlap and capacity: one cumulative (capacity 1) per employee, including
+ *       the plannings already on the floor - what findOverlappingEntries only checks
+ *       after the fact</li>
+ * </ul>
+ * The objective is tier-weighted tardiness. The solver is warm-started with the greedy
+ * schedule - the orders list-scheduled in EDF order under the same constraints - which
+ * is both the search hint and the incumbent it has to beat. When the time limit
+ * expires the best incumbent is returned with the optimality gap against the solver's
+ * proven lower bound. The remaining orders are then planned by EDF around the
+ * critical ones.
+ */
+@Component
+@Slf4j
+public class ExactPlanningAlgorithm implements PlanningAlgorithm {
+
+    // ========== CONSTANTS ==========
+    private static final long MINUTES_PER_DAY = 24 * 60;
+    private static final int HORIZON_SLACK_DAYS = 2;
+    private static final int COMPLETE_SEARCH_MAX_TASKS = 12;
+
+    @Autowired
+    private EarliestDeadlineFirstAlgorithm greedy;
+
+    @Value("${planning.exact.time-limit-ms:5000}")
+    private long defaultTimeLimitMillis;
+
+    @Value("${planning.exact.max-tasks:50}")
+    private int maxTasks;
+
+    @Value("${planning.exact.tiers:EXCELSIOR,FAST_PLUS}")
+    private Set<SlaTier> criticalTiers;
+
+    @Override
+    public String getName() {
+        return "exact";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Constraint solver for EXCELSIOR/F+ orders (warm-started from EDF, time-limited, reports optimality gap), EDF for the rest";
+    }
+
+    @Override
+    public PlanningSolution solve(PlanningProblem problem) {
+        long startMillis = System.currentTimeMillis();
+        List<PlanningTask> critical = new ArrayList<>();
+        List<PlanningTask> others = new ArrayList<>();
+        for (PlanningTask task : problem.getTasks()) {
+            (criticalTiers.contains(task.getTier()) ? critical : others).add(task);
+        }
+        critical.sort(EarliestDeadlineFirstAlgorithm.DEADLINE_ORDER);
+        if (critical.size() > maxTasks) {
+            others.addAll(critical.subList(maxTasks, critical.size()));
+            critical = new ArrayList<>(critical.subList(0, maxTasks));
+        }
+        if (critical.isEmpty() || problem.getResources().isEmpty()) {
+            return greedy.solve(problem).toBuilder().algorithm(getName()).build();
+        }
+
+        long budget = problem.getTimeBudgetMillis() > 0 ? problem.getTimeBudgetMillis() : defaultTimeLimitMillis;
+        PlanningSolution edf = greedy.solve(problem.toBuilder().clearTasks().tasks(critical).build());
+        ExactModel exact = new ExactModel(problem, critical, edf);
+        List<PlanningAssignment> criticalAssignments = exact.solve(budget);
+        others.addAll(exact.excluded);
+
+        // Everything else goes around the critical plan
+        List<PlanningResource> resources = new ArrayList<>(problem.getResources());
+        Map<String, Integer> resourceIndex = new HashMap<>();
+        for (int r = 0; r < resources.size(); r++) {
+            resourceIndex.put(resources.get(r).getEmployeeId(), r);
+        }
+        for (PlanningAssignment assignment : criticalAssignments) {
+            int r = resourceIndex.get(assignment.getResource().getEmployeeId());
+            resources.set(r, resources.get(r).toBuilder()
+                    .busyInterval(new BusyInterval(assignment.getStartMinute(), assignment.getEndMinute()))
+                    .build());
+        }
+        PlanningSolution rest = greedy.solve(problem.toBuilder()
+                .clearTasks().tasks(others)
+                .clearResources().resources(resources)
+                .build());
+
+        long elapsed = System.currentTimeMillis() - startMillis;
+        log.info("Exact planning: {} critical orders ({} modelled), objective {} / bound {}, gap {}, {} ms",
+                critical.size(), exact.taskCount, exact.bestObjective, exact.lowerBound, exact.gap, elapsed);
+        return PlanningSolution.builder()
+                .algorithm(getName())
+                .assignments(criticalAssignments)
+                .assignments(rest.getAssignments())
+                .unassigned(rest.getUnassigned())
+                .optimalityGap(exact.gap)
+                .computeTimeMillis(elapsed)
+                .build();
+    }
+
+    // ========== MODEL ==========
+
+    /**
+     * Choco model of the critical orders on the wall-clock axis (minute 0 = horizon start, midnight)
+     */
+    private class ExactModel {
+        final List<PlanningResource> resources;
+        final long origin;
+        final Model model = new Model("exact-planning");
+        final List<PlanningTask> tasks = new ArrayList<>();
+        final List<PlanningTask> excluded = new ArrayList<>();
+        int taskCount;
+
+        // Per modelled task: candidate resources, durations on each and the greedy placement (candidate, start)
+        final List<int[]> candidates = new ArrayList<>();
+        final List<int[]> durations = new ArrayList<>();
+        final List<int[]> greedyPlacement = new ArrayList<>();
+        // Search variables: chosen candidate and start of each task
+        final List<IntVar> decisions = new ArrayList<>();
+        IntVar objective;
+
+        // Weighted tardiness if every order ran at its earliest possible slot
+        long relaxedBound;
+        Long bestObjective;
+        Long lowerBound;
+        Double gap;
+
+        ExactModel(PlanningProblem problem, List<PlanningTask> critical, PlanningSolution edf) {
+            this.resources = problem.getResources();
+            this.origin = WorkCalendar.epochMinute(problem.getHorizonStart().atStartOfDay());
+
+            // Horizon: the EDF makespan plus some slack for whole-shift placement
+            long horizonEnd = MINUTES_PER_DAY;
+            for (PlanningAssignment assignment : edf.getAssignments()) {
+                horizonEnd = Math.max(horizonEnd, WorkCalendar.epochMinute(assignment.getEndTime()) - origin);
+            }
+            int horizon = (int) Math.min(Integer.MAX_VALUE / 4,
+                    (horizonEnd / MINUTES_PER_DAY + 1 + HORIZON_SLACK_DAYS) * MINUTES_PER_DAY);
+
+            List<long[]> shifts = new ArrayList<>();
+            for (PlanningResource resource : resources) {
+                shifts.add(shiftWindows(resource.getCalendar(), origin, horizon));
+            }
+            build(critical, shifts, horizon);
+        }
+
+        private void build(List<PlanningTask> critical, List<long[]> shifts, int horizon) {
+            List<IntVar> tardiness = new ArrayList<>();
+            List<Integer> weights = new ArrayList<>();
+            List<List<Task>> resourceTasks = new ArrayList<>();
+            List<List<IntVar>> resourceHeights = new ArrayList<>();
+            List<TreeMap<Integer, Integer>> occupied = new ArrayList<>();
+            for (int r = 0; r < resources.size(); r++) {
+                resourceTasks.add(new ArrayList<>());
+                resourceHeights.add(new ArrayList<>());
+                occupied.add(busyWindows(resources.get(r), origin, horizon));
+            }
+
+            for (PlanningTask task : critical) {
+                int release = task.getReleaseTime() == null ? 0 : (int) Math.max(0,
+                        Math.min(horizon, WorkCalendar.epochMinute(task.getReleaseTime()) - origin));
+                List<Integer> eligible = new ArrayList<>();
+                List<int[]> domains = new ArrayList<>();
+                for (int r = 0; r < resources.size(); r++) {
+                    PlanningResource resource = resources.get(r);
+                    if (task.getStage() != null && !task.getStage().accepts(resource.getRole())) {
+                        continue;
+                    }
+                    int[] domain = allowedStarts(shifts.get(r), release, resource.actualMinutes(task.getDurationMinutes()));
+                    if (domain.length > 0) {
+                        eligible.add(r);
+                        domains.add(domain);
+                    }
+                }
+
+                // Greedy: earliest finishing candidate
+                int greedyCandidate = -1;
+                int greedyStart = 0;
+                for (int c = 0; c < eligible.size(); c++) {
+                    int duration = resources.get(eligible.get(c)).actualMinutes(task.getDurationMinutes());
+                    int start = firstFreeStart(domains.get(c), occupied.get(eligible.get(c)), release, duration);
+                    if (start >= 0 && (greedyCandidate < 0 || start + duration < greedyStart + resources
+                            .get(eligible.get(greedyCandidate)).actualMinutes(task.getDurationMinutes()))) {
+                        greedyCandidate = c;
+                        greedyStart = start;
+                    }
+                }
+                if (greedyCandidate < 0) {
+                    // Longer than any shift, no eligible employee or beyond the horizon: left to EDF
+                    excluded.add(task);
+                    continue;
+                }
+                int greedyEnd = greedyStart + resources.get(eligible.get(greedyCandidate)).actualMinutes(task.getDurationMinutes());
+                occupied.get(eligible.get(greedyCandidate)).put(greedyStart, greedyEnd);
+                greedyPlacement.add(new int[]{greedyCandidate, greedyStart});
+                int earliestEnd = Integer.MAX_VALUE;
+                for (int c = 0; c < eligible.size(); c++) {
+                    earliestEnd = Math.min(earliestEnd, domains.get(c)[0]
+                            + resources.get(eligible.get(c)).actualMinutes(task.getDurationMinutes()));
+                }
+                long dueMinute = WorkCalendar.epochMinute(task.getDueTime()) - origin;
+                relaxedBound += (long) task.getTier().getWeight() * Math.max(0, earliestEnd - dueMinute);
+
+                int t = tasks.size();
+                tasks.add(task);
+                int[] startDomain = domains.stream().flatMapToInt(Arrays::stream).sorted().distinct().toArray();
+                IntVar start = model.intVar("start_" + t, startDomain);
+                IntVar chosen = model.intVar("resource_" + t, 0, eligible.size() - 1);
+                int[] candidateResources = new int[eligible.size()];
+                BoolVar[] on = new BoolVar[eligible.size()];
+                int[] durationOn = new int[eligible.size()];
+                for (int c = 0; c < eligible.size(); c++) {
+                    int r = eligible.get(c);
+                    candidateResources[c] = r;
+                    durationOn[c] = resources.get(r).actualMinutes(task.getDurationMinutes());
+                    on[c] = model.boolVar("on_" + t + "_" + r);
+                    // Inside one shift of the chosen employee
+                    model.ifThen(on[c], model.member(start, domains.get(c)));
+                    resourceTasks.get(r).add(new Task(start, durationOn[c]));
+                    resourceHeights.get(r).add(on[c]);
+                }
+                model.boolsIntChanneling(on, chosen, 0).post();
+                IntVar duration = model.intVar("duration_" + t, durationOn);
+                model.element(duration, durationOn, chosen).post();
+                IntVar end = model.intVar("end_" + t, release, horizon);
+                model.arithm(start, "+", duration, "=", end).post();
+                decisions.add(chosen);
+                decisions.add(start);
+
+                int due = (int) Math.max(-Integer.MAX_VALUE / 4, Math.min(horizon, dueMinute));
+                IntVar late = model.intVar("tardiness_" + t, 0, horizon - Math.min(0, due));
+                model.max(late, model.intVar(0), end.sub(due).intVar()).post();
+
+                candidates.add(candidateResources);
+                durations.add(durationOn);
+                tardiness.add(late);
+                weights.add(task.getTier().getWeight());
+            }
+            taskCount = tasks.size();
+            if (taskCount == 0) {
+                return;
+            }
+
+            // Non-overlap per employee, existing plannings included
+            IntVar one = model.intVar(1);
+            for (int r = 0; r < resources.size(); r++) {
+                List<Task> onResource = resourceTasks.get(r);
+                if (onResource.isEmpty()) {
+                    continue;
+                }
+                PlanningResource resource = resources.get(r);
+                for (BusyInterval busy : resource.getBusyIntervals()) {
+                    int[] window = wallClockWindow(resource, busy, origin, horizon);
+                    if (window != null) {
+                        onResource.add(new Task(model.intVar(window[0]), window[1] - window[0]));
+                        resourceHeights.get(r).add(one);
+                    }
+                }
+                model.cumulative(onResource.toArray(new Task[0]),
+                        resourceHeights.get(r).toArray(new IntVar[0]), one).post();
+            }
+
+            int[] weightArray = weights.stream().mapToInt(Integer::intValue).toArray();
+            long maxObjective = 0;
+            for (int t = 0; t < taskCount; t++) {
+                maxObjective += (long) weightArray[t] * tardiness.get(t).getUB();
+            }
+            objective = model.intVar("weightedTardiness", 0, (int) Math.min(Integer.MAX_VALUE / 2, maxObjective));
+            model.scalar(tardiness.toArray(new IntVar[0]), weightArray, "=", objective).post();
+            model.setObjective(Model.MINIMIZE, objective);
+        }
+
+        /**
+         * Solve within the time limit
+         * @return assignments of the best incumbent (solver or greedy)
+         */
+        List<PlanningAssignment> solve(long timeLimitMillis) {
+            if (taskCount == 0) {
+                return List.of();
+            }
+            Solver solver = model.getSolver();
+            int[] chosen = new int[taskCount];
+            int[] chosenStart = new int[taskCount];
+            Solution greedySolution = warmStart(chosen, chosenStart);
+
+            // Incumbent-guided search; larger batches explore neighbourhoods of the greedy
+            // schedule (LNS) instead, which improves faster but can't prove optimality
+            IntVar[] decisionVars = decisions.toArray(new IntVar[0]);
+            solver.setSearch(Search.lastConflict(Search.intVarSearch(new InputOrder<>(model),
+                    new IntDomainLast(greedySolution, new IntDomainMin(), null), decisionVars)));
+            if (taskCount > COMPLETE_SEARCH_MAX_TASKS) {
+                solver.setLNS(INeighborFactory.random(decisionVars), greedySolution);
+            }
+            solver.limitTime(timeLimitMillis);
+            // Cancelled by a portfolio run: keep the incumbent
+            solver.addStopCriterion(() -> Thread.currentThread().isInterrupted());
+            while (solver.solve()) {
+                bestObjective = (long) objective.getValue();
+                for (int t = 0; t < taskCount; t++) {
+                    chosen[t] = decisions.get(2 * t).getValue();
+                    chosenStart[t] = decisions.get(2 * t + 1).getValue();
+                }
+            }
+
+            log.debug("Exact search: {} improving solutions, {} nodes, {} s",
+                    solver.getSolutionCount(), solver.getNodeCount(), solver.getTimeCount());
+            boolean complete = !solver.isStopCriterionMet();
+            lowerBound = complete ? bestObjective : Math.min(bestObjective, Math.max(relaxedBound,
+                    solver.getObjectiveManager().getBestLB().longValue()));
+            gap = bestObjective == 0 ? 0.0 : (double) (bestObjective - lowerBound) / bestObjective;
+
+            List<PlanningAssignment> assignments = new ArrayList<>(taskCount);
+            for (int t = 0; t < taskCount; t++) {
+                PlanningResource resource = resources.get(candidates.get(t)[chosen[t]]);
+                int duration = durations.get(t)[chosen[t]];
+                long start = resource.getCalendar().toWorkingMinute(origin + chosenStart[t]);
+                assignments.add(PlanningAssignment.of(tasks.get(t).toBuilder().durationMinutes(duration).build(),
+                        resource, start, start + duration));
+            }
+            return assignments;
+        }
+
+        /**
+         * Load the greedy schedule as the incumbent: only strictly better schedules are searched
+         * @return the greedy schedule as a solver solution, used to seed the search
+         */
+        private Solution warmStart(int[] chosen, int[] chosenStart) {
+            Solution solution = new Solution(model, decisions.toArray(new IntVar[0]));
+            long value = 0;
+            for (int t = 0; t < taskCount; t++) {
+                int c = greedyPlacement.get(t)[0];
+                chosen[t] = c;
+                chosenStart[t] = greedyPlacement.get(t)[1];
+                solution.setIntVal(decisions.get(2 * t), c);
+                solution.setIntVal(decisions.get(2 * t + 1), chosenStart[t]);
+
+                PlanningTask task = tasks.get(t);
+                long end = chosenStart[t] + durations.get(t)[c];
+                long due = WorkCalendar.epochMinute(task.getDueTime()) - origin;
+                value += (long) task.getTier().getWeight() * Math.max(0, end - due);
+            }
+            bestObjective = value;
+            if (value <= objective.getUB()) {
+                model.arithm(objective, "<", (int) value).post();
+            }
+            return solution;
+        }
+    }
+
+    // ========== INTERNAL HELPERS ==========
+
+    /**
+     * Wall-clock working windows of a resource, as [start, end) pairs relative to the horizon start
+     */
+    private long[] shiftWindows(WorkCalendar calendar, long origin, int horizon) {
+        List<Long> windows = new ArrayList<>();
+        long windowStart = -1;
+        long previous = -2;
+        for (long workingMinute = 0; ; workingMinute++) {
+            long wallClock = calendar.toEpochMinute(workingMinute) - origin;
+            if (wallClock >= horizon) {
+                break;
+            }
+            if (wallClock < 0) {
+                continue;
+            }
+            if (wallClock != previous + 1) {
+                if (windowStart >= 0) {
+                    windows.add(windowStart);
+                    windows.add(previous + 1);
+                }
+                windowStart = wallClock;
+            }
+            previous = wallClock;
+        }
+        if (windowStart >= 0) {
+            windows.add(windowStart);
+            windows.add(previous + 1);
+        }
+        return windows.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Start minutes that keep a task of the given duration inside one window and after its release
+     */
+    private int[] allowedStarts(long[] windows, int release, int duration) {
+        int count = 0;
+        for (int w = 0; w < windows.length; w += 2) {
+            count += (int) Math.max(0, windows[w + 1] - duration - Math.max(windows[w], release) + 1);
+        }
+        int[] values = new int[count];
+        int next = 0;
+        for (int w = 0; w < windows.length; w += 2) {
+            for (long s = Math.max(windows[w], release); s + duration <= windows[w + 1]; s++) {
+                values[next++] = (int) s;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Plannings already on a resource as wall-clock [start, end) windows keyed by start
+     */
+    private TreeMap<Integer, Integer> busyWindows(PlanningResource resource, long origin, int horizon) {
+        TreeMap<Integer, Integer> windows = new TreeMap<>();
+        for (BusyInterval busy : resource.getBusyIntervals()) {
+            int[] window = wallClockWindow(resource, busy, origin, horizon);
+            if (window != null) {
+                windows.merge(window[0], window[1], Math::max);
+            }
+        }
+        return windows;
+    }
+
+    /**
+     * Wall-clock window of a busy interval clipped to [0, horizon), null if outside
+     */
+    private int[] wallClockWindow(PlanningResource resource, BusyInterval busy, long origin, int horizon) {
+        long start = resource.getCalendar().toEpochMinute(busy.getStart()) - origin;
+        long end = resource.getCalendar().toEndEpochMinute(busy.getEnd()) - origin;
+        if (end <= 0 || start >= horizon) {
+            return null;
+        }
+        return new int[]{(int) Math.max(0, start), (int) Math.min(horizon, end)};
+    }
+
+    /**
+     * First allowed start at or after notBefore that doesn't overlap an occupied window, -1 if none
+     */
+    private int firstFreeStart(int[] allowedStarts, TreeMap<Integer, Integer> occupied, int notBefore, int duration) {
+        int candidate = notBefore;
+        while (true) {
+            int index = Arrays.binarySearch(allowedStarts, candidate);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            if (index >= allowedStarts.length) {
+                return -1;
+            }
+            int start = allowedStarts[index];
+            Map.Entry<Integer, Integer> conflict = occupied.lowerEntry(start + duration);
+            if (conflict == null || conflict.getValue() <= start) {
+                return start;
+            }
+            candidate = conflict.getValue();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.pcagrade.order.algorithm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Two-stage flow shop: grading (GRADER pool) then certification (CERTIFIER pool)
+ *
+ * Stage times split the order's modelled duration (the one every planner uses) by the
+ * configured grading share, so flow-shop plans add up to the same work as the others.
+ * Orders are sequenced with Johnson's rule on pool-normalised processing times
+ * (stage minutes / pool size), which minimises makespan for two stages and keeps
+ * the bottleneck pool busy. Each stage then goes into the earliest free slot of
+ * the pool member that finishes it first; certification never starts before
+ * grading ends.
+ */
+@Component
+@Slf4j
+public class FlowShopAlgorithm implements PlanningAlgorithm {
+
+    /**
+     * Part of an order's duration spent grading, the rest is certification
+     */
+    @Value("${planning.flowshop.grading-share:0.67}")
+    private double gradingShare;
+
+    @Override
+    public String getName() {
+        return "flowshop";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Two-stage flow shop (grading -> certification by role) sequenced with Johnson's rule";
+    }
+
+    @Override
+    public PlanningSolution solve(PlanningProblem problem) {
+        long startMillis = System.currentTimeMillis();
+        PlanningSolution.PlanningSolutionBuilder solution = PlanningSolution.builder().algorithm(getName());
+
+        List<PlanningResource> resources = problem.getResources();
+        List<Integer> graders = pool(resources, PlanningStage.GRADING);
+        List<Integer> certifiers = pool(resources, PlanningStage.CERTIFICATION);
+        if (graders.isEmpty() || certifiers.isEmpty()) {
+            log.warn("Flow shop needs at least one grader and one certifier ({} / {})", graders.size(), certifiers.size());
+            return solution.unassigned(problem.getTasks())
+                    .computeTimeMillis(System.currentTimeMillis() - startMillis)
+                    .build();
+        }
+
+        List<Job> jobs = new ArrayList<>(problem.getTasks().size());
+        double share = Math.min(1, Math.max(0, gradingShare));
+        for (PlanningTask task : problem.getTasks()) {
+            int gradingMinutes = (int) Math.round(task.getDurationMinutes() * share);
+            jobs.add(new Job(task,
+                    stageTask(task, PlanningStage.GRADING, gradingMinutes),
+                    stageTask(task, PlanningStage.CERTIFICATION, task.getDurationMinutes() - gradingMinutes),
+                    graders.size(), certifiers.size()));
+        }
+        jobs.sort(JOHNSON_ORDER);
+
+        // Shared by both pools so GRADER_CERTIFIER employees keep a single timeline
+        EmployeeTimeline[] timelines = new EmployeeTimeline[resources.size()];
+        for (int r = 0; r < resources.size(); r++) {
+            timelines[r] = resources.get(r).newTimeline();
+        }
+
+        for (Job job : jobs) {
+            long releaseEpoch = job.order.getReleaseTime() != null ?
+                    WorkCalendar.epochMinute(job.order.getReleaseTime()) : Long.MIN_VALUE;
+            PlanningAssignment grading = placeEarliest(job.grading, graders, resources, timelines, releaseEpoch);
+            long gradingEndEpoch = WorkCalendar.epochMinute(grading.getEndTime());
+            PlanningAssignment certification = placeEarliest(job.certification, certifiers, resources, timelines, gradingEndEpoch);
+            solution.assignment(grading).assignment(certification);
+        }
+
+        long elapsed = System.currentTimeMillis() - startMillis;
+        log.debug("Flow shop planned {} orders on {} graders / {} certifiers in {} ms",
+                jobs.size(), graders.size(), certifiers.size(), elapsed);
+        return solution.computeTimeMillis(elapsed).build();
+    }
+
+    // ========== INTERNAL HELPERS ==========
+
+    /**
+     * Johnson's rule: jobs faster on stage 1 first by increasing stage-1 time,
+     * then the others by decreasing stage-2 time; ties by due date
+     */
+    private static final Comparator<Job> JOHNSON_ORDER = Comparator
+            .comparingInt((Job job) -> job.firstGroup() ? 0 : 1)
+            .thenComparingDouble(job -> job.firstGroup() ? job.gradingLoad : -job.certificationLoad)
+            .thenComparing(job -> job.order, EarliestDeadlineFirstAlgorithm.DEADLINE_ORDER);
+
+    private static class Job {
+        final PlanningTask order;
+        final PlanningTask grading;
+        final PlanningTask certification;
+        final double gradingLoad;
+        final double certificationLoad;
+
+        Job(PlanningTask order, PlanningTask grading, PlanningTask certification, int graders, int certifiers) {
+            this.order = order;
+            this.grading = grading;
+            this.certification = certification;
+            this.gradingLoad = (double) grading.getDurationMinutes() / graders;
+            this.certificationLoad = (double) certification.getDurationMinutes() / certifiers;
+        }
+
+        boolean firstGroup() {
+            return gradingLoad <= certificationLoad;
+        }
+    }
+
+    private PlanningTask stageTask(PlanningTask order, PlanningStage stage, int minutes) {
+        return order.toBuilder()
+                .stage(stage)
+                .durationMinutes(Math.max(1, minutes))
+                .build();
+    }
+
+    private List<Integer> pool(List<PlanningResource> resources, PlanningStage stage) {
+        List<Integer> pool = new ArrayList<>();
+        for (int r = 0; r < resources.size(); r++) {
+            if (stage.accepts(resources.get(r).getRole())) {
+                pool.add(r);
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Put a stage in the earliest free slot of the pool member that finishes it first
+     * at its own speed, not before notBeforeEpoch
+     */
+    private PlanningAssignment placeEarliest(PlanningTask task, List<Integer> pool, List<PlanningResource> resources,
+                                             EmployeeTimeline[] timelines, long notBeforeEpoch) {
+        int best = -1;
+        int bestMinutes = 0;
+        long bestStart = 0;
+        long bestEndEpoch = Long.MAX_VALUE;
+        for (int r : pool) {
+            WorkCalendar calendar = resources.get(r).getCalendar();
+            int minutes = resources.get(r).actualMinutes(task.getDurationMinutes());
+            long notBefore = notBeforeEpoch == Long.MIN_VALUE ? 0 : calendar.toWorkingMinute(notBeforeEpoch);
+            long start = timelines[r].findEarliestGap(minutes, notBefore);
+            long endEpoch = calendar.toEndEpochMinute(start + minutes);
+            if (endEpoch < bestEndEpoch
+                    || (endEpoch == bestEndEpoch && timelines[r].getBusyMinutes() < timelines[best].getBusyMinutes())) {
+                best = r;
+                bestMinutes = minutes;
+                bestStart = start;
+                bestEndEpoch = endEpoch;
+            }
+        }
+
+        long end = bestStart + bestMinutes;
+        timelines[best].insert(bestStart, end);
+        PlanningTask planned = bestMinutes == task.getDurationMinutes() ?
+                task : task.toBuilder().durationMinutes(bestMinutes).build();
+        return PlanningAssignment.of(planned, resources.get(best), bestStart, end);
+    }
+}
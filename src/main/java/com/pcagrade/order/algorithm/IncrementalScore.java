@@ -0,0 +1,106 @@
+package com.pcagrade.order.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted score of one schedule (lower is better), kept up to date as assignments
+ * are inserted, retracted or replaced one at a time
+ * Created by {@link ScoreCalculator}; not thread-safe.
+ */
+public class IncrementalScore {
+
+    private final List<ScoreConstraint> constraints;
+    private final double[] weights;
+    private final ScoreConstraint.State[] states;
+
+    IncrementalScore(List<ScoreConstraint> constraints, double[] weights, Collection<PlanningResource> resources) {
+        this.constraints = constraints;
+        this.weights = weights;
+        this.states = new ScoreConstraint.State[constraints.size()];
+        for (int c = 0; c < states.length; c++) {
+            states[c] = constraints.get(c).newState(resources);
+        }
+    }
+
+    public void insert(PlanningAssignment assignment) {
+        for (ScoreConstraint.State state : states) {
+            state.insert(assignment);
+        }
+    }
+
+    public void retract(PlanningAssignment assignment) {
+        for (ScoreConstraint.State state : states) {
+            state.retract(assignment);
+        }
+    }
+
+    /**
+     * Swap one assignment for another (moved to another employee or time)
+     * @return score change, negative when the schedule improved
+     */
+    public double replace(PlanningAssignment current, PlanningAssignment replacement) {
+        double before = getTotal();
+        retract(current);
+        insert(replacement);
+        return getTotal() - before;
+    }
+
+    public void insertUnassigned(PlanningTask task) {
+        for (ScoreConstraint.State state : states) {
+            state.insertUnassigned(task);
+        }
+    }
+
+    public void retractUnassigned(PlanningTask task) {
+        for (ScoreConstraint.State state : states) {
+            state.retractUnassigned(task);
+        }
+    }
+
+    /**
+     * @return sum of weight x penalty over the constraints
+     */
+    public double getTotal() {
+        double total = 0;
+        for (int c = 0; c < states.length; c++) {
+            total += weights[c] * states[c].getPenalty();
+        }
+        return total;
+    }
+
+    /**
+     * @param name constraint name
+     * @return penalty of that constraint before its weight, 0 if it is not active
+     */
+    public double getPenalty(String name) {
+        for (int c = 0; c < states.length; c++) {
+            if (constraints.get(c).getName().equals(name)) {
+                return states[c].getPenalty();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return total and weight / penalty / weighted penalty per constraint
+     */
+    public Map<String, Object> toMap() {
+        List<Map<String, Object>> breakdown = new ArrayList<>(states.length);
+        for (int c = 0; c < states.length; c++) {
+            Map<String, Object> constraint = new LinkedHashMap<>();
+            constraint.put("name", constraints.get(c).getName());
+            constraint.put("weight", weights[c]);
+            constraint.put("penalty", states[c].getPenalty());
+            constraint.put("weighted", weights[c] * states[c].getPenalty());
+            breakdown.add(constraint);
+        }
+        Map<String, Object> score = new LinkedHashMap<>();
+        score.put("total", getTotal());
+        score.put("constraints", breakdown);
+        return score;
+    }
+}
@@ -0,0 +1,185 @@
+package com.pcagrade.order.algorithm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optimal single-day assignment as a min-cost transportation problem
+ *
+ * Orders are grouped into classes (tier, duration) and flow is counted in nominal
+ * order-minutes: source -> class (all minutes of the class), class -> employee
+ * (cost = time the employee actually spends per nominal minute, i.e. 1 / speed),
+ * class -> sink "not today" (cost = tier weight x penalty), employee -> sink
+ * (free minutes of the first horizon day x speed). The successive-shortest-path
+ * solution is optimal for this relaxation; per-employee flows are then rounded
+ * down to whole orders (earliest due first within a class) and leftovers fill
+ * the remaining capacity first-fit. Orders not placed today stay unassigned.
+ */
+@Component
+@Slf4j
+public class MinCostAssignmentAlgorithm implements PlanningAlgorithm {
+
+    // ========== CONSTANTS ==========
+    private static final long COST_SCALE = 1000;
+    private static final long UNASSIGNED_PENALTY = 10 * COST_SCALE;
+
+    @Override
+    public String getName() {
+        return "mincost";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Optimal daily assignment (min-cost flow on tier/duration classes, capacity = workHoursPerDay, speed-aware)";
+    }
+
+    @Override
+    public PlanningSolution solve(PlanningProblem problem) {
+        long startMillis = System.currentTimeMillis();
+        List<PlanningResource> resources = problem.getResources();
+        PlanningSolution.PlanningSolutionBuilder solution = PlanningSolution.builder().algorithm(getName());
+        if (resources.isEmpty() || problem.getTasks().isEmpty()) {
+            return solution.unassigned(problem.getTasks())
+                    .computeTimeMillis(System.currentTimeMillis() - startMillis)
+                    .build();
+        }
+
+        // Classes of interchangeable orders, earliest due first inside a class
+        Map<Long, List<PlanningTask>> classes = new LinkedHashMap<>();
+        for (PlanningTask task : problem.getTasks()) {
+            long key = (long) task.getTier().ordinal() << 32 | task.getDurationMinutes();
+            classes.computeIfAbsent(key, c -> new ArrayList<>()).add(task);
+        }
+        List<List<PlanningTask>> classList = new ArrayList<>(classes.values());
+        classList.forEach(tasks -> tasks.sort(EarliestDeadlineFirstAlgorithm.DEADLINE_ORDER));
+
+        int k = resources.size();
+        int c = classList.size();
+        int source = 0;
+        int sink = c + k + 1;
+        long[] dayWindow = new long[k * 2];
+        long[] freeMinutes = new long[k];
+        for (int r = 0; r < k; r++) {
+            freeMinutes[r] = firstDayFreeMinutes(resources.get(r), problem.getHorizonStart(), dayWindow, r);
+        }
+
+        MinCostFlow network = new MinCostFlow(c + k + 2, c * (k + 2) + k);
+        int[][] classToEmployee = new int[c][k];
+        long totalMinutes = 0;
+        for (int i = 0; i < c; i++) {
+            List<PlanningTask> tasks = classList.get(i);
+            PlanningTask sample = tasks.get(0);
+            long minutes = (long) tasks.size() * sample.getDurationMinutes();
+            totalMinutes += minutes;
+            network.addArc(source, 1 + i, minutes, 0);
+            network.addArc(1 + i, sink, minutes, sample.getTier().getWeight() * UNASSIGNED_PENALTY);
+            for (int r = 0; r < k; r++) {
+                long perMinute = Math.round(COST_SCALE / Math.max(0.1, resources.get(r).getSpeedFactor()));
+                classToEmployee[i][r] = network.addArc(1 + i, 1 + c + r, minutes, perMinute);
+            }
+        }
+        for (int r = 0; r < k; r++) {
+            long nominalCapacity = (long) Math.floor(freeMinutes[r] * resources.get(r).getSpeedFactor());
+            network.addArc(1 + c + r, sink, nominalCapacity, 0);
+        }
+        long[] result = network.solve(source, sink, totalMinutes);
+
+        // Round flows down to whole orders
+        List<List<PlanningTask>> perResource = new ArrayList<>();
+        long[] remaining = new long[k];
+        for (int r = 0; r < k; r++) {
+            perResource.add(new ArrayList<>());
+            remaining[r] = freeMinutes[r];
+        }
+        List<PlanningTask> leftovers = new ArrayList<>();
+        for (int i = 0; i < c; i++) {
+            List<PlanningTask> tasks = classList.get(i);
+            int duration = tasks.get(0).getDurationMinutes();
+            int next = 0;
+            for (int r = 0; r < k; r++) {
+                long orders = network.getFlow(classToEmployee[i][r]) / duration;
+                for (long o = 0; o < orders && next < tasks.size(); o++) {
+                    PlanningTask task = tasks.get(next++);
+                    perResource.get(r).add(task);
+                    remaining[r] -= resources.get(r).actualMinutes(duration);
+                }
+            }
+            leftovers.addAll(tasks.subList(next, tasks.size()));
+        }
+
+        // Leftovers: most urgent first, first employee with room
+        leftovers.sort(Comparator.comparing(PlanningTask::getTier).thenComparing(EarliestDeadlineFirstAlgorithm.DEADLINE_ORDER));
+        for (PlanningTask task : leftovers) {
+            int placed = -1;
+            for (int r = 0; r < k && placed < 0; r++) {
+                if (remaining[r] >= resources.get(r).actualMinutes(task.getDurationMinutes())) {
+                    placed = r;
+                }
+            }
+            if (placed < 0) {
+                solution.unassignedTask(task);
+                continue;
+            }
+            perResource.get(placed).add(task);
+            remaining[placed] -= resources.get(placed).actualMinutes(task.getDurationMinutes());
+        }
+
+        // Place on the first day: tier by tier, due date inside a tier
+        for (int r = 0; r < k; r++) {
+            PlanningResource resource = resources.get(r);
+            EmployeeTimeline timeline = resource.newTimeline();
+            List<PlanningTask> sequence = perResource.get(r);
+            sequence.sort(Comparator.comparing(PlanningTask::getTier).thenComparing(EarliestDeadlineFirstAlgorithm.DEADLINE_ORDER));
+            for (PlanningTask task : sequence) {
+                int minutes = resource.actualMinutes(task.getDurationMinutes());
+                long start = timeline.findEarliestGap(minutes, dayWindow[2 * r]);
+                if (start + minutes > dayWindow[2 * r + 1]) {
+                    // Free time of the day is fragmented by existing plannings
+                    solution.unassignedTask(task);
+                    continue;
+                }
+                timeline.insert(start, start + minutes);
+                solution.assignment(PlanningAssignment.of(task.toBuilder().durationMinutes(minutes).build(),
+                        resource, start, start + minutes));
+            }
+        }
+
+        long elapsed = System.currentTimeMillis() - startMillis;
+        log.debug("Min-cost assignment: {} classes, {} employees, flow {} / {} min, cost {}, {} ms",
+                c, k, result[0], totalMinutes, result[1], elapsed);
+        return solution.computeTimeMillis(elapsed).build();
+    }
+
+    /**
+     * Working minutes of the horizon's first day that are not already planned
+     * Stores the day's [start, end) working-minute window in dayWindow[2r], dayWindow[2r+1].
+     */
+    private long firstDayFreeMinutes(PlanningResource resource, LocalDate day, long[] dayWindow, int r) {
+        WorkCalendar calendar = resource.getCalendar();
+        long dayStart = calendar.toWorkingMinute(WorkCalendar.epochMinute(day.atStartOfDay()));
+        long dayEnd = calendar.toWorkingMinute(WorkCalendar.epochMinute(day.plusDays(1).atStartOfDay()));
+        dayWindow[2 * r] = dayStart;
+        dayWindow[2 * r + 1] = dayEnd;
+
+        List<BusyInterval> busy = new ArrayList<>(resource.getBusyIntervals());
+        busy.sort(Comparator.comparingLong(BusyInterval::getStart));
+        long covered = 0;
+        long cursor = dayStart;
+        for (BusyInterval interval : busy) {
+            long start = Math.max(cursor, interval.getStart());
+            long end = Math.min(dayEnd, interval.getEnd());
+            if (end > start) {
+                covered += end - start;
+                cursor = end;
+            }
+        }
+        return Math.max(0, dayEnd - dayStart - covered);
+    }
+}
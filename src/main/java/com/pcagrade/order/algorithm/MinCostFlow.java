@@ -0,0 +1,185 @@
+package com.pcagrade.order.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Successive-shortest-path min-cost flow over primitive arrays
+ *
+ * Dijkstra with Johnson potentials (costs must be non-negative initially).
+ * Arcs are stored in pairs: arc e and its residual e ^ 1.
+ */
+public class MinCostFlow {
+
+    private final int nodeCount;
+    private int[] head;
+    private int[] next;
+    private int[] to;
+    private long[] capacity;
+    private long[] cost;
+    private int arcCount;
+
+    public MinCostFlow(int nodeCount, int expectedArcs) {
+        this.nodeCount = nodeCount;
+        this.head = new int[nodeCount];
+        Arrays.fill(head, -1);
+        int size = Math.max(2, expectedArcs * 2);
+        this.next = new int[size];
+        this.to = new int[size];
+        this.capacity = new long[size];
+        this.cost = new long[size];
+    }
+
+    /**
+     * Add an arc
+     * @return arc index, for {@link #getFlow(int)}
+     */
+    public int addArc(int from, int target, long arcCapacity, long arcCost) {
+        if (arcCost < 0) {
+            throw new IllegalArgumentException("Arc costs must be non-negative");
+        }
+        ensureCapacity(arcCount + 2);
+        int arc = arcCount;
+        link(from, target, arcCapacity, arcCost);
+        link(target, from, 0, -arcCost);
+        return arc;
+    }
+
+    /**
+     * @return flow currently on an arc returned by addArc
+     */
+    public long getFlow(int arc) {
+        return capacity[arc ^ 1];
+    }
+
+    /**
+     * Send up to maxFlow units from source to sink at minimum cost
+     * @return {flow, cost}
+     */
+    public long[] solve(int source, int sink, long maxFlow) {
+        long[] potential = new long[nodeCount];
+        long[] distance = new long[nodeCount];
+        int[] previousArc = new int[nodeCount];
+        long flow = 0;
+        long totalCost = 0;
+
+        while (flow < maxFlow) {
+            Arrays.fill(distance, Long.MAX_VALUE);
+            Arrays.fill(previousArc, -1);
+            distance[source] = 0;
+            dijkstra(source, potential, distance, previousArc);
+            if (distance[sink] == Long.MAX_VALUE) {
+                break;
+            }
+            for (int v = 0; v < nodeCount; v++) {
+                if (distance[v] != Long.MAX_VALUE) {
+                    potential[v] += distance[v];
+                }
+            }
+
+            long push = maxFlow - flow;
+            for (int v = sink; v != source; v = to[previousArc[v] ^ 1]) {
+                push = Math.min(push, capacity[previousArc[v]]);
+            }
+            for (int v = sink; v != source; v = to[previousArc[v] ^ 1]) {
+                capacity[previousArc[v]] -= push;
+                capacity[previousArc[v] ^ 1] += push;
+                totalCost += push * cost[previousArc[v]];
+            }
+            flow += push;
+        }
+        return new long[]{flow, totalCost};
+    }
+
+    private void dijkstra(int source, long[] potential, long[] distance, int[] previousArc) {
+        // Binary heap of (distance, node) packed in parallel arrays
+        long[] heapKey = new long[Math.max(16, arcCount + 1)];
+        int[] heapNode = new int[heapKey.length];
+        int size = 0;
+        heapKey[size] = 0;
+        heapNode[size++] = source;
+
+        while (size > 0) {
+            long d = heapKey[0];
+            int u = heapNode[0];
+            size--;
+            heapKey[0] = heapKey[size];
+            heapNode[0] = heapNode[size];
+            siftDown(heapKey, heapNode, size);
+            if (d > distance[u]) {
+                continue;
+            }
+            for (int arc = head[u]; arc != -1; arc = next[arc]) {
+                if (capacity[arc] <= 0) {
+                    continue;
+                }
+                int v = to[arc];
+                long candidate = d + cost[arc] + potential[u] - potential[v];
+                if (candidate < distance[v]) {
+                    distance[v] = candidate;
+                    previousArc[v] = arc;
+                    if (size == heapKey.length) {
+                        heapKey = Arrays.copyOf(heapKey, size * 2);
+                        heapNode = Arrays.copyOf(heapNode, size * 2);
+                    }
+                    heapKey[size] = candidate;
+                    heapNode[size] = v;
+                    siftUp(heapKey, heapNode, size++);
+                }
+            }
+        }
+    }
+
+    private static void siftUp(long[] key, int[] node, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (key[parent] <= key[i]) {
+                break;
+            }
+            swap(key, node, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(long[] key, int[] node, int size) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            int smallest = left + 1 < size && key[left + 1] < key[left] ? left + 1 : left;
+            if (key[i] <= key[smallest]) {
+                break;
+            }
+            swap(key, node, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(long[] key, int[] node, int a, int b) {
+        long k = key[a];
+        key[a] = key[b];
+        key[b] = k;
+        int n = node[a];
+        node[a] = node[b];
+        node[b] = n;
+    }
+
+    private void link(int from, int target, long arcCapacity, long arcCost) {
+        to[arcCount] = target;
+        capacity[arcCount] = arcCapacity;
+        cost[arcCount] = arcCost;
+        next[arcCount] = head[from];
+        head[from] = arcCount++;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > to.length) {
+            int newSize = Math.max(size, to.length * 2);
+            next = Arrays.copyOf(next, newSize);
+            to = Arrays.copyOf(to, newSize);
+            capacity = Arrays.copyOf(capacity, newSize);
+            cost = Arrays.copyOf(cost, newSize);
+        }
+    }
+}
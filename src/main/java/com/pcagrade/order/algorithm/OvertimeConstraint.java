@@ -0,0 +1,90 @@
+package com.pcagrade.order.algorithm;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minutes worked beyond the employee's workHoursPerDay, day by day
+ *
+ * Each employee keeps its worked minutes per calendar day, so an update only touches
+ * the days the assignment covers. Work placed outside the calendar (manual moves,
+ * legacy generators) counts on the day the assignment starts.
+ */
+@Component
+public class OvertimeConstraint implements ScoreConstraint {
+
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    @Override
+    public String getName() {
+        return "overtime";
+    }
+
+    @Override
+    public double getDefaultWeight() {
+        return 1.0;
+    }
+
+    @Override
+    public State newState(Collection<PlanningResource> resources) {
+        return new State() {
+            // employee -> epoch day -> worked minutes
+            private final Map<String, Map<Long, Long>> workedByEmployee = new HashMap<>();
+            private long penalty;
+
+            @Override
+            public void insert(PlanningAssignment assignment) {
+                add(assignment, 1);
+            }
+
+            @Override
+            public void retract(PlanningAssignment assignment) {
+                add(assignment, -1);
+            }
+
+            private void add(PlanningAssignment assignment, int sign) {
+                PlanningResource resource = assignment.getResource();
+                WorkCalendar calendar = resource.getCalendar();
+                Map<Long, Long> worked = workedByEmployee.computeIfAbsent(resource.getEmployeeId(), id -> new HashMap<>());
+                long start = assignment.getStartMinute();
+                long end = assignment.getEndMinute();
+
+                long outside = Math.max(0, assignment.getTask().getDurationMinutes() - (end - start));
+                addToDay(worked, Math.floorDiv(calendar.toEpochMinute(start), MINUTES_PER_DAY),
+                        sign * outside, resource.getWorkHoursPerDay());
+                for (long minute = start; minute < end; ) {
+                    long day = Math.floorDiv(calendar.toEpochMinute(minute), MINUTES_PER_DAY);
+                    long next = Math.min(end, Math.max(minute + 1, calendar.toWorkingMinute((day + 1) * MINUTES_PER_DAY)));
+                    addToDay(worked, day, sign * (next - minute), resource.getWorkHoursPerDay());
+                    minute = next;
+                }
+                if (worked.isEmpty()) {
+                    workedByEmployee.remove(resource.getEmployeeId());
+                }
+            }
+
+            private void addToDay(Map<Long, Long> worked, long day, long minutes, int workHoursPerDay) {
+                if (minutes == 0) {
+                    return;
+                }
+                long before = worked.getOrDefault(day, 0L);
+                long after = before + minutes;
+                penalty += ScoreCalculator.overtimeMinutes(after, workHoursPerDay)
+                        - ScoreCalculator.overtimeMinutes(before, workHoursPerDay);
+                if (after == 0) {
+                    worked.remove(day);
+                } else {
+                    worked.put(day, after);
+                }
+            }
+
+            @Override
+            public double getPenalty() {
+                return penalty;
+            }
+        };
+    }
+}
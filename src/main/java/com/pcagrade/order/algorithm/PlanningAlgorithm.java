@@ -0,0 +1,25 @@
+package com.pcagrade.order.algorithm;
+
+/**
+ * A planning algorithm: turns a problem into a solution without touching the database
+ * Implementations are Spring beans and are picked up by PlanningEngineService by name.
+ */
+public interface PlanningAlgorithm {
+
+    /**
+     * @return short unique name used in the API (e.g. "edf")
+     */
+    String getName();
+
+    /**
+     * @return one-line description for the algorithms endpoint
+     */
+    String getDescription();
+
+    /**
+     * Solve a planning problem
+     * @param problem immutable input
+     * @return solution (assignments + unassigned tasks)
+     */
+    PlanningSolution solve(PlanningProblem problem);
+}
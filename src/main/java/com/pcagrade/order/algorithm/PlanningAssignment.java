@@ -0,0 +1,63 @@
+package com.pcagrade.order.algorithm;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * A task placed on a resource
+ */
+@Value
+@Builder(toBuilder = true)
+public class PlanningAssignment {
+
+    PlanningTask task;
+
+    PlanningResource resource;
+
+    /**
+     * Start on the resource working-minute axis (inclusive)
+     */
+    long startMinute;
+
+    /**
+     * End on the resource working-minute axis (exclusive)
+     */
+    long endMinute;
+
+    LocalDateTime startTime;
+
+    LocalDateTime endTime;
+
+    /**
+     * Completion minus due date, negative when early
+     * @return lateness in minutes
+     */
+    public long getLatenessMinutes() {
+        return Duration.between(task.getDueTime(), endTime).toMinutes();
+    }
+
+    /**
+     * @return max(0, lateness) in minutes
+     */
+    public long getTardinessMinutes() {
+        return Math.max(0, getLatenessMinutes());
+    }
+
+    /**
+     * Build an assignment, converting working minutes to wall-clock times
+     */
+    public static PlanningAssignment of(PlanningTask task, PlanningResource resource, long startMinute, long endMinute) {
+        WorkCalendar calendar = resource.getCalendar();
+        return PlanningAssignment.builder()
+                .task(task)
+                .resource(resource)
+                .startMinute(startMinute)
+                .endMinute(endMinute)
+                .startTime(WorkCalendar.dateTime(calendar.toEpochMinute(startMinute)))
+                .endTime(WorkCalendar.dateTime(calendar.toEndEpochMinute(endMinute)))
+                .build();
+    }
+}
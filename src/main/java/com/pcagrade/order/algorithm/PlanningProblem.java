@@ -0,0 +1,32 @@
+package com.pcagrade.order.algorithm;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Immutable input of a planning algorithm
+ */
+@Value
+@Builder(toBuilder = true)
+public class PlanningProblem {
+
+    /**
+     * First day that can be planned
+     */
+    LocalDate horizonStart;
+
+    @Singular
+    List<PlanningTask> tasks;
+
+    @Singular
+    List<PlanningResource> resources;
+
+    /**
+     * Wall-clock budget for time-bounded algorithms, 0 = algorithm default
+     */
+    long timeBudgetMillis;
+}
@@ -0,0 +1,81 @@
+package com.pcagrade.order.algorithm;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * An employee as seen by the planning algorithms
+ */
+@Value
+@Builder(toBuilder = true)
+public class PlanningResource {
+
+    /**
+     * Employee ID (hex, no dashes)
+     */
+    String employeeId;
+
+    String name;
+
+    /**
+     * GRADER, CERTIFIER, ...
+     */
+    String role;
+
+    WorkCalendar calendar;
+
+    /**
+     * Relative working speed (1.0 = nominal, 1.25 = needs 20% less time)
+     */
+    @Builder.Default
+    double speedFactor = 1.0;
+
+    /**
+     * Contracted daily hours, work beyond them on one day is overtime
+     */
+    @Builder.Default
+    int workHoursPerDay = 8;
+
+    /**
+     * Already scheduled work on the working-minute axis (existing plannings)
+     */
+    @Singular
+    List<BusyInterval> busyIntervals;
+
+    /**
+     * Time this employee needs for a nominal duration
+     * @param nominalMinutes duration at speed 1.0
+     * @return minutes (at least 1)
+     */
+    public int actualMinutes(int nominalMinutes) {
+        return Math.max(1, (int) Math.ceil(nominalMinutes / (speedFactor > 0 ? speedFactor : 1.0)));
+    }
+
+    /**
+     * Same employee on another calendar, existing plannings moved onto its working-minute axis
+     * Plannings falling entirely outside the new calendar's availability disappear.
+     * @param other new calendar
+     * @return new resource, this one is unchanged
+     */
+    public PlanningResource withCalendar(WorkCalendar other) {
+        PlanningResourceBuilder builder = toBuilder().calendar(other).clearBusyIntervals();
+        for (BusyInterval interval : busyIntervals) {
+            long start = other.toWorkingMinute(calendar.toEpochMinute(interval.getStart()));
+            long end = other.toWorkingMinute(calendar.toEndEpochMinute(interval.getEnd()));
+            if (end > start) {
+                builder.busyInterval(new BusyInterval(start, end));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return a fresh free-slot index seeded with the existing plannings
+     */
+    public EmployeeTimeline newTimeline() {
+        return EmployeeTimeline.of(0, busyIntervals);
+    }
+}
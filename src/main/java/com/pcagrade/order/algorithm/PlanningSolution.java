@@ -0,0 +1,37 @@
+package com.pcagrade.order.algorithm;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Output of a planning algorithm
+ */
+@Value
+@Builder(toBuilder = true)
+public class PlanningSolution {
+
+    /**
+     * Name of the algorithm that produced the solution
+     */
+    String algorithm;
+
+    @Singular
+    List<PlanningAssignment> assignments;
+
+    /**
+     * Tasks the algorithm could not place
+     */
+    @Singular("unassignedTask")
+    List<PlanningTask> unassigned;
+
+    /**
+     * Relative gap between the returned objective and the best proven bound,
+     * null for heuristics (0 = proven optimal)
+     */
+    Double optimalityGap;
+
+    long computeTimeMillis;
+}
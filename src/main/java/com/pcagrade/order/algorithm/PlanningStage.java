@@ -0,0 +1,31 @@
+package com.pcagrade.order.algorithm;
+
+/**
+ * Operation of an order in the two-stage flow shop (grading, then certification)
+ * A task without stage covers the whole order.
+ */
+public enum PlanningStage {
+    GRADING,
+    CERTIFICATION;
+
+    /**
+     * Whether an employee role can perform this stage
+     * GRADER_CERTIFIER employees belong to both pools.
+     * @param role employee role
+     * @return true if the role matches the stage pool
+     */
+    public boolean accepts(String role) {
+        String normalized = role == null ? "GRADER" : role.trim().toUpperCase();
+        return switch (this) {
+            case GRADING -> normalized.equals("GRADER") || normalized.equals("GRADER_CERTIFIER");
+            case CERTIFICATION -> normalized.equals("CERTIFIER") || normalized.equals("GRADER_CERTIFIER");
+        };
+    }
+
+    /**
+     * @return true if completing this stage completes the order
+     */
+    public boolean isFinal() {
+        return this == CERTIFICATION;
+    }
+}
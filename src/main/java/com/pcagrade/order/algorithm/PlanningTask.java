@@ -0,0 +1,77 @@
+package com.pcagrade.order.algorithm;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * One unit of work to schedule (an order, for now)
+ */
+@Value
+@Builder(toBuilder = true)
+public class PlanningTask {
+
+    /**
+     * Order ID (hex, no dashes)
+     */
+    String orderId;
+
+    String orderNumber;
+
+    int cardCount;
+
+    int durationMinutes;
+
+    SlaTier tier;
+
+    /**
+     * Earliest start (order date)
+     */
+    LocalDateTime releaseTime;
+
+    /**
+     * SLA due date (order date + tier SLA days)
+     */
+    LocalDateTime dueTime;
+
+    /**
+     * Flow-shop stage, null when the task covers the whole order
+     */
+    PlanningStage stage;
+
+    /**
+     * Similarity key of the task's cards (configured fields, e.g. "FR|2"), null when unknown
+     * Consecutive tasks with different keys cost a changeover on the same employee.
+     */
+    String setupKey;
+
+    /**
+     * Position among the chunks of a split order (0-based)
+     */
+    int chunkIndex;
+
+    /**
+     * Number of chunks of the order, 1 when the task covers all its cards
+     */
+    @Builder.Default
+    int chunkCount = 1;
+
+    /**
+     * Card range of the chunk (1-based, inclusive), 0 when not split or split by setup key
+     */
+    int cardRangeStart;
+
+    int cardRangeEnd;
+
+    public boolean isChunk() {
+        return chunkCount > 1;
+    }
+
+    /**
+     * @return true if completing this task completes the order
+     */
+    public boolean isFinalStage() {
+        return stage == null || stage.isFinal();
+    }
+}
@@ -0,0 +1,139 @@
+package com.pcagrade.order.algorithm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Portfolio: runs several registered algorithms concurrently and keeps the best
+ *
+ * Every candidate solves the same immutable {@link PlanningProblem} on its own
+ * virtual thread and is ranked with the shared {@link ScoreCalculator}. Once a
+ * candidate places every order with no SLA lateness, what is left to win is only
+ * balance and setup, so the others are cancelled; candidates still running when
+ * the time budget plus a grace period has elapsed are cancelled too. Only the winning solution is returned - and
+ * therefore persisted - under the winner's name.
+ */
+@Component
+@Slf4j
+public class PortfolioPlanningAlgorithm implements PlanningAlgorithm {
+
+    // ========== CONSTANTS ==========
+    private static final List<String> SETTLING_CONSTRAINTS = List.of("sla-lateness", "unassigned");
+
+    @Autowired
+    private ObjectProvider<PlanningAlgorithm> algorithmProvider;
+
+    @Autowired
+    private ScoreCalculator scoreCalculator;
+
+    @Value("${planning.portfolio.algorithms:edf,annealing,exact}")
+    private List<String> candidateNames;
+
+    @Value("${planning.portfolio.time-budget-ms:3000}")
+    private long defaultTimeBudgetMillis;
+
+    @Value("${planning.portfolio.grace-ms:2000}")
+    private long graceMillis;
+
+    @Override
+    public String getName() {
+        return "portfolio";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Runs " + String.join(", ", candidateNames) + " concurrently and keeps the best-scoring solution";
+    }
+
+    @Override
+    public PlanningSolution solve(PlanningProblem problem) {
+        long startMillis = System.currentTimeMillis();
+        List<PlanningAlgorithm> candidates = candidates();
+        if (candidates.isEmpty()) {
+            throw new IllegalStateException("No portfolio algorithm available among " + candidateNames);
+        }
+
+        long budget = problem.getTimeBudgetMillis() > 0 ? problem.getTimeBudgetMillis() : defaultTimeBudgetMillis;
+        PlanningProblem snapshot = problem.toBuilder().timeBudgetMillis(budget).build();
+        long deadline = startMillis + budget + graceMillis;
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CompletionService<PlanningSolution> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<PlanningSolution>, String> running = new HashMap<>();
+        for (PlanningAlgorithm candidate : candidates) {
+            running.put(completion.submit(() -> candidate.solve(snapshot)), candidate.getName());
+        }
+
+        PlanningSolution best = null;
+        double bestScore = Double.MAX_VALUE;
+        boolean settled = false;
+        Map<String, Double> scores = new HashMap<>();
+        try {
+            while (!running.isEmpty() && !settled) {
+                long remaining = deadline - System.currentTimeMillis();
+                Future<PlanningSolution> done = completion.poll(Math.max(0, remaining), TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    log.warn("Portfolio deadline reached, cancelling {}", running.values());
+                    break;
+                }
+                String name = running.remove(done);
+                try {
+                    PlanningSolution solution = done.get();
+                    IncrementalScore score = scoreCalculator.score(solution, problem.getResources());
+                    scores.put(name, score.getTotal());
+                    if (score.getTotal() < bestScore) {
+                        best = solution;
+                        bestScore = score.getTotal();
+                        settled = SETTLING_CONSTRAINTS.stream().allMatch(constraint -> score.getPenalty(constraint) == 0);
+                    }
+                } catch (ExecutionException e) {
+                    log.warn("Portfolio candidate {} failed: {}", name, e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.keySet().forEach(future -> future.cancel(true));
+            executor.shutdownNow();
+        }
+
+        if (best == null) {
+            throw new IllegalStateException("No portfolio candidate finished within " + (deadline - startMillis) + " ms");
+        }
+        long elapsed = System.currentTimeMillis() - startMillis;
+        log.info("Portfolio: winner {} (score {}), scores {}, cancelled {}, {} ms",
+                best.getAlgorithm(), Math.round(bestScore), scores, running.values(), elapsed);
+        return best.toBuilder().computeTimeMillis(elapsed).build();
+    }
+
+    private List<PlanningAlgorithm> candidates() {
+        Map<String, PlanningAlgorithm> registered = new HashMap<>();
+        algorithmProvider.forEach(algorithm -> registered.put(algorithm.getName(), algorithm));
+
+        List<PlanningAlgorithm> candidates = new ArrayList<>();
+        for (String name : candidateNames) {
+            PlanningAlgorithm algorithm = registered.get(name.trim());
+            if (algorithm == null || algorithm == this) {
+                log.warn("Ignoring portfolio candidate {} (unknown or the portfolio itself)", name);
+                continue;
+            }
+            candidates.add(algorithm);
+        }
+        return candidates;
+    }
+}
@@ -0,0 +1,222 @@
+package com.pcagrade.order.algorithm;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lateness / tardiness reporting shared by all planning algorithms
+ */
+public final class ScheduleMetrics {
+
+    /**
+     * Score cost of leaving an order unplanned, per tier weight: a week of tardiness
+     */
+    public static final long UNASSIGNED_PENALTY_MINUTES = 7 * 24 * 60;
+
+    private ScheduleMetrics() {
+    }
+
+    /**
+     * Assignment that completes each fully planned order: its last final-stage task, so the
+     * ETA of a split order is the end of its last chunk
+     * @param solution solution to evaluate
+     * @return one assignment per order, orders with unplanned tasks excluded
+     */
+    public static Collection<PlanningAssignment> orderCompletions(PlanningSolution solution) {
+        Map<String, PlanningTask> unplanned = unplannedOrders(solution);
+        Map<String, PlanningAssignment> completions = new HashMap<>();
+        for (PlanningAssignment assignment : solution.getAssignments()) {
+            if (assignment.getTask().isFinalStage() && !unplanned.containsKey(assignment.getTask().getOrderId())) {
+                completions.merge(assignment.getTask().getOrderId(), assignment,
+                        (current, candidate) -> candidate.getEndTime().isAfter(current.getEndTime()) ? candidate : current);
+            }
+        }
+        return completions.values();
+    }
+
+    /**
+     * Orders with at least one task left unplanned, by order ID
+     */
+    private static Map<String, PlanningTask> unplannedOrders(PlanningSolution solution) {
+        Map<String, PlanningTask> unplanned = new HashMap<>();
+        for (PlanningTask task : solution.getUnassigned()) {
+            unplanned.putIfAbsent(task.getOrderId(), task);
+        }
+        return unplanned;
+    }
+
+    /**
+     * Global and per-tier SLA metrics of a solution
+     * @param solution solution to evaluate
+     * @return metrics map (minutes)
+     */
+    public static Map<String, Object> summarize(PlanningSolution solution) {
+        Map<SlaTier, TierStats> tierStats = new EnumMap<>(SlaTier.class);
+        for (SlaTier tier : SlaTier.values()) {
+            tierStats.put(tier, new TierStats());
+        }
+
+        long totalWorkMinutes = 0;
+        long totalTardiness = 0;
+        long weightedTardiness = 0;
+        long maxLateness = Long.MIN_VALUE;
+        long totalLateness = 0;
+        int lateOrders = 0;
+        LocalDateTime makespanEnd = null;
+
+        for (PlanningAssignment assignment : solution.getAssignments()) {
+            totalWorkMinutes += assignment.getTask().getDurationMinutes();
+        }
+
+        // Only the task completing an order counts for SLAs (last stage, last chunk)
+        Collection<PlanningAssignment> completions = orderCompletions(solution);
+        for (PlanningAssignment assignment : completions) {
+            long lateness = assignment.getLatenessMinutes();
+            long tardiness = Math.max(0, lateness);
+            SlaTier tier = assignment.getTask().getTier();
+
+            totalLateness += lateness;
+            totalTardiness += tardiness;
+            weightedTardiness += tardiness * tier.getWeight();
+            maxLateness = Math.max(maxLateness, lateness);
+            if (tardiness > 0) {
+                lateOrders++;
+            }
+            if (makespanEnd == null || assignment.getEndTime().isAfter(makespanEnd)) {
+                makespanEnd = assignment.getEndTime();
+            }
+            tierStats.get(tier).add(lateness);
+        }
+
+        int assigned = completions.size();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("assignedOrders", assigned);
+        metrics.put("unassignedOrders", unplannedOrders(solution).size());
+        metrics.put("totalWorkMinutes", totalWorkMinutes);
+        metrics.put("makespanEnd", makespanEnd);
+        metrics.put("lateOrders", lateOrders);
+        metrics.put("onTimeRate", assigned == 0 ? 1.0 : (double) (assigned - lateOrders) / assigned);
+        metrics.put("totalTardinessMinutes", totalTardiness);
+        metrics.put("weightedTardinessMinutes", weightedTardiness);
+        metrics.put("maxLatenessMinutes", assigned == 0 ? 0 : maxLateness);
+        metrics.put("averageLatenessMinutes", assigned == 0 ? 0 : totalLateness / assigned);
+
+        Map<String, Object> byTier = new LinkedHashMap<>();
+        tierStats.forEach((tier, stats) -> byTier.put(tier.getDbValue(), stats.toMap()));
+        metrics.put("byTier", byTier);
+        return metrics;
+    }
+
+    /**
+     * Share of each employee's working time that is busy until the makespan end
+     * Busy time counts the new assignments and the employee's already scheduled work.
+     * @param solution solution to evaluate
+     * @param resources employees of the problem
+     * @return average utilisation (0-1) and one entry per employee
+     */
+    public static Map<String, Object> utilisation(PlanningSolution solution, Collection<PlanningResource> resources) {
+        LocalDateTime makespanEnd = null;
+        Map<String, Long> assignedMinutes = new HashMap<>();
+        for (PlanningAssignment assignment : solution.getAssignments()) {
+            assignedMinutes.merge(assignment.getResource().getEmployeeId(),
+                    assignment.getEndMinute() - assignment.getStartMinute(), Long::sum);
+            if (makespanEnd == null || assignment.getEndTime().isAfter(makespanEnd)) {
+                makespanEnd = assignment.getEndTime();
+            }
+        }
+
+        List<Map<String, Object>> byEmployee = new ArrayList<>();
+        long totalBusy = 0;
+        long totalAvailable = 0;
+        for (PlanningResource resource : resources) {
+            long available = makespanEnd == null ? 0 :
+                    resource.getCalendar().toWorkingMinute(WorkCalendar.epochMinute(makespanEnd));
+            long busy = Math.min(available, assignedMinutes.getOrDefault(resource.getEmployeeId(), 0L)
+                    + busyMinutesBefore(resource, available));
+            totalBusy += busy;
+            totalAvailable += available;
+
+            Map<String, Object> employee = new LinkedHashMap<>();
+            employee.put("employeeId", resource.getEmployeeId());
+            employee.put("name", resource.getName());
+            employee.put("busyMinutes", busy);
+            employee.put("availableMinutes", available);
+            employee.put("utilisation", available == 0 ? 0.0 : (double) busy / available);
+            byEmployee.add(employee);
+        }
+
+        Map<String, Object> utilisation = new LinkedHashMap<>();
+        utilisation.put("average", totalAvailable == 0 ? 0.0 : (double) totalBusy / totalAvailable);
+        utilisation.put("byEmployee", byEmployee);
+        return utilisation;
+    }
+
+    private static long busyMinutesBefore(PlanningResource resource, long end) {
+        long minutes = 0;
+        for (BusyInterval interval : resource.getBusyIntervals()) {
+            minutes += Math.max(0, Math.min(interval.getEnd(), end) - interval.getStart());
+        }
+        return minutes;
+    }
+
+    /**
+     * Most tardy orders first
+     * @param solution solution to evaluate
+     * @param limit maximum number of orders returned
+     * @return one map per late order
+     */
+    public static List<Map<String, Object>> lateOrders(PlanningSolution solution, int limit) {
+        List<Map<String, Object>> lateOrders = new ArrayList<>();
+        orderCompletions(solution).stream()
+                .filter(assignment -> assignment.getTardinessMinutes() > 0)
+                .sorted(Comparator.comparingLong(PlanningAssignment::getTardinessMinutes).reversed())
+                .limit(limit)
+                .forEach(assignment -> {
+                    Map<String, Object> order = new HashMap<>();
+                    order.put("orderId", assignment.getTask().getOrderId());
+                    order.put("orderNumber", assignment.getTask().getOrderNumber());
+                    order.put("tier", assignment.getTask().getTier().getDbValue());
+                    order.put("dueTime", assignment.getTask().getDueTime());
+                    order.put("endTime", assignment.getEndTime());
+                    order.put("employeeId", assignment.getResource().getEmployeeId());
+                    order.put("latenessMinutes", assignment.getLatenessMinutes());
+                    lateOrders.add(order);
+                });
+        return lateOrders;
+    }
+
+    private static class TierStats {
+        private int orders;
+        private int late;
+        private long totalTardiness;
+        private long totalLateness;
+        private long maxLateness = Long.MIN_VALUE;
+
+        void add(long lateness) {
+            orders++;
+            totalLateness += lateness;
+            maxLateness = Math.max(maxLateness, lateness);
+            if (lateness > 0) {
+                late++;
+                totalTardiness += lateness;
+            }
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("orders", orders);
+            map.put("lateOrders", late);
+            map.put("totalTardinessMinutes", totalTardiness);
+            map.put("maxLatenessMinutes", orders == 0 ? 0 : maxLateness);
+            map.put("averageLatenessMinutes", orders == 0 ? 0 : totalLateness / orders);
+            return map;
+        }
+    }
+}
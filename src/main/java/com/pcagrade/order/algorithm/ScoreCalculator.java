@@ -0,0 +1,105 @@
+package com.pcagrade.order.algorithm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single planning score shared by the optimisers and the reporting endpoints
+ *
+ * Every {@link ScoreConstraint} bean is a term of the score, weighted by
+ * planning.score.weight.&lt;name&gt; (its default weight when unset, 0 turns it off).
+ * Penalties are in minutes, so the weights say how many minutes of one term are
+ * worth a minute of another.
+ */
+@Component
+@Slf4j
+public class ScoreCalculator {
+
+    @Autowired
+    private Environment environment;
+
+    private final List<ScoreConstraint> constraints = new ArrayList<>();
+
+    private double[] weights = new double[0];
+
+    @Autowired
+    public void setConstraints(List<ScoreConstraint> constraintBeans) {
+        List<Double> active = new ArrayList<>();
+        for (ScoreConstraint constraint : constraintBeans) {
+            double weight = environment.getProperty("planning.score.weight." + constraint.getName(),
+                    Double.class, constraint.getDefaultWeight());
+            if (weight > 0) {
+                constraints.add(constraint);
+                active.add(weight);
+            }
+        }
+        weights = active.stream().mapToDouble(Double::doubleValue).toArray();
+        log.info("Score constraints: {}", getWeights());
+    }
+
+    /**
+     * @return weight of each active constraint
+     */
+    public Map<String, Double> getWeights() {
+        Map<String, Double> byName = new LinkedHashMap<>();
+        for (int c = 0; c < constraints.size(); c++) {
+            byName.put(constraints.get(c).getName(), weights[c]);
+        }
+        return byName;
+    }
+
+    // ========== DAILY LOAD ==========
+
+    /**
+     * Share of an employee's contracted day taken by some work (1.0 = full day)
+     * @param dayMinutes minutes worked on that day
+     * @param workHoursPerDay contracted daily hours
+     */
+    public static double dailyLoad(long dayMinutes, int workHoursPerDay) {
+        return workHoursPerDay > 0 ? (double) dayMinutes / (workHoursPerDay * 60) : 0;
+    }
+
+    /**
+     * Minutes of one day beyond the contracted hours, the unit of the overtime term
+     * @param dayMinutes minutes worked on that day
+     * @param workHoursPerDay contracted daily hours
+     */
+    public static long overtimeMinutes(long dayMinutes, int workHoursPerDay) {
+        return Math.max(0, dayMinutes - (long) workHoursPerDay * 60);
+    }
+
+    // ========== SCORING ==========
+
+    /**
+     * @param resources employees of the schedule, idle ones included
+     * @return empty score to fill assignment by assignment
+     */
+    public IncrementalScore newScore(Collection<PlanningResource> resources) {
+        return new IncrementalScore(constraints, weights, resources);
+    }
+
+    /**
+     * Score a whole solution
+     * @param solution solution to evaluate
+     * @param resources employees of the problem
+     * @return score that can then be updated one assignment at a time
+     */
+    public IncrementalScore score(PlanningSolution solution, Collection<PlanningResource> resources) {
+        IncrementalScore score = newScore(resources);
+        for (PlanningAssignment assignment : solution.getAssignments()) {
+            score.insert(assignment);
+        }
+        for (PlanningTask task : solution.getUnassigned()) {
+            score.insertUnassigned(task);
+        }
+        return score;
+    }
+}
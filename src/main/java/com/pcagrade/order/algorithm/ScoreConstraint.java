@@ -0,0 +1,50 @@
+package com.pcagrade.order.algorithm;
+
+import java.util.Collection;
+
+/**
+ * One weighted term of the planning score, see {@link ScoreCalculator}
+ *
+ * Each schedule gets its own {@link State}: inserting or retracting one assignment
+ * only updates what that assignment touches (its employee, its order), so a single
+ * change is re-scored without walking the whole schedule.
+ */
+public interface ScoreConstraint {
+
+    /**
+     * Name used in score breakdowns and in planning.score.weight.&lt;name&gt;
+     */
+    String getName();
+
+    /**
+     * Weight used when planning.score.weight.&lt;name&gt; is not set
+     */
+    double getDefaultWeight();
+
+    /**
+     * @param resources employees of the schedule, idle ones included
+     * @return empty state for one schedule
+     */
+    State newState(Collection<PlanningResource> resources);
+
+    /**
+     * Incremental penalty of one schedule (not thread-safe)
+     */
+    interface State {
+
+        void insert(PlanningAssignment assignment);
+
+        void retract(PlanningAssignment assignment);
+
+        default void insertUnassigned(PlanningTask task) {
+        }
+
+        default void retractUnassigned(PlanningTask task) {
+        }
+
+        /**
+         * @return current penalty in minutes (tier-weighted where relevant), before the constraint weight
+         */
+        double getPenalty();
+    }
+}
@@ -0,0 +1,307 @@
+package com.pcagrade.order.algorithm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Time-budgeted simulated annealing over the EDF baseline
+ *
+ * Searches the order -> employee assignment with move and swap neighbourhoods,
+ * starting from the EDF schedule. Each employee keeps its free-slot timeline: a move
+ * frees the task's slot and puts it in the earliest gap of the target employee after
+ * its release, at the target's speed. Moving a task to its own employee pulls it into
+ * an earlier gap; swapping two tasks of one employee reorders them. Only the moved
+ * assignments are retracted from / inserted in an {@link IncrementalScore} of the
+ * shared {@link ScoreCalculator}, whose constraint states keep the per-employee
+ * aggregates (load, worked minutes per day, sequence), so a move costs O(log m) and
+ * the search optimises the same score the engine reports.
+ * A rejected move is undone the same way. The best schedule seen at a checkpoint is
+ * returned when the budget runs out, or the EDF baseline if it scores better.
+ */
+@Component
+@Slf4j
+public class SimulatedAnnealingAlgorithm implements PlanningAlgorithm {
+
+    // ========== CONSTANTS ==========
+    private static final int CHECK_INTERVAL = 1024;
+    private static final int TEMPERATURE_SAMPLES = 200;
+    private static final double FINAL_TEMPERATURE_RATIO = 1e-4;
+
+    @Autowired
+    private EarliestDeadlineFirstAlgorithm baseline;
+
+    @Autowired
+    private ScoreCalculator scoreCalculator;
+
+    @Value("${planning.localsearch.time-budget-ms:2000}")
+    private long defaultTimeBudgetMillis;
+
+    @Override
+    public String getName() {
+        return "annealing";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Simulated annealing (move/swap) from the EDF baseline on the planning score, time-budgeted";
+    }
+
+    @Override
+    public PlanningSolution solve(PlanningProblem problem) {
+        long startMillis = System.currentTimeMillis();
+        PlanningSolution initial = baseline.solve(problem);
+        if (problem.getResources().size() < 2 || initial.getAssignments().size() < 2) {
+            return initial.toBuilder().algorithm(getName()).build();
+        }
+
+        long budget = problem.getTimeBudgetMillis() > 0 ? problem.getTimeBudgetMillis() : defaultTimeBudgetMillis;
+        Search search = new Search(problem, initial);
+        long iterations = search.run(startMillis + budget);
+
+        PlanningSolution solution = search.materialize(getName(), initial.getUnassigned());
+        double initialScore = scoreCalculator.score(initial, problem.getResources()).getTotal();
+        if (search.bestScore > initialScore) {
+            solution = initial.toBuilder().algorithm(getName()).build();
+        }
+        long elapsed = System.currentTimeMillis() - startMillis;
+        log.info("Annealing: {} iterations in {} ms, score {} (baseline {}) -> {}", iterations, elapsed,
+                Math.round(search.initialScore), Math.round(initialScore),
+                Math.round(Math.min(initialScore, search.bestScore)));
+        return solution.toBuilder().computeTimeMillis(elapsed).build();
+    }
+
+    /**
+     * Applied exchange: task a moved off employee r1 (and task b back onto it if b >= 0),
+     * with the assignments it replaced
+     */
+    private record Exchange(int a, int r1, PlanningAssignment previousA, int b, PlanningAssignment previousB) {
+    }
+
+    /**
+     * Search state: each task's employee and assignment, each employee's free slots and the score of the whole schedule
+     */
+    private class Search {
+        final List<PlanningResource> resources;
+        final List<PlanningTask> tasks = new ArrayList<>();
+        final int n;
+        final int k;
+
+        // Per task: employee, current assignment, release (epoch minute, MIN_VALUE if none)
+        final int[] assigned;
+        final PlanningAssignment[] current;
+        final long[] releaseEpoch;
+        PlanningAssignment[] best;
+
+        // Per employee: free slots around existing plannings and placed tasks
+        final EmployeeTimeline[] timelines;
+        final IncrementalScore score;
+
+        double currentScore;
+        double initialScore;
+        double bestScore;
+
+        final SplittableRandom random = new SplittableRandom(7);
+
+        Search(PlanningProblem problem, PlanningSolution initial) {
+            resources = problem.getResources();
+            k = resources.size();
+            Map<PlanningResource, Integer> resourceIndex = new IdentityHashMap<>();
+            timelines = new EmployeeTimeline[k];
+            for (int r = 0; r < k; r++) {
+                resourceIndex.put(resources.get(r), r);
+                timelines[r] = resources.get(r).newTimeline();
+            }
+
+            score = scoreCalculator.newScore(resources);
+            initial.getUnassigned().forEach(score::insertUnassigned);
+
+            n = initial.getAssignments().size();
+            assigned = new int[n];
+            current = new PlanningAssignment[n];
+            releaseEpoch = new long[n];
+            for (int i = 0; i < n; i++) {
+                PlanningAssignment assignment = initial.getAssignments().get(i);
+                PlanningTask task = assignment.getTask();
+                assigned[i] = resourceIndex.get(assignment.getResource());
+                // The baseline planned the employee's own duration; search on the nominal one
+                int nominal = Math.max(1, (int) Math.round(task.getDurationMinutes() * speed(assigned[i])));
+                tasks.add(nominal == task.getDurationMinutes() ? task : task.toBuilder().durationMinutes(nominal).build());
+                releaseEpoch[i] = task.getReleaseTime() != null ? WorkCalendar.epochMinute(task.getReleaseTime()) : Long.MIN_VALUE;
+                // Start from the baseline schedule itself, so both score the same
+                timelines[assigned[i]].insert(assignment.getStartMinute(), assignment.getEndMinute());
+                current[i] = assignment;
+                score.insert(assignment);
+            }
+            currentScore = score.getTotal();
+            initialScore = currentScore;
+            bestScore = currentScore;
+            best = current.clone();
+        }
+
+        double speed(int r) {
+            double factor = resources.get(r).getSpeedFactor();
+            return factor > 0 ? factor : 1.0;
+        }
+
+        // ========== DELTA MOVES ==========
+
+        /**
+         * Take task i off its employee: free its slot and retract it from the score
+         */
+        void unplace(int i) {
+            PlanningAssignment assignment = current[i];
+            timelines[assigned[i]].release(assignment.getStartMinute(), assignment.getEndMinute());
+            score.retract(assignment);
+        }
+
+        /**
+         * Put task i in the earliest gap of employee r after its release, at r's speed
+         */
+        void place(int i, int r) {
+            PlanningResource resource = resources.get(r);
+            PlanningTask task = tasks.get(i);
+            long notBefore = releaseEpoch[i] != Long.MIN_VALUE ? resource.getCalendar().toWorkingMinute(releaseEpoch[i]) : 0;
+            int minutes = resource.actualMinutes(task.getDurationMinutes());
+            long start = timelines[r].findEarliestGap(minutes, notBefore);
+            take(i, r, PlanningAssignment.of(minutes == task.getDurationMinutes() ?
+                    task : task.toBuilder().durationMinutes(minutes).build(), resource, start, start + minutes));
+        }
+
+        /**
+         * Make an assignment on employee r the current one of task i: take its slot and score it
+         */
+        void take(int i, int r, PlanningAssignment assignment) {
+            timelines[r].insert(assignment.getStartMinute(), assignment.getEndMinute());
+            score.insert(assignment);
+            current[i] = assignment;
+            assigned[i] = r;
+        }
+
+        // ========== SEARCH ==========
+
+        long run(long deadlineMillis) {
+            double temperature = initialTemperature();
+            double startTemperature = temperature;
+            long startMillis = System.currentTimeMillis();
+            double span = Math.max(1, deadlineMillis - startMillis);
+
+            long iterations = 0;
+            while (true) {
+                if (random.nextBoolean()) {
+                    tryMove(temperature);
+                } else {
+                    trySwap(temperature);
+                }
+                iterations++;
+
+                if (iterations % CHECK_INTERVAL == 0) {
+                    if (currentScore < bestScore) {
+                        bestScore = currentScore;
+                        System.arraycopy(current, 0, best, 0, n);
+                    }
+                    long now = System.currentTimeMillis();
+                    if (now >= deadlineMillis || Thread.currentThread().isInterrupted()) {
+                        break;
+                    }
+                    temperature = startTemperature * Math.pow(FINAL_TEMPERATURE_RATIO, (now - startMillis) / span);
+                }
+            }
+            if (currentScore < bestScore) {
+                bestScore = currentScore;
+                System.arraycopy(current, 0, best, 0, n);
+            }
+            return iterations;
+        }
+
+        /**
+         * Average |delta| of random moves, so that early worsening moves are accepted ~50% of the time
+         */
+        double initialTemperature() {
+            double total = 0;
+            for (int sample = 0; sample < TEMPERATURE_SAMPLES; sample++) {
+                Exchange exchange = exchange(random.nextInt(n), random.nextInt(k), -1);
+                total += Math.abs(score.getTotal() - currentScore);
+                undo(exchange);
+            }
+            return Math.max(1e-6, total / TEMPERATURE_SAMPLES / Math.log(2));
+        }
+
+        void tryMove(double temperature) {
+            decide(exchange(random.nextInt(n), random.nextInt(k), -1), temperature);
+        }
+
+        void trySwap(double temperature) {
+            int a = random.nextInt(n);
+            int b = random.nextInt(n);
+            if (a == b) {
+                return;
+            }
+            decide(exchange(a, assigned[b], b), temperature);
+        }
+
+        void decide(Exchange exchange, double temperature) {
+            double delta = score.getTotal() - currentScore;
+            if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                currentScore = score.getTotal();
+            } else {
+                undo(exchange);
+            }
+        }
+
+        /**
+         * Move task a to employee r2, and task b (on r2, if b >= 0) to a's employee
+         * Both tasks are taken off first, so each may use the slot the other freed.
+         */
+        Exchange exchange(int a, int r2, int b) {
+            int r1 = assigned[a];
+            Exchange exchange = new Exchange(a, r1, current[a], b, b >= 0 ? current[b] : null);
+            unplace(a);
+            if (b >= 0) {
+                unplace(b);
+            }
+            place(a, r2);
+            if (b >= 0) {
+                place(b, r1);
+            }
+            return exchange;
+        }
+
+        /**
+         * Put both tasks back in the slots they had before the exchange
+         */
+        void undo(Exchange exchange) {
+            int r2 = assigned[exchange.a()];
+            unplace(exchange.a());
+            if (exchange.b() >= 0) {
+                unplace(exchange.b());
+            }
+            take(exchange.a(), exchange.r1(), exchange.previousA());
+            if (exchange.b() >= 0) {
+                take(exchange.b(), r2, exchange.previousB());
+            }
+        }
+
+        // ========== RESULT ==========
+
+        /**
+         * Assignments of the best schedule seen, in the baseline order
+         */
+        PlanningSolution materialize(String algorithm, List<PlanningTask> unassigned) {
+            PlanningSolution.PlanningSolutionBuilder solution = PlanningSolution.builder()
+                    .algorithm(algorithm)
+                    .unassigned(unassigned);
+            for (PlanningAssignment assignment : best) {
+                solution.assignment(assignment);
+            }
+            return solution.build();
+        }
+    }
+}
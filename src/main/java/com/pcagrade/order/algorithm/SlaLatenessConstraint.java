@@ -0,0 +1,116 @@
+package com.pcagrade.order.algorithm;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Tier-weighted tardiness of each fully planned order, measured at its last final-stage task
+ * (same rule as {@link ScheduleMetrics#orderCompletions}); orders with unplanned tasks are
+ * left to {@link UnassignedOrdersConstraint}
+ */
+@Component
+public class SlaLatenessConstraint implements ScoreConstraint {
+
+    @Override
+    public String getName() {
+        return "sla-lateness";
+    }
+
+    @Override
+    public double getDefaultWeight() {
+        return 1.0;
+    }
+
+    @Override
+    public State newState(Collection<PlanningResource> resources) {
+        return new LatenessState();
+    }
+
+    private static class OrderEntry {
+        final List<PlanningAssignment> finalTasks = new ArrayList<>(1);
+        int unassignedTasks;
+
+        /**
+         * Drop the retracted final task: the same instance, else the one of the same chunk
+         * (assignments are values, so deep equals could match another chunk with equal fields)
+         */
+        void remove(PlanningAssignment assignment) {
+            for (int i = 0; i < finalTasks.size(); i++) {
+                if (finalTasks.get(i) == assignment) {
+                    finalTasks.remove(i);
+                    return;
+                }
+            }
+            int chunkIndex = assignment.getTask().getChunkIndex();
+            for (int i = 0; i < finalTasks.size(); i++) {
+                if (finalTasks.get(i).getTask().getChunkIndex() == chunkIndex) {
+                    finalTasks.remove(i);
+                    return;
+                }
+            }
+        }
+
+        long penalty() {
+            if (unassignedTasks > 0 || finalTasks.isEmpty()) {
+                return 0;
+            }
+            PlanningAssignment last = finalTasks.get(0);
+            for (PlanningAssignment assignment : finalTasks) {
+                if (assignment.getEndTime().isAfter(last.getEndTime())) {
+                    last = assignment;
+                }
+            }
+            return last.getTardinessMinutes() * last.getTask().getTier().getWeight();
+        }
+    }
+
+    private static class LatenessState implements State {
+        private final Map<String, OrderEntry> orders = new HashMap<>();
+        private long penalty;
+
+        @Override
+        public void insert(PlanningAssignment assignment) {
+            if (assignment.getTask().isFinalStage()) {
+                update(assignment.getTask().getOrderId(), entry -> entry.finalTasks.add(assignment));
+            }
+        }
+
+        @Override
+        public void retract(PlanningAssignment assignment) {
+            if (assignment.getTask().isFinalStage()) {
+                update(assignment.getTask().getOrderId(), entry -> entry.remove(assignment));
+            }
+        }
+
+        @Override
+        public void insertUnassigned(PlanningTask task) {
+            update(task.getOrderId(), entry -> entry.unassignedTasks++);
+        }
+
+        @Override
+        public void retractUnassigned(PlanningTask task) {
+            update(task.getOrderId(), entry -> entry.unassignedTasks--);
+        }
+
+        private void update(String orderId, Consumer<OrderEntry> change) {
+            OrderEntry entry = orders.computeIfAbsent(orderId, id -> new OrderEntry());
+            penalty -= entry.penalty();
+            change.accept(entry);
+            penalty += entry.penalty();
+            if (entry.finalTasks.isEmpty() && entry.unassignedTasks <= 0) {
+                orders.remove(orderId);
+            }
+        }
+
+        @Override
+        public double getPenalty() {
+            return penalty;
+        }
+    }
+}
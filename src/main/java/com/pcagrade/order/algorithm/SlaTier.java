@@ -0,0 +1,71 @@
+package com.pcagrade.order.algorithm;
+
+/**
+ * SLA tiers derived from the order "delai" code
+ * Due date = order date + SLA days (see Order.OrderPriority)
+ */
+public enum SlaTier {
+    EXCELSIOR("X", "EXCELSIOR", 7, 8),     // 1 week
+    FAST_PLUS("F+", "FAST+", 14, 4),       // 2 weeks
+    FAST("F", "FAST", 28, 2),              // 4 weeks
+    CLASSIC("C", "CLASSIC", 56, 1);        // 8 weeks
+
+    private final String code;
+    private final String dbValue;
+    private final int slaDays;
+    private final int weight;
+
+    SlaTier(String code, String dbValue, int slaDays, int weight) {
+        this.code = code;
+        this.dbValue = dbValue;
+        this.slaDays = slaDays;
+        this.weight = weight;
+    }
+
+    /**
+     * @return delai code stored on the order (X, F+, F, C)
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * @return value of the j_planning.priority ENUM column
+     */
+    public String getDbValue() {
+        return dbValue;
+    }
+
+    /**
+     * @return number of calendar days between order date and due date
+     */
+    public int getSlaDays() {
+        return slaDays;
+    }
+
+    /**
+     * @return relative cost of one minute of tardiness in this tier
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Map a delai code (X, F+, F, C) or priority name to a tier
+     * Unknown or missing codes fall back to CLASSIC, like OrderService
+     * @param code delai code or priority name
+     * @return SLA tier
+     */
+    public static SlaTier fromCode(String code) {
+        if (code == null) {
+            return CLASSIC;
+        }
+        String normalized = code.trim().toUpperCase();
+        for (SlaTier tier : values()) {
+            if (tier.code.equals(normalized) || tier.dbValue.equals(normalized) || tier.name().equals(normalized)) {
+                return tier;
+            }
+        }
+        return CLASSIC;
+    }
+}
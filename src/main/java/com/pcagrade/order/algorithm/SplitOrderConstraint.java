@@ -0,0 +1,80 @@
+package com.pcagrade.order.algorithm;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hand-offs of split orders: planning.score.split-penalty-minutes for each employee beyond
+ * the first working on the chunks of the same order and stage
+ * Different employees on different flow-shop stages are expected and not penalised.
+ */
+@Component
+public class SplitOrderConstraint implements ScoreConstraint {
+
+    @Value("${planning.score.split-penalty-minutes:30}")
+    private int splitPenaltyMinutes;
+
+    @Override
+    public String getName() {
+        return "split";
+    }
+
+    @Override
+    public double getDefaultWeight() {
+        return 1.0;
+    }
+
+    @Override
+    public State newState(Collection<PlanningResource> resources) {
+        return new State() {
+            /**
+             * (order, stage) -> employee -> chunks
+             */
+            private final Map<String, Map<String, Integer>> employeesByOrder = new HashMap<>();
+            private long handoffs;
+
+            @Override
+            public void insert(PlanningAssignment assignment) {
+                if (!assignment.getTask().isChunk()) {
+                    return;
+                }
+                Map<String, Integer> employees = employeesByOrder.computeIfAbsent(key(assignment), k -> new HashMap<>());
+                boolean firstChunkHere = employees.merge(assignment.getResource().getEmployeeId(), 1, Integer::sum) == 1;
+                if (firstChunkHere && employees.size() > 1) {
+                    handoffs++;
+                }
+            }
+
+            @Override
+            public void retract(PlanningAssignment assignment) {
+                Map<String, Integer> employees = employeesByOrder.get(key(assignment));
+                if (employees == null || !employees.containsKey(assignment.getResource().getEmployeeId())) {
+                    return;
+                }
+                Integer remaining = employees.computeIfPresent(assignment.getResource().getEmployeeId(),
+                        (id, count) -> count > 1 ? count - 1 : null);
+                if (remaining == null) {
+                    if (!employees.isEmpty()) {
+                        handoffs--;
+                    } else {
+                        employeesByOrder.remove(key(assignment));
+                    }
+                }
+            }
+
+            @Override
+            public double getPenalty() {
+                return (double) handoffs * splitPenaltyMinutes;
+            }
+        };
+    }
+
+    private static String key(PlanningAssignment assignment) {
+        PlanningStage stage = assignment.getTask().getStage();
+        return assignment.getTask().getOrderId() + (stage == null ? "" : "|" + stage.name());
+    }
+}
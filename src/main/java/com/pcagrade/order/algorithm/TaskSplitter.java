@@ -0,0 +1,98 @@
+package com.pcagrade.order.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits orders into chunks
+ *
+ * Cards with different setup keys go to different chunks, so batching planners can
+ * group them with similar cards of other orders, and large groups are cut further
+ * so they can run in parallel on several employees. Chunks keep the order ID, tier,
+ * release and due time of their order; cards and minutes are spread as evenly as
+ * possible so every chunk fits in maxChunkMinutes. Chunks of an order with a single
+ * setup key get consecutive card ranges; cards of one key are not contiguous in the
+ * order, so chunks of a multi-key order carry their setup key and no range.
+ */
+public final class TaskSplitter {
+
+    private TaskSplitter() {
+    }
+
+    /**
+     * @param task whole-order task
+     * @param maxChunkMinutes maximum duration of a chunk (> 0)
+     * @return the task itself if it is short enough or has a single card, its chunks otherwise
+     */
+    public static List<PlanningTask> split(PlanningTask task, int maxChunkMinutes) {
+        return split(task, Map.of(), maxChunkMinutes);
+    }
+
+    /**
+     * @param task whole-order task
+     * @param cardsBySetupKey cards of the order per setup key, in card-range order (empty if unknown)
+     * @param maxChunkMinutes maximum duration of a chunk (> 0, Integer.MAX_VALUE to split by key only)
+     * @return the task (with its setup key when it has a single one) or its chunks (card range 0 when keyed)
+     */
+    public static List<PlanningTask> split(PlanningTask task, Map<String, Integer> cardsBySetupKey, int maxChunkMinutes) {
+        int cards = task.getCardCount();
+        int duration = task.getDurationMinutes();
+        if (task.isChunk() || cards <= 1) {
+            return List.of(task);
+        }
+
+        // Card groups; counts that don't match the order (no certification rows) leave it as one group
+        List<String> keys = new ArrayList<>();
+        List<Integer> groupCards = new ArrayList<>();
+        int keyedCards = cardsBySetupKey.values().stream().mapToInt(Integer::intValue).sum();
+        if (keyedCards == cards) {
+            cardsBySetupKey.forEach((key, count) -> {
+                keys.add(key);
+                groupCards.add(count);
+            });
+        } else {
+            keys.add(task.getSetupKey());
+            groupCards.add(cards);
+        }
+
+        // Pieces: each group cut into near-equal parts of at most maxChunkMinutes
+        List<String> pieceKeys = new ArrayList<>();
+        List<Integer> pieceCards = new ArrayList<>();
+        for (int g = 0; g < keys.size(); g++) {
+            int count = groupCards.get(g);
+            long groupMinutes = (long) duration * count / cards;
+            int parts = (int) Math.max(1, Math.min(count, (groupMinutes + maxChunkMinutes - 1) / maxChunkMinutes));
+            for (int part = 0; part < parts; part++) {
+                pieceKeys.add(keys.get(g));
+                pieceCards.add(count / parts + (part < count % parts ? 1 : 0));
+            }
+        }
+        if (pieceCards.size() == 1) {
+            return List.of(task.toBuilder().setupKey(keys.get(0)).build());
+        }
+
+        int chunks = pieceCards.size();
+        boolean ranged = keys.size() == 1;
+        List<PlanningTask> result = new ArrayList<>(chunks);
+        int firstCard = 1;
+        long minutesSoFar = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int lastCard = firstCard + pieceCards.get(chunk) - 1;
+            // Cumulative rounding keeps the total duration of the order unchanged
+            long minutesUpToHere = (long) duration * lastCard / cards;
+            result.add(task.toBuilder()
+                    .cardCount(pieceCards.get(chunk))
+                    .durationMinutes((int) Math.max(1, minutesUpToHere - minutesSoFar))
+                    .setupKey(pieceKeys.get(chunk))
+                    .chunkIndex(chunk)
+                    .chunkCount(chunks)
+                    .cardRangeStart(ranged ? firstCard : 0)
+                    .cardRangeEnd(ranged ? lastCard : 0)
+                    .build());
+            minutesSoFar = minutesUpToHere;
+            firstCard = lastCard + 1;
+        }
+        return result;
+    }
+}
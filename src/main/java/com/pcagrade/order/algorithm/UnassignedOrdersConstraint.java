@@ -0,0 +1,64 @@
+package com.pcagrade.order.algorithm;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link ScheduleMetrics#UNASSIGNED_PENALTY_MINUTES} per tier weight for each order with
+ * at least one task left unplanned
+ */
+@Component
+public class UnassignedOrdersConstraint implements ScoreConstraint {
+
+    @Override
+    public String getName() {
+        return "unassigned";
+    }
+
+    @Override
+    public double getDefaultWeight() {
+        return 1.0;
+    }
+
+    @Override
+    public State newState(Collection<PlanningResource> resources) {
+        return new State() {
+            private final Map<String, Integer> unassignedTasks = new HashMap<>();
+            private long penalty;
+
+            @Override
+            public void insert(PlanningAssignment assignment) {
+            }
+
+            @Override
+            public void retract(PlanningAssignment assignment) {
+            }
+
+            @Override
+            public void insertUnassigned(PlanningTask task) {
+                if (unassignedTasks.merge(task.getOrderId(), 1, Integer::sum) == 1) {
+                    penalty += ScheduleMetrics.UNASSIGNED_PENALTY_MINUTES * task.getTier().getWeight();
+                }
+            }
+
+            @Override
+            public void retractUnassigned(PlanningTask task) {
+                if (!unassignedTasks.containsKey(task.getOrderId())) {
+                    return;
+                }
+                Integer remaining = unassignedTasks.computeIfPresent(task.getOrderId(), (id, count) -> count > 1 ? count - 1 : null);
+                if (remaining == null) {
+                    penalty -= ScheduleMetrics.UNASSIGNED_PENALTY_MINUTES * task.getTier().getWeight();
+                }
+            }
+
+            @Override
+            public double getPenalty() {
+                return penalty;
+            }
+        };
+    }
+}
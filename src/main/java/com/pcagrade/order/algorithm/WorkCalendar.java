@@ -0,0 +1,49 @@
+package com.pcagrade.order.algorithm;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Working-time calendar of one resource
+ *
+ * Algorithms schedule on a per-resource axis of working minutes (minute 0 = first
+ * working minute of the horizon) and only convert to wall-clock time at the end.
+ * Wall-clock instants are exchanged as epoch minutes to keep the hot loops
+ * allocation-free.
+ */
+public interface WorkCalendar {
+
+    /**
+     * Wall-clock start of a working minute
+     * @param workingMinute working minute (>= 0)
+     * @return epoch minute
+     */
+    long toEpochMinute(long workingMinute);
+
+    /**
+     * Wall-clock end of a task that ends at the given working minute (exclusive)
+     * Ends on a day boundary map to the end of that day, not the start of the next one.
+     * @param endWorkingMinute exclusive end working minute (> 0)
+     * @return epoch minute
+     */
+    default long toEndEpochMinute(long endWorkingMinute) {
+        return endWorkingMinute <= 0 ? toEpochMinute(0) : toEpochMinute(endWorkingMinute - 1) + 1;
+    }
+
+    /**
+     * First working minute at or after a wall-clock instant
+     * @param epochMinute epoch minute
+     * @return working minute
+     */
+    long toWorkingMinute(long epochMinute);
+
+    // ========== EPOCH MINUTE HELPERS ==========
+
+    static long epochMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    static LocalDateTime dateTime(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+}
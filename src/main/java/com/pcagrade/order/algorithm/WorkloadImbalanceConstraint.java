@@ -0,0 +1,60 @@
+package com.pcagrade.order.algorithm;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Standard deviation of the assigned minutes per employee, idle employees counting as 0
+ * Only the sum and the sum of squares of the loads are kept, so an update is O(1).
+ */
+@Component
+public class WorkloadImbalanceConstraint implements ScoreConstraint {
+
+    @Override
+    public String getName() {
+        return "workload-imbalance";
+    }
+
+    @Override
+    public double getDefaultWeight() {
+        return 1.0;
+    }
+
+    @Override
+    public State newState(Collection<PlanningResource> resources) {
+        return new State() {
+            private final Map<String, Long> loads = new HashMap<>();
+            private final int employees = Math.max(1, resources.size());
+            private double sum;
+            private double squareSum;
+
+            @Override
+            public void insert(PlanningAssignment assignment) {
+                add(assignment, 1);
+            }
+
+            @Override
+            public void retract(PlanningAssignment assignment) {
+                add(assignment, -1);
+            }
+
+            private void add(PlanningAssignment assignment, int sign) {
+                long minutes = sign * (assignment.getEndMinute() - assignment.getStartMinute());
+                long before = loads.getOrDefault(assignment.getResource().getEmployeeId(), 0L);
+                long after = before + minutes;
+                loads.put(assignment.getResource().getEmployeeId(), after);
+                sum += minutes;
+                squareSum += (double) after * after - (double) before * before;
+            }
+
+            @Override
+            public double getPenalty() {
+                double mean = sum / employees;
+                return Math.sqrt(Math.max(0, squareSum / employees - mean * mean));
+            }
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package com.pcagrade.order.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (progress buffer flush, ...)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,98 @@
+package com.pcagrade.order.controller;
+
+import com.pcagrade.order.service.DispatchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DISPATCH CONTROLLER
+ * Pull-based mode: employees claim their next order instead of following a daily plan
+ */
+@RestController
+@RequestMapping("/api/dispatch")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class DispatchController {
+
+    private static final Logger log = LoggerFactory.getLogger(DispatchController.class);
+
+    @Autowired
+    private DispatchService dispatchService;
+
+    /**
+     * CLAIM NEXT ORDER - body: {"employeeId": "..."}
+     * Returns the IN_PROGRESS planning created for the claimed order
+     */
+    @PostMapping("/claim")
+    public ResponseEntity<Map<String, Object>> claim(@RequestBody Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+        Object employeeId = request.get("employeeId");
+        if (employeeId == null || employeeId.toString().isBlank()) {
+            response.put("success", false);
+            response.put("error", "employeeId is required");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            Map<String, Object> planning = dispatchService.claim(employeeId.toString());
+            response.put("success", true);
+            response.put("planning", planning);
+            if (planning == null) {
+                response.put("message", "No work available");
+            }
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException busy) {
+            response.put("success", false);
+            response.put("error", busy.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+
+        } catch (IllegalArgumentException notFound) {
+            response.put("success", false);
+            response.put("error", notFound.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+
+        } catch (Exception e) {
+            log.error(" Dispatch claim failed for employee {}: {}", employeeId, e.getMessage(), e);
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * QUEUE STATUS - depth per SLA tier and claim counters
+     */
+    @GetMapping("/queue")
+    public ResponseEntity<Map<String, Object>> getQueue() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("queue", dispatchService.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * REFILL QUEUE - reload pending orders from the database now
+     */
+    @PostMapping("/refill")
+    public ResponseEntity<Map<String, Object>> refill() {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("success", true);
+            response.put("added", dispatchService.refill(true));
+            response.put("queue", dispatchService.getStatus());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error(" Dispatch refill failed: {}", e.getMessage(), e);
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.pcagrade.order.controller;
+import com.pcagrade.order.service.AvailabilityService;
 import com.pcagrade.order.service.EmployeeService;
+import com.pcagrade.order.service.ViewVersionService;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,6 +9,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 /**
@@ -24,6 +28,12 @@ public class EmployeeController {
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private ViewVersionService viewVersionService;
+
     /**
      * GET ALL EMPLOYEES FOR FRONTEND
      * Endpoint: GET /api/employees
@@ -136,6 +146,7 @@ public class EmployeeController {
 
             if (rowsAffected > 0) {
                 System.out.println("Employee created successfully: " + firstName + " " + lastName);
+                viewVersionService.employeesChanged();
 
                 response.put("success", true);
                 response.put("message", "Employee created successfully");
@@ -189,7 +200,8 @@ public class EmployeeController {
                         work_hours_per_day as workHoursPerDay,
                     active,
                         creation_date as creationDate,
-                        modification_date as modificationDate
+                        modification_date as modificationDate,
+                    version
                 FROM j_employee
                 WHERE HEX(id) = ? AND active = 1
             """;
@@ -213,6 +225,7 @@ public class EmployeeController {
                 employeeData.put("active", ((Number) row[7]).intValue() == 1);
                 employeeData.put("creationDate", row[8]);
                 employeeData.put("modificationDate", row[9]);
+                employeeData.put("version", row[10] != null ? ((Number) row[10]).longValue() : 0L);
                 employeeData.put("fullName", row[1] + " " + row[2]);
 
                 return ResponseEntity.ok(employeeData);
@@ -249,6 +262,8 @@ public class EmployeeController {
             String role = (String) employeeData.get("role");
             Boolean active = (Boolean) employeeData.get("active");
             Integer workHoursPerDay = (Integer) employeeData.get("workHoursPerDay");
+            Long expectedVersion = employeeData.get("version") != null ?
+                    Long.valueOf(employeeData.get("version").toString()) : null;
             
             if (firstName == null || firstName.trim().isEmpty() ||
                 lastName == null || lastName.trim().isEmpty()) {
@@ -257,13 +272,14 @@ public class EmployeeController {
                 return ResponseEntity.badRequest().body(response);
             }
             
-            // Update employee including role
+            // Update employee including role (compare-and-set on version when the client sent one)
             String sql = """
                 UPDATE j_employee 
                 SET first_name = ?, last_name = ?, email = ?, phone = ?, role = ?, 
-                    work_hours_per_day = ?, active = ?, modification_date = NOW()
+                    work_hours_per_day = ?, active = ?, modification_date = NOW(),
+                    version = version + 1
                 WHERE HEX(id) = ?
-            """;
+            """ + (expectedVersion != null ? " AND version = ?" : "");
             
             Query query = entityManager.createNativeQuery(sql);
             query.setParameter(1, firstName.trim());
@@ -274,15 +290,29 @@ public class EmployeeController {
             query.setParameter(6, workHoursPerDay != null ? workHoursPerDay : 8);
             query.setParameter(7, active != null ? (active ? 1 : 0) : 1);
             query.setParameter(8, cleanEmployeeId);
+            if (expectedVersion != null) {
+                query.setParameter(9, expectedVersion);
+            }
             
             int result = query.executeUpdate();
             
             if (result > 0) {
                 System.out.println("Employee updated successfully with role: " + role);
+                viewVersionService.employeesChanged();
                 response.put("success", true);
                 response.put("message", "Employee updated successfully");
                 return ResponseEntity.ok(response);
             } else {
+                Map<String, Object> current = findEmployeeVersionState(cleanEmployeeId);
+                if (current != null) {
+                    System.out.println("Employee " + employeeId + " update conflict: expected version "
+                            + expectedVersion + ", current " + current.get("version"));
+                    response.put("success", false);
+                    response.put("error", "conflict");
+                    response.put("message", "Employee was modified concurrently, reload and retry");
+                    response.put("current", current);
+                    return ResponseEntity.status(409).body(response);
+                }
                 response.put("success", false);
                 response.put("message", "Employee not found with id: " + employeeId);
                 return ResponseEntity.status(404).body(response);
@@ -297,6 +327,42 @@ public class EmployeeController {
         }
     }
 
+    /**
+     * Current state of an employee row, used in 409 responses
+     * @param cleanEmployeeId employee ID without dashes
+     * @return state map or null if the employee doesn't exist
+     */
+    private Map<String, Object> findEmployeeVersionState(String cleanEmployeeId) {
+        String sql = """
+            SELECT HEX(id), first_name, last_name, email, role, work_hours_per_day, active,
+                   modification_date, version
+            FROM j_employee
+            WHERE HEX(id) = ?
+        """;
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, cleanEmployeeId.toUpperCase());
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+        if (results.isEmpty()) {
+            return null;
+        }
+
+        Object[] row = results.get(0);
+        Map<String, Object> state = new HashMap<>();
+        state.put("id", row[0]);
+        state.put("firstName", row[1]);
+        state.put("lastName", row[2]);
+        state.put("email", row[3]);
+        state.put("role", row[4]);
+        state.put("workHoursPerDay", row[5]);
+        state.put("active", row[6] != null && ((Number) row[6]).intValue() == 1);
+        state.put("modificationDate", row[7]);
+        state.put("version", row[8] != null ? ((Number) row[8]).longValue() : 0L);
+        return state;
+    }
+
     /**
      * GET EMPLOYEES BY ROLE
      * Endpoint: GET /api/employees/role/{role}
@@ -354,6 +420,109 @@ public class EmployeeController {
         }
     }
 
+    // ========== AVAILABILITY ==========
+
+    /**
+     * GET EMPLOYEE AVAILABILITY - weekly pattern and day by day ranges
+     * Endpoint: GET /api/employees/{id}/availability?from=2025-06-01&to=2025-06-30
+     */
+    @GetMapping("/{employeeId}/availability")
+    public ResponseEntity<Map<String, Object>> getAvailability(@PathVariable String employeeId,
+                                                               @RequestParam(required = false) String from,
+                                                               @RequestParam(required = false) String to) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            LocalDate fromDate = from != null ? LocalDate.parse(from) : LocalDate.now();
+            LocalDate toDate = to != null ? LocalDate.parse(to) : fromDate.plusDays(13);
+            response.put("success", true);
+            response.put("availability", availabilityService.getAvailability(employeeId, fromDate, toDate));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    /**
+     * REPLACE WEEKLY AVAILABILITY PATTERN - weekdays left out are days off
+     * Endpoint: PUT /api/employees/{id}/availability/pattern
+     * Body: {"MONDAY": [{"start": "09:00", "end": "12:00"}, {"start": "13:00", "end": "17:00"}], ...}
+     */
+    @PutMapping("/{employeeId}/availability/pattern")
+    public ResponseEntity<Map<String, Object>> updateAvailabilityPattern(@PathVariable String employeeId,
+                                                                         @RequestBody Map<String, List<Map<String, Object>>> pattern) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            availabilityService.savePattern(employeeId, pattern);
+            response.put("success", true);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    /**
+     * SET AVAILABILITY EXCEPTION FOR ONE DAY (absence, part-time day, extra shift)
+     * Endpoint: PUT /api/employees/{id}/availability/exceptions/{date}
+     * Body: {"ranges": [{"start": "09:00", "end": "13:00"}], "reason": "Part-time"} - no ranges = absent
+     */
+    @PutMapping("/{employeeId}/availability/exceptions/{date}")
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<Map<String, Object>> setAvailabilityException(@PathVariable String employeeId,
+                                                                        @PathVariable String date,
+                                                                        @RequestBody(required = false) Map<String, Object> body) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Map<String, Object> request = body != null ? body : Map.of();
+            availabilityService.saveException(employeeId, LocalDate.parse(date),
+                    (List<Map<String, Object>>) request.get("ranges"), (String) request.get("reason"));
+            response.put("success", true);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | DateTimeParseException | ClassCastException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    /**
+     * REMOVE AVAILABILITY EXCEPTION (back to the weekly pattern)
+     * Endpoint: DELETE /api/employees/{id}/availability/exceptions/{date}
+     */
+    @DeleteMapping("/{employeeId}/availability/exceptions/{date}")
+    public ResponseEntity<Map<String, Object>> deleteAvailabilityException(@PathVariable String employeeId,
+                                                                           @PathVariable String date) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("success", true);
+            response.put("deleted", availabilityService.deleteException(employeeId, LocalDate.parse(date)));
+            return ResponseEntity.ok(response);
+        } catch (DateTimeParseException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
     /**
      * INITIALIZE EMPLOYEE TABLE (if needed)
      * Endpoint: POST /api/employees/init-table
@@ -1,12 +1,18 @@
 package com.pcagrade.order.controller;
 
+import com.pcagrade.order.service.ViewVersionService;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 
 import java.util.*;
 
@@ -24,6 +30,9 @@ public class EmployeesPlanningController {
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private ViewVersionService viewVersionService;
+
     /**
      * GET ALL EMPLOYEES - Management Mode
      */
@@ -93,15 +102,24 @@ public class EmployeesPlanningController {
 
     /**
      * GET EMPLOYEES WITH PLANNING DATA - Planning Mode
+     * Answers 304 to a matching If-None-Match without querying.
      */
     @GetMapping("/planning-data")
     public ResponseEntity<Map<String, Object>> getEmployeesWithPlanningData(
-            @RequestParam(required = false) String date) {
+            @RequestParam(required = false) String date,
+            WebRequest webRequest) {
 
         try {
+            LocalDate day = date != null ? LocalDate.parse(date) : null;
+
+            String etag = viewVersionService.dateTag(day, date);
+            if (webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+            }
+
             log.info("Fetching employees with planning data for date: {}", date);
 
-            String dateFilter = date != null ? " AND p.planning_date = '" + date + "'" : "";
+            String dateFilter = date != null ? " AND p.planning_date = ?" : "";
 
             String sql = """
                 SELECT 
@@ -130,6 +148,9 @@ public class EmployeesPlanningController {
                 """;
 
             Query query = entityManager.createNativeQuery(sql);
+            if (day != null) {
+                query.setParameter(1, day);
+            }
             @SuppressWarnings("unchecked")
             List<Object[]> results = query.getResultList();
 
@@ -190,8 +211,13 @@ public class EmployeesPlanningController {
             response.put("date", date != null ? date : "all");
 
             log.info("Retrieved {} employees with planning data", employees.size());
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(response);
 
+        } catch (DateTimeParseException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
         } catch (Exception e) {
             log.error("Error fetching employees with planning data", e);
             Map<String, Object> errorResponse = new HashMap<>();
@@ -278,7 +304,7 @@ public class EmployeesPlanningController {
         try {
             log.info("Fetching orders for employee: {}, date: {}", employeeId, date);
 
-            String dateFilter = date != null ? " AND p.planning_date = '" + date + "'" : "";
+            String dateFilter = date != null ? " AND p.planning_date = ?" : "";
 
             String sql = """
                 SELECT 
@@ -296,12 +322,15 @@ public class EmployeesPlanningController {
                     ROUND(p.estimated_duration_minutes / 60.0, 2) as estimatedHours
                 FROM j_planning p
                 LEFT JOIN `order` o ON p.order_id = o.id
-                WHERE HEX(p.employee_id) = ?""" + dateFilter + """
+                WHERE p.employee_id = UNHEX(?)""" + dateFilter + """
                 ORDER BY p.planning_date ASC, p.start_time ASC
                 """;
 
             Query query = entityManager.createNativeQuery(sql);
-            query.setParameter(1, employeeId.toUpperCase());
+            query.setParameter(1, employeeId.replace("-", ""));
+            if (date != null) {
+                query.setParameter(2, LocalDate.parse(date));
+            }
 
             @SuppressWarnings("unchecked")
             List<Object[]> results = query.getResultList();
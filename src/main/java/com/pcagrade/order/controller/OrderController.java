@@ -6,6 +6,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.pcagrade.order.service.BacklogForecastService;
 import com.pcagrade.order.service.OrderService;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
@@ -24,6 +25,9 @@ public class OrderController {
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private BacklogForecastService backlogForecastService;
+
     /**
      * GET /api/orders - Main endpoint for orders (expected by frontend)
      */
@@ -188,6 +192,34 @@ public class OrderController {
         }
     }
 
+    /**
+     * Monte-Carlo burn-down forecast of the open backlog
+     * P50/P90 completion date per tier and SLA-breach probabilities over the coming days
+     */
+    @GetMapping("/forecast")
+    public ResponseEntity<Map<String, Object>> getBacklogForecast(
+            @RequestParam(defaultValue = "14") int days,
+            @RequestParam(defaultValue = "2000") int runs,
+            @RequestParam(required = false) Long seed) {
+        try {
+            return ResponseEntity.ok(backlogForecastService.forecast(days, runs, seed));
+
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()
+            ));
+
+        } catch (Exception e) {
+            System.err.println("Error computing backlog forecast: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()
+            ));
+        }
+    }
+
     /**
      * Search orders by various criteria
      */
@@ -1,22 +1,39 @@
 package com.pcagrade.order.controller;
 
+import com.pcagrade.order.algorithm.ScoreCalculator;
 import com.pcagrade.order.service.EmployeeService;
 import com.pcagrade.order.service.GreedyPlanningService;
+import com.pcagrade.order.service.IncrementalPlanningService;
+import com.pcagrade.order.service.PlanningEngineService;
+import com.pcagrade.order.service.PlanningHistoryService;
 import com.pcagrade.order.service.PlanningService;
+import com.pcagrade.order.service.PlanningSimulationService;
+import com.pcagrade.order.service.PlanningSlotService;
+import com.pcagrade.order.service.PlanningProgressBuffer;
+import com.pcagrade.order.service.PlanningQueryService;
+import com.pcagrade.order.service.PlanningUpdateService;
+import com.pcagrade.order.service.ViewVersionService;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/planning")
@@ -35,6 +52,33 @@ public class PlanningController {
     @Autowired
     private GreedyPlanningService greedyPlanningService; // Alternative
 
+    @Autowired
+    private PlanningUpdateService planningUpdateService;
+
+    @Autowired
+    private PlanningProgressBuffer planningProgressBuffer;
+
+    @Autowired
+    private PlanningSlotService planningSlotService;
+
+    @Autowired
+    private PlanningSimulationService planningSimulationService;
+
+    @Autowired
+    private PlanningHistoryService planningHistoryService;
+
+    @Autowired
+    private PlanningQueryService planningQueryService;
+
+    @Autowired
+    private ViewVersionService viewVersionService;
+
+    @Autowired
+    private IncrementalPlanningService incrementalPlanningService;
+
+    @Autowired
+    private PlanningEngineService planningEngineService;
+
     /**
      *  ENDPOINT PRINCIPAL - Utilise PlanningService existant
      */
@@ -213,6 +257,9 @@ public class PlanningController {
                 }
             }
 
+            viewVersionService.generationChanged();
+            incrementalPlanningService.invalidate();
+
             // ========== FINAL VERIFICATION ==========
             Query finalCountQ = entityManager.createNativeQuery("SELECT COUNT(*) FROM j_planning");
             Number totalPlannings = (Number) finalCountQ.getSingleResult();
@@ -346,78 +393,61 @@ public class PlanningController {
     }
 
     /**
-     *  GET ALL PLANNINGS - retrieves all plannings
+     *  GET PLANNINGS - one page of plannings, optionally filtered and projected
+     *  GET /api/planning?from=2025-07-01&to=2025-07-31&employeeId=...&status=SCHEDULED&fields=id,startTime&limit=500
+     *  The next page is requested with cursor=nextCursor of the previous one.
+     *  Answers 304 to a matching If-None-Match without querying.
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllPlannings() {
+    public ResponseEntity<Map<String, Object>> getAllPlannings(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String employeeId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest webRequest) {
         try {
-            log.info(" Fetching all plannings from j_planning table");
-
-            String sql = """
-                SELECT 
-                    HEX(p.id) as id,
-                    HEX(p.order_id) as orderId,
-                    HEX(p.employee_id) as employeeId,
-                    p.planning_date,
-                    p.start_time,
-                    p.estimated_duration_minutes,
-                    p.priority,
-                    p.status,
-                    p.completed,
-                    p.card_count,
-                    p.progress_percentage,
-                    p.created_at,
-                    p.updated_at,
-                    o.num_commande as orderNumber,
-                    CONCAT(COALESCE(e.first_name, 'Unknown'), ' ', COALESCE(e.last_name, 'User')) as employeeName
-                FROM j_planning p
-                LEFT JOIN `order` o ON p.order_id = o.id  
-                LEFT JOIN j_employee e ON p.employee_id = e.id
-                ORDER BY p.planning_date ASC, p.start_time ASC
-                """;
-
-            Query query = entityManager.createNativeQuery(sql);
-            @SuppressWarnings("unchecked")
-            List<Object[]> results = query.getResultList();
+            LocalDate fromDate = from != null ? LocalDate.parse(from) : null;
+            LocalDate toDate = to != null ? LocalDate.parse(to) : null;
+
+            String etag;
+            if (employeeId != null && !employeeId.isBlank()) {
+                etag = viewVersionService.employeeTag(employeeId, from, to, status, fields, cursor, limit);
+            } else if (fromDate != null && fromDate.equals(toDate)) {
+                etag = viewVersionService.dateTag(fromDate, status, fields, cursor, limit);
+            } else {
+                etag = viewVersionService.planningsTag(from, to, status, fields, cursor, limit);
+            }
+            if (webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+            }
 
-            List<Map<String, Object>> plannings = new ArrayList<>();
+            log.info(" Fetching plannings from={}, to={}, employee={}, status={}", from, to, employeeId, status);
 
-            for (Object[] row : results) {
-                Map<String, Object> planning = new HashMap<>();
-                planning.put("id", row[0]);
-                planning.put("orderId", row[1]);
-                planning.put("employeeId", row[2]);
-                planning.put("planningDate", row[3]);
-                planning.put("startTime", row[4]);
-                planning.put("estimatedDurationMinutes", row[5]);
-                planning.put("priority", row[6]);
-                planning.put("status", row[7]);
-                planning.put("completed", row[8]);
-                planning.put("cardCount", row[9]);
-                planning.put("progressPercentage", row[10]);
-                planning.put("createdAt", row[11]);
-                planning.put("updatedAt", row[12]);
-                planning.put("orderNumber", row[13]);
-                planning.put("employeeName", row[14]);
+            Map<String, Object> response = planningQueryService.listPlannings(
+                    fromDate, toDate, employeeId, status, fields, cursor, limit);
 
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> plannings = (List<Map<String, Object>>) response.get("plannings");
+            for (Map<String, Object> planning : plannings) {
                 // Formatted duration
-                Integer duration = (Integer) row[5];
-                if (duration != null) {
-                    planning.put("formattedDuration", formatDuration(duration));
-                    planning.put("estimatedHours", Math.round(duration / 60.0 * 100.0) / 100.0);
+                if (planning.get("estimatedDurationMinutes") instanceof Number duration) {
+                    planning.put("formattedDuration", formatDuration(duration.intValue()));
+                    planning.put("estimatedHours", Math.round(duration.intValue() / 60.0 * 100.0) / 100.0);
                 }
-
-                plannings.add(planning);
             }
-
-            Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("plannings", plannings);
-            response.put("total", plannings.size());
 
             log.info(" Retrieved {} plannings successfully", plannings.size());
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(response);
 
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
         } catch (Exception e) {
             log.error(" Error fetching plannings", e);
             Map<String, Object> errorResponse = new HashMap<>();
@@ -429,63 +459,38 @@ public class PlanningController {
 
     /**
      *  GET EMPLOYEE SCHEDULES - Schedules for a specific employee
-* GET EMPLOYEE SCHEDULES - Compatible with unified algorithm
+     *  date=2025-07-01 for one day, or from/to for a range (default: today + planning.listing.employee-window-days)
+     *  Answers 304 to a matching If-None-Match without querying.
      */
     @GetMapping("/employee/{employeeId}")
     public ResponseEntity<Map<String, Object>> getEmployeePlannings(
             @PathVariable String employeeId,
-            @RequestParam(required = false) String date) {
+            @RequestParam(required = false) String date,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            WebRequest webRequest) {
 
         try {
-            log.info("Loading plannings for employee: {}, date: {}", employeeId, date);
-
-            String cleanEmployeeId = employeeId.replace("-", "");
-
-            String sql = """
-            SELECT 
-                HEX(p.id) as planningId,
-                HEX(p.order_id) as orderId,
-                o.num_commande as orderNumber,
-                DATE(p.planning_date) as planningDate,
-                TIME(p.start_time) as startTime,
-                p.estimated_duration_minutes as durationMinutes,
-                p.priority,
-                p.status,
-                p.card_count as cardCount,
-                p.notes
-            FROM j_planning p
-            LEFT JOIN `order` o ON p.order_id = o.id  
-            WHERE HEX(p.employee_id) = ?
-            ORDER BY p.planning_date DESC, p.start_time ASC
-            """;
+            LocalDate fromDate = date != null && !date.isEmpty() ? LocalDate.parse(date)
+                    : from != null ? LocalDate.parse(from) : null;
+            LocalDate toDate = date != null && !date.isEmpty() ? fromDate
+                    : to != null ? LocalDate.parse(to) : null;
+
+            // The default window moves with the day
+            String etag = viewVersionService.employeeTag(employeeId, fromDate, toDate,
+                    fromDate == null || toDate == null ? LocalDate.now() : null);
+            if (webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+            }
 
-            Query query = entityManager.createNativeQuery(sql);
-            query.setParameter(1, cleanEmployeeId.toUpperCase());
+            log.info("Loading plannings for employee: {}, date: {}, from: {}, to: {}", employeeId, date, from, to);
 
+            Map<String, Object> found = planningQueryService.findEmployeePlannings(employeeId, fromDate, toDate);
             @SuppressWarnings("unchecked")
-            List<Object[]> results = query.getResultList();
-
-            log.info("Found {} total plannings for employee {}", results.size(), employeeId);
-            if (!results.isEmpty()) {
-                log.info("Planning dates for this employee: {}",
-                        results.stream().map(r -> r[3]).distinct().collect(Collectors.toList()));
-            }
-
-            // Apply date filter only if specified
-            if (date != null && !date.isEmpty()) {
-                results = results.stream()
-                        .filter(row -> date.equals(row[3].toString()))
-                        .collect(Collectors.toList());
-                log.info("After date filter ({}): {} plannings", date, results.size());
-            }
+            List<Object[]> results = (List<Object[]>) found.get("rows");
 
-            // If no results with date filter, show all plannings
-            if (results.isEmpty() && date != null) {
-                log.warn("No plannings found for date {}, showing all plannings for employee", date);
-                query = entityManager.createNativeQuery(sql);
-                query.setParameter(1, cleanEmployeeId.toUpperCase());
-                results = query.getResultList();
-            }
+            log.info("Found {} plannings for employee {} between {} and {}",
+                    results.size(), employeeId, found.get("from"), found.get("to"));
 
             List<Map<String, Object>> orders = new ArrayList<>();
             int totalCards = 0;
@@ -557,10 +562,19 @@ public class PlanningController {
                     "totalDuration", totalDuration,
                     "estimatedHours", Math.round(totalDuration / 60.0 * 100.0) / 100.0
             ));
+            response.put("from", found.get("from"));
+            response.put("to", found.get("to"));
+            response.put("truncated", found.get("truncated"));
 
             log.info("Returning {} orders for employee {}", orders.size(), employeeId);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(response);
 
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("orders", new ArrayList<>());
+            return ResponseEntity.badRequest().body(errorResponse);
         } catch (Exception e) {
             log.error("Error loading employee plannings: {}", e.getMessage(), e);
 
@@ -577,12 +591,20 @@ public class PlanningController {
      */
     @GetMapping("/employees-stats")
     public ResponseEntity<Map<String, Object>> getEmployeesWithPlanningStats(
-            @RequestParam(required = false) String date) {
+            @RequestParam(required = false) String date,
+            WebRequest webRequest) {
 
         try {
+            LocalDate day = date != null ? LocalDate.parse(date) : null;
+
+            String etag = viewVersionService.dateTag(day, date);
+            if (webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+            }
+
             log.info(" Fetching employees with planning stats for date: {}", date);
 
-            String dateFilter = date != null ? " AND p.planning_date = '" + date + "'" : "";
+            String dateFilter = day != null ? " AND p.planning_date = '" + day + "'" : "";
 
             String sql = """
                 SELECT 
@@ -648,8 +670,13 @@ public class PlanningController {
             response.put("date", date != null ? date : "all");
 
             log.info(" Retrieved {} employees with planning stats", employees.size());
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(response);
 
+        } catch (DateTimeParseException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
         } catch (Exception e) {
             log.error(" Error fetching employees with planning stats", e);
             Map<String, Object> errorResponse = new HashMap<>();
@@ -675,6 +702,8 @@ public class PlanningController {
             String deleteSql = "DELETE FROM j_planning";
             Query deleteQuery = entityManager.createNativeQuery(deleteSql);
             int deletedRows = deleteQuery.executeUpdate();
+            viewVersionService.generationChanged();
+            incrementalPlanningService.invalidate();
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -753,6 +782,263 @@ public class PlanningController {
         }
     }
 
+    // ========== SHOP-FLOOR UPDATES (OPTIMISTIC LOCKING) ==========
+
+    /**
+     *  START PLANNING - body: {"version": n} (optional)
+     *  Returns 409 with the current state if the planning changed since version n
+     */
+    @PutMapping("/{planningId}/start")
+    public ResponseEntity<Map<String, Object>> startPlanning(
+            @PathVariable String planningId,
+            @RequestBody(required = false) Map<String, Object> request) {
+        return applyPlanningUpdate(planningId,
+                () -> planningUpdateService.startPlanning(planningId, extractVersion(request)));
+    }
+
+    /**
+     *  COMPLETE PLANNING - body: {"version": n} (optional)
+     */
+    @PutMapping("/{planningId}/complete")
+    public ResponseEntity<Map<String, Object>> completePlanning(
+            @PathVariable String planningId,
+            @RequestBody(required = false) Map<String, Object> request) {
+        return applyPlanningUpdate(planningId,
+                () -> planningProgressBuffer.complete(planningId, extractVersion(request)));
+    }
+
+    /**
+     *  UPDATE PROGRESS - body: {"progress": 0-100, "version": n (optional)}
+     *  Without a version, progress below 100% is buffered and written behind (202 Accepted);
+     *  with a version, or at 100%, the update is written synchronously; non-integer or
+     *  out-of-range values are rejected with 400
+     */
+    @PutMapping("/{planningId}/progress")
+    public ResponseEntity<Map<String, Object>> updatePlanningProgress(
+            @PathVariable String planningId,
+            @RequestBody Map<String, Object> request) {
+        if (request.get("progress") == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "progress is required");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        int progress;
+        Long version;
+        try {
+            progress = Integer.parseInt(request.get("progress").toString());
+            version = extractVersion(request);
+        } catch (NumberFormatException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "progress and version must be integers");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        if (progress < 0 || progress > 100) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "Progress must be between 0 and 100");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+
+        if (version == null && progress >= 0 && progress < 100) {
+            planningProgressBuffer.recordProgress(planningId, progress);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("buffered", true);
+            response.put("planningId", planningId);
+            response.put("progress", progress);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        }
+
+        planningProgressBuffer.discard(planningId);
+        return applyPlanningUpdate(planningId,
+                () -> planningUpdateService.updateProgress(planningId, progress, version));
+    }
+
+    /**
+     *  ORDER ETA - completion estimate of an order rolled up from its plannings (chunks, stages)
+     */
+    @GetMapping("/orders/{orderId}/eta")
+    public ResponseEntity<Map<String, Object>> getOrderEta(@PathVariable String orderId) {
+        Map<String, Object> rollup = planningUpdateService.getOrderEta(orderId);
+        if (rollup == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "No planning found for order " + orderId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+        rollup.put("success", true);
+        return ResponseEntity.ok(rollup);
+    }
+
+    /**
+     * Run a versioned planning update and map conflicts to 409 with the current state
+     */
+    private ResponseEntity<Map<String, Object>> applyPlanningUpdate(
+            String planningId, Supplier<Map<String, Object>> update) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("success", true);
+            response.put("planning", update.get());
+            return ResponseEntity.ok(response);
+
+        } catch (OptimisticLockingFailureException | IllegalStateException conflict) {
+            log.info(" Planning update conflict for {}: {}", planningId, conflict.getMessage());
+            response.put("success", false);
+            response.put("error", "conflict");
+            response.put("message", conflict.getMessage());
+            response.put("current", planningUpdateService.getPlanningState(planningId));
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+
+        } catch (IllegalArgumentException notFound) {
+            response.put("success", false);
+            response.put("error", notFound.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+
+        } catch (Exception e) {
+            log.error(" Error updating planning {}", planningId, e);
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    private Long extractVersion(Map<String, Object> request) {
+        if (request == null || request.get("version") == null) {
+            return null;
+        }
+        return Long.valueOf(request.get("version").toString());
+    }
+
+    // ========== WHAT-IF SIMULATION ==========
+
+    /**
+     *  SIMULATE - body: {"algorithm": "edf", "removeEmployees": [...], "absences": [{"employeeId": "...",
+     *  "date": "2025-06-06", "days": 1}], "addEmployees": [{"workHours": 8, "count": 2}],
+     *  "addOrders": [{"cardCount": 800, "delai": "X"}], "removeOrders": [...], "refresh": false}
+     *  Plans the scenario in memory on a snapshot of the current problem; nothing is written
+     */
+    @PostMapping("/simulate")
+    public ResponseEntity<Map<String, Object>> simulate(@RequestBody(required = false) Map<String, Object> request) {
+        try {
+            return ResponseEntity.ok(planningSimulationService.simulate(request != null ? request : new HashMap<>()));
+
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+
+        } catch (Exception e) {
+            log.error(" Simulation error", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
+    // ========== GENERATIONS AND DIFF ==========
+
+    /**
+     *  LIST GENERATIONS - stored copies of j_planning, newest first
+     */
+    @GetMapping("/generations")
+    public ResponseEntity<Map<String, Object>> getGenerations() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("generations", planningHistoryService.getGenerations());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     *  RECORD GENERATION - copy the current plannings (after manual edits, ...)
+     */
+    @PostMapping("/generations")
+    public ResponseEntity<Map<String, Object>> recordGeneration() {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("generation", planningHistoryService.recordGeneration("manual"));
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error(" Error recording planning generation", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
+    /**
+     *  DIFF - moved, added, removed and retimed assignments between two generations
+     *  Defaults: to = latest generation, from = the one before it. The body is streamed.
+     */
+    @GetMapping("/diff")
+    public ResponseEntity<?> getPlanningDiff(
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to) {
+        Map<String, Object> toGeneration = to != null ? planningHistoryService.getGeneration(to)
+                : planningHistoryService.getGenerations().stream().findFirst().orElse(null);
+        Map<String, Object> fromGeneration = from != null ? planningHistoryService.getGeneration(from)
+                : toGeneration != null ? planningHistoryService.getPreviousGeneration((Long) toGeneration.get("id")) : null;
+        if (toGeneration == null || fromGeneration == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "Generation not found (from=" + from + ", to=" + to + ")");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+
+        StreamingResponseBody body = out -> planningHistoryService.writeDiff(fromGeneration, toGeneration, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // ========== SLOT VALIDATION ==========
+
+    /**
+     *  VALIDATE SLOT - body: {"employeeId": "...", "startTime": "2025-06-02T10:00", "endTime": "...",
+     *  "planningId": "..." (optional, the planning being moved)}
+     *  Returns conflicts and the earliest free slot of the same length
+     */
+    @PostMapping("/validate-slot")
+    public ResponseEntity<Map<String, Object>> validateSlot(@RequestBody Map<String, Object> request) {
+        try {
+            Object employeeId = request.get("employeeId");
+            Object startTime = request.get("startTime");
+            Object endTime = request.get("endTime");
+            if (employeeId == null || startTime == null || endTime == null) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("success", false);
+                errorResponse.put("error", "employeeId, startTime and endTime are required");
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+
+            Object planningId = request.get("planningId");
+            Map<String, Object> response = new HashMap<>(planningSlotService.validateSlot(
+                    employeeId.toString(),
+                    LocalDateTime.parse(startTime.toString()),
+                    LocalDateTime.parse(endTime.toString()),
+                    planningId != null ? planningId.toString() : null));
+            response.put("success", true);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+
+        } catch (Exception e) {
+            log.error(" Error validating slot", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
     // ========== UTILITY METHODS ==========
 
     private String formatDuration(int minutes) {
@@ -947,6 +1233,8 @@ public class PlanningController {
 
             // ========== FORCE COMMIT ==========
             entityManager.flush();
+            viewVersionService.generationChanged();
+            incrementalPlanningService.invalidate();
 
             // ========== RESULT ==========
             result.put("success", true);
@@ -1002,6 +1290,9 @@ public class PlanningController {
                 int deleted = deleteQ.executeUpdate();
                 log.info(" Cleaned {} existing plannings for planning date {}", deleted, planningDate);
             }
+            // Applied on commit, covers the clean and the inserts below
+            viewVersionService.generationChanged();
+            incrementalPlanningService.invalidate();
 
             // Get active employees
             List<Map<String, Object>> employees = employeeService.getAllActiveEmployees();
@@ -1162,8 +1453,7 @@ public class PlanningController {
             for (Map<String, Object> assignment : employeeAssignments) {
                 Integer totalDuration = (Integer) assignment.get("totalDuration");
                 Integer workHoursPerDay = (Integer) assignment.getOrDefault("workHoursPerDay", 8);
-                int maxMinutesPerDay = workHoursPerDay * 60;
-                double workloadRatio = maxMinutesPerDay > 0 ? (double) totalDuration / maxMinutesPerDay : 0;
+                double workloadRatio = ScoreCalculator.dailyLoad(totalDuration, workHoursPerDay);
 
                 assignment.put("workload", workloadRatio);
                 assignment.put("workloadPercentage", Math.round(workloadRatio * 100));
@@ -1180,6 +1470,8 @@ public class PlanningController {
             result.put("message", String.format(" UNIFIED SUCCESS: %d orders (from %s) assigned for %s",
                     successCount, startDate, planningDate));
             result.put("employeeAssignments", employeeAssignments);
+            result.put("score", planningEngineService.scoreSchedule(
+                    LocalDate.parse(planningDate), null, null, null).get("score"));
             result.put("totalOrdersAssigned", successCount);
             result.put("totalOrdersAnalyzed", orderResults.size());
             result.put("employeeCount", employees.size());
@@ -0,0 +1,245 @@
+package com.pcagrade.order.controller;
+
+import com.pcagrade.order.algorithm.ScoreCalculator;
+import com.pcagrade.order.service.DelayPropagationService;
+import com.pcagrade.order.service.DurationModel;
+import com.pcagrade.order.service.IncrementalPlanningService;
+import com.pcagrade.order.service.PartitionedPlanningService;
+import com.pcagrade.order.service.PlanningEngineService;
+import com.pcagrade.order.service.RollingHorizonService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PLANNING ENGINE CONTROLLER
+ * Runs the pluggable planning algorithms (edf, ...) on all unplanned orders
+ */
+@RestController
+@RequestMapping("/api/planning/engine")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class PlanningEngineController {
+
+    private static final Logger log = LoggerFactory.getLogger(PlanningEngineController.class);
+
+    @Autowired
+    private PlanningEngineService planningEngineService;
+
+    @Autowired
+    private IncrementalPlanningService incrementalPlanningService;
+
+    @Autowired
+    private DurationModel durationModel;
+
+    @Autowired
+    private DelayPropagationService delayPropagationService;
+
+    @Autowired
+    private ScoreCalculator scoreCalculator;
+
+    @Autowired
+    private RollingHorizonService rollingHorizonService;
+
+    @Autowired
+    private PartitionedPlanningService partitionedPlanningService;
+
+    /**
+     * LIST ALGORITHMS
+     */
+    @GetMapping("/algorithms")
+    public ResponseEntity<Map<String, Object>> getAlgorithms() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("algorithms", planningEngineService.getAlgorithms());
+        response.put("scoreWeights", scoreCalculator.getWeights());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * DURATION MODEL - learned minutes per card by profile and employee
+     */
+    @GetMapping("/duration-model")
+    public ResponseEntity<Map<String, Object>> getDurationModel() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("durationModel", durationModel.getStatistics());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * SCHEDULE SCORE - weighted constraint breakdown of the stored schedule since a day (default today)
+     * With planningId (and employeeId and/or startTime) the score change of moving that planning
+     * is returned too; nothing is saved.
+     */
+    @GetMapping("/score")
+    public ResponseEntity<Map<String, Object>> getScheduleScore(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String planningId,
+            @RequestParam(required = false) String employeeId,
+            @RequestParam(required = false) String startTime) {
+        try {
+            LocalDate fromDate = from != null ? LocalDate.parse(from) : LocalDate.now();
+            LocalDateTime start = startTime != null ? LocalDateTime.parse(startTime) : null;
+            return ResponseEntity.ok(planningEngineService.scoreSchedule(fromDate, planningId, employeeId, start));
+
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+
+        } catch (Exception e) {
+            log.error(" Schedule score error", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
+    /**
+     * DELAY DELTAS - plannings moved by delay propagation after a sequence number
+     */
+    @GetMapping("/delays")
+    public ResponseEntity<Map<String, Object>> getDelayDeltas(@RequestParam(defaultValue = "0") long since) {
+        Map<String, Object> response = new HashMap<>(delayPropagationService.getDeltas(since));
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * PROPAGATE DELAY - re-align one employee's remaining queue now
+     */
+    @PostMapping("/delays/{employeeId}")
+    public ResponseEntity<Map<String, Object>> propagateDelay(@PathVariable String employeeId) {
+        try {
+            List<DelayPropagationService.ScheduleDelta> deltas = delayPropagationService.propagate(employeeId);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("deltas", deltas);
+            response.put("moved", deltas.size());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error(" Delay propagation error ({})", employeeId, e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
+    /**
+     * INCREMENTAL INSERTION - body: {"orderIds": ["...", ...]}
+     * Plans the given orders into the live schedule without regenerating it
+     */
+    @PostMapping("/incremental")
+    public ResponseEntity<Map<String, Object>> planIncrementally(@RequestBody Map<String, Object> request) {
+        try {
+            Object orderIds = request.get("orderIds");
+            if (!(orderIds instanceof List<?> ids) || ids.isEmpty()) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("success", false);
+                errorResponse.put("error", "orderIds is required");
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+
+            List<Map<String, Object>> plannings = incrementalPlanningService.planOrders(
+                    ids.stream().map(Object::toString).toList());
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("plannings", plannings);
+            response.put("planned", plannings.size());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error(" Incremental planning error", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
+    /**
+     * ROLLING RE-PLAN - body: {"algorithm": "edf", "frozenHours": 24, "windowDays": 21, "save": true, "timeBudgetMs": 2000}
+     * Keeps the next frozenHours untouched and re-optimises the rest of the window;
+     * only changed plannings are written. All fields are optional.
+     */
+    @PostMapping("/rolling")
+    public ResponseEntity<Map<String, Object>> rollingReplan(@RequestBody(required = false) Map<String, Object> request) {
+        Map<String, Object> params = request != null ? request : new HashMap<>();
+        try {
+            String algorithm = params.get("algorithm") != null ? params.get("algorithm").toString() : null;
+            int frozenHours = ((Number) params.getOrDefault("frozenHours", -1)).intValue();
+            int windowDays = ((Number) params.getOrDefault("windowDays", 0)).intValue();
+            long timeBudgetMs = planningEngineService.timeBudget(((Number) params.getOrDefault("timeBudgetMs", 0)).longValue());
+            boolean save = !Boolean.FALSE.equals(params.get("save"));
+
+            log.info(" Rolling re-plan: {} (frozen {} h, window {} days, save={})", algorithm, frozenHours, windowDays, save);
+            return ResponseEntity.ok(rollingHorizonService.replan(algorithm, frozenHours, windowDays, timeBudgetMs, save));
+
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+
+        } catch (Exception e) {
+            log.error(" Rolling re-plan error", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
+    /**
+     * RUN ALGORITHM - body: {"day": 1, "month": 6, "year": 2025, "save": true, "timeBudgetMs": 2000, "partitioned": false}
+     * Missing date fields default to today; save=false is a dry run;
+     * timeBudgetMs only applies to time-bounded algorithms (annealing, ...), up to planning.engine.max-time-budget-ms;
+     * partitioned=true solves the horizon day by day in parallel and publishes it at once
+     */
+    @PostMapping("/{algorithm}")
+    public ResponseEntity<Map<String, Object>> runAlgorithm(
+            @PathVariable String algorithm,
+            @RequestBody(required = false) Map<String, Object> request) {
+        Map<String, Object> params = request != null ? request : new HashMap<>();
+        try {
+            LocalDate today = LocalDate.now();
+            int day = ((Number) params.getOrDefault("day", today.getDayOfMonth())).intValue();
+            int month = ((Number) params.getOrDefault("month", today.getMonthValue())).intValue();
+            int year = ((Number) params.getOrDefault("year", today.getYear())).intValue();
+            boolean save = !Boolean.FALSE.equals(params.get("save"));
+            long timeBudgetMs = planningEngineService.timeBudget(((Number) params.getOrDefault("timeBudgetMs", 0)).longValue());
+            boolean partitioned = Boolean.TRUE.equals(params.get("partitioned"));
+
+            log.info(" Planning engine: {} from {}/{}/{} (save={}, partitioned={})", algorithm, day, month, year, save, partitioned);
+            if (partitioned) {
+                return ResponseEntity.ok(partitionedPlanningService.run(algorithm, LocalDate.of(year, month, day), save, timeBudgetMs));
+            }
+            return ResponseEntity.ok(planningEngineService.run(algorithm, LocalDate.of(year, month, day), save, timeBudgetMs));
+
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+
+        } catch (Exception e) {
+            log.error(" Planning engine error ({})", algorithm, e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+}
@@ -85,6 +85,14 @@ public class Employee extends AbstractUlidEntity {
     @Column(name = "modification_date")
     private LocalDateTime modificationDate;
 
+    /**
+     * Optimistic lock version, incremented on every update
+     */
+    @Version
+    @Builder.Default
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
+
     // ========== RELATIONSHIPS ==========
 
     /**
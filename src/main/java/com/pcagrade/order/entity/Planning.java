@@ -18,9 +18,9 @@ import java.util.UUID;
 @Entity
 @Table(name = "j_planning",
         indexes = {
-                @Index(name = "idx_planning_employee_date", columnList = "employeeId, planningDate"),
                 @Index(name = "idx_planning_order", columnList = "orderId"),
                 @Index(name = "idx_planning_date", columnList = "planningDate"),
+                @Index(name = "idx_planning_date_time", columnList = "planningDate, startTime"),
                 @Index(name = "idx_planning_status", columnList = "status"),
                 @Index(name = "idx_planning_start_time", columnList = "startTime"),
                 @Index(name = "idx_planning_employee_time", columnList = "employeeId, planningDate, startTime")
@@ -169,6 +169,52 @@ public class Planning extends AbstractUlidEntity {
     @Column(name = "completed")
     private Boolean completed = false;
 
+    /**
+     * Flow-shop stage (GRADING, CERTIFICATION), null when the entry covers the whole order
+     */
+    @Column(name = "stage", length = 20)
+    private String stage;
+
+    /**
+     * Planning entry of the previous stage of the same order (certification -> grading)
+     */
+    @Column(name = "predecessor_id", columnDefinition = "BINARY(16)")
+    private UUID predecessorId;
+
+    /**
+     * Position of this entry among the chunks of a split order (0-based)
+     */
+    @Builder.Default
+    @Column(name = "chunk_index", nullable = false)
+    private Integer chunkIndex = 0;
+
+    /**
+     * Number of chunks the order was split into, 1 when the entry covers the whole order
+     */
+    @Builder.Default
+    @Column(name = "chunk_count", nullable = false)
+    private Integer chunkCount = 1;
+
+    /**
+     * First card of the chunk (1-based, inclusive), null when not split
+     */
+    @Column(name = "card_range_start")
+    private Integer cardRangeStart;
+
+    /**
+     * Last card of the chunk (1-based, inclusive), null when not split
+     */
+    @Column(name = "card_range_end")
+    private Integer cardRangeEnd;
+
+    /**
+     * Optimistic lock version, incremented on every update
+     */
+    @Version
+    @Builder.Default
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
+
     // ========== RELATIONSHIPS ==========
 
     /**
@@ -225,6 +271,7 @@ public class Planning extends AbstractUlidEntity {
         this.priority = PlanningPriority.FAST;
         this.progressPercentage = 0;
         this.completed = false;
+        this.version = 0L;
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
 
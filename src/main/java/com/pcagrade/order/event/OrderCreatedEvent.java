@@ -0,0 +1,19 @@
+package com.pcagrade.order.event;
+
+import lombok.Getter;
+
+/**
+ * Published by OrderService once a new order has been saved
+ */
+@Getter
+public class OrderCreatedEvent {
+
+    /**
+     * Order ID (hex, no dashes)
+     */
+    private final String orderId;
+
+    public OrderCreatedEvent(String orderId) {
+        this.orderId = orderId;
+    }
+}
@@ -0,0 +1,19 @@
+package com.pcagrade.order.event;
+
+import lombok.Getter;
+
+/**
+ * Published once a planning generation has been written to j_planning
+ */
+@Getter
+public class PlanningGeneratedEvent {
+
+    /**
+     * What produced the generation (algorithm or service name)
+     */
+    private final String source;
+
+    public PlanningGeneratedEvent(String source) {
+        this.source = source;
+    }
+}
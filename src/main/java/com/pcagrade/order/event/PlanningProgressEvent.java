@@ -0,0 +1,26 @@
+package com.pcagrade.order.event;
+
+import lombok.Getter;
+
+/**
+ * Published by PlanningUpdateService / PlanningProgressBuffer once a planning
+ * has been started, has progressed or has been completed
+ */
+@Getter
+public class PlanningProgressEvent {
+
+    /**
+     * Planning ID (hex, no dashes)
+     */
+    private final String planningId;
+
+    /**
+     * STARTED, PROGRESS or COMPLETED
+     */
+    private final String type;
+
+    public PlanningProgressEvent(String planningId, String type) {
+        this.planningId = planningId;
+        this.type = type;
+    }
+}
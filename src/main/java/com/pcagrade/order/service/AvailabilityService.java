@@ -0,0 +1,370 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.algorithm.AvailabilityCalendar;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Availability Service - weekly patterns and dated exceptions of employees
+ *
+ * A day of availability is stored as two BIGINT columns (96 bits of 15-minute slots,
+ * see {@link AvailabilityCalendar}): one row per employee and weekday in
+ * j_employee_availability_pattern, one row per employee and date in
+ * j_employee_availability_exception (all-zero slots = absent). Employees without a
+ * pattern work every day from 09:00 for work_hours_per_day, as before.
+ */
+@Service
+@Slf4j
+public class AvailabilityService {
+
+    // ========== CONSTANTS ==========
+    private static final LocalTime DEFAULT_SHIFT_START = LocalTime.of(9, 0);
+    private static final int DEFAULT_WORK_HOURS_PER_DAY = 8;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Value("${planning.availability.window-days:120}")
+    private int windowDays;
+
+    // ========== CALENDARS ==========
+
+    /**
+     * Availability calendars of employees from the horizon start
+     * @param workHoursByEmployee employee ID (hex) -> work_hours_per_day, for the default pattern
+     * @param horizonStart first day of the horizon
+     * @return employee ID (uppercase hex) -> calendar; employees never available are left out
+     */
+    public Map<String, AvailabilityCalendar> loadCalendars(Map<String, Integer> workHoursByEmployee, LocalDate horizonStart) {
+        Map<String, long[]> patterns = loadPatterns();
+        Map<String, Map<LocalDate, long[]>> exceptions = loadExceptions(horizonStart, horizonStart.plusDays(windowDays));
+
+        Map<String, AvailabilityCalendar> calendars = new HashMap<>();
+        workHoursByEmployee.forEach((employeeId, workHours) -> {
+            String id = cleanId(employeeId);
+            long[] pattern = patterns.getOrDefault(id, defaultPattern(workHours));
+            try {
+                calendars.put(id, new AvailabilityCalendar(horizonStart, windowDays, pattern,
+                        exceptions.getOrDefault(id, Map.of())));
+            } catch (IllegalArgumentException e) {
+                log.info("Employee {} has no weekly availability, not planned", id);
+            }
+        });
+        return calendars;
+    }
+
+    /**
+     * Availability calendar of one employee from a day
+     * @param employeeId employee ID (hex, dashes allowed)
+     * @param horizonStart first day of the calendar
+     * @return calendar, null if the employee is never available
+     * @throws IllegalArgumentException if the employee doesn't exist
+     */
+    public AvailabilityCalendar loadCalendar(String employeeId, LocalDate horizonStart) {
+        String id = cleanId(employeeId);
+        long[] pattern = loadPatterns(id).getOrDefault(id, defaultPattern(loadWorkHours(id)));
+        Map<LocalDate, long[]> exceptions = loadExceptions(id, horizonStart, horizonStart.plusDays(windowDays))
+                .getOrDefault(id, Map.of());
+        try {
+            return new AvailabilityCalendar(horizonStart, windowDays, pattern, exceptions);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Every day from 09:00 for the employee's daily hours
+     */
+    public long[] defaultPattern(Integer workHours) {
+        int hours = workHours != null && workHours > 0 ? workHours : DEFAULT_WORK_HOURS_PER_DAY;
+        return AvailabilityCalendar.everyDay(AvailabilityCalendar.slots(DEFAULT_SHIFT_START, hours * 60));
+    }
+
+    /**
+     * Calendar of an employee with the default pattern and no exception (not read from the database)
+     * @param workHours daily hours, null for the default
+     * @param horizonStart first day of the horizon
+     */
+    public AvailabilityCalendar defaultCalendar(Integer workHours, LocalDate horizonStart) {
+        return new AvailabilityCalendar(horizonStart, windowDays, defaultPattern(workHours), Map.of());
+    }
+
+    // ========== READ ==========
+
+    /**
+     * Availability of one employee day by day
+     * @param employeeId employee ID (hex, dashes allowed)
+     * @param from first day
+     * @param to last day (inclusive)
+     * @return pattern (per weekday ranges) and days with their ranges, minutes and exception reason
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getAvailability(String employeeId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) > 366) {
+            throw new IllegalArgumentException("Invalid date range: " + from + " - " + to);
+        }
+        String id = cleanId(employeeId);
+        long[] pattern = loadPatterns(id).get(id);
+        boolean hasPattern = pattern != null;
+        if (pattern == null) {
+            pattern = defaultPattern(loadWorkHours(id));
+        }
+        Map<LocalDate, long[]> exceptions = loadExceptions(id, from, to.plusDays(1)).getOrDefault(id, Map.of());
+        Map<LocalDate, String> reasons = loadExceptionReasons(id, from, to.plusDays(1));
+
+        Map<String, Object> weekly = new LinkedHashMap<>();
+        for (int d = 0; d < 7; d++) {
+            weekly.put(DayOfWeek.of(d + 1).name(), toRanges(pattern[2 * d], pattern[2 * d + 1]));
+        }
+
+        List<Map<String, Object>> days = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            int weekDay = date.getDayOfWeek().getValue() - 1;
+            long[] slots = exceptions.getOrDefault(date, new long[]{pattern[2 * weekDay], pattern[2 * weekDay + 1]});
+            Map<String, Object> day = new HashMap<>();
+            day.put("date", date.toString());
+            day.put("ranges", toRanges(slots[0], slots[1]));
+            day.put("availableMinutes", (Long.bitCount(slots[0]) + Long.bitCount(slots[1])) * AvailabilityCalendar.SLOT_MINUTES);
+            day.put("exception", exceptions.containsKey(date));
+            day.put("reason", reasons.get(date));
+            days.add(day);
+        }
+
+        Map<String, Object> availability = new HashMap<>();
+        availability.put("employeeId", id);
+        availability.put("defaultPattern", !hasPattern);
+        availability.put("weeklyPattern", weekly);
+        availability.put("days", days);
+        return availability;
+    }
+
+    // ========== WRITE ==========
+
+    /**
+     * Replace the weekly pattern of an employee; weekdays left out are days off
+     * @param employeeId employee ID (hex, dashes allowed)
+     * @param rangesByDay MONDAY..SUNDAY -> [{"start": "09:00", "end": "17:00"}, ...]
+     */
+    @Transactional
+    public void savePattern(String employeeId, Map<String, List<Map<String, Object>>> rangesByDay) {
+        String id = cleanId(employeeId);
+        long[] pattern = new long[14];
+        rangesByDay.forEach((day, ranges) -> {
+            int weekDay = DayOfWeek.valueOf(day.toUpperCase()).getValue() - 1;
+            long[] slots = parseRanges(ranges);
+            pattern[2 * weekDay] = slots[0];
+            pattern[2 * weekDay + 1] = slots[1];
+        });
+
+        entityManager.createNativeQuery("DELETE FROM j_employee_availability_pattern WHERE employee_id = UNHEX(?)")
+                .setParameter(1, id)
+                .executeUpdate();
+        for (int d = 0; d < 7; d++) {
+            entityManager.createNativeQuery("""
+                    INSERT INTO j_employee_availability_pattern (employee_id, day_of_week, slots_low, slots_high)
+                    VALUES (UNHEX(?), ?, ?, ?)
+                    """)
+                    .setParameter(1, id)
+                    .setParameter(2, d + 1)
+                    .setParameter(3, pattern[2 * d])
+                    .setParameter(4, pattern[2 * d + 1])
+                    .executeUpdate();
+        }
+        log.info("Weekly availability of employee {} updated", id);
+    }
+
+    /**
+     * Set the availability of one day, replacing the weekly pattern on that day
+     * @param employeeId employee ID (hex, dashes allowed)
+     * @param date day
+     * @param ranges available ranges, empty when absent
+     * @param reason free text (holiday, sick leave, ...)
+     */
+    @Transactional
+    public void saveException(String employeeId, LocalDate date, List<Map<String, Object>> ranges, String reason) {
+        String id = cleanId(employeeId);
+        long[] slots = parseRanges(ranges);
+        entityManager.createNativeQuery("""
+                INSERT INTO j_employee_availability_exception
+                    (employee_id, exception_date, slots_low, slots_high, reason)
+                VALUES (UNHEX(?), ?, ?, ?, ?)
+                ON DUPLICATE KEY UPDATE slots_low = VALUES(slots_low),
+                                        slots_high = VALUES(slots_high),
+                                        reason = VALUES(reason)
+                """)
+                .setParameter(1, id)
+                .setParameter(2, date)
+                .setParameter(3, slots[0])
+                .setParameter(4, slots[1])
+                .setParameter(5, reason)
+                .executeUpdate();
+        log.info("Availability exception for employee {} on {}: {} min", id, date,
+                (Long.bitCount(slots[0]) + Long.bitCount(slots[1])) * AvailabilityCalendar.SLOT_MINUTES);
+    }
+
+    /**
+     * Remove the exception of one day (back to the weekly pattern)
+     * @return true if an exception was removed
+     */
+    @Transactional
+    public boolean deleteException(String employeeId, LocalDate date) {
+        return entityManager.createNativeQuery("""
+                DELETE FROM j_employee_availability_exception
+                WHERE employee_id = UNHEX(?) AND exception_date = ?
+                """)
+                .setParameter(1, cleanId(employeeId))
+                .setParameter(2, date)
+                .executeUpdate() > 0;
+    }
+
+    // ========== INTERNAL HELPERS ==========
+
+    private Map<String, long[]> loadPatterns() {
+        return loadPatterns(null);
+    }
+
+    /**
+     * Weekly patterns (14 words), of one employee or of all when employeeId is null
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, long[]> loadPatterns(String employeeId) {
+        String sql = """
+            SELECT HEX(employee_id), day_of_week, slots_low, slots_high
+            FROM j_employee_availability_pattern
+            """ + (employeeId != null ? "WHERE employee_id = UNHEX(?)" : "");
+        Query query = entityManager.createNativeQuery(sql);
+        if (employeeId != null) {
+            query.setParameter(1, employeeId);
+        }
+
+        Map<String, long[]> patterns = new HashMap<>();
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+            int weekDay = ((Number) row[1]).intValue() - 1;
+            long[] pattern = patterns.computeIfAbsent((String) row[0], id -> new long[14]);
+            pattern[2 * weekDay] = ((Number) row[2]).longValue();
+            pattern[2 * weekDay + 1] = ((Number) row[3]).longValue();
+        }
+        return patterns;
+    }
+
+    private Map<String, Map<LocalDate, long[]>> loadExceptions(LocalDate from, LocalDate until) {
+        return loadExceptions(null, from, until);
+    }
+
+    /**
+     * Exceptions in [from, until), of one employee or of all when employeeId is null
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<LocalDate, long[]>> loadExceptions(String employeeId, LocalDate from, LocalDate until) {
+        String sql = """
+            SELECT HEX(employee_id), exception_date, slots_low, slots_high
+            FROM j_employee_availability_exception
+            WHERE exception_date >= ? AND exception_date < ?
+            """ + (employeeId != null ? "AND employee_id = UNHEX(?)" : "");
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, from);
+        query.setParameter(2, until);
+        if (employeeId != null) {
+            query.setParameter(3, employeeId);
+        }
+
+        Map<String, Map<LocalDate, long[]>> exceptions = new HashMap<>();
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+            exceptions.computeIfAbsent((String) row[0], id -> new HashMap<>())
+                    .put(toDate(row[1]), new long[]{((Number) row[2]).longValue(), ((Number) row[3]).longValue()});
+        }
+        return exceptions;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<LocalDate, String> loadExceptionReasons(String employeeId, LocalDate from, LocalDate until) {
+        Query query = entityManager.createNativeQuery("""
+            SELECT exception_date, reason
+            FROM j_employee_availability_exception
+            WHERE employee_id = UNHEX(?) AND exception_date >= ? AND exception_date < ?
+            """);
+        query.setParameter(1, employeeId);
+        query.setParameter(2, from);
+        query.setParameter(3, until);
+
+        Map<LocalDate, String> reasons = new HashMap<>();
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+            reasons.put(toDate(row[0]), (String) row[1]);
+        }
+        return reasons;
+    }
+
+    private Integer loadWorkHours(String employeeId) {
+        List<?> results = entityManager.createNativeQuery(
+                        "SELECT work_hours_per_day FROM j_employee WHERE id = UNHEX(?)")
+                .setParameter(1, employeeId)
+                .getResultList();
+        if (results.isEmpty()) {
+            throw new IllegalArgumentException("Employee not found: " + employeeId);
+        }
+        return results.get(0) instanceof Number hours ? hours.intValue() : null;
+    }
+
+    /**
+     * OR of [{"start": "HH:mm", "end": "HH:mm"}] ranges; end "24:00" or "00:00" is midnight
+     */
+    private long[] parseRanges(List<Map<String, Object>> ranges) {
+        long[] slots = new long[2];
+        if (ranges == null) {
+            return slots;
+        }
+        for (Map<String, Object> range : ranges) {
+            LocalTime start = LocalTime.parse(range.get("start").toString());
+            String endText = range.get("end").toString();
+            int endMinute = "24:00".equals(endText) ? 24 * 60 : LocalTime.parse(endText).toSecondOfDay() / 60;
+            if (endMinute == 0) {
+                endMinute = 24 * 60;
+            }
+            int minutes = endMinute - start.toSecondOfDay() / 60;
+            if (minutes <= 0) {
+                throw new IllegalArgumentException("Range ends before it starts: " + range);
+            }
+            long[] rangeSlots = AvailabilityCalendar.slots(start, minutes);
+            slots[0] |= rangeSlots[0];
+            slots[1] |= rangeSlots[1];
+        }
+        return slots;
+    }
+
+    private List<Map<String, Object>> toRanges(long low, long high) {
+        List<Map<String, Object>> ranges = new ArrayList<>();
+        for (LocalTime[] range : AvailabilityCalendar.ranges(low, high)) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("start", range[0].toString());
+            entry.put("end", range[1].equals(LocalTime.MIDNIGHT) ? "24:00" : range[1].toString());
+            ranges.add(entry);
+        }
+        return ranges;
+    }
+
+    private LocalDate toDate(Object value) {
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+
+    private String cleanId(String employeeId) {
+        return employeeId.replace("-", "").toUpperCase();
+    }
+}
@@ -0,0 +1,410 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.algorithm.EarliestDeadlineFirstAlgorithm;
+import com.pcagrade.order.algorithm.PlanningAssignment;
+import com.pcagrade.order.algorithm.PlanningProblem;
+import com.pcagrade.order.algorithm.PlanningResource;
+import com.pcagrade.order.algorithm.PlanningSolution;
+import com.pcagrade.order.algorithm.PlanningTask;
+import com.pcagrade.order.algorithm.ScheduleMetrics;
+import com.pcagrade.order.algorithm.SlaTier;
+import com.pcagrade.order.algorithm.WorkCalendar;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Backlog Forecast Service - Monte-Carlo burn-down of the open backlog
+ *
+ * Each run plans the open backlog plus simulated arrivals of the coming days with
+ * the EDF planner, entirely in memory:
+ * - arrivals per day and tier are Poisson with the historical daily rate, card
+ *   counts are drawn from recent orders of the same tier
+ * - each employee's speed is drawn from the ratio estimated / actual minutes of
+ *   their recently completed plannings (all employees pooled when they have none)
+ * Runs are split over a fork-join pool; every leaf gets its own SplittableRandom,
+ * so a given seed always gives the same forecast.
+ */
+@Service
+@Slf4j
+public class BacklogForecastService {
+
+    // ========== CONSTANTS ==========
+    private static final String FORECAST_PREFIX = "FC-";
+    private static final int ARRIVAL_WINDOW_START_HOUR = 9;
+    private static final int ARRIVAL_WINDOW_MINUTES = 8 * 60;
+    private static final double MIN_SPEED_RATIO = 0.25;
+    private static final double MAX_SPEED_RATIO = 4.0;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlanningProblemService planningProblemService;
+
+    @Autowired
+    private EarliestDeadlineFirstAlgorithm planner;
+
+    @Autowired
+    private DurationModel durationModel;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${planning.forecast.history-days:90}")
+    private int historyDays;
+
+    @Value("${planning.forecast.since-days:90}")
+    private int sinceDays;
+
+    @Value("${planning.forecast.max-runs:20000}")
+    private int maxRuns;
+
+    @Value("${planning.forecast.max-days:90}")
+    private int maxDays;
+
+    @Value("${planning.forecast.max-samples:2000}")
+    private int maxSamples;
+
+    @Value("${planning.forecast.runs-per-leaf:8}")
+    private int runsPerLeaf;
+
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // ========== FORECAST ==========
+
+    /**
+     * Forecast the burn-down of the open backlog
+     * @param days days of arrivals to simulate (1 to max-days)
+     * @param runs number of Monte-Carlo runs (1 to max-runs)
+     * @param seed random seed, null for a random one
+     * @return P50/P90 completion date of each tier's backlog and SLA-breach probabilities
+     */
+    public Map<String, Object> forecast(int days, int runs, Long seed) {
+        if (days < 1 || days > maxDays || runs < 1 || runs > maxRuns) {
+            throw new IllegalArgumentException("days must be 1-" + maxDays + " and runs 1-" + maxRuns);
+        }
+        long loadStart = System.currentTimeMillis();
+        Inputs inputs = loadInputs(days);
+        if (inputs.resources.isEmpty()) {
+            throw new IllegalStateException("No active employees to forecast with");
+        }
+        long loadMillis = System.currentTimeMillis() - loadStart;
+
+        long computeStart = System.currentTimeMillis();
+        long[][] clearEpochs = new long[SlaTier.values().length][runs];
+        SplittableRandom random = seed != null ? new SplittableRandom(seed) : new SplittableRandom();
+        long[][] breaches = pool.invoke(new RunBatch(inputs, clearEpochs, 0, runs, random));
+        long computeMillis = System.currentTimeMillis() - computeStart;
+        log.info(" Backlog forecast: {} runs over {} days, {} backlog tasks, {} employees in {} ms",
+                runs, days, inputs.backlog.size(), inputs.resources.size(), computeMillis);
+
+        Map<String, Object> tiers = new LinkedHashMap<>();
+        for (SlaTier tier : SlaTier.values()) {
+            int t = tier.ordinal();
+            long[] clear = clearEpochs[t];
+            Arrays.sort(clear);
+            long horizonEnd = WorkCalendar.epochMinute(inputs.today.plusDays(days).atStartOfDay());
+            int clearedInHorizon = 0;
+            for (long epoch : clear) {
+                if (epoch <= horizonEnd) {
+                    clearedInHorizon++;
+                }
+            }
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("backlogOrders", inputs.backlogOrders[t]);
+            stats.put("arrivalsPerDay", inputs.arrivalRates[t]);
+            stats.put("p50CompletionDate", inputs.backlogOrders[t] == 0 ? null : percentile(clear, 0.5));
+            stats.put("p90CompletionDate", inputs.backlogOrders[t] == 0 ? null : percentile(clear, 0.9));
+            stats.put("clearedWithinHorizonProbability", (double) clearedInHorizon / runs);
+            stats.put("breachProbability", breaches[t][1] == 0 ? 0.0 : (double) breaches[t][0] / breaches[t][1]);
+            stats.put("anyBreachProbability", (double) breaches[t][2] / runs);
+            tiers.put(tier.getDbValue(), stats);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("days", days);
+        result.put("runs", runs);
+        result.put("backlogTasks", inputs.backlog.size());
+        result.put("employees", inputs.resources.size());
+        result.put("loadTimeMs", loadMillis);
+        result.put("computeTimeMs", computeMillis);
+        result.put("tiers", tiers);
+        return result;
+    }
+
+    private static LocalDateTime percentile(long[] sortedEpochs, double quantile) {
+        int index = Math.min(sortedEpochs.length - 1, (int) Math.ceil(quantile * sortedEpochs.length) - 1);
+        return WorkCalendar.dateTime(sortedEpochs[Math.max(0, index)]);
+    }
+
+    // ========== MONTE-CARLO RUNS ==========
+
+    /**
+     * Runs [from, to) split in halves down to runs-per-leaf
+     * Returns per tier {late orders, orders, runs with a late order}.
+     */
+    private class RunBatch extends RecursiveTask<long[][]> {
+        // Fork/join tasks are never serialized
+        private static final long serialVersionUID = 1L;
+
+        private final transient Inputs inputs;
+        private final long[][] clearEpochs;
+        private final int from;
+        private final int to;
+        private final transient SplittableRandom random;
+
+        RunBatch(Inputs inputs, long[][] clearEpochs, int from, int to, SplittableRandom random) {
+            this.inputs = inputs;
+            this.clearEpochs = clearEpochs;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected long[][] compute() {
+            if (to - from <= runsPerLeaf) {
+                long[][] breaches = new long[SlaTier.values().length][3];
+                for (int run = from; run < to; run++) {
+                    simulate(inputs, run, random, clearEpochs, breaches);
+                }
+                return breaches;
+            }
+            int middle = (from + to) >>> 1;
+            RunBatch left = new RunBatch(inputs, clearEpochs, from, middle, random.split());
+            left.fork();
+            long[][] breaches = new RunBatch(inputs, clearEpochs, middle, to, random).compute();
+            long[][] leftBreaches = left.join();
+            for (int t = 0; t < breaches.length; t++) {
+                for (int i = 0; i < 3; i++) {
+                    breaches[t][i] += leftBreaches[t][i];
+                }
+            }
+            return breaches;
+        }
+    }
+
+    /**
+     * One run: sample speeds and arrivals, plan, record backlog clear times and breaches
+     */
+    private void simulate(Inputs inputs, int run, SplittableRandom random, long[][] clearEpochs, long[][] breaches) {
+        List<PlanningResource> resources = new ArrayList<>(inputs.resources.size());
+        for (PlanningResource resource : inputs.resources) {
+            double[] ratios = inputs.speedRatios.getOrDefault(resource.getEmployeeId().toUpperCase(), inputs.pooledRatios);
+            double ratio = ratios.length == 0 ? 1.0 : ratios[random.nextInt(ratios.length)];
+            resources.add(resource.toBuilder().speedFactor(resource.getSpeedFactor() * ratio).build());
+        }
+
+        List<PlanningTask> tasks = new ArrayList<>(inputs.backlog);
+        int arrival = 0;
+        for (int day = 0; day < inputs.days; day++) {
+            LocalDateTime windowStart = inputs.today.plusDays(day).atTime(ARRIVAL_WINDOW_START_HOUR, 0);
+            for (SlaTier tier : SlaTier.values()) {
+                int[] cards = inputs.cardSamples[tier.ordinal()];
+                int count = poisson(inputs.arrivalRates[tier.ordinal()], random);
+                for (int i = 0; i < count && cards.length > 0; i++) {
+                    int cardCount = cards[random.nextInt(cards.length)];
+                    LocalDateTime orderDate = windowStart.plusMinutes(random.nextInt(ARRIVAL_WINDOW_MINUTES));
+                    tasks.addAll(planningProblemService.splitOrder(PlanningTask.builder()
+                            .orderId(FORECAST_PREFIX + arrival++)
+                            .orderNumber(FORECAST_PREFIX + run)
+                            .cardCount(cardCount)
+                            .durationMinutes(durationModel.estimateMinutes(cardCount))
+                            .tier(tier)
+                            .releaseTime(orderDate)
+                            .dueTime(orderDate.plusDays(tier.getSlaDays()))
+                            .build()));
+                }
+            }
+        }
+
+        PlanningSolution solution = planner.solve(PlanningProblem.builder()
+                .horizonStart(inputs.today)
+                .tasks(tasks)
+                .resources(resources)
+                .build());
+
+        boolean[] breached = new boolean[breaches.length];
+        for (PlanningAssignment completion : ScheduleMetrics.orderCompletions(solution)) {
+            int t = completion.getTask().getTier().ordinal();
+            breaches[t][1]++;
+            if (completion.getTardinessMinutes() > 0) {
+                breaches[t][0]++;
+                breached[t] = true;
+            }
+            if (!completion.getTask().getOrderId().startsWith(FORECAST_PREFIX)) {
+                clearEpochs[t][run] = Math.max(clearEpochs[t][run], WorkCalendar.epochMinute(completion.getEndTime()));
+            }
+        }
+        for (int t = 0; t < breaches.length; t++) {
+            if (breached[t]) {
+                breaches[t][2]++;
+            }
+        }
+    }
+
+    /**
+     * Poisson draw: inversion for small rates, normal approximation above 30 per day
+     */
+    private static int poisson(double rate, SplittableRandom random) {
+        if (rate <= 0) {
+            return 0;
+        }
+        if (rate > 30) {
+            return (int) Math.max(0, Math.round(rate + Math.sqrt(rate) * random.nextGaussian()));
+        }
+        double threshold = Math.exp(-rate);
+        double product = random.nextDouble();
+        int count = 0;
+        while (product > threshold) {
+            product *= random.nextDouble();
+            count++;
+        }
+        return count;
+    }
+
+    // ========== INPUTS ==========
+
+    private static class Inputs {
+        LocalDate today;
+        int days;
+        List<PlanningTask> backlog;
+        List<PlanningResource> resources;
+        int[] backlogOrders = new int[SlaTier.values().length];
+        double[] arrivalRates = new double[SlaTier.values().length];
+        int[][] cardSamples = new int[SlaTier.values().length][];
+        /**
+         * Estimated / actual minutes of recent plannings, by employee ID (uppercase hex)
+         */
+        Map<String, double[]> speedRatios = new HashMap<>();
+        double[] pooledRatios;
+    }
+
+    private Inputs loadInputs(int days) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> {
+            Inputs inputs = new Inputs();
+            inputs.today = LocalDate.now();
+            inputs.days = days;
+            inputs.backlog = planningProblemService.loadTasks(inputs.today.minusDays(sinceDays));
+            inputs.resources = planningProblemService.loadResources(inputs.today);
+            inputs.backlog.stream()
+                    .filter(PlanningTask::isFinalStage)
+                    .filter(task -> task.getChunkIndex() == 0)
+                    .forEach(task -> inputs.backlogOrders[task.getTier().ordinal()]++);
+            loadArrivals(inputs);
+            loadSpeedRatios(inputs);
+            return inputs;
+        });
+    }
+
+    /**
+     * Daily arrival rate and recent card counts per tier
+     */
+    private void loadArrivals(Inputs inputs) {
+        LocalDate since = inputs.today.minusDays(historyDays);
+        String sql = """
+            SELECT o.delai, COALESCE(cc.card_count, 0)
+            FROM `order` o
+            LEFT JOIN (
+                SELECT cco.order_id, COUNT(*) as card_count
+                FROM card_certification_order cco
+                GROUP BY cco.order_id
+            ) cc ON cc.order_id = o.id
+            WHERE o.date >= ?
+            AND COALESCE(o.annulee, 0) = 0
+            ORDER BY o.date DESC
+            """;
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, since);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+
+        List<List<Integer>> cards = new ArrayList<>();
+        for (SlaTier ignored : SlaTier.values()) {
+            cards.add(new ArrayList<>());
+        }
+        int[] counts = new int[SlaTier.values().length];
+        for (Object[] row : results) {
+            int t = SlaTier.fromCode((String) row[0]).ordinal();
+            counts[t]++;
+            int cardCount = ((Number) row[1]).intValue();
+            if (cardCount > 0 && cards.get(t).size() < maxSamples) {
+                cards.get(t).add(cardCount);
+            }
+        }
+        for (int t = 0; t < counts.length; t++) {
+            inputs.arrivalRates[t] = (double) counts[t] / historyDays;
+            inputs.cardSamples[t] = cards.get(t).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Speed ratios (estimated / actual minutes) of recently completed plannings
+     */
+    private void loadSpeedRatios(Inputs inputs) {
+        String sql = """
+            SELECT HEX(p.employee_id), p.estimated_duration_minutes,
+                   TIMESTAMPDIFF(MINUTE, p.actual_start_time, p.actual_end_time)
+            FROM j_planning p
+            WHERE p.status = 'COMPLETED'
+            AND p.employee_id IS NOT NULL
+            AND p.estimated_duration_minutes > 0
+            AND p.actual_end_time >= ?
+            AND p.actual_end_time > p.actual_start_time
+            ORDER BY p.actual_end_time DESC
+            LIMIT ?
+            """;
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, inputs.today.minusDays(historyDays).atStartOfDay());
+        query.setParameter(2, maxSamples * Math.max(1, inputs.resources.size()));
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+
+        Map<String, List<Double>> byEmployee = new HashMap<>();
+        List<Double> pooled = new ArrayList<>();
+        for (Object[] row : results) {
+            double actual = ((Number) row[2]).doubleValue();
+            if (actual <= 0) {
+                continue;
+            }
+            double ratio = Math.max(MIN_SPEED_RATIO, Math.min(MAX_SPEED_RATIO, ((Number) row[1]).doubleValue() / actual));
+            byEmployee.computeIfAbsent((String) row[0], id -> new ArrayList<>()).add(ratio);
+            pooled.add(ratio);
+        }
+        byEmployee.forEach((employeeId, ratios) -> inputs.speedRatios.put(employeeId,
+                ratios.stream().mapToDouble(Double::doubleValue).toArray()));
+        inputs.pooledRatios = pooled.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+}
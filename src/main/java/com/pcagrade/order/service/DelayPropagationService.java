@@ -0,0 +1,491 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.algorithm.AvailabilityCalendar;
+import com.pcagrade.order.algorithm.EmployeeTimeline;
+import com.pcagrade.order.algorithm.PlanningResource;
+import com.pcagrade.order.algorithm.SlaTier;
+import com.pcagrade.order.algorithm.WorkCalendar;
+import com.pcagrade.order.event.PlanningProgressEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Delay Propagation Service - keeps an employee's queue in line with the shop floor
+ *
+ * Start, progress and completion updates (PlanningProgressEvent) are collected and
+ * handled on a short debounce, per employee. The projected end of the running work
+ * (actual start extrapolated from the progress, or the planned end) becomes the
+ * earliest start of the employee's remaining SCHEDULED plannings; overlapping ones
+ * are pushed back until the delay is absorbed by a gap. A pushed planning that now
+ * misses its due date is handed over to the least-loaded peer that can still meet
+ * it. Every move is recorded as a compact delta, readable with {@link #getDeltas}.
+ * Other employees' schedules are never touched except for offloaded plannings.
+ */
+@Service
+@Slf4j
+public class DelayPropagationService {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlanningProblemService planningProblemService;
+
+    @Autowired
+    private PlanningPersistenceService planningPersistenceService;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private IncrementalPlanningService incrementalPlanningService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${planning.delay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${planning.delay.min-shift-minutes:5}")
+    private int minShiftMinutes;
+
+    @Value("${planning.delay.max-shifted-plannings:100}")
+    private int maxShiftedPlannings;
+
+    @Value("${planning.delay.offload-enabled:true}")
+    private boolean offloadEnabled;
+
+    @Value("${planning.delay.delta-history:1000}")
+    private int deltaHistory;
+
+    /**
+     * Plannings updated since the last cycle (hex, uppercase, no dashes)
+     */
+    private final Set<String> pendingPlannings = ConcurrentHashMap.newKeySet();
+
+    private final ArrayDeque<ScheduleDelta> deltas = new ArrayDeque<>();
+
+    private long lastSequence;
+
+    // ========== ENTRY POINTS ==========
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanningProgress(PlanningProgressEvent event) {
+        if (enabled) {
+            pendingPlannings.add(event.getPlanningId());
+        }
+    }
+
+    /**
+     * Propagate the delays of the plannings updated since the last cycle (debounced)
+     */
+    @Scheduled(fixedDelayString = "${planning.delay.debounce-ms:1000}")
+    public void processPendingUpdates() {
+        if (pendingPlannings.isEmpty()) {
+            return;
+        }
+        List<String> planningIds = new ArrayList<>(pendingPlannings);
+        pendingPlannings.removeAll(planningIds);
+        try {
+            for (String employeeId : loadEmployeeIds(planningIds)) {
+                propagate(employeeId);
+            }
+        } catch (Exception e) {
+            log.warn("Delay propagation for {} plannings failed, will retry: {}", planningIds.size(), e.getMessage());
+            pendingPlannings.addAll(planningIds);
+        }
+    }
+
+    /**
+     * Re-align one employee's remaining queue with the projected end of the running work
+     * @param employeeId employee ID (hex, dashes allowed)
+     * @return deltas of the moved plannings, empty if nothing had to move
+     */
+    public synchronized List<ScheduleDelta> propagate(String employeeId) {
+        String id = employeeId.replace("-", "").toUpperCase();
+        List<QueuedPlanning> queue = loadQueue(id);
+        if (queue.isEmpty()) {
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate horizonStart = now.toLocalDate();
+        for (QueuedPlanning planning : queue) {
+            if (planning.actualStart != null && planning.actualStart.toLocalDate().isBefore(horizonStart)) {
+                horizonStart = planning.actualStart.toLocalDate();
+            }
+        }
+        AvailabilityCalendar calendar = availabilityService
+                .loadCalendars(Collections.singletonMap(id, loadWorkHours(id)), horizonStart).get(id);
+        if (calendar == null) {
+            return List.of();
+        }
+
+        long nowMinute = calendar.toWorkingMinute(WorkCalendar.epochMinute(now));
+        long cursor = nowMinute;
+        List<QueuedPlanning> scheduled = new ArrayList<>();
+        for (QueuedPlanning planning : queue) {
+            if ("IN_PROGRESS".equals(planning.status)) {
+                cursor = Math.max(cursor, projectedEnd(planning, calendar, nowMinute));
+            } else {
+                scheduled.add(planning);
+            }
+        }
+
+        Propagation propagation = new Propagation(id, calendar);
+        for (QueuedPlanning planning : scheduled) {
+            long start = calendar.toWorkingMinute(WorkCalendar.epochMinute(planning.start));
+            long end = Math.max(start + 1, calendar.toWorkingMinute(WorkCalendar.epochMinute(planning.end)));
+            long delay = cursor - start;
+            if (delay <= 0 || (propagation.isEmpty() && delay < minShiftMinutes)) {
+                break;
+            }
+            if (propagation.size() >= maxShiftedPlannings) {
+                log.warn("Delay of employee {} reaches beyond {} plannings, rest of the queue left as is",
+                        id, maxShiftedPlannings);
+                break;
+            }
+
+            long newEnd = cursor + (end - start);
+            long newEndEpoch = calendar.toEndEpochMinute(newEnd);
+            if (offloadEnabled && planning.dueEpoch < newEndEpoch && propagation.offload(planning, end - start)) {
+                continue;
+            }
+            propagation.move(planning, cursor, newEnd, newEndEpoch > planning.dueEpoch);
+            cursor = newEnd;
+        }
+
+        if (propagation.isEmpty()) {
+            return List.of();
+        }
+        apply(propagation);
+        incrementalPlanningService.invalidate();
+        log.info(" Delay of employee {} propagated: {} plannings moved, {} offloaded",
+                id, propagation.moved, propagation.offloaded);
+        return record(propagation.deltas);
+    }
+
+    /**
+     * Deltas recorded after a sequence number, oldest first
+     * @param since last sequence number seen by the caller (0 for all retained deltas)
+     */
+    public synchronized Map<String, Object> getDeltas(long since) {
+        List<ScheduleDelta> newer = new ArrayList<>();
+        for (ScheduleDelta delta : deltas) {
+            if (delta.getSequence() > since) {
+                newer.add(delta);
+            }
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("deltas", newer);
+        result.put("lastSequence", lastSequence);
+        result.put("pendingPlannings", pendingPlannings.size());
+        return result;
+    }
+
+    // ========== DELTAS ==========
+
+    /**
+     * One planning moved in time or handed over to another employee
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ScheduleDelta {
+        private final long sequence;
+        private final String planningId;
+        private final String employeeId;
+        /**
+         * Employee the planning was taken from, null if it stayed with the same employee
+         */
+        private final String previousEmployeeId;
+        private final LocalDateTime previousStartTime;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        /**
+         * True if the planning still ends after its due date
+         */
+        private final boolean late;
+    }
+
+    private List<ScheduleDelta> record(List<ScheduleDelta> pending) {
+        List<ScheduleDelta> recorded = new ArrayList<>(pending.size());
+        for (ScheduleDelta delta : pending) {
+            ScheduleDelta numbered = new ScheduleDelta(++lastSequence, delta.planningId, delta.employeeId,
+                    delta.previousEmployeeId, delta.previousStartTime, delta.startTime, delta.endTime, delta.late);
+            deltas.addLast(numbered);
+            recorded.add(numbered);
+        }
+        while (deltas.size() > deltaHistory) {
+            deltas.removeFirst();
+        }
+        return recorded;
+    }
+
+    // ========== PROPAGATION ==========
+
+    private static class QueuedPlanning {
+        String planningId;
+        String status;
+        LocalDateTime start;
+        LocalDateTime end;
+        LocalDateTime actualStart;
+        int progress;
+        long dueEpoch = Long.MAX_VALUE;
+    }
+
+    /**
+     * Moves and offloads of one employee, persisted together
+     */
+    private class Propagation {
+        final String employeeId;
+        final WorkCalendar calendar;
+        final List<ScheduleDelta> deltas = new ArrayList<>();
+        final List<Runnable> updates = new ArrayList<>();
+        /**
+         * Peers with their free-slot index, loaded on the first offload
+         */
+        List<PlanningResource> peers;
+        Map<String, EmployeeTimeline> peerTimelines;
+        PlanningResource self;
+        int moved;
+        int offloaded;
+
+        Propagation(String employeeId, WorkCalendar calendar) {
+            this.employeeId = employeeId;
+            this.calendar = calendar;
+        }
+
+        boolean isEmpty() {
+            return deltas.isEmpty();
+        }
+
+        int size() {
+            return deltas.size();
+        }
+
+        void move(QueuedPlanning planning, long start, long end, boolean late) {
+            LocalDateTime startTime = WorkCalendar.dateTime(calendar.toEpochMinute(start));
+            LocalDateTime endTime = WorkCalendar.dateTime(calendar.toEndEpochMinute(end));
+            updates.add(() -> require(planningPersistenceService.moveScheduled(planning.planningId, startTime, endTime),
+                    planning.planningId));
+            deltas.add(new ScheduleDelta(0, planning.planningId, employeeId, null, planning.start,
+                    startTime, endTime, late));
+            moved++;
+        }
+
+        /**
+         * Hand a planning over to the least-loaded peer that still meets its due date
+         * @param minutes working minutes the planning takes this employee
+         * @return false if no peer can take it in time
+         */
+        boolean offload(QueuedPlanning planning, long minutes) {
+            if (peers == null) {
+                loadPeers();
+            }
+            int nominal = (int) Math.round(minutes * (self != null ? self.getSpeedFactor() : 1.0));
+            long nowEpoch = WorkCalendar.epochMinute(LocalDateTime.now());
+
+            PlanningResource best = null;
+            long bestStart = 0;
+            long bestLoad = Long.MAX_VALUE;
+            for (PlanningResource peer : peers) {
+                WorkCalendar peerCalendar = peer.getCalendar();
+                EmployeeTimeline timeline = peerTimelines.get(peer.getEmployeeId());
+                int duration = peer.actualMinutes(nominal);
+                long start = timeline.findEarliestGap(duration, peerCalendar.toWorkingMinute(nowEpoch));
+                if (peerCalendar.toEndEpochMinute(start + duration) <= planning.dueEpoch
+                        && timeline.getBusyMinutes() < bestLoad) {
+                    best = peer;
+                    bestStart = start;
+                    bestLoad = timeline.getBusyMinutes();
+                }
+            }
+            if (best == null) {
+                return false;
+            }
+
+            int duration = best.actualMinutes(nominal);
+            peerTimelines.get(best.getEmployeeId()).insert(bestStart, bestStart + duration);
+            LocalDateTime startTime = WorkCalendar.dateTime(best.getCalendar().toEpochMinute(bestStart));
+            LocalDateTime endTime = WorkCalendar.dateTime(best.getCalendar().toEndEpochMinute(bestStart + duration));
+            String peerId = best.getEmployeeId().toUpperCase();
+            updates.add(() -> require(planningPersistenceService.reassignScheduled(planning.planningId, peerId,
+                    startTime, endTime, duration), planning.planningId));
+            deltas.add(new ScheduleDelta(0, planning.planningId, peerId, employeeId, planning.start,
+                    startTime, endTime, false));
+            offloaded++;
+            return true;
+        }
+
+        private void loadPeers() {
+            peers = new ArrayList<>();
+            peerTimelines = new HashMap<>();
+            for (PlanningResource resource : planningProblemService.loadResources(LocalDate.now())) {
+                if (resource.getEmployeeId().equalsIgnoreCase(employeeId)) {
+                    self = resource;
+                } else {
+                    peers.add(resource);
+                    peerTimelines.put(resource.getEmployeeId(), resource.newTimeline());
+                }
+            }
+        }
+    }
+
+    /**
+     * Working minute at which a running planning is expected to end
+     * Extrapolated from the progress so far; without progress, the planned end.
+     */
+    private long projectedEnd(QueuedPlanning planning, WorkCalendar calendar, long nowMinute) {
+        long plannedStart = calendar.toWorkingMinute(WorkCalendar.epochMinute(planning.start));
+        long plannedEnd = Math.max(plannedStart + 1, calendar.toWorkingMinute(WorkCalendar.epochMinute(planning.end)));
+        long actualStart = planning.actualStart != null ?
+                calendar.toWorkingMinute(WorkCalendar.epochMinute(planning.actualStart)) : plannedStart;
+
+        long projected;
+        if (planning.progress > 0) {
+            projected = actualStart + (nowMinute - actualStart) * 100 / planning.progress;
+        } else {
+            projected = Math.max(plannedEnd, actualStart + (plannedEnd - plannedStart));
+        }
+        // Still running, so it cannot end before now
+        return Math.max(projected, nowMinute + 1);
+    }
+
+    /**
+     * Persist all moves of a propagation in one transaction
+     */
+    private void apply(Propagation propagation) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            transactionTemplate.executeWithoutResult(status -> propagation.updates.forEach(Runnable::run));
+        } catch (IllegalStateException e) {
+            // A planning started meanwhile; its own event triggers the next propagation
+            log.info("Delay propagation of employee {} skipped: {}", propagation.employeeId, e.getMessage());
+            propagation.deltas.clear();
+        }
+    }
+
+    private void require(boolean updated, String planningId) {
+        if (!updated) {
+            throw new IllegalStateException("Planning " + planningId + " has started or was removed");
+        }
+    }
+
+    // ========== QUERIES ==========
+
+    /**
+     * Employees of the given plannings
+     */
+    private List<String> loadEmployeeIds(List<String> planningIds) {
+        String sql = """
+            SELECT DISTINCT HEX(p.employee_id)
+            FROM j_planning p
+            WHERE p.id IN (%s) AND p.employee_id IS NOT NULL
+            """.formatted(String.join(", ", Collections.nCopies(planningIds.size(), "UNHEX(?)")));
+
+        Query query = entityManager.createNativeQuery(sql);
+        int index = 1;
+        for (String planningId : planningIds) {
+            query.setParameter(index++, planningId);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object> results = query.getResultList();
+        return results.stream().map(Object::toString).toList();
+    }
+
+    /**
+     * Running and not-yet-started plannings of one employee, in start order
+     */
+    private List<QueuedPlanning> loadQueue(String employeeId) {
+        String sql = """
+            SELECT
+                HEX(p.id),
+                p.status,
+                p.start_time,
+                COALESCE(p.end_time, p.estimated_end_time,
+                         DATE_ADD(p.start_time, INTERVAL p.estimated_duration_minutes MINUTE)),
+                p.actual_start_time,
+                p.progress_percentage,
+                o.date,
+                o.delai
+            FROM j_planning p
+            LEFT JOIN `order` o ON o.id = p.order_id
+            WHERE p.employee_id = UNHEX(?)
+            AND p.status IN ('SCHEDULED', 'IN_PROGRESS')
+            AND p.start_time IS NOT NULL
+            ORDER BY p.start_time
+            """;
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, employeeId);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+
+        List<QueuedPlanning> queue = new ArrayList<>(results.size());
+        for (Object[] row : results) {
+            QueuedPlanning planning = new QueuedPlanning();
+            planning.planningId = (String) row[0];
+            planning.status = row[1] != null ? row[1].toString() : "SCHEDULED";
+            planning.start = toDateTime(row[2]);
+            planning.end = row[3] != null ? toDateTime(row[3]) : planning.start.plusMinutes(1);
+            planning.actualStart = toDateTime(row[4]);
+            planning.progress = row[5] != null ? ((Number) row[5]).intValue() : 0;
+            LocalDateTime orderDate = toDateTime(row[6]);
+            if (orderDate != null) {
+                planning.dueEpoch = WorkCalendar.epochMinute(
+                        orderDate.plusDays(SlaTier.fromCode((String) row[7]).getSlaDays()));
+            }
+            queue.add(planning);
+        }
+        return queue;
+    }
+
+    private Integer loadWorkHours(String employeeId) {
+        Query query = entityManager.createNativeQuery("SELECT work_hours_per_day FROM j_employee WHERE id = UNHEX(?)");
+        query.setParameter(1, employeeId);
+        @SuppressWarnings("unchecked")
+        List<Object> results = query.getResultList();
+        return !results.isEmpty() && results.get(0) instanceof Number hours ? hours.intValue() : null;
+    }
+
+    private LocalDateTime toDateTime(Object value) {
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime;
+        }
+        if (value instanceof java.sql.Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        if (value instanceof LocalDate date) {
+            return date.atStartOfDay();
+        }
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate().atStartOfDay();
+        }
+        return null;
+    }
+}
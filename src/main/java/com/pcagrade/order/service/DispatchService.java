@@ -0,0 +1,399 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.algorithm.EarliestDeadlineFirstAlgorithm;
+import com.pcagrade.order.algorithm.PlanningTask;
+import com.pcagrade.order.algorithm.SlaTier;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dispatch Service - pull-based work queue for the shop floor
+ *
+ * Unplanned orders wait in one lock-free skip list per SLA tier, ordered by due date.
+ * A claim takes the head of the most urgent tier, where every planning.dispatch.aging-minutes
+ * an order has waited since its order date promote it by one tier, so CLASSIC work is not
+ * starved by a steady stream of EXCELSIOR orders. The claim is then confirmed in the
+ * database with SELECT ... FOR UPDATE SKIP LOCKED on the order row, so two instances never
+ * hand out the same order, and recorded as an IN_PROGRESS j_planning row. The queue is
+ * refilled from the database, up to planning.dispatch.refill-size earliest due orders per
+ * tier, when it runs dry or gets older than the refill interval; once a refill has found
+ * nothing, claims on the empty queue return at once until the interval has passed. The
+ * employee row is locked for the claim, so max-in-progress holds for concurrent claims.
+ */
+@Service
+@Slf4j
+public class DispatchService {
+
+    // ========== CONSTANTS ==========
+    private static final int CLAIM_ATTEMPTS = 32;
+    private static final Comparator<PlanningTask> QUEUE_ORDER = EarliestDeadlineFirstAlgorithm.DEADLINE_ORDER
+            .thenComparing(PlanningTask::getOrderId);
+    private static final String LOCK_UNPLANNED_ORDER = """
+        SELECT HEX(o.id)
+        FROM `order` o
+        WHERE o.id = UNHEX(?)
+        AND NOT EXISTS (
+            SELECT 1 FROM j_planning jp
+            WHERE jp.order_id = o.id
+        )
+        FOR UPDATE SKIP LOCKED
+        """;
+    private static final String INSERT_DISPATCHED = """
+        INSERT INTO j_planning
+        (id, order_id, employee_id, planning_date, start_time, end_time,
+         estimated_duration_minutes, estimated_end_time, priority, status,
+         completed, card_count, notes, actual_start_time,
+         chunk_index, chunk_count, created_at, updated_at)
+        VALUES (UNHEX(?), UNHEX(?), UNHEX(?), ?, ?, ?, ?, ?, ?, 'IN_PROGRESS', 0, ?, ?, ?, 0, 1, NOW(), NOW())
+        """;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PlanningProblemService planningProblemService;
+
+    @Autowired
+    private DurationModel durationModel;
+
+    @Autowired
+    private ViewVersionService viewVersionService;
+
+    @Value("${planning.dispatch.aging-minutes:240}")
+    private long agingMinutes;
+
+    @Value("${planning.dispatch.refill-size:1000}")
+    private int refillSize;
+
+    @Value("${planning.dispatch.refill-interval-ms:30000}")
+    private long refillIntervalMillis;
+
+    @Value("${planning.dispatch.since-days:90}")
+    private int sinceDays;
+
+    @Value("${planning.dispatch.max-in-progress:1}")
+    private int maxInProgress;
+
+    /**
+     * One queue per tier, indexed by SlaTier ordinal
+     */
+    private final List<ConcurrentSkipListSet<PlanningTask>> queues = new ArrayList<>();
+
+    /**
+     * Order IDs currently queued (refills must not add them twice)
+     */
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private volatile long lastRefillMillis;
+
+    /**
+     * Time of the last refill that left the queue empty, 0 when the queue had work after it
+     */
+    private volatile long dryRefillMillis;
+    private final AtomicLong claims = new AtomicLong();
+    private final AtomicLong lostRaces = new AtomicLong();
+
+    public DispatchService() {
+        for (int t = 0; t < SlaTier.values().length; t++) {
+            queues.add(new ConcurrentSkipListSet<>(QUEUE_ORDER));
+        }
+    }
+
+    // ========== CLAIM ==========
+
+    /**
+     * Hand the most urgent pending order to an employee
+     * @param employeeId employee ID (hex, dashes allowed)
+     * @return the IN_PROGRESS planning created for the claim, or null if no work is pending
+     * @throws IllegalArgumentException if the employee doesn't exist or is inactive
+     * @throws IllegalStateException if the employee already has max-in-progress plannings running
+     */
+    public Map<String, Object> claim(String employeeId) {
+        String employee = cleanId(employeeId);
+
+        if (System.currentTimeMillis() - lastRefillMillis > refillIntervalMillis) {
+            refill(false);
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int attempt = 0; attempt < CLAIM_ATTEMPTS; attempt++) {
+            PlanningTask task = pollNext(LocalDateTime.now());
+            if (task == null) {
+                if (refillWhenDry() > 0 || !queued.isEmpty()) {
+                    continue;
+                }
+                return null;
+            }
+            queued.remove(task.getOrderId());
+
+            Map<String, Object> planning;
+            try {
+                planning = transaction.execute(status -> tryClaim(employee, task));
+            } catch (RuntimeException e) {
+                offer(task);
+                throw e;
+            }
+            if (planning != null) {
+                claims.incrementAndGet();
+                log.debug("Order {} dispatched to employee {}", task.getOrderNumber(), employee);
+                return planning;
+            }
+            // Claimed by another instance or planned in the meantime
+            lostRaces.incrementAndGet();
+        }
+        return null;
+    }
+
+    /**
+     * Reload pending orders from the database
+     * @param force refill even if the last refill is recent (waits for a running refill)
+     * @return number of orders added to the queue
+     */
+    public int refill(boolean force) {
+        if (force) {
+            refillLock.lock();
+        } else if (!refillLock.tryLock()) {
+            return 0;
+        }
+        try {
+            if (!force && System.currentTimeMillis() - lastRefillMillis <= refillIntervalMillis) {
+                return 0;
+            }
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            // Earliest due orders of each tier, so a new urgent order is not kept out by old ones
+            LocalDate since = LocalDate.now().minusDays(sinceDays);
+            int added = 0;
+            for (SlaTier tier : SlaTier.values()) {
+                List<PlanningTask> orders = transaction.execute(status ->
+                        planningProblemService.loadOrders(since, tier, refillSize));
+                for (PlanningTask order : orders) {
+                    if (offer(order)) {
+                        added++;
+                    }
+                }
+            }
+            lastRefillMillis = System.currentTimeMillis();
+            dryRefillMillis = queued.isEmpty() ? lastRefillMillis : 0;
+            if (added > 0) {
+                log.info("Dispatch queue refilled with {} orders ({} queued)", added, queued.size());
+            }
+            return added;
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    /**
+     * Forced refill for a claim that found the queue empty, skipped while the last refill
+     * found nothing and is more recent than the refill interval
+     * @return number of orders added to the queue
+     */
+    private int refillWhenDry() {
+        if (isRecentlyDry()) {
+            return 0;
+        }
+        refillLock.lock();
+        try {
+            // Another claim may have refilled while this one waited
+            return isRecentlyDry() ? 0 : refill(true);
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private boolean isRecentlyDry() {
+        return System.currentTimeMillis() - dryRefillMillis <= refillIntervalMillis;
+    }
+
+    /**
+     * Queue depth per tier and claim counters
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> tiers = new LinkedHashMap<>();
+        for (SlaTier tier : SlaTier.values()) {
+            tiers.put(tier.name(), queues.get(tier.ordinal()).size());
+        }
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("queued", queued.size());
+        status.put("tiers", tiers);
+        status.put("claims", claims.get());
+        status.put("lostRaces", lostRaces.get());
+        status.put("agingMinutes", agingMinutes);
+        status.put("lastRefill", lastRefillMillis > 0 ?
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(lastRefillMillis), ZoneId.systemDefault()) : null);
+        return status;
+    }
+
+    // ========== QUEUE ==========
+
+    private boolean offer(PlanningTask task) {
+        if (!queued.add(task.getOrderId())) {
+            return false;
+        }
+        queues.get(task.getTier().ordinal()).add(task);
+        return true;
+    }
+
+    /**
+     * Remove the head of the tier with the best aged rank; ties go to the earlier due date
+     */
+    private PlanningTask pollNext(LocalDateTime now) {
+        while (true) {
+            int bestTier = -1;
+            long bestRank = Long.MAX_VALUE;
+            LocalDateTime bestDue = null;
+            for (int t = 0; t < queues.size(); t++) {
+                PlanningTask head = peek(queues.get(t));
+                if (head == null) {
+                    continue;
+                }
+                // Aging promotes up to the most urgent tier, not past it
+                long rank = Math.max(0, t - agedLevels(head, now));
+                if (rank < bestRank || (rank == bestRank && head.getDueTime().isBefore(bestDue))) {
+                    bestTier = t;
+                    bestRank = rank;
+                    bestDue = head.getDueTime();
+                }
+            }
+            if (bestTier < 0) {
+                return null;
+            }
+            PlanningTask task = queues.get(bestTier).pollFirst();
+            if (task != null) {
+                return task;
+            }
+            // Emptied by a concurrent claim, look again
+        }
+    }
+
+    private long agedLevels(PlanningTask task, LocalDateTime now) {
+        if (agingMinutes <= 0 || task.getReleaseTime() == null) {
+            return 0;
+        }
+        return Math.max(0, Duration.between(task.getReleaseTime(), now).toMinutes() / agingMinutes);
+    }
+
+    private PlanningTask peek(ConcurrentSkipListSet<PlanningTask> queue) {
+        try {
+            return queue.isEmpty() ? null : queue.first();
+        } catch (NoSuchElementException e) {
+            return null;
+        }
+    }
+
+    // ========== DATABASE ==========
+
+    /**
+     * Lock the employee row, so concurrent claims of one employee run one after the other,
+     * then count their running plannings. The locking read doesn't open the transaction's
+     * snapshot, so the count sees the plannings of claims committed while waiting.
+     */
+    private void lockEmployee(String employeeId) {
+        Query employee = entityManager.createNativeQuery(
+                "SELECT COALESCE(e.active, 1) FROM j_employee e WHERE e.id = UNHEX(?) FOR UPDATE");
+        employee.setParameter(1, employeeId);
+        List<?> results = employee.getResultList();
+        if (results.isEmpty() || ((Number) results.get(0)).intValue() != 1) {
+            throw new IllegalArgumentException("Active employee not found: " + employeeId);
+        }
+        if (maxInProgress <= 0) {
+            return;
+        }
+
+        Query running = entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM j_planning p WHERE p.employee_id = UNHEX(?) AND p.status = 'IN_PROGRESS'");
+        running.setParameter(1, employeeId);
+        long inProgress = ((Number) running.getSingleResult()).longValue();
+        if (inProgress >= maxInProgress) {
+            throw new IllegalStateException(String.format(
+                    "Employee %s already has %d planning(s) in progress", employeeId, inProgress));
+        }
+    }
+
+    /**
+     * Check the employee, lock the order row (skipping it if another claim holds it) and record the planning
+     * @return planning map, null if the order is locked elsewhere or already planned
+     * @throws IllegalArgumentException if the employee doesn't exist or is inactive
+     * @throws IllegalStateException if the employee already has max-in-progress plannings running
+     */
+    private Map<String, Object> tryClaim(String employeeId, PlanningTask task) {
+        lockEmployee(employeeId);
+
+        Query lock = entityManager.createNativeQuery(LOCK_UNPLANNED_ORDER);
+        lock.setParameter(1, task.getOrderId());
+        if (lock.getResultList().isEmpty()) {
+            return null;
+        }
+
+        int minutes = Math.max(1, (int) Math.ceil(task.getDurationMinutes() / durationModel.speedFactor(employeeId)));
+        LocalDateTime start = LocalDateTime.now().withNano(0);
+        LocalDateTime end = start.plusMinutes(minutes);
+        String planningId = UUID.randomUUID().toString().replace("-", "").toUpperCase();
+
+        Query insert = entityManager.createNativeQuery(INSERT_DISPATCHED);
+        insert.setParameter(1, planningId);
+        insert.setParameter(2, task.getOrderId());
+        insert.setParameter(3, employeeId);
+        insert.setParameter(4, start.toLocalDate());
+        insert.setParameter(5, start);
+        insert.setParameter(6, end);
+        insert.setParameter(7, minutes);
+        insert.setParameter(8, end);
+        insert.setParameter(9, task.getTier().getDbValue());
+        insert.setParameter(10, task.getCardCount());
+        insert.setParameter(11, String.format("Dispatched on claim for %d cards", task.getCardCount()));
+        insert.setParameter(12, start);
+        insert.executeUpdate();
+        viewVersionService.planningsChanged(employeeId, start.toLocalDate());
+
+        Map<String, Object> planning = new HashMap<>();
+        planning.put("id", planningId);
+        planning.put("orderId", task.getOrderId());
+        planning.put("orderNumber", task.getOrderNumber());
+        planning.put("employeeId", employeeId);
+        planning.put("priority", task.getTier().getDbValue());
+        planning.put("cardCount", task.getCardCount());
+        planning.put("estimatedDurationMinutes", minutes);
+        planning.put("startTime", start);
+        planning.put("estimatedEndTime", end);
+        planning.put("dueTime", task.getDueTime());
+        planning.put("status", "IN_PROGRESS");
+        planning.put("version", 0L);
+        return planning;
+    }
+
+    private String cleanId(String id) {
+        return id.replace("-", "").toUpperCase();
+    }
+}
@@ -0,0 +1,410 @@
+package com.pcagrade.order.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Duration Model - minutes per card learned from completed plannings
+ *
+ * Each completed single-stage planning with actual start/end times is one observation,
+ * shared between the card profiles (type, descellee, photo) of its order by card count.
+ * Rates are kept per profile, per employee and profile, and globally; lookups fall back
+ * from the most specific segment with enough samples to planning.card.processing.time.
+ * The lookup table is in memory and refreshed incrementally from the last completed
+ * planning seen (keyset on actual_end_time, id); employee speed factors are derived
+ * from it once per refresh, so lookups are hash reads.
+ */
+@Service
+@Slf4j
+public class DurationModel {
+
+    // ========== CONSTANTS ==========
+    /**
+     * Profile of cards whose type and flags are unknown
+     */
+    public static final String UNKNOWN_PROFILE = "-";
+    private static final String GLOBAL_KEY = "*";
+    private static final int PROFILE_QUERY_BATCH_SIZE = 1000;
+    private static final String PROFILE_EXPRESSION =
+            "CONCAT_WS('|', COALESCE(cc.type, '-'), COALESCE(cc.descellee, 0), COALESCE(cc.photo, 0))";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Value("${planning.card.processing.time:3}")
+    private int defaultMinutesPerCard;
+
+    @Value("${planning.duration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${planning.duration.min-samples:5}")
+    private int minSamples;
+
+    @Value("${planning.duration.min-minutes-per-card:0.25}")
+    private double minMinutesPerCard;
+
+    @Value("${planning.duration.max-minutes-per-card:30}")
+    private double maxMinutesPerCard;
+
+    @Value("${planning.duration.history-days:180}")
+    private int historyDays;
+
+    @Value("${planning.duration.refresh-batch-size:5000}")
+    private int refreshBatchSize;
+
+    /**
+     * Observed work per segment: "*", "P:profile", "E:employee", "E:employee|P:profile"
+     */
+    private final ConcurrentHashMap<String, Rate> rates = new ConcurrentHashMap<>();
+
+    /**
+     * Speed factor per employee key ("E:employee"), recomputed after each refresh that folded plannings
+     */
+    private volatile Map<String, Double> speedFactors = Map.of();
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    /**
+     * Keyset position of the last observation folded into the model
+     */
+    private volatile LocalDateTime watermarkTime;
+    private String watermarkId = "";
+
+    // ========== LOOKUPS ==========
+
+    /**
+     * Expected duration of a card mix, independent of the employee
+     * @param cardsByProfile card count per profile (see {@link #loadCardProfiles})
+     * @param cardCount total cards, used at the global rate when the mix is unknown
+     * @return duration in minutes (at least 1)
+     */
+    public int estimateMinutes(Map<String, Integer> cardsByProfile, int cardCount) {
+        return estimateMinutes(null, cardsByProfile, cardCount);
+    }
+
+    /**
+     * Expected duration of a card mix for one employee
+     * @param employeeId employee ID (hex), null for any employee
+     * @param cardsByProfile card count per profile, empty when unknown
+     * @param cardCount total cards, used at the global rate when the mix is unknown
+     * @return duration in minutes (at least 1)
+     */
+    public int estimateMinutes(String employeeId, Map<String, Integer> cardsByProfile, int cardCount) {
+        double minutes = 0;
+        int profiled = 0;
+        for (Map.Entry<String, Integer> entry : cardsByProfile.entrySet()) {
+            minutes += entry.getValue() * minutesPerCard(employeeId, entry.getKey());
+            profiled += entry.getValue();
+        }
+        if (profiled < cardCount) {
+            minutes += (cardCount - profiled) * minutesPerCard(employeeId, UNKNOWN_PROFILE);
+        }
+        return Math.max(1, (int) Math.round(minutes));
+    }
+
+    /**
+     * Expected duration of an order for any employee when only its card count is known
+     * @param cardCount number of cards (at least one is assumed)
+     * @return duration in minutes (at least 1)
+     */
+    public int estimateMinutes(int cardCount) {
+        return estimateMinutes(null, Map.of(), Math.max(1, cardCount));
+    }
+
+    /**
+     * Expected duration of an order when only its card count is known
+     * @param employeeId employee ID (hex), null for any employee
+     * @param cardCount number of cards (at least one is assumed)
+     * @return duration in minutes (at least 1)
+     */
+    public int estimateMinutes(String employeeId, int cardCount) {
+        return estimateMinutes(employeeId, Map.of(), Math.max(1, cardCount));
+    }
+
+    /**
+     * Minutes per card of a profile, for one employee when their own history is large enough
+     * @param employeeId employee ID (hex), null for any employee
+     * @param profile card profile, "-" when unknown
+     * @return minutes per card
+     */
+    public double minutesPerCard(String employeeId, String profile) {
+        if (employeeId != null) {
+            Rate own = trusted(employeeKey(employeeId) + "|" + profileKey(profile));
+            if (own != null) {
+                return own.minutesPerCard();
+            }
+        }
+        Rate rate = trusted(profileKey(profile));
+        if (rate == null) {
+            rate = trusted(GLOBAL_KEY);
+        }
+        double minutes = rate != null ? rate.minutesPerCard() : defaultMinutesPerCard;
+        return employeeId != null ? minutes / speedFactor(employeeId) : minutes;
+    }
+
+    /**
+     * Relative speed of an employee: profile-expected minutes / observed minutes
+     * over the profiles they have enough history on (1.0 when unknown)
+     * @param employeeId employee ID (hex)
+     * @return speed factor, 1.25 = needs 20% less time than the average
+     */
+    public double speedFactor(String employeeId) {
+        return speedFactors.getOrDefault(employeeKey(employeeId), 1.0);
+    }
+
+    /**
+     * Whether enough completed plannings have been folded in for the model to differ from the default
+     * @return true once the global rate has min-samples observations
+     */
+    public boolean isTrained() {
+        return trusted(GLOBAL_KEY) != null;
+    }
+
+    /**
+     * Current lookup table, for monitoring
+     * @return segment -> samples, cards and minutes per card
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> segments = new LinkedHashMap<>();
+        rates.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    Map<String, Object> segment = new HashMap<>();
+                    segment.put("samples", entry.getValue().samples());
+                    segment.put("cards", Math.round(entry.getValue().cards()));
+                    segment.put("minutesPerCard", Math.round(entry.getValue().minutesPerCard() * 100) / 100.0);
+                    segments.put(entry.getKey(), segment);
+                });
+
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("trained", isTrained());
+        statistics.put("minSamples", minSamples);
+        statistics.put("defaultMinutesPerCard", defaultMinutesPerCard);
+        statistics.put("watermark", watermarkTime);
+        statistics.put("segments", segments);
+        return statistics;
+    }
+
+    // ========== CARD PROFILES ==========
+
+    /**
+     * Cards per profile (type|descellee|photo of card_certification) for each order
+     * @param orderIds order IDs (hex, uppercase, no dashes)
+     * @return order ID -> profile -> card count
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Map<String, Integer>> loadCardProfiles(Collection<String> orderIds) {
+        List<String> ids = new ArrayList<>(orderIds);
+        Map<String, Map<String, Integer>> profiles = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += PROFILE_QUERY_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(from + PROFILE_QUERY_BATCH_SIZE, ids.size()));
+            String sql = """
+                SELECT HEX(cco.order_id), %s AS profile, COUNT(*)
+                FROM card_certification_order cco
+                INNER JOIN card_certification cc ON cco.card_certification_id = cc.id
+                WHERE cco.order_id IN (%s)
+                GROUP BY cco.order_id, profile
+                """.formatted(PROFILE_EXPRESSION, String.join(", ", Collections.nCopies(batch.size(), "UNHEX(?)")));
+
+            Query query = entityManager.createNativeQuery(sql);
+            int index = 1;
+            for (String orderId : batch) {
+                query.setParameter(index++, orderId);
+            }
+
+            for (Object[] row : (List<Object[]>) query.getResultList()) {
+                profiles.computeIfAbsent((String) row[0], id -> new HashMap<>())
+                        .put((String) row[1], ((Number) row[2]).intValue());
+            }
+        }
+        return profiles;
+    }
+
+    // ========== INCREMENTAL REFRESH ==========
+
+    /**
+     * Fold plannings completed since the last refresh into the model
+     * The first run reads planning.duration.history-days of history.
+     */
+    @Scheduled(fixedDelayString = "${planning.duration.refresh-interval-ms:60000}",
+            initialDelayString = "${planning.duration.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (!enabled || !refreshLock.tryLock()) {
+            return;
+        }
+        try {
+            int folded = 0;
+            int read;
+            do {
+                read = foldNextBatch();
+                folded += read;
+            } while (read == refreshBatchSize);
+            if (folded > 0) {
+                speedFactors = computeSpeedFactors();
+                log.info("Duration model updated with {} completed plannings ({} segments)", folded, rates.size());
+            }
+        } catch (Exception e) {
+            log.warn("Duration model refresh failed: {}", e.getMessage());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Read and fold one keyset page of completed plannings
+     * @return number of plannings read
+     */
+    @SuppressWarnings("unchecked")
+    private int foldNextBatch() {
+        String sql = """
+            SELECT
+                HEX(p.id),
+                HEX(p.order_id),
+                HEX(p.employee_id),
+                p.card_count,
+                TIMESTAMPDIFF(SECOND, p.actual_start_time, p.actual_end_time),
+                p.actual_end_time
+            FROM j_planning p
+            WHERE p.status = 'COMPLETED'
+            AND p.stage IS NULL
+            AND p.card_count > 0
+            AND p.actual_start_time IS NOT NULL
+            AND (p.actual_end_time > ? OR (p.actual_end_time = ? AND p.id > UNHEX(?)))
+            ORDER BY p.actual_end_time, p.id
+            LIMIT ?
+            """;
+
+        LocalDateTime since = watermarkTime != null ? watermarkTime : LocalDateTime.now().minusDays(historyDays);
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, since);
+        query.setParameter(2, since);
+        query.setParameter(3, watermarkId);
+        query.setParameter(4, refreshBatchSize);
+
+        List<Object[]> results = query.getResultList();
+        if (results.isEmpty()) {
+            return 0;
+        }
+
+        List<String> orderIds = results.stream().map(row -> (String) row[1]).distinct().toList();
+        Map<String, Map<String, Integer>> profiles = loadCardProfiles(orderIds);
+        for (Object[] row : results) {
+            if (row[4] != null) {
+                fold((String) row[2], profiles.getOrDefault((String) row[1], Map.of()),
+                        ((Number) row[3]).intValue(), ((Number) row[4]).doubleValue() / 60.0);
+            }
+        }
+
+        Object[] last = results.get(results.size() - 1);
+        watermarkTime = toDateTime(last[5]);
+        watermarkId = (String) last[0];
+        return results.size();
+    }
+
+    /**
+     * Share one observation between the profiles of its order, by card count
+     */
+    private void fold(String employeeId, Map<String, Integer> cardsByProfile, int cardCount, double minutes) {
+        double perCard = minutes / cardCount;
+        if (perCard < minMinutesPerCard || perCard > maxMinutesPerCard) {
+            // Left open overnight, or closed without doing the work
+            return;
+        }
+
+        rates.merge(GLOBAL_KEY, new Rate(1, cardCount, minutes), Rate::plus);
+        if (employeeId != null) {
+            rates.merge(employeeKey(employeeId), new Rate(1, cardCount, minutes), Rate::plus);
+        }
+
+        int profiled = cardsByProfile.values().stream().mapToInt(Integer::intValue).sum();
+        Map<String, Integer> mix = profiled > 0 ? cardsByProfile : Map.of(UNKNOWN_PROFILE, cardCount);
+        int total = profiled > 0 ? profiled : cardCount;
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            double share = (double) entry.getValue() / total;
+            Rate observation = new Rate(1, cardCount * share, minutes * share);
+            rates.merge(profileKey(entry.getKey()), observation, Rate::plus);
+            if (employeeId != null) {
+                rates.merge(employeeKey(employeeId) + "|" + profileKey(entry.getKey()), observation, Rate::plus);
+            }
+        }
+    }
+
+    /**
+     * One pass over the employee|profile segments with enough samples
+     */
+    private Map<String, Double> computeSpeedFactors() {
+        Map<String, double[]> work = new HashMap<>();
+        for (Map.Entry<String, Rate> entry : rates.entrySet()) {
+            int separator = entry.getKey().indexOf('|');
+            if (!entry.getKey().startsWith("E:") || separator < 0 || entry.getValue().samples() < minSamples) {
+                continue;
+            }
+            Rate reference = trusted(entry.getKey().substring(separator + 1));
+            if (reference != null) {
+                double[] expectedAndObserved = work.computeIfAbsent(entry.getKey().substring(0, separator), key -> new double[2]);
+                expectedAndObserved[0] += entry.getValue().cards() * reference.minutesPerCard();
+                expectedAndObserved[1] += entry.getValue().minutes();
+            }
+        }
+        Map<String, Double> factors = new HashMap<>();
+        work.forEach((employee, expectedAndObserved) -> {
+            if (expectedAndObserved[0] > 0 && expectedAndObserved[1] > 0) {
+                factors.put(employee, expectedAndObserved[0] / expectedAndObserved[1]);
+            }
+        });
+        return factors;
+    }
+
+    // ========== INTERNAL HELPERS ==========
+
+    /**
+     * Accumulated work of a segment (immutable, merged atomically)
+     */
+    private record Rate(long samples, double cards, double minutes) {
+
+        Rate plus(Rate other) {
+            return new Rate(samples + other.samples, cards + other.cards, minutes + other.minutes);
+        }
+
+        double minutesPerCard() {
+            return cards > 0 ? minutes / cards : 0;
+        }
+    }
+
+    private Rate trusted(String key) {
+        Rate rate = rates.get(key);
+        return rate != null && rate.samples() >= minSamples && rate.cards() > 0 ? rate : null;
+    }
+
+    private String employeeKey(String employeeId) {
+        return "E:" + employeeId.replace("-", "").toUpperCase();
+    }
+
+    private String profileKey(String profile) {
+        return "P:" + profile;
+    }
+
+    private LocalDateTime toDateTime(Object value) {
+        if (value instanceof java.sql.Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
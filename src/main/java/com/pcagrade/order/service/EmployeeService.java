@@ -37,6 +37,9 @@ public class EmployeeService {
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private ViewVersionService viewVersionService;
+
     // ========== CRUD OPERATIONS ==========
 
     /**
@@ -67,6 +70,7 @@ public class EmployeeService {
 
         // Save the employee
         Employee savedEmployee = employeeRepository.save(employee);
+        viewVersionService.employeesChanged();
 
         log.info("Employee created successfully with ID: {}", savedEmployee.getId());
         return savedEmployee;
@@ -90,6 +94,7 @@ public class EmployeeService {
 
         employee.setModificationDate(LocalDateTime.now());
         Employee updatedEmployee = employeeRepository.save(employee);
+        viewVersionService.employeesChanged();
 
         log.info("Employee updated successfully: {}", updatedEmployee.getId());
         return updatedEmployee;
@@ -133,6 +138,9 @@ public class EmployeeService {
             Optional<Employee> employee = findById(id);
             if (employee.isPresent()) {
                 employeeRepository.delete(employee.get());
+                // Their plannings go with them (ON DELETE CASCADE)
+                viewVersionService.employeesChanged();
+                viewVersionService.generationChanged();
                 log.info("Employee deleted successfully: {}", id);
             } else {
                 throw new IllegalArgumentException("Employee not found with ID: " + id);
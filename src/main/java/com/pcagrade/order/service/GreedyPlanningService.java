@@ -1,8 +1,10 @@
 package com.pcagrade.order.service;
 
+import com.pcagrade.order.event.PlanningGeneratedEvent;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 
@@ -26,6 +28,16 @@ public class GreedyPlanningService {
 
     @Autowired
     private EntityManager entityManager;
+
+    @Autowired
+    private DurationModel durationModel;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlanningEngineService planningEngineService;
+
     /**
      * Execute greedy planning algorithm
      * @param day target day
@@ -86,7 +98,7 @@ public class GreedyPlanningService {
                         cardCount = 10; // Default fallback
                     }
 
-                    int durationMinutes = Math.max(60, 30 + cardCount * 3);
+                    int durationMinutes = durationModel.estimateMinutes(employeeId, cardCount);
 
                     // Save immediately to database
                     boolean saved = savePlanningToDatabase(orderId, employeeId, day, month, year, durationMinutes, cardCount);
@@ -114,6 +126,8 @@ public class GreedyPlanningService {
                 employeeIndex++; // Always increment to maintain rotation
             }
 
+            eventPublisher.publishEvent(new PlanningGeneratedEvent("greedy"));
+
             // Rest of existing code...
             result.put("success", true);
             result.put("message", String.format("Greedy planning completed: %d assignments created",
@@ -122,6 +136,8 @@ public class GreedyPlanningService {
             result.put("totalPlannings", createdPlannings.size());
             result.put("totalEmployees", employees.size());
             result.put("totalOrders", orders.size());
+            result.put("score", planningEngineService.scoreSchedule(
+                    LocalDate.of(year, month, day), null, null, null).get("score"));
 
             return result;
 
@@ -184,46 +200,6 @@ public class GreedyPlanningService {
         }
     }
 
-    /**
-     * Calculate basic statistics for greedy planning
-     * @param plannings list of planning entries
-     * @param employees list of employees
-     * @return statistics map
-     */
-    private Map<String, Object> calculateGreedyStatistics(List<Map<String, Object>> plannings,
-                                                          List<Map<String, Object>> employees) {
-        Map<String, Object> stats = new HashMap<>();
-
-        // Total assignments
-        stats.put("totalAssignments", plannings.size());
-
-        // Assignments per employee
-        Map<String, Integer> assignmentCounts = new HashMap<>();
-        int totalDuration = 0;
-
-        for (Map<String, Object> planning : plannings) {
-            String employeeId = (String) planning.get("employee_id");
-            assignmentCounts.merge(employeeId, 1, Integer::sum);
-
-            Integer duration = (Integer) planning.get("duration_minutes");
-            if (duration != null) {
-                totalDuration += duration;
-            }
-        }
-
-        stats.put("assignmentCounts", assignmentCounts);
-        stats.put("totalDurationMinutes", totalDuration);
-        stats.put("averageDurationMinutes", plannings.isEmpty() ? 0 : totalDuration / plannings.size());
-
-        // Employee utilization
-        if (!employees.isEmpty()) {
-            stats.put("employeesUsed", assignmentCounts.size());
-            stats.put("employeeUtilizationPercent",
-                    Math.round((double) assignmentCounts.size() / employees.size() * 100));
-        }
-
-        return stats;
-    }
     /**
      * Check if planning already exists for this order and employee
      * @param orderId the order ID
@@ -0,0 +1,516 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.algorithm.EarliestDeadlineFirstAlgorithm;
+import com.pcagrade.order.algorithm.EmployeeTimeline;
+import com.pcagrade.order.algorithm.PlanningAssignment;
+import com.pcagrade.order.algorithm.PlanningResource;
+import com.pcagrade.order.algorithm.PlanningTask;
+import com.pcagrade.order.algorithm.WorkCalendar;
+import com.pcagrade.order.event.OrderCreatedEvent;
+import com.pcagrade.order.event.PlanningGeneratedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incremental Planning Service - keeps the schedule current as orders arrive
+ *
+ * New orders (OrderCreatedEvent, or enqueueOrder) are collected and planned on a
+ * short debounce against a live copy of every employee's schedule, loaded once
+ * and then updated in place. An order goes into the earliest free slot (O(log n)
+ * per employee). If that would miss its SLA, it is inserted before the first
+ * not-started planning with a later due date (O(log n) per employee, see
+ * {@link LiveEntries}) and only that employee's following plannings are pushed
+ * back, until the push is absorbed by a gap. Any bulk rewrite of j_planning
+ * (PlanningGeneratedEvent, or an explicit invalidate) drops the live copy.
+ */
+@Service
+@Slf4j
+public class IncrementalPlanningService {
+
+    // ========== CONSTANTS ==========
+    private static final String ALGORITHM_NAME = "incremental";
+
+    @Autowired
+    private PlanningProblemService planningProblemService;
+
+    @Autowired
+    private PlanningPersistenceService planningPersistenceService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${planning.incremental.enabled:true}")
+    private boolean enabled;
+
+    @Value("${planning.incremental.max-age-minutes:15}")
+    private long maxAgeMinutes;
+
+    @Value("${planning.incremental.max-shifted-plannings:50}")
+    private int maxShiftedPlannings;
+
+    private final Set<String> pendingOrders = ConcurrentHashMap.newKeySet();
+
+    private LiveSchedule schedule;
+
+    // ========== ENTRY POINTS ==========
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        enqueueOrder(event.getOrderId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanningGenerated(PlanningGeneratedEvent event) {
+        invalidate();
+    }
+
+    /**
+     * Queue an order for the next debounce cycle
+     * @param orderId order ID (hex, dashes allowed)
+     */
+    public void enqueueOrder(String orderId) {
+        if (enabled) {
+            pendingOrders.add(orderId.replace("-", "").toUpperCase());
+        }
+    }
+
+    /**
+     * Drop the live schedule; the next insertion reloads it from j_planning
+     * Called after bulk (re)planning. Inside a transaction it is dropped again after
+     * commit, so a reload that read the rows before the commit is not kept.
+     */
+    public void invalidate() {
+        drop();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    drop();
+                }
+            });
+        }
+    }
+
+    private synchronized void drop() {
+        schedule = null;
+    }
+
+    /**
+     * Plan queued orders (debounced)
+     */
+    @Scheduled(fixedDelayString = "${planning.incremental.debounce-ms:2000}")
+    public void processPendingOrders() {
+        if (pendingOrders.isEmpty()) {
+            return;
+        }
+        List<String> orderIds = new ArrayList<>(pendingOrders);
+        pendingOrders.removeAll(orderIds);
+        try {
+            planOrders(orderIds);
+        } catch (Exception e) {
+            log.warn("Incremental planning of {} orders failed, will retry: {}", orderIds.size(), e.getMessage());
+            pendingOrders.addAll(orderIds);
+            invalidate();
+        }
+    }
+
+    /**
+     * Insert orders into the live schedule, most urgent first
+     * @param orderIds order IDs (hex); orders already planned are skipped
+     * @return created plannings
+     */
+    public synchronized List<Map<String, Object>> planOrders(List<String> orderIds) {
+        List<PlanningTask> tasks = new ArrayList<>(planningProblemService.loadTasksByIds(orderIds));
+        if (tasks.isEmpty()) {
+            return List.of();
+        }
+        tasks.sort(EarliestDeadlineFirstAlgorithm.DEADLINE_ORDER);
+
+        LiveSchedule live = currentSchedule();
+        if (live.employees.isEmpty()) {
+            log.warn("No active employees, {} orders left unplanned", tasks.size());
+            return List.of();
+        }
+
+        List<Map<String, Object>> created = new ArrayList<>();
+        for (PlanningTask task : tasks) {
+            Insertion insertion = bestInsertion(live, task);
+            apply(insertion);
+
+            Map<String, Object> planning = new HashMap<>();
+            planning.put("orderId", task.getOrderId());
+            planning.put("employeeId", insertion.employee.resource.getEmployeeId());
+            planning.put("startTime", insertion.assignment.getStartTime());
+            planning.put("endTime", insertion.assignment.getEndTime());
+            planning.put("shiftedPlannings", insertion.shifts.size());
+            created.add(planning);
+            log.info(" Order {} planned incrementally on {} ({} plannings shifted)",
+                    task.getOrderNumber(), insertion.employee.resource.getName(), insertion.shifts.size());
+        }
+        return created;
+    }
+
+    // ========== LIVE SCHEDULE ==========
+
+    private static class LiveSchedule {
+        final LocalDate day;
+        final LocalDateTime loadedAt = LocalDateTime.now();
+        final List<LiveEmployee> employees = new ArrayList<>();
+
+        LiveSchedule(LocalDate day) {
+            this.day = day;
+        }
+    }
+
+    private static class LiveEmployee {
+        final PlanningResource resource;
+        final EmployeeTimeline timeline;
+        /**
+         * Plannings by (start working minute, planning ID)
+         */
+        final LiveEntries entries = new LiveEntries();
+
+        LiveEmployee(PlanningResource resource) {
+            this.resource = resource;
+            this.timeline = resource.newTimeline();
+        }
+    }
+
+    private static class LiveEntry {
+        static final Comparator<LiveEntry> ORDER = Comparator.comparingLong((LiveEntry entry) -> entry.start)
+                .thenComparing(entry -> entry.planningId);
+
+        final String planningId;
+        final long start;
+        final long end;
+        final long dueEpoch;
+        final boolean movable;
+
+        LiveEntry(String planningId, long start, long end, long dueEpoch, boolean movable) {
+            this.planningId = planningId;
+            this.start = start;
+            this.end = end;
+            this.dueEpoch = dueEpoch;
+            this.movable = movable;
+        }
+
+        /**
+         * Latest due date this entry can be pushed back for, none when it is not movable
+         */
+        long movableDue() {
+            return movable ? dueEpoch : Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Plannings of one employee in a treap ordered by (start, planning ID) and augmented
+     * with the latest due date of the movable plannings of each subtree, so the anchor
+     * of a push (first movable planning after a point, due after a date) is found in
+     * O(log n) expected without visiting earlier-due plannings
+     */
+    private static class LiveEntries {
+        private final SplittableRandom random = new SplittableRandom(42);
+        private Node root;
+
+        private static class Node {
+            final LiveEntry entry;
+            final int priority;
+            Node left;
+            Node right;
+            long maxMovableDue;
+
+            Node(LiveEntry entry, int priority) {
+                this.entry = entry;
+                this.priority = priority;
+                this.maxMovableDue = entry.movableDue();
+            }
+
+            void update() {
+                long due = entry.movableDue();
+                if (left != null) {
+                    due = Math.max(due, left.maxMovableDue);
+                }
+                if (right != null) {
+                    due = Math.max(due, right.maxMovableDue);
+                }
+                maxMovableDue = due;
+            }
+        }
+
+        void add(LiveEntry entry) {
+            Node[] parts = split(root, entry);
+            root = merge(merge(parts[0], new Node(entry, random.nextInt())), parts[1]);
+        }
+
+        void remove(LiveEntry entry) {
+            root = delete(root, entry);
+        }
+
+        /**
+         * @return first movable entry starting at or after notBefore and due after dueEpoch, or null
+         */
+        LiveEntry firstMovableDueAfter(long notBefore, long dueEpoch) {
+            return firstMovableDueAfter(root, notBefore, dueEpoch);
+        }
+
+        /**
+         * @return first entry after the given one in (start, planning ID) order, or null
+         */
+        LiveEntry higher(LiveEntry entry) {
+            LiveEntry higher = null;
+            Node node = root;
+            while (node != null) {
+                if (LiveEntry.ORDER.compare(node.entry, entry) > 0) {
+                    higher = node.entry;
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+            return higher;
+        }
+
+        private static LiveEntry firstMovableDueAfter(Node node, long notBefore, long dueEpoch) {
+            if (node == null || node.maxMovableDue <= dueEpoch) {
+                return null;
+            }
+            if (node.entry.start < notBefore) {
+                return firstMovableDueAfter(node.right, notBefore, dueEpoch);
+            }
+            LiveEntry left = firstMovableDueAfter(node.left, notBefore, dueEpoch);
+            if (left != null) {
+                return left;
+            }
+            if (node.entry.movableDue() > dueEpoch) {
+                return node.entry;
+            }
+            return firstMovableDueAfter(node.right, notBefore, dueEpoch);
+        }
+
+        /**
+         * @return {entries before key, entries from key on}
+         */
+        private static Node[] split(Node node, LiveEntry key) {
+            if (node == null) {
+                return new Node[2];
+            }
+            if (LiveEntry.ORDER.compare(node.entry, key) < 0) {
+                Node[] parts = split(node.right, key);
+                node.right = parts[0];
+                node.update();
+                return new Node[]{node, parts[1]};
+            }
+            Node[] parts = split(node.left, key);
+            node.left = parts[1];
+            node.update();
+            return new Node[]{parts[0], node};
+        }
+
+        private static Node merge(Node left, Node right) {
+            if (left == null) {
+                return right;
+            }
+            if (right == null) {
+                return left;
+            }
+            if (left.priority > right.priority) {
+                left.right = merge(left.right, right);
+                left.update();
+                return left;
+            }
+            right.left = merge(left, right.left);
+            right.update();
+            return right;
+        }
+
+        private static Node delete(Node node, LiveEntry key) {
+            if (node == null) {
+                return null;
+            }
+            int comparison = LiveEntry.ORDER.compare(key, node.entry);
+            if (comparison == 0) {
+                return merge(node.left, node.right);
+            }
+            if (comparison < 0) {
+                node.left = delete(node.left, key);
+            } else {
+                node.right = delete(node.right, key);
+            }
+            node.update();
+            return node;
+        }
+    }
+
+    private LiveSchedule currentSchedule() {
+        LocalDate today = LocalDate.now();
+        if (schedule == null || !schedule.day.equals(today)
+                || schedule.loadedAt.plusMinutes(maxAgeMinutes).isBefore(LocalDateTime.now())) {
+            schedule = loadSchedule(today);
+        }
+        return schedule;
+    }
+
+    private LiveSchedule loadSchedule(LocalDate today) {
+        LiveSchedule live = new LiveSchedule(today);
+        Map<String, LiveEmployee> byId = new HashMap<>();
+        for (PlanningResource resource : planningProblemService.loadResources(today)) {
+            LiveEmployee employee = new LiveEmployee(resource);
+            live.employees.add(employee);
+            byId.put(resource.getEmployeeId().toUpperCase(), employee);
+        }
+
+        long nowEpoch = WorkCalendar.epochMinute(LocalDateTime.now());
+        for (PlanningProblemService.ScheduledPlanning planning : planningProblemService.loadScheduledPlannings(today)) {
+            LiveEmployee employee = byId.get(planning.getEmployeeId());
+            if (employee == null) {
+                continue;
+            }
+            WorkCalendar calendar = employee.resource.getCalendar();
+            long start = calendar.toWorkingMinute(WorkCalendar.epochMinute(planning.getStartTime()));
+            long end = calendar.toWorkingMinute(WorkCalendar.epochMinute(planning.getEndTime()));
+            boolean movable = "SCHEDULED".equals(planning.getStatus())
+                    && WorkCalendar.epochMinute(planning.getStartTime()) >= nowEpoch;
+            long dueEpoch = planning.getDueTime() != null ? WorkCalendar.epochMinute(planning.getDueTime()) : Long.MAX_VALUE;
+            employee.entries.add(new LiveEntry(planning.getPlanningId(), start, end, dueEpoch, movable));
+        }
+        log.info("Live schedule loaded: {} employees", live.employees.size());
+        return live;
+    }
+
+    // ========== INSERTION ==========
+
+    private static class Insertion {
+        LiveEmployee employee;
+        PlanningAssignment assignment;
+        long endEpoch = Long.MAX_VALUE;
+        final List<LiveEntry[]> shifts = new ArrayList<>();
+    }
+
+    /**
+     * Earliest free slot on any employee; if it misses the due date, try pushing back
+     * later-due plannings on each employee and keep whichever finishes the order first
+     */
+    private Insertion bestInsertion(LiveSchedule live, PlanningTask task) {
+        long nowEpoch = WorkCalendar.epochMinute(LocalDateTime.now());
+        long releaseEpoch = task.getReleaseTime() != null ?
+                Math.max(nowEpoch, WorkCalendar.epochMinute(task.getReleaseTime())) : nowEpoch;
+        long dueEpoch = WorkCalendar.epochMinute(task.getDueTime());
+        int duration = task.getDurationMinutes();
+
+        Insertion best = new Insertion();
+        for (LiveEmployee employee : live.employees) {
+            WorkCalendar calendar = employee.resource.getCalendar();
+            long start = employee.timeline.findEarliestGap(duration, calendar.toWorkingMinute(releaseEpoch));
+            long endEpoch = calendar.toEndEpochMinute(start + duration);
+            if (endEpoch < best.endEpoch) {
+                best.employee = employee;
+                best.endEpoch = endEpoch;
+                best.assignment = PlanningAssignment.of(task, employee.resource, start, start + duration);
+            }
+        }
+        if (best.endEpoch <= dueEpoch) {
+            return best;
+        }
+
+        for (LiveEmployee employee : live.employees) {
+            Insertion shifted = shiftedInsertion(employee, task, releaseEpoch, dueEpoch);
+            if (shifted != null && shifted.endEpoch < best.endEpoch) {
+                best = shifted;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Insert before the first movable planning due later than the task and push the
+     * employee's following plannings back; null if the push would hit a started
+     * planning or move too many plannings
+     */
+    private Insertion shiftedInsertion(LiveEmployee employee, PlanningTask task, long releaseEpoch, long dueEpoch) {
+        WorkCalendar calendar = employee.resource.getCalendar();
+        long notBefore = calendar.toWorkingMinute(releaseEpoch);
+
+        LiveEntry anchor = employee.entries.firstMovableDueAfter(notBefore, dueEpoch);
+        if (anchor == null) {
+            return null;
+        }
+
+        // Each step is O(log n) and the chain stops at the first gap or max-shifted-plannings
+        Insertion insertion = new Insertion();
+        long start = anchor.start;
+        long previousEnd = start + task.getDurationMinutes();
+        for (LiveEntry entry = anchor; entry != null; entry = employee.entries.higher(entry)) {
+            if (entry.start >= previousEnd) {
+                break;
+            }
+            if (!entry.movable || insertion.shifts.size() >= maxShiftedPlannings) {
+                return null;
+            }
+            long newEnd = previousEnd + (entry.end - entry.start);
+            insertion.shifts.add(new LiveEntry[]{entry,
+                    new LiveEntry(entry.planningId, previousEnd, newEnd, entry.dueEpoch, true)});
+            previousEnd = newEnd;
+        }
+
+        insertion.employee = employee;
+        insertion.assignment = PlanningAssignment.of(task, employee.resource, start, start + task.getDurationMinutes());
+        insertion.endEpoch = calendar.toEndEpochMinute(start + task.getDurationMinutes());
+        return insertion;
+    }
+
+    /**
+     * Persist an insertion in one transaction, then update the live schedule
+     */
+    private void apply(Insertion insertion) {
+        LiveEmployee employee = insertion.employee;
+        WorkCalendar calendar = employee.resource.getCalendar();
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        String planningId = transactionTemplate.execute(status -> {
+            for (LiveEntry[] shift : insertion.shifts) {
+                LiveEntry moved = shift[1];
+                boolean updated = planningPersistenceService.moveScheduled(moved.planningId,
+                        WorkCalendar.dateTime(calendar.toEpochMinute(moved.start)),
+                        WorkCalendar.dateTime(calendar.toEndEpochMinute(moved.end)));
+                if (!updated) {
+                    throw new IllegalStateException("Planning " + moved.planningId + " changed since the live schedule was loaded");
+                }
+            }
+            return planningPersistenceService.saveAssignment(insertion.assignment, ALGORITHM_NAME);
+        });
+
+        for (LiveEntry[] shift : insertion.shifts) {
+            employee.timeline.release(shift[0].start, shift[0].end);
+            employee.entries.remove(shift[0]);
+        }
+        employee.timeline.insert(insertion.assignment.getStartMinute(), insertion.assignment.getEndMinute());
+        for (LiveEntry[] shift : insertion.shifts) {
+            employee.timeline.insert(shift[1].start, shift[1].end);
+            employee.entries.add(shift[1]);
+        }
+        employee.entries.add(new LiveEntry(planningId,
+                insertion.assignment.getStartMinute(), insertion.assignment.getEndMinute(),
+                WorkCalendar.epochMinute(insertion.assignment.getTask().getDueTime()), true));
+    }
+}
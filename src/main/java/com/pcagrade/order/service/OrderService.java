@@ -3,9 +3,11 @@ package com.pcagrade.order.service;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 import com.pcagrade.order.entity.Order;
+import com.pcagrade.order.event.OrderCreatedEvent;
 import com.pcagrade.order.repository.OrderRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -32,7 +34,6 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderService {
 
-    private static final int DEFAULT_PROCESSING_TIME_PER_CARD = 3; // minutes per card
     private static final int MAX_CARDS_PER_ORDER = 1000;
     private static final int MIN_CARDS_PER_ORDER = 1;
 
@@ -42,6 +43,15 @@ public class OrderService {
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DurationModel durationModel;
+
+    @Autowired
+    private ViewVersionService viewVersionService;
+
     // ========== CRUD OPERATIONS ==========
 
     /**
@@ -71,6 +81,9 @@ public class OrderService {
 
         Order savedOrder = orderRepository.save(order);
         log.info("Order created successfully with ID: {}", savedOrder.getId());
+
+        // Incremental planning picks the order up after commit
+        eventPublisher.publishEvent(new OrderCreatedEvent(savedOrder.getId().toString().replace("-", "").toUpperCase()));
         return savedOrder;
     }
 
@@ -138,6 +151,8 @@ public class OrderService {
         }
 
         orderRepository.deleteById(id);
+        // Its plannings go with it (ON DELETE CASCADE)
+        viewVersionService.generationChanged();
         log.info("Order deleted successfully: {}", id);
     }
 
@@ -239,10 +254,10 @@ public class OrderService {
     /**
      * Calculate estimated processing time
      * @param cardCount number of cards
-     * @return estimated time in minutes
+     * @return estimated time in minutes, from the learned duration model
      */
     public int calculateEstimatedTime(@Positive int cardCount) {
-        return cardCount * DEFAULT_PROCESSING_TIME_PER_CARD;
+        return durationModel.estimateMinutes(cardCount);
     }
 
     /**
@@ -664,9 +679,9 @@ public class OrderService {
 
                 // Additional calculations
                 int cardCount = ((Number) row[10]).intValue();
-                order.put("estimatedTimeMinutes", cardCount * DEFAULT_PROCESSING_TIME_PER_CARD);
-                order.put("estimatedTimeHours", String.format("%.1fh",
-                        (cardCount * DEFAULT_PROCESSING_TIME_PER_CARD) / 60.0));
+                int estimatedMinutes = durationModel.estimateMinutes(cardCount);
+                order.put("estimatedTimeMinutes", estimatedMinutes);
+                order.put("estimatedTimeHours", String.format("%.1fh", estimatedMinutes / 60.0));
 
                // Type-based priority
                 String priority = "FAST";
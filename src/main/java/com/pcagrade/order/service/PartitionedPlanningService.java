@@ -0,0 +1,382 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.algorithm.AvailabilityCalendar;
+import com.pcagrade.order.algorithm.BusyInterval;
+import com.pcagrade.order.algorithm.EarliestDeadlineFirstAlgorithm;
+import com.pcagrade.order.algorithm.PlanningAlgorithm;
+import com.pcagrade.order.algorithm.PlanningAssignment;
+import com.pcagrade.order.algorithm.PlanningProblem;
+import com.pcagrade.order.algorithm.PlanningResource;
+import com.pcagrade.order.algorithm.PlanningSolution;
+import com.pcagrade.order.algorithm.PlanningTask;
+import com.pcagrade.order.algorithm.ScheduleMetrics;
+import com.pcagrade.order.algorithm.ScoreCalculator;
+import com.pcagrade.order.algorithm.WorkCalendar;
+import com.pcagrade.order.event.PlanningGeneratedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Partitioned Planning Service - solves the horizon day by day, in parallel
+ *
+ * Orders are first spread over the days of the horizon by a rough capacity pass (most
+ * urgent first, into the first day with enough free employee time). Each day is then an
+ * independent problem: every employee's calendar is cut down to that day, so partitions
+ * can never overlap. Partitions are solved on a pool sized to leave
+ * planning.partition.reserved-connections of the Hikari pool free, and each one is
+ * committed to j_planning_staging in its own transaction. Work that did not fit its day
+ * is planned afterwards against the whole horizon. A single publish statement then moves
+ * the run into j_planning, so readers never see half a generation.
+ */
+@Service
+@Slf4j
+public class PartitionedPlanningService {
+
+    // ========== CONSTANTS ==========
+    private static final int LATE_ORDERS_REPORTED = 50;
+    private static final long[] DAY_OFF = new long[2];
+    private static final long STOP_TIMEOUT_SECONDS = 60;
+
+    @Autowired
+    private PlanningProblemService planningProblemService;
+
+    @Autowired
+    private PlanningPersistenceService planningPersistenceService;
+
+    @Autowired
+    private PlanningEngineService planningEngineService;
+
+    @Autowired
+    private IncrementalPlanningService incrementalPlanningService;
+
+    @Autowired
+    private ScoreCalculator scoreCalculator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    @Value("${planning.partition.reserved-connections:2}")
+    private int reservedConnections;
+
+    @Value("${planning.partition.parallelism:0}")
+    private int configuredParallelism;
+
+    @Value("${planning.partition.max-days:30}")
+    private int maxDays;
+
+    @Value("${planning.partition.fill-ratio:0.9}")
+    private double fillRatio;
+
+    /**
+     * Plan all unplanned orders since a date, one partition per day
+     * @param algorithmName registered algorithm run on each partition
+     * @param horizonStart first day to plan
+     * @param save true to publish the plannings, false for a dry run
+     * @param timeBudgetMillis budget per partition for time-bounded algorithms, 0 for their default
+     * @return same result as PlanningEngineService.run, plus the partitions
+     */
+    public Map<String, Object> run(String algorithmName, LocalDate horizonStart, boolean save, long timeBudgetMillis) {
+        PlanningAlgorithm algorithm = planningEngineService.getAlgorithm(algorithmName);
+        long startMillis = System.currentTimeMillis();
+        PlanningProblem problem = planningProblemService.loadProblem(horizonStart);
+        long loadMillis = System.currentTimeMillis() - startMillis;
+        for (PlanningResource resource : problem.getResources()) {
+            if (!(resource.getCalendar() instanceof AvailabilityCalendar)) {
+                throw new IllegalStateException("Employee " + resource.getEmployeeId() + " has no availability calendar");
+            }
+        }
+
+        List<List<PlanningTask>> byDay = new ArrayList<>();
+        List<PlanningTask> spilled = new ArrayList<>();
+        spreadOverDays(problem, byDay, spilled);
+
+        String runId = UUID.randomUUID().toString().replace("-", "");
+        int parallelism = Math.max(1, Math.min(
+                configuredParallelism > 0 ? configuredParallelism : Runtime.getRuntime().availableProcessors(),
+                connectionPoolSize - reservedConnections));
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        List<Future<Partition>> futures = new ArrayList<>();
+        try {
+            for (int d = 0; d < byDay.size(); d++) {
+                if (!byDay.get(d).isEmpty()) {
+                    Partition partition = new Partition(horizonStart.plusDays(d), byDay.get(d));
+                    futures.add(executor.submit(() -> solve(partition, problem, algorithm, timeBudgetMillis, save ? runId : null)));
+                }
+            }
+
+            List<Partition> partitions = new ArrayList<>(futures.size());
+            List<PlanningAssignment> assignments = new ArrayList<>();
+            for (Future<Partition> future : futures) {
+                Partition partition = future.get();
+                partitions.add(partition);
+                assignments.addAll(partition.planned);
+                spilled.addAll(partition.spilled);
+            }
+
+            // Leftovers against the whole horizon, around what the partitions planned
+            PlanningSolution spill = algorithm.solve(PlanningProblem.builder()
+                    .horizonStart(horizonStart)
+                    .tasks(spilled)
+                    .resources(withAssignments(problem.getResources(), assignments))
+                    .timeBudgetMillis(timeBudgetMillis)
+                    .build());
+            assignments.addAll(spill.getAssignments());
+
+            int saved = 0;
+            if (save) {
+                planningPersistenceService.stageSolution(runId, spill);
+                saved = planningPersistenceService.publishStaging(runId);
+                incrementalPlanningService.invalidate();
+                eventPublisher.publishEvent(new PlanningGeneratedEvent(algorithm.getName()));
+            }
+
+            long elapsed = System.currentTimeMillis() - startMillis;
+            PlanningSolution solution = PlanningSolution.builder()
+                    .algorithm(algorithm.getName())
+                    .assignments(assignments)
+                    .unassigned(spill.getUnassigned())
+                    .computeTimeMillis(elapsed)
+                    .build();
+            log.info(" Partitioned {}: {} days on {} threads, {} tasks spilled, {} planned, {} ms",
+                    algorithm.getName(), partitions.size(), parallelism, spilled.size(), assignments.size(), elapsed);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", true);
+            result.put("algorithm", algorithm.getName());
+            result.put("partitioned", true);
+            result.put("horizonStart", horizonStart);
+            result.put("ordersLoaded", problem.getTasks().size());
+            result.put("employees", problem.getResources().size());
+            result.put("loadTimeMs", loadMillis);
+            result.put("computeTimeMs", elapsed);
+            result.put("parallelism", parallelism);
+            result.put("partitions", partitions.stream().map(Partition::toMap).toList());
+            result.put("spilledTasks", spilled.size());
+            result.put("saved", save);
+            result.put("planningsSaved", saved);
+            result.put("metrics", ScheduleMetrics.summarize(solution));
+            result.put("score", scoreCalculator.score(solution, problem.getResources()).toMap());
+            result.put("lateOrders", ScheduleMetrics.lateOrders(solution, LATE_ORDERS_REPORTED));
+            return result;
+
+        } catch (InterruptedException e) {
+            stop(executor, futures);
+            discard(save, runId);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Partitioned planning interrupted", e);
+        } catch (ExecutionException e) {
+            stop(executor, futures);
+            discard(save, runId);
+            throw new IllegalStateException("Partition failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (RuntimeException e) {
+            stop(executor, futures);
+            discard(save, runId);
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // ========== PARTITIONS ==========
+
+    private static class Partition {
+        final LocalDate day;
+        final List<PlanningTask> tasks;
+        final List<PlanningAssignment> planned = new ArrayList<>();
+        final List<PlanningTask> spilled = new ArrayList<>();
+        long computeTimeMillis;
+
+        Partition(LocalDate day, List<PlanningTask> tasks) {
+            this.day = day;
+            this.tasks = tasks;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("day", day);
+            map.put("tasks", tasks.size());
+            map.put("planned", planned.size());
+            map.put("spilled", spilled.size());
+            map.put("computeTimeMs", computeTimeMillis);
+            return map;
+        }
+    }
+
+    /**
+     * Solve one day on calendars reduced to that day and stage what fits it
+     * @param runId staging run, null for a dry run
+     */
+    private Partition solve(Partition partition, PlanningProblem problem, PlanningAlgorithm algorithm,
+                            long timeBudgetMillis, String runId) {
+        long startMillis = System.currentTimeMillis();
+        Map<LocalDate, long[]> otherDays = new HashMap<>();
+        for (int d = 0; d < maxDays; d++) {
+            LocalDate day = problem.getHorizonStart().plusDays(d);
+            if (!day.equals(partition.day)) {
+                otherDays.put(day, DAY_OFF);
+            }
+        }
+
+        Map<String, PlanningResource> originals = new HashMap<>();
+        List<PlanningResource> dayResources = new ArrayList<>(problem.getResources().size());
+        for (PlanningResource resource : problem.getResources()) {
+            originals.put(resource.getEmployeeId(), resource);
+            dayResources.add(resource.withCalendar(((AvailabilityCalendar) resource.getCalendar()).withDays(otherDays)));
+        }
+
+        PlanningSolution solution = algorithm.solve(PlanningProblem.builder()
+                .horizonStart(problem.getHorizonStart())
+                .tasks(partition.tasks)
+                .resources(dayResources)
+                .timeBudgetMillis(timeBudgetMillis)
+                .build());
+
+        LocalDateTime dayStart = partition.day.atStartOfDay();
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+        for (PlanningAssignment assignment : solution.getAssignments()) {
+            if (assignment.getStartTime().isBefore(dayStart) || assignment.getEndTime().isAfter(dayEnd)) {
+                partition.spilled.add(assignment.getTask());
+            } else {
+                partition.planned.add(onCalendar(assignment, originals.get(assignment.getResource().getEmployeeId())));
+            }
+        }
+        partition.spilled.addAll(solution.getUnassigned());
+
+        if (runId != null && !partition.planned.isEmpty()) {
+            planningPersistenceService.stageSolution(runId, PlanningSolution.builder()
+                    .algorithm(algorithm.getName())
+                    .assignments(partition.planned)
+                    .build());
+        }
+        partition.computeTimeMillis = System.currentTimeMillis() - startMillis;
+        return partition;
+    }
+
+    /**
+     * Rough-cut capacity: most urgent first, each task into the first day from its release
+     * with enough free employee time left (planning.partition.fill-ratio of it, to leave room
+     * for fragmentation); tasks that fit no day of the horizon are spilled
+     */
+    private void spreadOverDays(PlanningProblem problem, List<List<PlanningTask>> byDay, List<PlanningTask> spilled) {
+        LocalDate horizonStart = problem.getHorizonStart();
+        double[] remaining = new double[maxDays];
+        for (int d = 0; d < maxDays; d++) {
+            byDay.add(new ArrayList<>());
+            LocalDate day = horizonStart.plusDays(d);
+            for (PlanningResource resource : problem.getResources()) {
+                remaining[d] += freeMinutes(resource, day) * fillRatio;
+            }
+        }
+
+        List<PlanningTask> tasks = new ArrayList<>(problem.getTasks());
+        tasks.sort(EarliestDeadlineFirstAlgorithm.DEADLINE_ORDER);
+        for (PlanningTask task : tasks) {
+            int firstDay = task.getReleaseTime() == null ? 0
+                    : (int) Math.max(0, horizonStart.until(task.getReleaseTime().toLocalDate(), ChronoUnit.DAYS));
+            int day = firstDay;
+            while (day < maxDays && remaining[day] < task.getDurationMinutes()) {
+                day++;
+            }
+            if (day < maxDays) {
+                remaining[day] -= task.getDurationMinutes();
+                byDay.get(day).add(task);
+            } else {
+                spilled.add(task);
+            }
+        }
+    }
+
+    /**
+     * Available minutes of an employee on a day minus the already scheduled work
+     */
+    private static long freeMinutes(PlanningResource resource, LocalDate day) {
+        WorkCalendar calendar = resource.getCalendar();
+        long from = calendar.toWorkingMinute(WorkCalendar.epochMinute(day.atStartOfDay()));
+        long to = calendar.toWorkingMinute(WorkCalendar.epochMinute(day.plusDays(1).atStartOfDay()));
+        long free = to - from;
+        for (BusyInterval interval : resource.getBusyIntervals()) {
+            free -= Math.max(0, Math.min(interval.getEnd(), to) - Math.max(interval.getStart(), from));
+        }
+        return Math.max(0, free);
+    }
+
+    // ========== INTERNAL HELPERS ==========
+
+    /**
+     * The same assignment on the employee's full calendar
+     */
+    private static PlanningAssignment onCalendar(PlanningAssignment assignment, PlanningResource resource) {
+        WorkCalendar calendar = resource.getCalendar();
+        return assignment.toBuilder()
+                .resource(resource)
+                .startMinute(calendar.toWorkingMinute(WorkCalendar.epochMinute(assignment.getStartTime())))
+                .endMinute(calendar.toWorkingMinute(WorkCalendar.epochMinute(assignment.getEndTime())))
+                .build();
+    }
+
+    /**
+     * Employees with the partitions' assignments added to their busy time
+     */
+    private static List<PlanningResource> withAssignments(List<PlanningResource> resources,
+                                                          List<PlanningAssignment> assignments) {
+        Map<String, List<BusyInterval>> busy = new HashMap<>();
+        for (PlanningAssignment assignment : assignments) {
+            busy.computeIfAbsent(assignment.getResource().getEmployeeId(), id -> new ArrayList<>())
+                    .add(new BusyInterval(assignment.getStartMinute(), assignment.getEndMinute()));
+        }
+        List<PlanningResource> updated = new ArrayList<>(resources.size());
+        for (PlanningResource resource : resources) {
+            List<BusyInterval> added = busy.get(resource.getEmployeeId());
+            updated.add(added == null ? resource : resource.toBuilder().busyIntervals(added).build());
+        }
+        return updated;
+    }
+
+    /**
+     * Cancel the partitions and wait for the running ones to end, so none stages rows after the discard
+     */
+    private void stop(ExecutorService executor, List<Future<Partition>> futures) {
+        futures.forEach(future -> future.cancel(true));
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Partitions still running after {} s, their staged plannings may not be discarded",
+                        STOP_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void discard(boolean save, String runId) {
+        if (!save) {
+            return;
+        }
+        try {
+            planningPersistenceService.discardStaging(runId);
+        } catch (Exception e) {
+            log.warn("Staged plannings of run {} not discarded: {}", runId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.algorithm.IncrementalScore;
+import com.pcagrade.order.algorithm.PlanningAlgorithm;
+import com.pcagrade.order.algorithm.PlanningAssignment;
+import com.pcagrade.order.algorithm.PlanningProblem;
+import com.pcagrade.order.algorithm.PlanningResource;
+import com.pcagrade.order.algorithm.PlanningSolution;
+import com.pcagrade.order.algorithm.PlanningTask;
+import com.pcagrade.order.algorithm.ScheduleMetrics;
+import com.pcagrade.order.algorithm.ScoreCalculator;
+import com.pcagrade.order.algorithm.WorkCalendar;
+import com.pcagrade.order.event.PlanningGeneratedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Planning Engine Service - runs any registered PlanningAlgorithm end to end
+ * load problem -> solve -> (optionally) persist -> report SLA metrics and score
+ */
+@Service
+@Slf4j
+public class PlanningEngineService {
+
+    // ========== CONSTANTS ==========
+    private static final int LATE_ORDERS_REPORTED = 50;
+
+    @Autowired
+    private PlanningProblemService planningProblemService;
+
+    @Autowired
+    private PlanningPersistenceService planningPersistenceService;
+
+    @Autowired
+    private IncrementalPlanningService incrementalPlanningService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ScoreCalculator scoreCalculator;
+
+    @Value("${planning.engine.max-time-budget-ms:30000}")
+    private long maxTimeBudgetMillis;
+
+    private final Map<String, PlanningAlgorithm> algorithms = new LinkedHashMap<>();
+
+    @Autowired
+    public void setAlgorithms(List<PlanningAlgorithm> algorithmBeans) {
+        algorithmBeans.forEach(algorithm -> algorithms.put(algorithm.getName(), algorithm));
+        log.info("Planning algorithms available: {}", algorithms.keySet());
+    }
+
+    /**
+     * @return name and description of every registered algorithm
+     */
+    public List<Map<String, Object>> getAlgorithms() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        algorithms.values().forEach(algorithm -> {
+            Map<String, Object> info = new HashMap<>();
+            info.put("name", algorithm.getName());
+            info.put("description", algorithm.getDescription());
+            list.add(info);
+        });
+        return list;
+    }
+
+    /**
+     * Find an algorithm by name
+     * @throws IllegalArgumentException if no such algorithm is registered
+     */
+    public PlanningAlgorithm getAlgorithm(String name) {
+        PlanningAlgorithm algorithm = algorithms.get(name);
+        if (algorithm == null) {
+            throw new IllegalArgumentException("Unknown planning algorithm: " + name + " (available: " + algorithms.keySet() + ")");
+        }
+        return algorithm;
+    }
+
+    /**
+     * Bound a requested time budget by planning.engine.max-time-budget-ms
+     * @param requested requested budget, 0 or less for the algorithm's default
+     * @return budget between 0 and the configured maximum
+     */
+    public long timeBudget(long requested) {
+        return Math.min(Math.max(requested, 0), maxTimeBudgetMillis);
+    }
+
+    /**
+     * Plan all unplanned orders since a date with the given algorithm
+     * @param algorithmName registered algorithm name
+     * @param horizonStart first day to plan
+     * @param save true to insert the plannings, false for a dry run
+     * @return result map with metrics
+     */
+    public Map<String, Object> run(String algorithmName, LocalDate horizonStart, boolean save) {
+        return run(algorithmName, horizonStart, save, 0);
+    }
+
+    /**
+     * Plan all unplanned orders since a date with the given algorithm
+     * @param algorithmName registered algorithm name
+     * @param horizonStart first day to plan
+     * @param save true to insert the plannings, false for a dry run
+     * @param timeBudgetMillis budget for time-bounded algorithms, 0 for their default
+     * @return result map with metrics
+     */
+    public Map<String, Object> run(String algorithmName, LocalDate horizonStart, boolean save, long timeBudgetMillis) {
+        PlanningAlgorithm algorithm = getAlgorithm(algorithmName);
+
+        long loadStart = System.currentTimeMillis();
+        PlanningProblem problem = planningProblemService.loadProblem(horizonStart).toBuilder()
+                .timeBudgetMillis(timeBudgetMillis)
+                .build();
+        long loadMillis = System.currentTimeMillis() - loadStart;
+
+        PlanningSolution solution = algorithm.solve(problem);
+        log.info(" {} planned {} orders ({} unassigned) in {} ms", algorithm.getName(),
+                solution.getAssignments().size(), solution.getUnassigned().size(), solution.getComputeTimeMillis());
+
+        int saved = 0;
+        if (save) {
+            saved = planningPersistenceService.saveSolution(solution);
+            incrementalPlanningService.invalidate();
+            eventPublisher.publishEvent(new PlanningGeneratedEvent(algorithm.getName()));
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("algorithm", algorithm.getName());
+        if (!algorithm.getName().equals(solution.getAlgorithm())) {
+            result.put("solvedBy", solution.getAlgorithm());
+        }
+        result.put("horizonStart", horizonStart);
+        result.put("ordersLoaded", problem.getTasks().size());
+        result.put("employees", problem.getResources().size());
+        result.put("loadTimeMs", loadMillis);
+        result.put("computeTimeMs", solution.getComputeTimeMillis());
+        result.put("saved", save);
+        result.put("planningsSaved", saved);
+        if (solution.getOptimalityGap() != null) {
+            result.put("optimalityGap", solution.getOptimalityGap());
+        }
+        result.put("metrics", ScheduleMetrics.summarize(solution));
+        result.put("score", scoreCalculator.score(solution, problem.getResources()).toMap());
+        result.put("lateOrders", ScheduleMetrics.lateOrders(solution, LATE_ORDERS_REPORTED));
+        return result;
+    }
+
+    // ========== SCORE ==========
+
+    /**
+     * Score of the stored schedule, optionally with one planning moved (drag-and-drop preview)
+     * Only the moved planning is re-scored, the rest of the schedule is scored once.
+     * @param horizonStart plannings ending after this day are scored
+     * @param planningId planning to move, null to score the schedule as it is
+     * @param employeeId target employee (hex), null to keep the current one
+     * @param startTime new start, null to keep the current one
+     * @return score breakdown, plus the moved planning and the score change when planningId is set
+     */
+    public Map<String, Object> scoreSchedule(LocalDate horizonStart, String planningId, String employeeId,
+                                             LocalDateTime startTime) {
+        List<PlanningResource> resources = planningProblemService.loadResources(horizonStart);
+        Map<String, PlanningAssignment> assignments = planningProblemService.loadScheduledAssignments(horizonStart, resources);
+        IncrementalScore score = scoreCalculator.newScore(resources);
+        assignments.values().forEach(score::insert);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("horizonStart", horizonStart);
+        result.put("plannings", assignments.size());
+        result.put("score", score.toMap());
+        if (planningId == null) {
+            return result;
+        }
+
+        PlanningAssignment current = assignments.get(planningId.replace("-", "").toUpperCase());
+        if (current == null) {
+            throw new IllegalArgumentException("Planning " + planningId + " is not scheduled after " + horizonStart);
+        }
+        PlanningResource target = current.getResource();
+        if (employeeId != null) {
+            String targetId = employeeId.replace("-", "").toUpperCase();
+            target = resources.stream()
+                    .filter(resource -> resource.getEmployeeId().equalsIgnoreCase(targetId))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown or unavailable employee: " + employeeId));
+        }
+        long start = target.getCalendar().toWorkingMinute(
+                WorkCalendar.epochMinute(startTime != null ? startTime : current.getStartTime()));
+        // The stored duration is the current employee's; the target works at its own speed
+        PlanningTask task = current.getTask();
+        if (target != current.getResource()) {
+            int nominal = Math.max(1, (int) Math.round(task.getDurationMinutes() * current.getResource().getSpeedFactor()));
+            task = task.toBuilder().durationMinutes(target.actualMinutes(nominal)).build();
+        }
+        PlanningAssignment moved = PlanningAssignment.of(task, target, start, start + task.getDurationMinutes());
+        double delta = score.replace(current, moved);
+
+        Map<String, Object> move = new HashMap<>();
+        move.put("planningId", planningId);
+        move.put("employeeId", target.getEmployeeId());
+        move.put("startTime", moved.getStartTime());
+        move.put("endTime", moved.getEndTime());
+        move.put("scoreDelta", delta);
+        move.put("score", score.toMap());
+        result.put("move", move);
+        return result;
+    }
+}
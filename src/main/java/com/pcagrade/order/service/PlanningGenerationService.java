@@ -24,6 +24,12 @@ public class PlanningGenerationService {
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private ViewVersionService viewVersionService;
+
+    @Autowired
+    private IncrementalPlanningService incrementalPlanningService;
+
     /**
      * TRANSACTIONAL METHOD that works
      * The key: @Transactional with REQUIRES_NEW to isolate the transaction
@@ -49,6 +55,10 @@ public class PlanningGenerationService {
                 }
             }
 
+            // Applied on commit, covers the clean and the inserts below
+            viewVersionService.generationChanged();
+            incrementalPlanningService.invalidate();
+
             // ========== GET EMPLOYEES ==========
             List<Map<String, Object>> employees = employeeService.getAllActiveEmployees();
             if (employees.isEmpty()) {
@@ -0,0 +1,334 @@
+package com.pcagrade.order.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pcagrade.order.event.PlanningGeneratedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Planning History Service - generations of j_planning and the diff between two of them
+ *
+ * After each (re)generation the plannings are copied into j_planning_snapshot under a
+ * new generation id, keyed by (order, chunk, stage) since planning ids are not stable
+ * across regenerations. Both generations are read in primary-key order, page by page,
+ * and merged in one pass: the index does the sorting, memory stays at two pages and
+ * changes are written to the client as they are found.
+ */
+@Service
+@Slf4j
+public class PlanningHistoryService {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${planning.generations.keep:20}")
+    private int keepGenerations;
+
+    @Value("${planning.generations.diff-page-size:5000}")
+    private int pageSize;
+
+    // ========== GENERATIONS ==========
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanningGenerated(PlanningGeneratedEvent event) {
+        try {
+            recordGeneration(event.getSource());
+        } catch (Exception e) {
+            log.warn("Planning generation from {} not recorded: {}", event.getSource(), e.getMessage());
+        }
+    }
+
+    /**
+     * Copy the current plannings (cancelled ones excluded) into a new generation
+     * Generations beyond planning.generations.keep are dropped.
+     * @param source what produced the plannings
+     * @return generation summary
+     */
+    public Map<String, Object> recordGeneration(String source) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Long generationId = transactionTemplate.execute(status -> {
+            Query insert = entityManager.createNativeQuery(
+                    "INSERT INTO j_planning_generation (created_at, source) VALUES (NOW(), ?)");
+            insert.setParameter(1, source);
+            insert.executeUpdate();
+            long id = ((Number) entityManager.createNativeQuery("SELECT LAST_INSERT_ID()").getSingleResult()).longValue();
+
+            String copySql = """
+                INSERT IGNORE INTO j_planning_snapshot
+                    (generation_id, order_id, chunk_index, stage_key, employee_id, start_time, end_time, status)
+                SELECT ?, p.order_id, p.chunk_index, COALESCE(p.stage, ''), p.employee_id,
+                       p.start_time, p.end_time, p.status
+                FROM j_planning p
+                WHERE COALESCE(p.status, 'SCHEDULED') <> 'CANCELLED'
+                """;
+            Query copy = entityManager.createNativeQuery(copySql);
+            copy.setParameter(1, id);
+            int copied = copy.executeUpdate();
+
+            Query count = entityManager.createNativeQuery("UPDATE j_planning_generation SET planning_count = ? WHERE id = ?");
+            count.setParameter(1, copied);
+            count.setParameter(2, id);
+            count.executeUpdate();
+
+            Query purge = entityManager.createNativeQuery("DELETE FROM j_planning_generation WHERE id <= ?");
+            purge.setParameter(1, id - keepGenerations);
+            purge.executeUpdate();
+            return id;
+        });
+        log.info(" Planning generation {} recorded ({})", generationId, source);
+        return getGeneration(generationId);
+    }
+
+    /**
+     * Stored generations, newest first
+     */
+    public List<Map<String, Object>> getGenerations() {
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = entityManager.createNativeQuery(
+                "SELECT id, created_at, source, planning_count FROM j_planning_generation ORDER BY id DESC").getResultList();
+        List<Map<String, Object>> generations = new ArrayList<>(results.size());
+        for (Object[] row : results) {
+            generations.add(toGeneration(row));
+        }
+        return generations;
+    }
+
+    /**
+     * @param generationId generation ID
+     * @return generation summary, or null if it doesn't exist (or was purged)
+     */
+    public Map<String, Object> getGeneration(Long generationId) {
+        Query query = entityManager.createNativeQuery(
+                "SELECT id, created_at, source, planning_count FROM j_planning_generation WHERE id = ?");
+        query.setParameter(1, generationId);
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+        return results.isEmpty() ? null : toGeneration(results.get(0));
+    }
+
+    /**
+     * Generation just before another one
+     * @return generation summary, or null if there is none
+     */
+    public Map<String, Object> getPreviousGeneration(Long generationId) {
+        Query query = entityManager.createNativeQuery(
+                "SELECT id, created_at, source, planning_count FROM j_planning_generation WHERE id < ? ORDER BY id DESC LIMIT 1");
+        query.setParameter(1, generationId);
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+        return results.isEmpty() ? null : toGeneration(results.get(0));
+    }
+
+    private Map<String, Object> toGeneration(Object[] row) {
+        Map<String, Object> generation = new HashMap<>();
+        generation.put("id", ((Number) row[0]).longValue());
+        generation.put("createdAt", row[1]);
+        generation.put("source", row[2]);
+        generation.put("plannings", row[3]);
+        return generation;
+    }
+
+    // ========== DIFF ==========
+
+    /**
+     * Stream the diff between two generations as one JSON object:
+     * {"success", "from", "to", "changes": [...], "summary": {...}}
+     * Each change has a type (ADDED, REMOVED, MOVED = other employee, RETIMED = same
+     * employee, other times), the assignment key and both sides.
+     * @param from older generation summary
+     * @param to newer generation summary
+     * @param out response body
+     */
+    public void writeDiff(Map<String, Object> from, Map<String, Object> to, OutputStream out) throws IOException {
+        SnapshotCursor before = new SnapshotCursor((Long) from.get("id"));
+        SnapshotCursor after = new SnapshotCursor((Long) to.get("id"));
+        Map<String, Long> summary = new LinkedHashMap<>();
+        for (String type : List.of("ADDED", "REMOVED", "MOVED", "RETIMED", "UNCHANGED")) {
+            summary.put(type, 0L);
+        }
+
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.writeStartObject();
+            json.writeBooleanField("success", true);
+            json.writeObjectField("from", from);
+            json.writeObjectField("to", to);
+            json.writeArrayFieldStart("changes");
+
+            while (before.peek() != null || after.peek() != null) {
+                SnapshotRow old = before.peek();
+                SnapshotRow current = after.peek();
+                int order = old == null ? 1 : current == null ? -1 : old.compareTo(current);
+                String type;
+                if (order < 0) {
+                    type = "REMOVED";
+                    current = null;
+                    before.advance();
+                } else if (order > 0) {
+                    type = "ADDED";
+                    old = null;
+                    after.advance();
+                } else {
+                    type = !Objects.equals(old.employeeId, current.employeeId) ? "MOVED"
+                            : !Objects.equals(old.startTime, current.startTime) || !Objects.equals(old.endTime, current.endTime) ? "RETIMED"
+                            : "UNCHANGED";
+                    before.advance();
+                    after.advance();
+                }
+                summary.merge(type, 1L, Long::sum);
+                if (!"UNCHANGED".equals(type)) {
+                    writeChange(json, type, old, current);
+                }
+            }
+
+            json.writeEndArray();
+            json.writeObjectField("summary", summary);
+            json.writeEndObject();
+        }
+    }
+
+    private void writeChange(JsonGenerator json, String type, SnapshotRow old, SnapshotRow current) throws IOException {
+        SnapshotRow key = current != null ? current : old;
+        json.writeStartObject();
+        json.writeStringField("type", type);
+        json.writeStringField("orderId", key.orderId);
+        json.writeNumberField("chunkIndex", key.chunkIndex);
+        json.writeStringField("stage", key.stage.isEmpty() ? null : key.stage);
+        if (old != null) {
+            json.writeStringField("fromEmployeeId", old.employeeId);
+            json.writeObjectField("fromStartTime", old.startTime);
+            json.writeObjectField("fromEndTime", old.endTime);
+        }
+        if (current != null) {
+            json.writeStringField("toEmployeeId", current.employeeId);
+            json.writeObjectField("toStartTime", current.startTime);
+            json.writeObjectField("toEndTime", current.endTime);
+            json.writeStringField("status", current.status);
+        }
+        json.writeEndObject();
+    }
+
+    /**
+     * One snapshot row; rows compare in primary-key order (HEX of a binary id sorts like the id)
+     */
+    private static class SnapshotRow implements Comparable<SnapshotRow> {
+        String orderId;
+        int chunkIndex;
+        String stage;
+        String employeeId;
+        LocalDateTime startTime;
+        LocalDateTime endTime;
+        String status;
+
+        @Override
+        public int compareTo(SnapshotRow other) {
+            int order = orderId.compareTo(other.orderId);
+            if (order != 0) {
+                return order;
+            }
+            order = Integer.compare(chunkIndex, other.chunkIndex);
+            return order != 0 ? order : stage.compareTo(other.stage);
+        }
+    }
+
+    /**
+     * Keyset-paged reader of one generation in primary-key order
+     */
+    private class SnapshotCursor {
+        private final long generationId;
+        private List<SnapshotRow> page = List.of();
+        private int index;
+        private boolean exhausted;
+
+        SnapshotCursor(long generationId) {
+            this.generationId = generationId;
+        }
+
+        SnapshotRow peek() {
+            if (index >= page.size() && !exhausted) {
+                page = loadPage(generationId, page.isEmpty() ? null : page.get(page.size() - 1));
+                index = 0;
+                exhausted = page.size() < pageSize;
+            }
+            return index < page.size() ? page.get(index) : null;
+        }
+
+        void advance() {
+            index++;
+        }
+    }
+
+    private List<SnapshotRow> loadPage(long generationId, SnapshotRow after) {
+        String sql = """
+            SELECT HEX(s.order_id), s.chunk_index, s.stage_key, HEX(s.employee_id), s.start_time, s.end_time, s.status
+            FROM j_planning_snapshot s
+            WHERE s.generation_id = ?
+            """ + (after == null ? "" : """
+            AND (s.order_id > UNHEX(?)
+                 OR (s.order_id = UNHEX(?) AND (s.chunk_index > ? OR (s.chunk_index = ? AND s.stage_key > ?))))
+            """) + "ORDER BY s.order_id, s.chunk_index, s.stage_key LIMIT ?";
+
+        Query query = entityManager.createNativeQuery(sql);
+        int index = 1;
+        query.setParameter(index++, generationId);
+        if (after != null) {
+            query.setParameter(index++, after.orderId);
+            query.setParameter(index++, after.orderId);
+            query.setParameter(index++, after.chunkIndex);
+            query.setParameter(index++, after.chunkIndex);
+            query.setParameter(index++, after.stage);
+        }
+        query.setParameter(index, pageSize);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+        List<SnapshotRow> rows = new ArrayList<>(results.size());
+        for (Object[] row : results) {
+            SnapshotRow snapshotRow = new SnapshotRow();
+            snapshotRow.orderId = (String) row[0];
+            snapshotRow.chunkIndex = ((Number) row[1]).intValue();
+            snapshotRow.stage = (String) row[2];
+            snapshotRow.employeeId = (String) row[3];
+            snapshotRow.startTime = toDateTime(row[4]);
+            snapshotRow.endTime = toDateTime(row[5]);
+            snapshotRow.status = (String) row[6];
+            rows.add(snapshotRow);
+        }
+        return rows;
+    }
+
+    private LocalDateTime toDateTime(Object value) {
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime;
+        }
+        if (value instanceof java.sql.Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return null;
+    }
+}
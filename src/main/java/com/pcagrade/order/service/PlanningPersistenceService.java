@@ -0,0 +1,262 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.algorithm.PlanningAssignment;
+import com.pcagrade.order.algorithm.PlanningSolution;
+import com.pcagrade.order.algorithm.PlanningTask;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Planning Persistence Service - writes algorithm solutions to j_planning
+ * Rows are inserted with multi-row INSERT statements instead of one statement per order.
+ * Multi-stage orders are linked through predecessor_id (certification -> grading),
+ * split orders through order_id plus chunk_index / chunk_count and their card range.
+ * Partitioned generations write to j_planning_staging first and publish all at once.
+ */
+@Service
+@Slf4j
+public class PlanningPersistenceService {
+
+    // ========== CONSTANTS ==========
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final String COLUMNS = """
+        id, order_id, employee_id, planning_date, start_time, end_time,
+         estimated_duration_minutes, estimated_end_time, priority, status,
+         completed, card_count, notes, stage, predecessor_id,
+         chunk_index, chunk_count, card_range_start, card_range_end, created_at, updated_at""";
+    private static final String INSERT_PREFIX = "INSERT INTO j_planning\n(" + COLUMNS + ")\nVALUES ";
+    private static final String INSERT_ROW =
+            "(UNHEX(?), UNHEX(?), UNHEX(?), ?, ?, ?, ?, ?, ?, 'SCHEDULED', 0, ?, ?, ?, UNHEX(?), ?, ?, ?, ?, NOW(), NOW())";
+    private static final String STAGING_PREFIX = "INSERT INTO j_planning_staging\n(run_id, " + COLUMNS + ")\nVALUES ";
+    private static final String STAGING_ROW = "(?, " + INSERT_ROW.substring(1);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ViewVersionService viewVersionService;
+
+    /**
+     * Insert all assignments of a solution
+     * @param solution solution to persist
+     * @return number of rows inserted
+     */
+    @Transactional
+    public int saveSolution(PlanningSolution solution) {
+        int inserted = insertSolution(solution, null);
+        viewVersionService.generationChanged();
+        log.info(" {} plannings saved ({} algorithm)", inserted, solution.getAlgorithm());
+        return inserted;
+    }
+
+    /**
+     * Insert a single assignment (incremental planning)
+     * @param assignment assignment to persist
+     * @param algorithm name recorded in the notes
+     * @return new planning ID (hex)
+     */
+    @Transactional
+    public String saveAssignment(PlanningAssignment assignment, String algorithm) {
+        String planningId = UUID.randomUUID().toString().replace("-", "");
+        insertBatch(List.of(assignment), new String[]{planningId}, new String[1], 0, 1, algorithm, null);
+        viewVersionService.planningsChanged(assignment.getResource().getEmployeeId(), assignment.getStartTime().toLocalDate());
+        return planningId;
+    }
+
+    /**
+     * Move a not-yet-started planning to a new time window
+     * @param planningId planning ID (hex)
+     * @param startTime new start
+     * @param endTime new end
+     * @return false if the planning no longer exists or has started
+     */
+    @Transactional
+    public boolean moveScheduled(String planningId, LocalDateTime startTime, LocalDateTime endTime) {
+        String sql = """
+            UPDATE j_planning
+            SET planning_date = ?,
+                start_time = ?,
+                end_time = ?,
+                estimated_end_time = ?,
+                updated_at = NOW(),
+                version = version + 1
+            WHERE id = UNHEX(?) AND status = 'SCHEDULED'
+            """;
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, startTime.toLocalDate());
+        query.setParameter(2, startTime);
+        query.setParameter(3, endTime);
+        query.setParameter(4, endTime);
+        query.setParameter(5, planningId);
+        boolean updated = query.executeUpdate() > 0;
+        if (updated) {
+            // Moves come in bulk (delay propagation, re-insertion): one coarse stamp for all of them
+            viewVersionService.generationChanged();
+        }
+        return updated;
+    }
+
+    /**
+     * Hand a not-yet-started planning over to another employee
+     * @param planningId planning ID (hex)
+     * @param employeeId new employee ID (hex)
+     * @param startTime new start
+     * @param endTime new end
+     * @param durationMinutes duration for the new employee
+     * @return false if the planning no longer exists or has started
+     */
+    @Transactional
+    public boolean reassignScheduled(String planningId, String employeeId, LocalDateTime startTime,
+                                     LocalDateTime endTime, int durationMinutes) {
+        String sql = """
+            UPDATE j_planning
+            SET employee_id = UNHEX(?),
+                planning_date = ?,
+                start_time = ?,
+                end_time = ?,
+                estimated_end_time = ?,
+                estimated_duration_minutes = ?,
+                updated_at = NOW(),
+                version = version + 1
+            WHERE id = UNHEX(?) AND status = 'SCHEDULED'
+            """;
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, employeeId);
+        query.setParameter(2, startTime.toLocalDate());
+        query.setParameter(3, startTime);
+        query.setParameter(4, endTime);
+        query.setParameter(5, endTime);
+        query.setParameter(6, durationMinutes);
+        query.setParameter(7, planningId);
+        boolean updated = query.executeUpdate() > 0;
+        if (updated) {
+            viewVersionService.generationChanged();
+        }
+        return updated;
+    }
+
+    // ========== STAGING ==========
+
+    /**
+     * Insert all assignments of a solution into the staging table, in the caller's own
+     * transaction (one per partition)
+     * @param runId generation run the rows belong to (32 hex chars)
+     * @param solution solution to stage
+     * @return number of rows staged
+     */
+    @Transactional
+    public int stageSolution(String runId, PlanningSolution solution) {
+        return insertSolution(solution, runId);
+    }
+
+    /**
+     * Move every staged row of a run into j_planning in one statement, so the whole
+     * generation becomes visible at once
+     * @param runId generation run
+     * @return number of plannings published
+     */
+    @Transactional
+    public int publishStaging(String runId) {
+        Query publish = entityManager.createNativeQuery(
+                "INSERT INTO j_planning (" + COLUMNS + ")\nSELECT " + COLUMNS + "\nFROM j_planning_staging WHERE run_id = ?");
+        publish.setParameter(1, runId);
+        int published = publish.executeUpdate();
+        discardStaging(runId);
+        viewVersionService.generationChanged();
+        log.info(" {} staged plannings published (run {})", published, runId);
+        return published;
+    }
+
+    /**
+     * Drop the staged rows of a run (failed or published)
+     * @param runId generation run
+     */
+    @Transactional
+    public void discardStaging(String runId) {
+        Query delete = entityManager.createNativeQuery("DELETE FROM j_planning_staging WHERE run_id = ?");
+        delete.setParameter(1, runId);
+        delete.executeUpdate();
+    }
+
+    // ========== INTERNAL HELPERS ==========
+
+    private int insertSolution(PlanningSolution solution, String runId) {
+        List<PlanningAssignment> assignments = solution.getAssignments();
+
+        // IDs up front so that each stage can reference the previous stage of the same order (and chunk)
+        String[] planningIds = new String[assignments.size()];
+        String[] predecessorIds = new String[assignments.size()];
+        Map<String, String> previousStageByOrder = new HashMap<>();
+        for (int i = 0; i < assignments.size(); i++) {
+            PlanningAssignment assignment = assignments.get(i);
+            planningIds[i] = UUID.randomUUID().toString().replace("-", "");
+            if (assignment.getTask().getStage() != null) {
+                String chunkKey = assignment.getTask().getOrderId() + "#" + assignment.getTask().getChunkIndex();
+                predecessorIds[i] = previousStageByOrder.put(chunkKey, planningIds[i]);
+            }
+        }
+
+        int inserted = 0;
+        for (int from = 0; from < assignments.size(); from += INSERT_BATCH_SIZE) {
+            int to = Math.min(from + INSERT_BATCH_SIZE, assignments.size());
+            inserted += insertBatch(assignments, planningIds, predecessorIds, from, to, solution.getAlgorithm(), runId);
+        }
+        return inserted;
+    }
+
+    private int insertBatch(List<PlanningAssignment> assignments, String[] planningIds, String[] predecessorIds,
+                            int from, int to, String algorithm, String runId) {
+        StringBuilder sql = new StringBuilder(runId == null ? INSERT_PREFIX : STAGING_PREFIX);
+        for (int i = from; i < to; i++) {
+            sql.append(i == from ? "" : ", ").append(runId == null ? INSERT_ROW : STAGING_ROW);
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        int index = 1;
+        for (int i = from; i < to; i++) {
+            PlanningAssignment assignment = assignments.get(i);
+            PlanningTask task = assignment.getTask();
+            int cardCount = task.getCardCount();
+            if (runId != null) {
+                query.setParameter(index++, runId);
+            }
+            query.setParameter(index++, planningIds[i]);
+            query.setParameter(index++, assignment.getTask().getOrderId());
+            query.setParameter(index++, assignment.getResource().getEmployeeId());
+            query.setParameter(index++, assignment.getStartTime().toLocalDate());
+            query.setParameter(index++, assignment.getStartTime());
+            query.setParameter(index++, assignment.getEndTime());
+            query.setParameter(index++, assignment.getTask().getDurationMinutes());
+            query.setParameter(index++, assignment.getEndTime());
+            query.setParameter(index++, assignment.getTask().getTier().getDbValue());
+            query.setParameter(index++, cardCount);
+            boolean ranged = task.isChunk() && task.getCardRangeStart() > 0;
+            query.setParameter(index++, ranged
+                    ? String.format("Planned by %s for cards %d-%d (chunk %d/%d)", algorithm,
+                        task.getCardRangeStart(), task.getCardRangeEnd(), task.getChunkIndex() + 1, task.getChunkCount())
+                    : task.isChunk()
+                    ? String.format("Planned by %s for %d cards with setup %s (chunk %d/%d)", algorithm,
+                        cardCount, task.getSetupKey(), task.getChunkIndex() + 1, task.getChunkCount())
+                    : String.format("Planned by %s for %d cards", algorithm, cardCount));
+            query.setParameter(index++, task.getStage() != null ? task.getStage().name() : null);
+            query.setParameter(index++, predecessorIds[i]);
+            query.setParameter(index++, task.getChunkIndex());
+            query.setParameter(index++, task.getChunkCount());
+            query.setParameter(index++, ranged ? task.getCardRangeStart() : null);
+            query.setParameter(index++, ranged ? task.getCardRangeEnd() : null);
+        }
+        return query.executeUpdate();
+    }
+}
@@ -0,0 +1,532 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.algorithm.AvailabilityCalendar;
+import com.pcagrade.order.algorithm.BusyInterval;
+import com.pcagrade.order.algorithm.PlanningAssignment;
+import com.pcagrade.order.algorithm.PlanningProblem;
+import com.pcagrade.order.algorithm.PlanningResource;
+import com.pcagrade.order.algorithm.PlanningStage;
+import com.pcagrade.order.algorithm.PlanningTask;
+import com.pcagrade.order.algorithm.SlaTier;
+import com.pcagrade.order.algorithm.TaskSplitter;
+import com.pcagrade.order.algorithm.WorkCalendar;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Planning Problem Service - builds algorithm input from the database
+ * Loads unplanned orders (same filters as OrderService.getOrdersForPlanning, without
+ * the 100-order limit) and active employees with the plannings they already have.
+ */
+@Service
+@Slf4j
+public class PlanningProblemService {
+
+    // ========== CONSTANTS ==========
+    private static final String TASK_SELECT = """
+        SELECT
+            HEX(o.id) as id,
+            o.num_commande as orderNumber,
+            o.date as orderDate,
+            o.delai as delai,
+            COALESCE(cc.card_count, 0) as cardCount
+        FROM `order` o
+        LEFT JOIN (
+            SELECT cco.order_id, COUNT(*) as card_count
+            FROM card_certification_order cco
+            GROUP BY cco.order_id
+        ) cc ON cc.order_id = o.id
+        """;
+    private static final String UNPLANNED_FILTER = """
+        AND o.status IN (1, 2)
+        AND COALESCE(o.annulee, 0) = 0
+        AND NOT EXISTS (
+            SELECT 1 FROM j_planning jp
+            WHERE jp.order_id = o.id
+        )
+        """;
+    private static final int DEFAULT_CARD_COUNT = 10;
+    private static final Set<String> SETUP_KEY_FIELDS = Set.of("langue", "edition", "shadowless", "reverse", "type");
+    private static final int SETUP_QUERY_BATCH_SIZE = 1000;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private DurationModel durationModel;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Value("${planning.engine.max-orders:100000}")
+    private int maxOrders;
+
+    @Value("${planning.split.enabled:true}")
+    private boolean splitEnabled;
+
+    @Value("${planning.split.max-chunk-minutes:480}")
+    private int maxChunkMinutes;
+
+    @Value("${planning.setup.enabled:true}")
+    private boolean setupEnabled;
+
+    @Value("${planning.setup.key-fields:langue,edition}")
+    private List<String> setupKeyFields;
+
+    /**
+     * Load unplanned orders since a date and all active employees
+     * @param horizonStart first day that can be planned (also the order date lower bound)
+     * @return planning problem
+     */
+    @Transactional(readOnly = true)
+    public PlanningProblem loadProblem(LocalDate horizonStart) {
+        PlanningProblem.PlanningProblemBuilder problem = PlanningProblem.builder().horizonStart(horizonStart);
+        loadTasks(horizonStart).forEach(problem::task);
+        loadResources(horizonStart).forEach(problem::resource);
+        return problem.build();
+    }
+
+    /**
+     * Unplanned orders since a date, oldest first, large orders split into chunks
+     */
+    public List<PlanningTask> loadTasks(LocalDate fromDate) {
+        List<PlanningTask> orders = loadOrders(fromDate, maxOrders);
+        List<PlanningTask> tasks = split(orders);
+        log.info(" {} unplanned orders loaded since {} ({} tasks)", orders.size(), fromDate, tasks.size());
+        return tasks;
+    }
+
+    /**
+     * Unplanned orders since a date, oldest first, one task per order
+     * @param fromDate order date lower bound
+     * @param limit maximum number of orders
+     * @return whole-order tasks with their estimated duration
+     */
+    public List<PlanningTask> loadOrders(LocalDate fromDate, int limit) {
+        String sql = TASK_SELECT + "WHERE o.date >= ?\n" + UNPLANNED_FILTER + "ORDER BY o.date ASC LIMIT ?";
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, fromDate);
+        query.setParameter(2, limit);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+        return estimate(results.stream().map(row -> toTask(row, fromDate)).toList());
+    }
+
+    /**
+     * Unplanned orders of one SLA tier since a date, earliest due first, one task per order
+     * Within a tier the due date is the order date plus a fixed delay, so order date order is
+     * due date order.
+     * @param fromDate order date lower bound
+     * @param tier SLA tier (CLASSIC also takes missing and unknown delai codes, like SlaTier.fromCode)
+     * @param limit maximum number of orders
+     * @return whole-order tasks with their estimated duration
+     */
+    public List<PlanningTask> loadOrders(LocalDate fromDate, SlaTier tier, int limit) {
+        List<String> codes = new ArrayList<>();
+        for (SlaTier other : SlaTier.values()) {
+            if ((other == tier) != (tier == SlaTier.CLASSIC)) {
+                codes.addAll(List.of(other.getCode(), other.getDbValue(), other.name()));
+            }
+        }
+        String placeholders = String.join(", ", Collections.nCopies(codes.size(), "?"));
+        String tierFilter = tier == SlaTier.CLASSIC
+                ? "AND (o.delai IS NULL OR UPPER(TRIM(o.delai)) NOT IN (" + placeholders + "))\n"
+                : "AND UPPER(TRIM(o.delai)) IN (" + placeholders + ")\n";
+        String sql = TASK_SELECT + "WHERE o.date >= ?\n" + tierFilter + UNPLANNED_FILTER + "ORDER BY o.date ASC LIMIT ?";
+
+        Query query = entityManager.createNativeQuery(sql);
+        int index = 1;
+        query.setParameter(index++, fromDate);
+        for (String code : codes) {
+            query.setParameter(index++, code);
+        }
+        query.setParameter(index, limit);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+        return estimate(results.stream().map(row -> toTask(row, fromDate)).toList());
+    }
+
+    /**
+     * Specific orders, if they are still unplanned
+     * @param orderIds order IDs (hex, dashes allowed)
+     * @return tasks for the orders that still need planning
+     */
+    @Transactional(readOnly = true)
+    public List<PlanningTask> loadTasksByIds(Collection<String> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(orderIds.size(), "UNHEX(?)"));
+        String sql = TASK_SELECT + "WHERE o.id IN (" + placeholders + ")\n" + UNPLANNED_FILTER;
+
+        Query query = entityManager.createNativeQuery(sql);
+        int index = 1;
+        for (String orderId : orderIds) {
+            query.setParameter(index++, orderId.replace("-", "").toUpperCase());
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+        LocalDate today = LocalDate.now();
+        return split(estimate(results.stream().map(row -> toTask(row, today)).toList()));
+    }
+
+    /**
+     * Active employees with their availability calendar and their already scheduled work
+     * Employees with no weekly availability are left out.
+     */
+    public List<PlanningResource> loadResources(LocalDate horizonStart) {
+        return loadResources(horizonStart, Set.of());
+    }
+
+    /**
+     * Active employees as above, without some of their scheduled plannings
+     * @param horizonStart first day of the horizon
+     * @param releasedPlanningIds plannings (hex) that are being re-planned, so not busy time
+     */
+    public List<PlanningResource> loadResources(LocalDate horizonStart, Set<String> releasedPlanningIds) {
+        Map<String, List<ScheduledPlanning>> scheduled = loadScheduledPlannings(horizonStart).stream()
+                .filter(planning -> !releasedPlanningIds.contains(planning.getPlanningId()))
+                .collect(Collectors.groupingBy(ScheduledPlanning::getEmployeeId));
+        List<Map<String, Object>> employees = employeeService.getAllActiveEmployees();
+
+        Map<String, Integer> workHours = new HashMap<>();
+        for (Map<String, Object> employee : employees) {
+            Object hours = employee.get("workHoursPerDay");
+            workHours.put(employee.get("id").toString(), hours instanceof Number ? ((Number) hours).intValue() : null);
+        }
+        Map<String, AvailabilityCalendar> calendars = availabilityService.loadCalendars(workHours, horizonStart);
+
+        List<PlanningResource> resources = new ArrayList<>(employees.size());
+        for (Map<String, Object> employee : employees) {
+            String employeeId = employee.get("id").toString().toUpperCase();
+            AvailabilityCalendar calendar = calendars.get(employeeId);
+            if (calendar != null) {
+                resources.add(toResource(employee, calendar, scheduled.getOrDefault(employeeId, List.of())));
+            }
+        }
+        return resources;
+    }
+
+    /**
+     * Scheduled / in-progress plannings that end after the horizon start
+     * @param horizonStart first day of the horizon
+     * @return plannings with their order due date
+     */
+    public List<ScheduledPlanning> loadScheduledPlannings(LocalDate horizonStart) {
+        String sql = """
+            SELECT
+                HEX(p.id),
+                HEX(p.employee_id),
+                p.start_time,
+                COALESCE(p.end_time, p.estimated_end_time,
+                         DATE_ADD(p.start_time, INTERVAL p.estimated_duration_minutes MINUTE)) as end_time,
+                p.status,
+                o.date,
+                o.delai
+            FROM j_planning p
+            LEFT JOIN `order` o ON o.id = p.order_id
+            WHERE p.status IN ('SCHEDULED', 'IN_PROGRESS')
+            AND COALESCE(p.end_time, p.estimated_end_time,
+                         DATE_ADD(p.start_time, INTERVAL p.estimated_duration_minutes MINUTE)) > ?
+            """;
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, horizonStart.atStartOfDay());
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+
+        List<ScheduledPlanning> plannings = new ArrayList<>(results.size());
+        for (Object[] row : results) {
+            LocalDateTime orderDate = row[5] != null ? toDateTime(row[5], horizonStart) : null;
+            plannings.add(new ScheduledPlanning(
+                    (String) row[0],
+                    (String) row[1],
+                    toDateTime(row[2], horizonStart),
+                    toDateTime(row[3], horizonStart),
+                    row[4] != null ? row[4].toString() : "SCHEDULED",
+                    orderDate != null ? orderDate.plusDays(SlaTier.fromCode((String) row[6]).getSlaDays()) : null));
+        }
+        log.debug(" {} scheduled plannings loaded since {}", plannings.size(), horizonStart);
+        return plannings;
+    }
+
+    /**
+     * A planning already in j_planning that still occupies its employee
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ScheduledPlanning {
+        private final String planningId;
+        private final String employeeId;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        private final String status;
+        /**
+         * SLA due date of the order, null if the order is unknown
+         */
+        private final LocalDateTime dueTime;
+    }
+
+    /**
+     * Scheduled / in-progress plannings that end after the horizon start, as assignments
+     * on the given employees (to score the stored schedule)
+     * Setup keys are not stored with plannings, so they are left null.
+     * @param horizonStart first day of the horizon
+     * @param resources employees, from loadResources
+     * @return planning ID (hex) -> assignment; plannings of other employees are skipped
+     */
+    @Transactional(readOnly = true)
+    public Map<String, PlanningAssignment> loadScheduledAssignments(LocalDate horizonStart,
+                                                                    Collection<PlanningResource> resources) {
+        String sql = """
+            SELECT
+                HEX(p.id),
+                HEX(p.employee_id),
+                HEX(p.order_id),
+                o.num_commande,
+                o.date,
+                o.delai,
+                p.start_time,
+                COALESCE(p.end_time, p.estimated_end_time,
+                         DATE_ADD(p.start_time, INTERVAL p.estimated_duration_minutes MINUTE)) as end_time,
+                p.estimated_duration_minutes,
+                p.card_count,
+                p.stage,
+                p.chunk_index,
+                p.chunk_count
+            FROM j_planning p
+            LEFT JOIN `order` o ON o.id = p.order_id
+            WHERE p.status IN ('SCHEDULED', 'IN_PROGRESS')
+            AND COALESCE(p.end_time, p.estimated_end_time,
+                         DATE_ADD(p.start_time, INTERVAL p.estimated_duration_minutes MINUTE)) > ?
+            ORDER BY p.start_time
+            """;
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, horizonStart.atStartOfDay());
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+
+        Map<String, PlanningResource> byId = new HashMap<>();
+        for (PlanningResource resource : resources) {
+            byId.put(resource.getEmployeeId().toUpperCase(), resource);
+        }
+        Map<String, PlanningAssignment> assignments = new LinkedHashMap<>();
+        for (Object[] row : results) {
+            PlanningResource resource = byId.get((String) row[1]);
+            if (resource == null) {
+                continue;
+            }
+            LocalDateTime orderDate = toDateTime(row[4], horizonStart);
+            SlaTier tier = SlaTier.fromCode((String) row[5]);
+            LocalDateTime startTime = toDateTime(row[6], horizonStart);
+            LocalDateTime endTime = toDateTime(row[7], horizonStart);
+            PlanningTask task = PlanningTask.builder()
+                    .orderId((String) row[2])
+                    .orderNumber((String) row[3])
+                    .durationMinutes(row[8] != null ? ((Number) row[8]).intValue() : 0)
+                    .cardCount(row[9] != null ? ((Number) row[9]).intValue() : 0)
+                    .tier(tier)
+                    .releaseTime(orderDate)
+                    .dueTime(orderDate.plusDays(tier.getSlaDays()))
+                    .stage(row[10] != null ? PlanningStage.valueOf((String) row[10]) : null)
+                    .chunkIndex(((Number) row[11]).intValue())
+                    .chunkCount(((Number) row[12]).intValue())
+                    .build();
+            WorkCalendar calendar = resource.getCalendar();
+            assignments.put((String) row[0], PlanningAssignment.builder()
+                    .task(task)
+                    .resource(resource)
+                    .startMinute(calendar.toWorkingMinute(WorkCalendar.epochMinute(startTime)))
+                    .endMinute(calendar.toWorkingMinute(WorkCalendar.epochMinute(endTime)))
+                    .startTime(startTime)
+                    .endTime(endTime)
+                    .build());
+        }
+        return assignments;
+    }
+
+    /**
+     * Processing time of an order when only its card count is known
+     * @param cardCount number of cards
+     * @return duration in minutes from the learned duration model (at least one card)
+     */
+    public int estimateDurationMinutes(int cardCount) {
+        return durationModel.estimateMinutes(cardCount);
+    }
+
+    /**
+     * Chunks of an order whose cards are not known (no setup groups, no database access)
+     * @param order whole-order task
+     * @return the task or its chunks, as for loaded orders
+     */
+    public List<PlanningTask> splitOrder(PlanningTask order) {
+        return TaskSplitter.split(order, splitEnabled ? maxChunkMinutes : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Durations re-estimated from the card profiles of the orders once the duration model is trained
+     */
+    private List<PlanningTask> estimate(List<PlanningTask> orders) {
+        if (!durationModel.isTrained() || orders.isEmpty()) {
+            return orders;
+        }
+        Map<String, Map<String, Integer>> profiles =
+                durationModel.loadCardProfiles(orders.stream().map(PlanningTask::getOrderId).toList());
+        List<PlanningTask> estimated = new ArrayList<>(orders.size());
+        for (PlanningTask order : orders) {
+            Map<String, Integer> profile = profiles.get(order.getOrderId());
+            estimated.add(profile == null ? order : order.toBuilder()
+                    .durationMinutes(durationModel.estimateMinutes(profile, order.getCardCount()))
+                    .build());
+        }
+        return estimated;
+    }
+
+    /**
+     * Orders as chunks: one per setup key of their cards (when setup batching is enabled),
+     * large ones cut to at most planning.split.max-chunk-minutes so they run in parallel
+     * With planning.split.enabled=false orders stay whole, keyed only when all their cards share one key.
+     */
+    private List<PlanningTask> split(List<PlanningTask> orders) {
+        Map<String, Map<String, Integer>> setupGroups = setupEnabled ? loadSetupGroups(orders) : Map.of();
+        List<PlanningTask> tasks = new ArrayList<>(orders.size());
+        for (PlanningTask order : orders) {
+            Map<String, Integer> groups = setupGroups.getOrDefault(order.getOrderId(), Map.of());
+            if (splitEnabled) {
+                tasks.addAll(TaskSplitter.split(order, groups, maxChunkMinutes));
+            } else if (groups.size() == 1 && groups.values().iterator().next() == order.getCardCount()) {
+                tasks.add(order.toBuilder().setupKey(groups.keySet().iterator().next()).build());
+            } else {
+                tasks.add(order);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Cards per setup key (planning.setup.key-fields of card_certification) for each order
+     * @return order ID (hex) -> setup key -> card count, keys in a stable order
+     */
+    private Map<String, Map<String, Integer>> loadSetupGroups(List<PlanningTask> orders) {
+        // Field names go into the SQL, so only known card_certification columns are accepted
+        List<String> columns = new ArrayList<>();
+        for (String field : setupKeyFields) {
+            if (!SETUP_KEY_FIELDS.contains(field.trim())) {
+                throw new IllegalArgumentException("Unsupported setup key field: " + field);
+            }
+            columns.add("COALESCE(CAST(cc." + field.trim() + " AS CHAR), '-')");
+        }
+        String keyExpression = "CONCAT_WS('|', " + String.join(", ", columns) + ")";
+
+        Map<String, Map<String, Integer>> groups = new HashMap<>();
+        for (int from = 0; from < orders.size(); from += SETUP_QUERY_BATCH_SIZE) {
+            List<PlanningTask> batch = orders.subList(from, Math.min(from + SETUP_QUERY_BATCH_SIZE, orders.size()));
+            String sql = """
+                SELECT HEX(cco.order_id), %s AS setup_key, COUNT(*)
+                FROM card_certification_order cco
+                INNER JOIN card_certification cc ON cco.card_certification_id = cc.id
+                WHERE cco.order_id IN (%s)
+                GROUP BY cco.order_id, setup_key
+                ORDER BY cco.order_id, setup_key
+                """.formatted(keyExpression, String.join(", ", Collections.nCopies(batch.size(), "UNHEX(?)")));
+
+            Query query = entityManager.createNativeQuery(sql);
+            int index = 1;
+            for (PlanningTask order : batch) {
+                query.setParameter(index++, order.getOrderId());
+            }
+
+            @SuppressWarnings("unchecked")
+            List<Object[]> results = query.getResultList();
+            for (Object[] row : results) {
+                groups.computeIfAbsent((String) row[0], id -> new LinkedHashMap<>())
+                        .put((String) row[1], ((Number) row[2]).intValue());
+            }
+        }
+        return groups;
+    }
+
+    private PlanningTask toTask(Object[] row, LocalDate fallbackDate) {
+        LocalDateTime orderDate = toDateTime(row[2], fallbackDate);
+        SlaTier tier = SlaTier.fromCode((String) row[3]);
+        int cardCount = ((Number) row[4]).intValue();
+        if (cardCount <= 0) {
+            cardCount = DEFAULT_CARD_COUNT;
+        }
+        return PlanningTask.builder()
+                .orderId((String) row[0])
+                .orderNumber((String) row[1])
+                .cardCount(cardCount)
+                .durationMinutes(estimateDurationMinutes(cardCount))
+                .tier(tier)
+                .releaseTime(orderDate)
+                .dueTime(orderDate.plusDays(tier.getSlaDays()))
+                .build();
+    }
+
+    private PlanningResource toResource(Map<String, Object> employee, WorkCalendar calendar,
+                                        List<ScheduledPlanning> scheduled) {
+        String employeeId = employee.get("id").toString();
+        PlanningResource.PlanningResourceBuilder resource = PlanningResource.builder()
+                .employeeId(employeeId)
+                .name(employee.get("firstName") + " " + employee.get("lastName"))
+                .role((String) employee.get("role"))
+                .calendar(calendar)
+                .speedFactor(durationModel.speedFactor(employeeId));
+        if (employee.get("workHoursPerDay") instanceof Number hours && hours.intValue() > 0) {
+            resource.workHoursPerDay(hours.intValue());
+        }
+        for (ScheduledPlanning planning : scheduled) {
+            resource.busyInterval(new BusyInterval(
+                    calendar.toWorkingMinute(WorkCalendar.epochMinute(planning.getStartTime())),
+                    calendar.toWorkingMinute(WorkCalendar.epochMinute(planning.getEndTime()))));
+        }
+        return resource.build();
+    }
+
+    private LocalDateTime toDateTime(Object value, LocalDate fallback) {
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime;
+        }
+        if (value instanceof LocalDate date) {
+            return date.atStartOfDay();
+        }
+        if (value instanceof java.sql.Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate().atStartOfDay();
+        }
+        return fallback.atStartOfDay();
+    }
+}
@@ -0,0 +1,248 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.event.PlanningProgressEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Planning Progress Buffer - write-behind for high-frequency progress updates
+ *
+ * Keeps only the latest progress per planning id and writes all pending plannings
+ * in one UPDATE every flush interval, or as soon as max-entries plannings are
+ * pending. Terminal states (COMPLETED) bypass the buffer and are written
+ * synchronously through {@link PlanningUpdateService}. Pending entries are
+ * flushed on shutdown.
+ */
+@Service
+@Slf4j
+public class PlanningProgressBuffer {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PlanningUpdateService planningUpdateService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${planning.progress.flush-max-entries:200}")
+    private int flushMaxEntries;
+
+    /**
+     * Latest buffered progress per planning id (hex, uppercase, no dashes)
+     */
+    private final ConcurrentHashMap<String, Integer> pendingProgress = new ConcurrentHashMap<>();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // ========== PUBLIC OPERATIONS ==========
+
+    /**
+     * Record a progress update; 100% completes the planning synchronously
+     * @param planningId planning ID (hex, dashes allowed)
+     * @param progressPercentage new progress (0-100)
+     * @return current state for synchronous writes, null when the update was buffered
+     */
+    public Map<String, Object> recordProgress(String planningId, int progressPercentage) {
+        if (progressPercentage < 0 || progressPercentage > 100) {
+            throw new IllegalArgumentException("Progress must be between 0 and 100");
+        }
+        if (progressPercentage == 100) {
+            return complete(planningId, null);
+        }
+
+        pendingProgress.put(cleanId(planningId), progressPercentage);
+        if (pendingProgress.size() >= flushMaxEntries) {
+            flush();
+        }
+        return null;
+    }
+
+    /**
+     * Complete a planning synchronously, dropping any buffered progress for it
+     * @param planningId planning ID (hex, dashes allowed)
+     * @param expectedVersion version read by the client, or null to retry against the latest
+     * @return current planning state after the update
+     */
+    public Map<String, Object> complete(String planningId, Long expectedVersion) {
+        pendingProgress.remove(cleanId(planningId));
+        return planningUpdateService.completePlanning(planningId, expectedVersion);
+    }
+
+    /**
+     * Drop buffered progress for a planning that is about to be written synchronously
+     * @param planningId planning ID (hex, dashes allowed)
+     */
+    public void discard(String planningId) {
+        pendingProgress.remove(cleanId(planningId));
+    }
+
+    /**
+     * Buffered progress not yet written to j_planning
+     * @param planningId planning ID (hex, dashes allowed)
+     * @return buffered progress or null
+     */
+    public Integer getPendingProgress(String planningId) {
+        return pendingProgress.get(cleanId(planningId));
+    }
+
+    /**
+     * Number of plannings waiting for the next flush
+     */
+    public int getPendingCount() {
+        return pendingProgress.size();
+    }
+
+    // ========== FLUSH ==========
+
+    /**
+     * Periodic flush of coalesced progress updates
+     */
+    @Scheduled(fixedDelayString = "${planning.progress.flush-interval-ms:500}")
+    public void scheduledFlush() {
+        if (pendingProgress.isEmpty()) {
+            return;
+        }
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Progress buffer flush failed, {} updates kept for retry: {}",
+                    pendingProgress.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Waits for a running flush rather than skipping, so entries recorded during it are not lost
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            if (!pendingProgress.isEmpty()) {
+                log.info("Flushing {} buffered progress updates before shutdown", pendingProgress.size());
+                flushPending();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Write all pending progress updates, in batches of flush-max-entries
+     * @return number of plannings updated
+     */
+    public int flush() {
+        if (!flushLock.tryLock()) {
+            // Another thread is flushing; entries recorded meanwhile go out with the next flush
+            return 0;
+        }
+        try {
+            return flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Caller holds flushLock
+     */
+    private int flushPending() {
+        int updated = 0;
+        List<String> batch = new ArrayList<>(flushMaxEntries);
+        for (String planningId : pendingProgress.keySet()) {
+            batch.add(planningId);
+            if (batch.size() >= flushMaxEntries) {
+                updated += flushBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            updated += flushBatch(batch);
+        }
+        return updated;
+    }
+
+    /**
+     * Remove a batch from the buffer and write it in a single UPDATE ... CASE statement
+     * Completed or cancelled plannings are left untouched.
+     */
+    private int flushBatch(List<String> planningIds) {
+        Map<String, Integer> drained = new HashMap<>();
+        for (String planningId : planningIds) {
+            Integer progress = pendingProgress.remove(planningId);
+            if (progress != null) {
+                drained.put(planningId, progress);
+            }
+        }
+        if (drained.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder caseClause = new StringBuilder();
+        StringBuilder inClause = new StringBuilder();
+        List<Object> caseParams = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : drained.entrySet()) {
+            caseClause.append(" WHEN UNHEX(?) THEN ?");
+            caseParams.add(entry.getKey());
+            caseParams.add(entry.getValue());
+            inClause.append(inClause.length() == 0 ? "UNHEX(?)" : ", UNHEX(?)");
+        }
+
+        String sql = "UPDATE j_planning SET " +
+                "progress_percentage = CASE id" + caseClause + " ELSE progress_percentage END, " +
+                "status = IF(status = 'SCHEDULED', 'IN_PROGRESS', status), " +
+                "actual_start_time = COALESCE(actual_start_time, NOW()), " +
+                "updated_at = NOW(), " +
+                "version = version + 1 " +
+                "WHERE id IN (" + inClause + ") AND status NOT IN ('COMPLETED', 'CANCELLED')";
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            Integer updated = transactionTemplate.execute(status -> {
+                Query query = entityManager.createNativeQuery(sql);
+                int index = 1;
+                for (Object param : caseParams) {
+                    query.setParameter(index++, param);
+                }
+                for (String planningId : drained.keySet()) {
+                    query.setParameter(index++, planningId);
+                }
+                return query.executeUpdate();
+            });
+            log.debug("Flushed {} buffered progress updates ({} rows)", drained.size(), updated);
+            drained.keySet().forEach(id -> eventPublisher.publishEvent(new PlanningProgressEvent(id, "PROGRESS")));
+            return updated != null ? updated : 0;
+
+        } catch (RuntimeException e) {
+            // Put entries back unless a newer value arrived meanwhile
+            drained.forEach(pendingProgress::putIfAbsent);
+            throw e;
+        }
+    }
+
+    private String cleanId(String planningId) {
+        return planningId.replace("-", "").toUpperCase();
+    }
+}
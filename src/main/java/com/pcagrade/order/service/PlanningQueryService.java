@@ -0,0 +1,286 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.entity.Planning;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Planning Query Service - filtered, projected and paginated listing of j_planning
+ *
+ * Filters go into the WHERE clause as plain column comparisons so that idx_planning_date_time
+ * and idx_planning_employee_time can serve them. Pages are read in (planning_date,
+ * start_time, id) order, which is the order of idx_planning_date_time (InnoDB appends the
+ * primary key), and continued from the last row returned (keyset cursor) rather than with
+ * OFFSET, so every page is an index range scan stopped after limit rows. Rows without a
+ * planning date or start time are not listed.
+ */
+@Service
+@Slf4j
+public class PlanningQueryService {
+
+    /**
+     * Field name -> SQL expression, in response order
+     */
+    private static final Map<String, String> FIELDS = new LinkedHashMap<>();
+
+    /**
+     * Fields that need the order / employee join
+     */
+    private static final Set<String> ORDER_FIELDS = Set.of("orderNumber");
+    private static final Set<String> EMPLOYEE_FIELDS = Set.of("employeeName");
+
+    static {
+        FIELDS.put("id", "HEX(p.id)");
+        FIELDS.put("orderId", "HEX(p.order_id)");
+        FIELDS.put("employeeId", "HEX(p.employee_id)");
+        FIELDS.put("planningDate", "p.planning_date");
+        FIELDS.put("startTime", "p.start_time");
+        FIELDS.put("estimatedDurationMinutes", "p.estimated_duration_minutes");
+        FIELDS.put("priority", "p.priority");
+        FIELDS.put("status", "p.status");
+        FIELDS.put("completed", "p.completed");
+        FIELDS.put("cardCount", "p.card_count");
+        FIELDS.put("progressPercentage", "p.progress_percentage");
+        FIELDS.put("createdAt", "p.created_at");
+        FIELDS.put("updatedAt", "p.updated_at");
+        FIELDS.put("orderNumber", "o.num_commande");
+        FIELDS.put("employeeName", "CONCAT(COALESCE(e.first_name, 'Unknown'), ' ', COALESCE(e.last_name, 'User'))");
+    }
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Value("${planning.listing.default-limit:1000}")
+    private int defaultLimit;
+
+    @Value("${planning.listing.max-limit:5000}")
+    private int maxLimit;
+
+    @Value("${planning.listing.employee-window-days:30}")
+    private int employeeWindowDays;
+
+    // ========== LISTING ==========
+
+    /**
+     * One page of plannings
+     * @param from first planning date (inclusive), null for no lower bound
+     * @param to last planning date (inclusive), null for no upper bound
+     * @param employeeId employee (hex, dashes allowed), null for all
+     * @param status planning status, null for all
+     * @param fields comma-separated field names, null or empty for all
+     * @param cursor nextCursor of the previous page, null for the first page
+     * @param limit page size, null for planning.listing.default-limit
+     * @return plannings, count, hasMore and nextCursor
+     * @throws IllegalArgumentException on an unknown field or status, or a malformed cursor
+     */
+    public Map<String, Object> listPlannings(LocalDate from, LocalDate to, String employeeId, String status,
+                                             String fields, String cursor, Integer limit) {
+        List<String> projection = parseFields(fields);
+        int pageSize = Math.min(Math.max(limit == null ? defaultLimit : limit, 1), maxLimit);
+
+        StringBuilder sql = new StringBuilder("SELECT HEX(p.id), p.planning_date, p.start_time");
+        for (String field : projection) {
+            sql.append(", ").append(FIELDS.get(field));
+        }
+        sql.append(" FROM j_planning p");
+        if (projection.stream().anyMatch(ORDER_FIELDS::contains)) {
+            sql.append(" LEFT JOIN `order` o ON p.order_id = o.id");
+        }
+        if (projection.stream().anyMatch(EMPLOYEE_FIELDS::contains)) {
+            sql.append(" LEFT JOIN j_employee e ON p.employee_id = e.id");
+        }
+
+        // Rows without a date or start have no place in the keyset order (the row comparison would be NULL)
+        List<String> conditions = new ArrayList<>(List.of("p.planning_date IS NOT NULL", "p.start_time IS NOT NULL"));
+        List<Object> parameters = new ArrayList<>();
+        if (employeeId != null && !employeeId.isBlank()) {
+            conditions.add("p.employee_id = UNHEX(?)");
+            parameters.add(employeeId.replace("-", ""));
+        }
+        if (from != null) {
+            conditions.add("p.planning_date >= ?");
+            parameters.add(from);
+        }
+        if (to != null) {
+            conditions.add("p.planning_date <= ?");
+            parameters.add(to);
+        }
+        if (status != null && !status.isBlank()) {
+            conditions.add("p.status = ?");
+            parameters.add(Planning.PlanningStatus.valueOf(status.toUpperCase()).name());
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            Object[] after = decodeCursor(cursor);
+            // (planning_date, start_time, id) > cursor as column comparisons; the leading
+            // planning_date >= bound is the range start on idx_planning_date_time (+ id)
+            conditions.add("p.planning_date >= ?");
+            conditions.add("(p.planning_date > ? OR (p.planning_date = ? AND "
+                    + "(p.start_time > ? OR (p.start_time = ? AND p.id > UNHEX(?)))))");
+            parameters.add(after[0]);
+            parameters.add(after[0]);
+            parameters.add(after[0]);
+            parameters.add(after[1]);
+            parameters.add(after[1]);
+            parameters.add(after[2]);
+        }
+        sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        // One extra row tells whether there is a next page
+        sql.append(" ORDER BY p.planning_date ASC, p.start_time ASC, p.id ASC LIMIT ").append(pageSize + 1);
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(i + 1, parameters.get(i));
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+
+        boolean hasMore = results.size() > pageSize;
+        log.debug("Planning page: {} rows, fields={}, hasMore={}", Math.min(results.size(), pageSize), projection, hasMore);
+        List<Object[]> page = hasMore ? results.subList(0, pageSize) : results;
+
+        List<Map<String, Object>> plannings = new ArrayList<>(page.size());
+        for (Object[] row : page) {
+            Map<String, Object> planning = new HashMap<>();
+            for (int f = 0; f < projection.size(); f++) {
+                planning.put(projection.get(f), row[f + 3]);
+            }
+            plannings.add(planning);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("plannings", plannings);
+        result.put("total", plannings.size());
+        result.put("limit", pageSize);
+        result.put("hasMore", hasMore);
+        result.put("nextCursor", hasMore ? encodeCursor(page.get(page.size() - 1)) : null);
+        return result;
+    }
+
+    // ========== EMPLOYEE VIEW ==========
+
+    /**
+     * Plannings of one employee between two dates, in (planning_date, start_time) order
+     * A single range read on idx_planning_employee_time, capped at planning.listing.max-limit rows.
+     * @param employeeId employee (hex, dashes allowed)
+     * @param from first planning date (inclusive), null for today
+     * @param to last planning date (inclusive), null for from + planning.listing.employee-window-days
+     * @return rows of planningId, orderId, orderNumber, planningDate, startTime, durationMinutes,
+     *         priority, status, cardCount, notes; plus from, to and truncated
+     * @throws IllegalArgumentException when to is before from
+     */
+    public Map<String, Object> findEmployeePlannings(String employeeId, LocalDate from, LocalDate to) {
+        LocalDate first = from != null ? from : LocalDate.now();
+        LocalDate last = to != null ? to : first.plusDays(employeeWindowDays);
+        if (last.isBefore(first)) {
+            throw new IllegalArgumentException("to (" + last + ") is before from (" + first + ")");
+        }
+
+        String sql = """
+            SELECT
+                HEX(p.id) as planningId,
+                HEX(p.order_id) as orderId,
+                o.num_commande as orderNumber,
+                p.planning_date as planningDate,
+                TIME(p.start_time) as startTime,
+                p.estimated_duration_minutes as durationMinutes,
+                p.priority,
+                p.status,
+                p.card_count as cardCount,
+                p.notes
+            FROM j_planning p
+            LEFT JOIN `order` o ON p.order_id = o.id
+            WHERE p.employee_id = UNHEX(?)
+              AND p.planning_date BETWEEN ? AND ?
+            ORDER BY p.planning_date ASC, p.start_time ASC
+            LIMIT ?
+            """;
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, employeeId.replace("-", ""));
+        query.setParameter(2, first);
+        query.setParameter(3, last);
+        query.setParameter(4, maxLimit + 1);
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+
+        boolean truncated = results.size() > maxLimit;
+        Map<String, Object> result = new HashMap<>();
+        result.put("rows", truncated ? results.subList(0, maxLimit) : results);
+        result.put("from", first.toString());
+        result.put("to", last.toString());
+        result.put("truncated", truncated);
+        return result;
+    }
+
+    // ========== INTERNAL HELPERS ==========
+
+    private static List<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return new ArrayList<>(FIELDS.keySet());
+        }
+        List<String> projection = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty() || projection.contains(name)) {
+                continue;
+            }
+            if (!FIELDS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name + ", expected one of " + FIELDS.keySet());
+            }
+            projection.add(name);
+        }
+        return projection;
+    }
+
+    /**
+     * planning_date|start_time|id of the last row, base64url so it can go in a query string
+     */
+    private static String encodeCursor(Object[] row) {
+        String key = toLocalDate(row[1]) + "|" + toLocalDateTime(row[2]) + "|" + row[0];
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object[] decodeCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (key.length != 3 || !key[2].matches("[0-9A-Fa-f]{32}")) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new Object[]{LocalDate.parse(key[0]), LocalDateTime.parse(key[1]), key[2]};
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return value instanceof LocalDate date ? date : LocalDate.parse(value.toString());
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return value instanceof LocalDateTime dateTime ? dateTime : LocalDateTime.parse(value.toString().replace(' ', 'T'));
+    }
+}
@@ -1,6 +1,8 @@
 package com.pcagrade.order.service;
 
+import com.pcagrade.order.event.PlanningGeneratedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.extern.slf4j.Slf4j;
@@ -25,8 +27,16 @@ public class PlanningService {
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private DurationModel durationModel;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ViewVersionService viewVersionService;
+
     // ========== CONSTANTS ==========
-    private static final int MINUTES_PER_CARD = 3;
     private static final LocalDate DEFAULT_START_DATE = LocalDate.of(2025, 6, 1);
     private static final LocalTime WORK_START_TIME = LocalTime.of(9, 0);
     private static final LocalTime WORK_END_TIME = LocalTime.of(17, 0);
@@ -46,7 +56,8 @@ public class PlanningService {
 
             LocalDate startDate = dateDebut != null ?
                     LocalDate.parse(dateDebut) : DEFAULT_START_DATE;
-            int timePerCard = tempsParCarte > 0 ? tempsParCarte : MINUTES_PER_CARD;
+            // Explicit time per card overrides the learned duration model
+            int timePerCard = tempsParCarte > 0 ? tempsParCarte : 0;
 
             // 1. DATA LOADING
             List<Map<String, Object>> orders = loadOrdersByPriority(startDate);
@@ -102,7 +113,8 @@ public class PlanningService {
                     Integer cardCount = (Integer) order.get("nombreCartes");
                     if (cardCount == null || cardCount <= 0) cardCount = 1;
 
-                    int durationMinutes = cardCount * timePerCard;
+                    int durationMinutes = timePerCard > 0 ? cardCount * timePerCard :
+                            durationModel.estimateMinutes(leastBusy.getEmployee().get("id").toString(), cardCount);
                     LocalDateTime startTime = calculateOptimalStartTime(leastBusy, order);
 
                     // Create the planning
@@ -149,6 +161,8 @@ public class PlanningService {
                 }
             }
 
+            eventPublisher.publishEvent(new PlanningGeneratedEvent("batch"));
+
             // 3. FINAL STATISTICS
             int totalCards = createdPlannings.stream()
                     .mapToInt(p -> (Integer) p.get("cardCount"))
@@ -166,7 +180,8 @@ public class PlanningService {
             result.put("totalMinutes", totalMinutes);
             result.put("totalHours", String.format("%.1f", totalMinutes / 60.0));
             result.put("createdPlannings", createdPlannings);
-            result.put("timePerCardMinutes", timePerCard);
+            result.put("timePerCardMinutes", timePerCard > 0 ? timePerCard :
+                    Math.round(durationModel.minutesPerCard(null, DurationModel.UNKNOWN_PROFILE) * 100) / 100.0);
             result.put("startDate", startDate.toString());
 
             log.info("GENERATION COMPLETED - {} plannings saved, {} cards, {}h",
@@ -189,10 +204,15 @@ public class PlanningService {
     @Transactional
     public boolean savePlanning(String orderId, String employeeId, LocalDate planningDate,
                                 LocalDateTime startTime, int durationMinutes, String priority) {
-        return savePlanningOptimized(
+        boolean saved = savePlanningOptimized(
                 UUID.randomUUID().toString().replace("-", ""),
                 orderId, employeeId, planningDate, startTime,
-                durationMinutes, priority, durationMinutes / MINUTES_PER_CARD);
+                durationMinutes, priority, Math.max(1, (int) Math.round(
+                        durationMinutes / durationModel.minutesPerCard(employeeId, DurationModel.UNKNOWN_PROFILE))));
+        if (saved) {
+            viewVersionService.planningsChanged(employeeId, planningDate);
+        }
+        return saved;
     }
 
     // ========== NEW AND OPTIMIZED METHODS ==========
@@ -0,0 +1,327 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.algorithm.AvailabilityCalendar;
+import com.pcagrade.order.algorithm.IncrementalScore;
+import com.pcagrade.order.algorithm.PlanningAlgorithm;
+import com.pcagrade.order.algorithm.PlanningProblem;
+import com.pcagrade.order.algorithm.PlanningResource;
+import com.pcagrade.order.algorithm.PlanningSolution;
+import com.pcagrade.order.algorithm.PlanningTask;
+import com.pcagrade.order.algorithm.ScheduleMetrics;
+import com.pcagrade.order.algorithm.ScoreCalculator;
+import com.pcagrade.order.algorithm.SlaTier;
+import com.pcagrade.order.algorithm.WorkCalendar;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Planning Simulation Service - what-if scenarios without database writes
+ *
+ * The current problem (unplanned orders, active employees with their calendars and
+ * scheduled work) is loaded once into an immutable snapshot and reused until it is
+ * older than planning.simulation.snapshot-ttl-ms. A scenario (employees removed or
+ * off some days, extra employees, extra or withdrawn orders) derives a new problem
+ * from the snapshot: unchanged tasks and resources are shared, only the touched
+ * ones are rebuilt. The chosen algorithm runs on it in memory and its KPIs are
+ * returned next to those of the unchanged snapshot.
+ */
+@Service
+@Slf4j
+public class PlanningSimulationService {
+
+    // ========== CONSTANTS ==========
+    private static final String SIMULATED_PREFIX = "SIM-";
+
+    @Autowired
+    private PlanningProblemService planningProblemService;
+
+    @Autowired
+    private PlanningEngineService planningEngineService;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private DurationModel durationModel;
+
+    @Autowired
+    private ScoreCalculator scoreCalculator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${planning.simulation.snapshot-ttl-ms:60000}")
+    private long snapshotTtlMillis;
+
+    @Value("${planning.simulation.since-days:90}")
+    private int sinceDays;
+
+    @Value("${planning.simulation.default-algorithm:edf}")
+    private String defaultAlgorithm;
+
+    @Value("${planning.simulation.time-budget-ms:500}")
+    private long defaultTimeBudgetMillis;
+
+    @Value("${planning.simulation.max-added-orders:500}")
+    private int maxAddedOrders;
+
+    @Value("${planning.simulation.max-added-employees:50}")
+    private int maxAddedEmployees;
+
+    private volatile Snapshot snapshot;
+
+    // ========== SIMULATION ==========
+
+    /**
+     * Run one scenario against the current snapshot
+     * @param scenario {"algorithm", "timeBudgetMs", "refresh", "removeEmployees": [id],
+     *                 "absences": [{"employeeId", "date", "days"}],
+     *                 "addEmployees": [{"name", "workHours", "speedFactor", "count"}],
+     *                 "addOrders": [{"cardCount", "delai", "orderDate", "orderNumber", "count"}],
+     *                 "removeOrders": [orderId]}
+     * @return KPIs of the scenario and of the unchanged snapshot
+     * @throws IllegalArgumentException on an unknown algorithm or an invalid scenario
+     */
+    public Map<String, Object> simulate(Map<String, Object> scenario) {
+        String algorithmName = scenario.getOrDefault("algorithm", defaultAlgorithm).toString();
+        PlanningAlgorithm algorithm = planningEngineService.getAlgorithm(algorithmName);
+        long timeBudgetMillis = planningEngineService.timeBudget(scenario.get("timeBudgetMs") instanceof Number budget ?
+                budget.longValue() : defaultTimeBudgetMillis);
+
+        Snapshot base = currentSnapshot(Boolean.TRUE.equals(scenario.get("refresh")));
+        PlanningProblem problem = applyScenario(base.problem, scenario).toBuilder()
+                .timeBudgetMillis(timeBudgetMillis)
+                .build();
+
+        PlanningSolution solution = algorithm.solve(problem);
+        Map<String, Object> kpis = kpis(problem, solution);
+        Map<String, Object> baseline = base.baselines.computeIfAbsent(algorithm.getName() + "@" + timeBudgetMillis, key ->
+                kpis(base.problem, algorithm.solve(base.problem.toBuilder().timeBudgetMillis(timeBudgetMillis).build())));
+        log.info(" Simulation with {}: {} tasks, {} employees, {} ms", algorithm.getName(),
+                problem.getTasks().size(), problem.getResources().size(), solution.getComputeTimeMillis());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("algorithm", algorithm.getName());
+        result.put("snapshotLoadedAt", base.loadedAt);
+        result.put("tasks", problem.getTasks().size());
+        result.put("employees", problem.getResources().size());
+        result.put("computeTimeMs", solution.getComputeTimeMillis());
+        result.put("kpis", kpis);
+        result.put("baseline", baseline);
+        result.put("difference", difference(kpis, baseline));
+        return result;
+    }
+
+    // ========== SNAPSHOT ==========
+
+    private static class Snapshot {
+        final PlanningProblem problem;
+        final LocalDateTime loadedAt = LocalDateTime.now();
+        /**
+         * KPIs of the unchanged problem per algorithm@timeBudgetMillis, computed on first use
+         */
+        final Map<String, Map<String, Object>> baselines = new ConcurrentHashMap<>();
+
+        Snapshot(PlanningProblem problem) {
+            this.problem = problem;
+        }
+    }
+
+    private Snapshot currentSnapshot(boolean refresh) {
+        Snapshot current = snapshot;
+        if (!refresh && current != null && current.loadedAt.plus(snapshotTtlMillis, ChronoUnit.MILLIS).isAfter(LocalDateTime.now())) {
+            return current;
+        }
+        synchronized (this) {
+            if (!refresh && snapshot != null && snapshot != current) {
+                return snapshot;
+            }
+            LocalDate today = LocalDate.now();
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            PlanningProblem problem = transactionTemplate.execute(status -> PlanningProblem.builder()
+                    .horizonStart(today)
+                    .tasks(planningProblemService.loadTasks(today.minusDays(sinceDays)))
+                    .resources(planningProblemService.loadResources(today))
+                    .build());
+            snapshot = new Snapshot(problem);
+            log.info("Simulation snapshot loaded: {} tasks, {} employees",
+                    problem.getTasks().size(), problem.getResources().size());
+            return snapshot;
+        }
+    }
+
+    // ========== SCENARIO ==========
+
+    private PlanningProblem applyScenario(PlanningProblem base, Map<String, Object> scenario) {
+        LocalDate horizonStart = base.getHorizonStart();
+        Set<String> removedEmployees = upperCaseIds(scenario.get("removeEmployees"));
+        Map<String, Map<LocalDate, long[]>> absences = parseAbsences(scenario.get("absences"));
+
+        List<PlanningResource> resources = new ArrayList<>(base.getResources().size());
+        for (PlanningResource resource : base.getResources()) {
+            String employeeId = resource.getEmployeeId().toUpperCase();
+            if (removedEmployees.contains(employeeId)) {
+                continue;
+            }
+            Map<LocalDate, long[]> daysOff = absences.get(employeeId);
+            resources.add(daysOff == null ? resource : withDaysOff(resource, daysOff));
+        }
+
+        int added = 0;
+        for (Map<String, Object> employee : maps(scenario.get("addEmployees"))) {
+            int count = intValue(employee.get("count"), 1);
+            Integer workHours = employee.get("workHours") instanceof Number hours ? hours.intValue() : null;
+            double speedFactor = employee.get("speedFactor") instanceof Number speed ? speed.doubleValue() : 1.0;
+            for (int i = 0; i < count; i++) {
+                if (++added > maxAddedEmployees) {
+                    throw new IllegalArgumentException("At most " + maxAddedEmployees + " simulated employees");
+                }
+                resources.add(PlanningResource.builder()
+                        .employeeId(SIMULATED_PREFIX + "E" + added)
+                        .name(employee.getOrDefault("name", "Simulated employee " + added).toString())
+                        .role(employee.getOrDefault("role", "GRADER").toString())
+                        .calendar(availabilityService.defaultCalendar(workHours, horizonStart))
+                        .speedFactor(speedFactor > 0 ? speedFactor : 1.0)
+                        .workHoursPerDay(workHours != null && workHours > 0 ? workHours : 8)
+                        .build());
+            }
+        }
+
+        Set<String> removedOrders = upperCaseIds(scenario.get("removeOrders"));
+        List<PlanningTask> tasks = new ArrayList<>(base.getTasks().size());
+        for (PlanningTask task : base.getTasks()) {
+            if (!removedOrders.contains(task.getOrderId().toUpperCase())) {
+                tasks.add(task);
+            }
+        }
+        added = 0;
+        for (Map<String, Object> order : maps(scenario.get("addOrders"))) {
+            int count = intValue(order.get("count"), 1);
+            for (int i = 0; i < count; i++) {
+                if (++added > maxAddedOrders) {
+                    throw new IllegalArgumentException("At most " + maxAddedOrders + " simulated orders");
+                }
+                tasks.addAll(planningProblemService.splitOrder(simulatedOrder(order, added)));
+            }
+        }
+
+        return base.toBuilder()
+                .clearTasks().tasks(tasks)
+                .clearResources().resources(resources)
+                .build();
+    }
+
+    private PlanningTask simulatedOrder(Map<String, Object> order, int index) {
+        int cardCount = intValue(order.get("cardCount"), 0);
+        if (cardCount <= 0) {
+            throw new IllegalArgumentException("cardCount must be positive for simulated orders");
+        }
+        SlaTier tier = SlaTier.fromCode((String) order.get("delai"));
+        LocalDateTime orderDate = order.get("orderDate") != null ?
+                LocalDateTime.parse(order.get("orderDate").toString()) : LocalDateTime.now();
+        return PlanningTask.builder()
+                .orderId(SIMULATED_PREFIX + "O" + index)
+                .orderNumber(order.getOrDefault("orderNumber", SIMULATED_PREFIX + index).toString())
+                .cardCount(cardCount)
+                .durationMinutes(durationModel.estimateMinutes(cardCount))
+                .tier(tier)
+                .releaseTime(orderDate)
+                .dueTime(orderDate.plusDays(tier.getSlaDays()))
+                .build();
+    }
+
+    /**
+     * Resource with some days off; its scheduled work is moved onto the new working-minute axis
+     */
+    private PlanningResource withDaysOff(PlanningResource resource, Map<LocalDate, long[]> daysOff) {
+        if (!(resource.getCalendar() instanceof AvailabilityCalendar calendar)) {
+            throw new IllegalArgumentException("Employee " + resource.getEmployeeId() + " has no availability calendar");
+        }
+        return resource.withCalendar(calendar.withDays(daysOff));
+    }
+
+    private Map<String, Map<LocalDate, long[]>> parseAbsences(Object value) {
+        Map<String, Map<LocalDate, long[]>> absences = new HashMap<>();
+        for (Map<String, Object> absence : maps(value)) {
+            if (absence.get("employeeId") == null || absence.get("date") == null) {
+                throw new IllegalArgumentException("absences need employeeId and date");
+            }
+            String employeeId = absence.get("employeeId").toString().replace("-", "").toUpperCase();
+            LocalDate date = LocalDate.parse(absence.get("date").toString());
+            int days = intValue(absence.get("days"), 1);
+            for (int d = 0; d < days; d++) {
+                absences.computeIfAbsent(employeeId, id -> new HashMap<>()).put(date.plusDays(d), new long[2]);
+            }
+        }
+        return absences;
+    }
+
+    // ========== KPIS ==========
+
+    private Map<String, Object> kpis(PlanningProblem problem, PlanningSolution solution) {
+        Map<String, Object> kpis = new LinkedHashMap<>(ScheduleMetrics.summarize(solution));
+        IncrementalScore score = scoreCalculator.score(solution, problem.getResources());
+        kpis.put("score", Math.round(score.getTotal()));
+        kpis.put("scoreBreakdown", score.toMap().get("constraints"));
+        kpis.put("utilisation", ScheduleMetrics.utilisation(solution, problem.getResources()));
+        return kpis;
+    }
+
+    /**
+     * Scenario minus baseline for the headline KPIs
+     */
+    private Map<String, Object> difference(Map<String, Object> kpis, Map<String, Object> baseline) {
+        Map<String, Object> difference = new LinkedHashMap<>();
+        for (String key : List.of("lateOrders", "unassignedOrders", "weightedTardinessMinutes", "score")) {
+            difference.put(key, ((Number) kpis.get(key)).longValue() - ((Number) baseline.get(key)).longValue());
+        }
+        LocalDateTime end = (LocalDateTime) kpis.get("makespanEnd");
+        LocalDateTime baselineEnd = (LocalDateTime) baseline.get("makespanEnd");
+        difference.put("makespanMinutes", end != null && baselineEnd != null ?
+                WorkCalendar.epochMinute(end) - WorkCalendar.epochMinute(baselineEnd) : null);
+        return difference;
+    }
+
+    // ========== INPUT HELPERS ==========
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> maps(Object value) {
+        if (value == null) {
+            return List.of();
+        }
+        if (!(value instanceof List<?> list) || list.stream().anyMatch(item -> !(item instanceof Map))) {
+            throw new IllegalArgumentException("Expected a list of objects, got " + value);
+        }
+        return (List<Map<String, Object>>) value;
+    }
+
+    private Set<String> upperCaseIds(Object value) {
+        Set<String> ids = new HashSet<>();
+        if (value instanceof List<?> list) {
+            list.forEach(id -> ids.add(id.toString().replace("-", "").toUpperCase()));
+        }
+        return ids;
+    }
+
+    private int intValue(Object value, int defaultValue) {
+        return value instanceof Number number ? number.intValue() : defaultValue;
+    }
+}
@@ -0,0 +1,166 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.algorithm.AvailabilityCalendar;
+import com.pcagrade.order.algorithm.BusyInterval;
+import com.pcagrade.order.algorithm.EmployeeTimeline;
+import com.pcagrade.order.algorithm.WorkCalendar;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Planning Slot Service - validates manual (drag-and-drop) reassignments
+ * One indexed query per check loads the employee's remaining plannings into an
+ * EmployeeTimeline; conflict test and next free slot are then in-memory lookups.
+ * The slot must also lie in the employee's availability calendar, and the suggested
+ * slot is a run of available quarter hours free of plannings.
+ */
+@Service
+@Slf4j
+public class PlanningSlotService {
+
+    // ========== CONSTANTS ==========
+    private static final int SUGGESTION_MAX_DAYS = 31;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    /**
+     * Check whether [startTime, endTime) is free for an employee
+     * @param employeeId employee ID (hex, dashes allowed)
+     * @param startTime requested start
+     * @param endTime requested end (exclusive)
+     * @param excludePlanningId planning being moved (ignored in the check), may be null
+     * @return valid flag, conflicting plannings, availability flag and the earliest free
+     *         slot of the same length within the employee's availability (null if none)
+     * @throws IllegalArgumentException if endTime is not after startTime or the employee doesn't exist
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> validateSlot(String employeeId, LocalDateTime startTime, LocalDateTime endTime,
+                                            String excludePlanningId) {
+        if (!endTime.isAfter(startTime)) {
+            throw new IllegalArgumentException("endTime must be after startTime");
+        }
+
+        String sql = """
+            SELECT
+                HEX(p.id),
+                HEX(p.order_id),
+                p.start_time,
+                COALESCE(p.end_time, p.estimated_end_time,
+                         DATE_ADD(p.start_time, INTERVAL p.estimated_duration_minutes MINUTE)) as end_time
+            FROM j_planning p
+            WHERE p.employee_id = UNHEX(?)
+            AND p.status IN ('SCHEDULED', 'IN_PROGRESS')
+            AND COALESCE(p.end_time, p.estimated_end_time,
+                         DATE_ADD(p.start_time, INTERVAL p.estimated_duration_minutes MINUTE)) > ?
+            AND (? IS NULL OR p.id <> UNHEX(?))
+            """;
+
+        String cleanExclude = excludePlanningId != null ? excludePlanningId.replace("-", "").toUpperCase() : null;
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, employeeId.replace("-", "").toUpperCase());
+        query.setParameter(2, startTime);
+        query.setParameter(3, cleanExclude);
+        query.setParameter(4, cleanExclude);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+
+        long requestedStart = WorkCalendar.epochMinute(startTime);
+        long requestedEnd = WorkCalendar.epochMinute(endTime);
+        List<BusyInterval> busy = new ArrayList<>(results.size());
+        List<Map<String, Object>> conflicts = new ArrayList<>();
+        for (Object[] row : results) {
+            LocalDateTime plannedStart = toDateTime(row[2]);
+            LocalDateTime plannedEnd = toDateTime(row[3]);
+            if (plannedStart == null || plannedEnd == null) {
+                continue;
+            }
+            long start = WorkCalendar.epochMinute(plannedStart);
+            long end = WorkCalendar.epochMinute(plannedEnd);
+            busy.add(new BusyInterval(start, end));
+            if (start < requestedEnd && end > requestedStart) {
+                Map<String, Object> conflict = new HashMap<>();
+                conflict.put("planningId", row[0]);
+                conflict.put("orderId", row[1]);
+                conflict.put("startTime", plannedStart);
+                conflict.put("endTime", plannedEnd);
+                conflicts.add(conflict);
+            }
+        }
+
+        AvailabilityCalendar calendar = availabilityService.loadCalendar(employeeId, startTime.toLocalDate());
+        boolean available = calendar != null && isAvailable(calendar, requestedStart, requestedEnd);
+        EmployeeTimeline timeline = EmployeeTimeline.of(requestedStart, busy);
+        long suggestedStart = calendar == null ? -1 : suggestStart(calendar, timeline, requestedStart, requestedEnd - requestedStart);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("employeeId", employeeId);
+        result.put("valid", conflicts.isEmpty() && available);
+        result.put("available", available);
+        result.put("conflicts", conflicts);
+        result.put("suggestedStartTime", suggestedStart >= 0 ? WorkCalendar.dateTime(suggestedStart) : null);
+        result.put("suggestedEndTime", suggestedStart >= 0 ?
+                WorkCalendar.dateTime(suggestedStart + requestedEnd - requestedStart) : null);
+        return result;
+    }
+
+    /**
+     * Whether every quarter hour touched by [start, end) is available
+     */
+    private boolean isAvailable(AvailabilityCalendar calendar, long start, long end) {
+        for (long minute = start; minute < end;
+             minute = (minute / AvailabilityCalendar.SLOT_MINUTES + 1) * AvailabilityCalendar.SLOT_MINUTES) {
+            if (!calendar.isAvailable(minute)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Earliest start from notBefore of a run of available slots long enough that is free of plannings
+     * Alternates between the next free run of the calendar and the next gap of the timeline
+     * until both agree; each round moves past a planning.
+     * @return epoch minute, -1 if none within SUGGESTION_MAX_DAYS days of a candidate
+     */
+    private long suggestStart(AvailabilityCalendar calendar, EmployeeTimeline timeline, long notBefore, long minutes) {
+        int slots = (int) ((minutes + AvailabilityCalendar.SLOT_MINUTES - 1) / AvailabilityCalendar.SLOT_MINUTES);
+        long candidate = notBefore;
+        while (true) {
+            long run = calendar.findFreeRun(candidate, slots, SUGGESTION_MAX_DAYS);
+            if (run < 0) {
+                return -1;
+            }
+            long gap = timeline.findEarliestGap(minutes, run);
+            if (gap == run) {
+                return run;
+            }
+            candidate = gap;
+        }
+    }
+
+    private LocalDateTime toDateTime(Object value) {
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime;
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return null;
+    }
+}
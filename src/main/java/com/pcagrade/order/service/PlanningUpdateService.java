@@ -0,0 +1,324 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.event.PlanningProgressEvent;
+import com.pcagrade.order.util.OptimisticRetryTemplate;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Planning Update Service - shop-floor status and progress updates
+ *
+ * Every update is a compare-and-set on j_planning.version, so progress updates
+ * can run concurrently with planning generation without pessimistic row locks.
+ * Callers that pass an expected version get exactly one attempt; callers that
+ * don't are retried against the latest version by {@link OptimisticRetryTemplate}.
+ */
+@Service
+@Slf4j
+public class PlanningUpdateService {
+
+    // ========== CONSTANTS ==========
+    private static final String COMPLETE_SQL = """
+        UPDATE j_planning
+        SET status = 'COMPLETED',
+            completed = 1,
+            progress_percentage = 100,
+            actual_end_time = COALESCE(actual_end_time, NOW()),
+            updated_at = NOW(),
+            version = version + 1
+        WHERE id = UNHEX(?) AND version = ?
+        """;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private OptimisticRetryTemplate optimisticRetry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // ========== PUBLIC UPDATE OPERATIONS ==========
+
+    /**
+     * Mark a planning as started
+     * @param planningId planning ID (hex, dashes allowed)
+     * @param expectedVersion version read by the client, or null to retry against the latest
+     * @return current planning state after the update
+     */
+    public Map<String, Object> startPlanning(String planningId, Long expectedVersion) {
+        return runUpdate("STARTED", planningId, expectedVersion, (id, version) -> {
+            Map<String, Object> current = requireState(id);
+            String status = (String) current.get("status");
+            if ("COMPLETED".equals(status) || "CANCELLED".equals(status)) {
+                throw new IllegalStateException("Cannot start a planning with status " + status);
+            }
+
+            String sql = """
+                UPDATE j_planning
+                SET status = 'IN_PROGRESS',
+                    actual_start_time = COALESCE(actual_start_time, NOW()),
+                    updated_at = NOW(),
+                    version = version + 1
+                WHERE id = UNHEX(?) AND version = ?
+                """;
+            return compareAndSet(id, version, sql);
+        });
+    }
+
+    /**
+     * Mark a planning as completed
+     * @param planningId planning ID (hex, dashes allowed)
+     * @param expectedVersion version read by the client, or null to retry against the latest
+     * @return current planning state after the update
+     */
+    public Map<String, Object> completePlanning(String planningId, Long expectedVersion) {
+        return runUpdate("COMPLETED", planningId, expectedVersion, (id, version) -> {
+            Map<String, Object> current = requireState(id);
+            if ("CANCELLED".equals(current.get("status"))) {
+                throw new IllegalStateException("Cannot complete a cancelled planning");
+            }
+            return compareAndSet(id, version, COMPLETE_SQL);
+        });
+    }
+
+    /**
+     * Update the progress percentage of a planning
+     * Reaching 100% completes the planning, like {@code Planning.updateProgress}; progress on a
+     * SCHEDULED planning starts it (IN_PROGRESS), like the buffered flush
+     * @param planningId planning ID (hex, dashes allowed)
+     * @param progressPercentage new progress (0-100)
+     * @param expectedVersion version read by the client, or null to retry against the latest
+     * @return current planning state after the update
+     */
+    public Map<String, Object> updateProgress(String planningId, int progressPercentage, Long expectedVersion) {
+        if (progressPercentage < 0 || progressPercentage > 100) {
+            throw new IllegalArgumentException("Progress must be between 0 and 100");
+        }
+        if (progressPercentage == 100) {
+            return completePlanning(planningId, expectedVersion);
+        }
+
+        return runUpdate("PROGRESS", planningId, expectedVersion, (id, version) -> {
+            Map<String, Object> current = requireState(id);
+            String status = (String) current.get("status");
+            if ("COMPLETED".equals(status) || "CANCELLED".equals(status)) {
+                throw new IllegalStateException("Cannot update progress of a planning with status " + status);
+            }
+
+            // Like the buffered flush: progress on a SCHEDULED planning means work has started
+            String sql = """
+                UPDATE j_planning
+                SET progress_percentage = ?,
+                    status = IF(status = 'SCHEDULED', 'IN_PROGRESS', status),
+                    actual_start_time = COALESCE(actual_start_time, NOW()),
+                    updated_at = NOW(),
+                    version = version + 1
+                WHERE id = UNHEX(?) AND version = ?
+                """;
+            return compareAndSet(id, version, sql, progressPercentage);
+        });
+    }
+
+    /**
+     * Get the current state of a planning (status, progress, version)
+     * @param planningId planning ID (hex, dashes allowed)
+     * @return state map, or null if the planning doesn't exist
+     */
+    public Map<String, Object> getPlanningState(String planningId) {
+        String sql = """
+            SELECT
+                HEX(p.id),
+                HEX(p.order_id),
+                HEX(p.employee_id),
+                p.status,
+                p.progress_percentage,
+                p.actual_start_time,
+                p.actual_end_time,
+                p.updated_at,
+                p.version
+            FROM j_planning p
+            WHERE p.id = UNHEX(?)
+            """;
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, cleanId(planningId));
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+        if (results.isEmpty()) {
+            return null;
+        }
+
+        Object[] row = results.get(0);
+        Map<String, Object> state = new HashMap<>();
+        state.put("id", row[0]);
+        state.put("orderId", row[1]);
+        state.put("employeeId", row[2]);
+        state.put("status", row[3] != null ? row[3].toString() : "SCHEDULED");
+        state.put("progressPercentage", row[4] != null ? ((Number) row[4]).intValue() : 0);
+        state.put("actualStartTime", row[5]);
+        state.put("actualEndTime", row[6]);
+        state.put("updatedAt", row[7]);
+        state.put("version", row[8] != null ? ((Number) row[8]).longValue() : 0L);
+        return state;
+    }
+
+    /**
+     * Roll up the plannings of an order (chunks and stages) into one completion estimate
+     * The ETA is the latest end of the order's plannings (actual end once completed);
+     * progress is weighted by the estimated duration of each planning.
+     * @param orderId order ID (hex, dashes allowed)
+     * @return rollup map with the chunk list, or null if the order has no planning
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getOrderEta(String orderId) {
+        String sql = """
+            SELECT
+                HEX(p.id),
+                HEX(p.employee_id),
+                p.status,
+                p.progress_percentage,
+                p.start_time,
+                COALESCE(p.actual_end_time, p.end_time),
+                p.estimated_duration_minutes,
+                p.card_count,
+                p.chunk_index,
+                p.chunk_count,
+                p.card_range_start,
+                p.card_range_end,
+                p.stage
+            FROM j_planning p
+            WHERE p.order_id = UNHEX(?)
+            ORDER BY p.chunk_index, p.start_time
+            """;
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, cleanId(orderId));
+
+        List<Object[]> results = query.getResultList();
+        if (results.isEmpty()) {
+            return null;
+        }
+
+        List<Map<String, Object>> chunks = new ArrayList<>();
+        Object eta = null;
+        long totalMinutes = 0;
+        long doneMinutes = 0;
+        int completed = 0;
+        for (Object[] row : results) {
+            String status = row[2] != null ? row[2].toString() : "SCHEDULED";
+            int progress = row[3] != null ? ((Number) row[3]).intValue() : 0;
+            int minutes = row[6] != null ? Math.max(1, ((Number) row[6]).intValue()) : 1;
+            totalMinutes += minutes;
+            doneMinutes += "COMPLETED".equals(status) ? minutes : (long) minutes * progress / 100;
+            if ("COMPLETED".equals(status)) {
+                completed++;
+            }
+            if (row[5] != null && (eta == null || ((Comparable<Object>) row[5]).compareTo(eta) > 0)) {
+                eta = row[5];
+            }
+
+            Map<String, Object> chunk = new HashMap<>();
+            chunk.put("planningId", row[0]);
+            chunk.put("employeeId", row[1]);
+            chunk.put("status", status);
+            chunk.put("progressPercentage", progress);
+            chunk.put("startTime", row[4]);
+            chunk.put("endTime", row[5]);
+            chunk.put("cardCount", row[7]);
+            chunk.put("chunkIndex", row[8]);
+            chunk.put("chunkCount", row[9]);
+            chunk.put("cardRangeStart", row[10]);
+            chunk.put("cardRangeEnd", row[11]);
+            chunk.put("stage", row[12]);
+            chunks.add(chunk);
+        }
+
+        Map<String, Object> rollup = new HashMap<>();
+        rollup.put("orderId", cleanId(orderId));
+        rollup.put("plannings", chunks.size());
+        rollup.put("completedPlannings", completed);
+        rollup.put("completed", completed == chunks.size());
+        rollup.put("progressPercentage", (int) (doneMinutes * 100 / totalMinutes));
+        rollup.put("eta", eta);
+        rollup.put("chunks", chunks);
+        return rollup;
+    }
+
+    // ========== INTERNAL HELPERS ==========
+
+    /**
+     * One compare-and-set attempt against a given version
+     */
+    @FunctionalInterface
+    private interface VersionedUpdate {
+        Map<String, Object> apply(String planningId, long version);
+    }
+
+    /**
+     * Run an update with one attempt (client-supplied version) or bounded retries (latest version),
+     * then publish a PlanningProgressEvent of the given type
+     */
+    private Map<String, Object> runUpdate(String eventType, String planningId, Long expectedVersion,
+                                          VersionedUpdate update) {
+        String id = cleanId(planningId);
+        Map<String, Object> state;
+        if (expectedVersion != null) {
+            state = optimisticRetry.execute(1, () -> update.apply(id, expectedVersion));
+        } else {
+            state = optimisticRetry.execute(() -> {
+                Map<String, Object> current = requireState(id);
+                return update.apply(id, (Long) current.get("version"));
+            });
+        }
+        eventPublisher.publishEvent(new PlanningProgressEvent(id, eventType));
+        return state;
+    }
+
+    /**
+     * Execute a versioned UPDATE; the SQL must end with "WHERE id = UNHEX(?) AND version = ?"
+     */
+    private Map<String, Object> compareAndSet(String planningId, long version, String sql, Object... leadingParams) {
+        Query query = entityManager.createNativeQuery(sql);
+        int index = 1;
+        for (Object param : leadingParams) {
+            query.setParameter(index++, param);
+        }
+        query.setParameter(index++, planningId);
+        query.setParameter(index, version);
+
+        int updated = query.executeUpdate();
+        Map<String, Object> current = requireState(planningId);
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException(String.format(
+                    "Planning %s was modified concurrently (expected version %d, current version %s)",
+                    planningId, version, current.get("version")));
+        }
+
+        log.debug("Planning {} updated to version {}", planningId, current.get("version"));
+        return current;
+    }
+
+    private Map<String, Object> requireState(String planningId) {
+        Map<String, Object> state = getPlanningState(planningId);
+        if (state == null) {
+            throw new IllegalArgumentException("Planning not found: " + planningId);
+        }
+        return state;
+    }
+
+    private String cleanId(String planningId) {
+        return planningId.replace("-", "").toUpperCase();
+    }
+}
@@ -0,0 +1,424 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.algorithm.BusyInterval;
+import com.pcagrade.order.algorithm.IncrementalScore;
+import com.pcagrade.order.algorithm.PlanningAlgorithm;
+import com.pcagrade.order.algorithm.PlanningAssignment;
+import com.pcagrade.order.algorithm.PlanningProblem;
+import com.pcagrade.order.algorithm.PlanningResource;
+import com.pcagrade.order.algorithm.PlanningSolution;
+import com.pcagrade.order.algorithm.PlanningTask;
+import com.pcagrade.order.algorithm.ScoreCalculator;
+import com.pcagrade.order.algorithm.SlaTier;
+import com.pcagrade.order.algorithm.WorkCalendar;
+import com.pcagrade.order.event.PlanningGeneratedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rolling Horizon Service - re-optimises the planning window without touching near-term work
+ *
+ * Everything that is running or starts within the next planning.rolling.frozen-hours stays
+ * as it is (busy time). Not-started single-stage plannings between the frozen boundary and
+ * the end of the window are released and re-planned together with the unplanned orders,
+ * none of them starting before the boundary. A released planning the algorithm cannot place
+ * again keeps its slot, pinned as busy time while the rest is solved again. Only rows whose
+ * employee or times changed are updated and new orders inserted, in one transaction. The window slides forward with the
+ * clock, so each run works on a bounded problem: what is done drops out of it.
+ */
+@Service
+@Slf4j
+public class RollingHorizonService {
+
+    // ========== CONSTANTS ==========
+    private static final String SOURCE = "rolling";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlanningProblemService planningProblemService;
+
+    @Autowired
+    private PlanningPersistenceService planningPersistenceService;
+
+    @Autowired
+    private PlanningEngineService planningEngineService;
+
+    @Autowired
+    private IncrementalPlanningService incrementalPlanningService;
+
+    @Autowired
+    private ScoreCalculator scoreCalculator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${planning.rolling.enabled:false}")
+    private boolean enabled;
+
+    @Value("${planning.rolling.algorithm:edf}")
+    private String defaultAlgorithm;
+
+    @Value("${planning.rolling.frozen-hours:24}")
+    private int defaultFrozenHours;
+
+    @Value("${planning.rolling.window-days:21}")
+    private int defaultWindowDays;
+
+    @Value("${planning.rolling.order-lookback-days:60}")
+    private int orderLookbackDays;
+
+    @Value("${planning.rolling.max-released-plannings:20000}")
+    private int maxReleasedPlannings;
+
+    /**
+     * Periodic re-plan when planning.rolling.enabled is set
+     */
+    @Scheduled(initialDelayString = "${planning.rolling.interval-ms:3600000}",
+            fixedDelayString = "${planning.rolling.interval-ms:3600000}")
+    public void scheduledReplan() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            replan(defaultAlgorithm, defaultFrozenHours, defaultWindowDays, 0, true);
+        } catch (Exception e) {
+            log.warn("Rolling re-plan failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-plan the window after the frozen boundary
+     * @param algorithmName registered algorithm, null for planning.rolling.algorithm
+     * @param frozenHours hours from now left untouched, negative for the default
+     * @param windowDays window length in days from today, 0 or less for the default
+     * @param timeBudgetMillis budget for time-bounded algorithms, 0 for their default
+     * @param save false for a dry run
+     * @return counts of frozen, released, moved, unchanged and inserted plannings with the score before/after
+     */
+    public synchronized Map<String, Object> replan(String algorithmName, int frozenHours, int windowDays,
+                                                   long timeBudgetMillis, boolean save) {
+        PlanningAlgorithm algorithm = planningEngineService.getAlgorithm(
+                algorithmName != null ? algorithmName : defaultAlgorithm);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        LocalDateTime frozenUntil = now.plusHours(frozenHours >= 0 ? frozenHours : defaultFrozenHours);
+        LocalDateTime windowEnd = today.plusDays(windowDays > 0 ? windowDays : defaultWindowDays).atStartOfDay();
+
+        long startMillis = System.currentTimeMillis();
+        Map<String, ReleasedPlanning> released = loadReleasedPlannings(frozenUntil, windowEnd);
+        List<PlanningResource> resources = planningProblemService.loadResources(today, released.keySet());
+        Map<String, PlanningResource> resourcesById = new HashMap<>();
+        for (PlanningResource resource : resources) {
+            resourcesById.put(resource.getEmployeeId().toUpperCase(), resource);
+        }
+
+        // Released plannings become tasks again; nothing may start before the frozen boundary
+        List<PlanningTask> tasks = new ArrayList<>();
+        IncrementalScore before = scoreCalculator.newScore(resources);
+        Map<String, String> planningIdsByTask = new HashMap<>();
+        Map<String, PlanningAssignment> currentAssignments = new HashMap<>();
+        for (Map.Entry<String, ReleasedPlanning> entry : released.entrySet()) {
+            ReleasedPlanning planning = entry.getValue();
+            PlanningResource resource = resourcesById.get(planning.employeeId);
+            PlanningTask task = planning.task.toBuilder()
+                    .durationMinutes(nominalMinutes(resource, planning.task.getDurationMinutes()))
+                    .releaseTime(later(planning.task.getReleaseTime(), frozenUntil))
+                    .build();
+            tasks.add(task);
+            planningIdsByTask.put(taskKey(task), entry.getKey());
+            if (resource != null) {
+                WorkCalendar calendar = resource.getCalendar();
+                PlanningAssignment current = PlanningAssignment.builder()
+                        .task(planning.task)
+                        .resource(resource)
+                        .startMinute(calendar.toWorkingMinute(WorkCalendar.epochMinute(planning.startTime)))
+                        .endMinute(calendar.toWorkingMinute(WorkCalendar.epochMinute(planning.endTime)))
+                        .startTime(planning.startTime)
+                        .endTime(planning.endTime)
+                        .build();
+                currentAssignments.put(entry.getKey(), current);
+                before.insert(current);
+            }
+        }
+        int newTasks = 0;
+        for (PlanningTask task : planningProblemService.loadTasks(today.minusDays(orderLookbackDays))) {
+            PlanningTask bounded = task.toBuilder().releaseTime(later(task.getReleaseTime(), frozenUntil)).build();
+            tasks.add(bounded);
+            before.insertUnassigned(bounded);
+            newTasks++;
+        }
+
+        // A released planning the algorithm leaves unassigned keeps its row, so it goes back to
+        // its slot as busy time and the rest is solved again (each round pins at least one)
+        List<PlanningAssignment> pinned = new ArrayList<>();
+        PlanningSolution solution;
+        while (true) {
+            solution = algorithm.solve(PlanningProblem.builder()
+                    .horizonStart(today)
+                    .timeBudgetMillis(timeBudgetMillis)
+                    .resources(withBusyTime(resources, pinned))
+                    .tasks(tasks)
+                    .build());
+            List<PlanningTask> dropped = new ArrayList<>();
+            for (PlanningTask task : solution.getUnassigned()) {
+                PlanningAssignment current = currentAssignments.get(planningIdsByTask.get(taskKey(task)));
+                if (current != null) {
+                    pinned.add(current);
+                    dropped.add(task);
+                }
+            }
+            if (dropped.isEmpty()) {
+                break;
+            }
+            log.info(" Rolling re-plan: {} released plannings left unassigned, pinned to their slot", dropped.size());
+            tasks.removeAll(dropped);
+        }
+
+        // Only what changed is written
+        List<PlanningAssignment> moved = new ArrayList<>();
+        List<String> movedIds = new ArrayList<>();
+        List<PlanningAssignment> inserted = new ArrayList<>();
+        int unchanged = pinned.size();
+        for (PlanningAssignment assignment : solution.getAssignments()) {
+            String planningId = planningIdsByTask.get(taskKey(assignment.getTask()));
+            if (planningId == null) {
+                inserted.add(assignment);
+            } else if (released.get(planningId).isAt(assignment)) {
+                unchanged++;
+            } else {
+                moved.add(assignment);
+                movedIds.add(planningId);
+            }
+        }
+
+        if (save && (!moved.isEmpty() || !inserted.isEmpty())) {
+            persist(moved, movedIds, inserted, solution.getAlgorithm());
+            incrementalPlanningService.invalidate();
+            eventPublisher.publishEvent(new PlanningGeneratedEvent(SOURCE));
+        }
+
+        long elapsed = System.currentTimeMillis() - startMillis;
+        log.info(" Rolling re-plan ({}): {} released, {} new tasks, {} moved, {} unchanged, {} inserted, {} ms",
+                algorithm.getName(), released.size(), newTasks, moved.size(), unchanged, inserted.size(), elapsed);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("algorithm", algorithm.getName());
+        result.put("frozenUntil", frozenUntil);
+        result.put("windowEnd", windowEnd);
+        result.put("releasedPlannings", released.size());
+        result.put("newTasks", newTasks);
+        result.put("moved", moved.size());
+        result.put("unchanged", unchanged);
+        result.put("pinned", pinned.size());
+        result.put("inserted", inserted.size());
+        result.put("unassigned", solution.getUnassigned().size());
+        result.put("saved", save);
+        result.put("scoreBefore", before.toMap());
+        IncrementalScore after = scoreCalculator.score(solution, resources);
+        pinned.forEach(after::insert);
+        result.put("scoreAfter", after.toMap());
+        result.put("computeTimeMs", elapsed);
+        return result;
+    }
+
+    // ========== PERSISTENCE ==========
+
+    private void persist(List<PlanningAssignment> moved, List<String> movedIds, List<PlanningAssignment> inserted,
+                         String algorithm) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < moved.size(); i++) {
+                PlanningAssignment assignment = moved.get(i);
+                boolean updated = planningPersistenceService.reassignScheduled(movedIds.get(i),
+                        assignment.getResource().getEmployeeId(), assignment.getStartTime(), assignment.getEndTime(),
+                        assignment.getTask().getDurationMinutes());
+                if (!updated) {
+                    throw new IllegalStateException("Planning " + movedIds.get(i) + " started or was removed during the re-plan");
+                }
+            }
+            if (!inserted.isEmpty()) {
+                planningPersistenceService.saveSolution(PlanningSolution.builder()
+                        .algorithm(algorithm)
+                        .assignments(inserted)
+                        .build());
+            }
+        });
+    }
+
+    // ========== RELEASED PLANNINGS ==========
+
+    /**
+     * A not-started planning of the re-optimised part of the window
+     */
+    private static class ReleasedPlanning {
+        String employeeId;
+        LocalDateTime startTime;
+        LocalDateTime endTime;
+        PlanningTask task;
+
+        boolean isAt(PlanningAssignment assignment) {
+            return employeeId.equalsIgnoreCase(assignment.getResource().getEmployeeId())
+                    && startTime.equals(assignment.getStartTime())
+                    && endTime.equals(assignment.getEndTime());
+        }
+    }
+
+    /**
+     * SCHEDULED single-stage plannings starting in [from, to), earliest first
+     * Flow-shop stages are linked through predecessor_id and stay where they are.
+     */
+    private Map<String, ReleasedPlanning> loadReleasedPlannings(LocalDateTime from, LocalDateTime to) {
+        String sql = """
+            SELECT
+                HEX(p.id),
+                HEX(p.employee_id),
+                HEX(p.order_id),
+                o.num_commande,
+                o.date,
+                o.delai,
+                p.start_time,
+                COALESCE(p.end_time, p.estimated_end_time,
+                         DATE_ADD(p.start_time, INTERVAL p.estimated_duration_minutes MINUTE)) as end_time,
+                p.estimated_duration_minutes,
+                p.card_count,
+                p.chunk_index,
+                p.chunk_count,
+                p.card_range_start,
+                p.card_range_end
+            FROM j_planning p
+            LEFT JOIN `order` o ON o.id = p.order_id
+            WHERE p.status = 'SCHEDULED'
+            AND p.stage IS NULL
+            AND p.start_time >= ?
+            AND p.start_time < ?
+            ORDER BY p.start_time
+            LIMIT ?
+            """;
+
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter(1, from);
+        query.setParameter(2, to);
+        query.setParameter(3, maxReleasedPlannings);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> results = query.getResultList();
+        Map<String, ReleasedPlanning> released = new LinkedHashMap<>();
+        for (Object[] row : results) {
+            LocalDateTime startTime = toDateTime(row[6]);
+            LocalDateTime orderDate = row[4] != null ? toDateTime(row[4]) : startTime;
+            SlaTier tier = SlaTier.fromCode((String) row[5]);
+            ReleasedPlanning planning = new ReleasedPlanning();
+            planning.employeeId = (String) row[1];
+            planning.startTime = startTime;
+            planning.endTime = toDateTime(row[7]);
+            planning.task = PlanningTask.builder()
+                    .orderId((String) row[2])
+                    .orderNumber((String) row[3])
+                    .durationMinutes(Math.max(1, ((Number) row[8]).intValue()))
+                    .cardCount(row[9] != null ? ((Number) row[9]).intValue() : 0)
+                    .tier(tier)
+                    .releaseTime(orderDate)
+                    .dueTime(orderDate.plusDays(tier.getSlaDays()))
+                    .chunkIndex(((Number) row[10]).intValue())
+                    .chunkCount(((Number) row[11]).intValue())
+                    .cardRangeStart(row[12] != null ? ((Number) row[12]).intValue() : 0)
+                    .cardRangeEnd(row[13] != null ? ((Number) row[13]).intValue() : 0)
+                    .build();
+            released.put((String) row[0], planning);
+        }
+        return released;
+    }
+
+    // ========== INTERNAL HELPERS ==========
+
+    /**
+     * Nominal duration that gives back the stored duration on the planning's own employee,
+     * so that a planning left in place keeps its length
+     */
+    private int nominalMinutes(PlanningResource resource, int actualMinutes) {
+        if (resource == null) {
+            return actualMinutes;
+        }
+        int nominal = Math.max(1, (int) Math.floor(actualMinutes * resource.getSpeedFactor()));
+        while (resource.actualMinutes(nominal) < actualMinutes) {
+            nominal++;
+        }
+        while (nominal > 1 && resource.actualMinutes(nominal - 1) >= actualMinutes) {
+            nominal--;
+        }
+        return nominal;
+    }
+
+    /**
+     * Released plannings are matched back to their row by order and chunk
+     * (unplanned orders have no row yet, so they never collide)
+     */
+    private static String taskKey(PlanningTask task) {
+        return task.getOrderId() + "#" + task.getChunkIndex();
+    }
+
+    /**
+     * Employees with the given assignments added to their busy time
+     */
+    private static List<PlanningResource> withBusyTime(List<PlanningResource> resources,
+                                                       List<PlanningAssignment> assignments) {
+        if (assignments.isEmpty()) {
+            return resources;
+        }
+        Map<String, List<BusyInterval>> busy = new HashMap<>();
+        for (PlanningAssignment assignment : assignments) {
+            busy.computeIfAbsent(assignment.getResource().getEmployeeId(), id -> new ArrayList<>())
+                    .add(new BusyInterval(assignment.getStartMinute(), assignment.getEndMinute()));
+        }
+        List<PlanningResource> updated = new ArrayList<>(resources.size());
+        for (PlanningResource resource : resources) {
+            List<BusyInterval> added = busy.get(resource.getEmployeeId());
+            updated.add(added == null ? resource : resource.toBuilder().busyIntervals(added).build());
+        }
+        return updated;
+    }
+
+    private static LocalDateTime later(LocalDateTime time, LocalDateTime notBefore) {
+        return time == null || time.isBefore(notBefore) ? notBefore : time;
+    }
+
+    private LocalDateTime toDateTime(Object value) {
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime;
+        }
+        if (value instanceof LocalDate date) {
+            return date.atStartOfDay();
+        }
+        if (value instanceof java.sql.Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate().atStartOfDay();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,183 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.event.PlanningGeneratedEvent;
+import com.pcagrade.order.event.PlanningProgressEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * View Version Service - in-memory version stamps behind the ETags of the planning views
+ *
+ * Writers report what they changed: a whole generation, the plannings of one employee on
+ * one date, or the employee roster. Each view builds its ETag from the stamps it depends
+ * on, so an If-None-Match check costs no query. Stamps move after commit, never before,
+ * so a tag is never handed out with data older than it. The boot time is part of every
+ * tag, which invalidates clients' copies on restart.
+ */
+@Service
+@Slf4j
+public class ViewVersionService {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong plannings = new AtomicLong();
+    private final AtomicLong roster = new AtomicLong();
+
+    /**
+     * Never reset, so that a tag is never handed out twice for different data
+     */
+    private final Map<String, AtomicLong> employeeVersions = new ConcurrentHashMap<>();
+    private final Map<LocalDate, AtomicLong> dateVersions = new ConcurrentHashMap<>();
+
+    // ========== CHANGES ==========
+
+    /**
+     * Listeners run after commit already, so they move the stamps directly
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanningGenerated(PlanningGeneratedEvent event) {
+        bumpGeneration();
+    }
+
+    /**
+     * Progress events only carry the planning ID: its employee and date are read back by primary key
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanningProgress(PlanningProgressEvent event) {
+        try {
+            Query query = entityManager.createNativeQuery(
+                    "SELECT HEX(employee_id), planning_date FROM j_planning WHERE id = UNHEX(?)");
+            query.setParameter(1, normalize(event.getPlanningId()));
+            @SuppressWarnings("unchecked")
+            List<Object[]> results = query.getResultList();
+            if (results.isEmpty()) {
+                bumpGeneration();
+                return;
+            }
+            Object[] row = results.get(0);
+            Object date = row[1];
+            bumpPlannings((String) row[0], date instanceof Date sqlDate ? sqlDate.toLocalDate() : (LocalDate) date);
+        } catch (Exception e) {
+            log.warn("Could not resolve planning {}, invalidating all views: {}", event.getPlanningId(), e.getMessage());
+            bumpGeneration();
+        }
+    }
+
+    /**
+     * Many plannings changed at once (generation, cleanup, bulk moves)
+     */
+    public void generationChanged() {
+        afterCommit(this::bumpGeneration);
+    }
+
+    /**
+     * Plannings of one employee on one date were inserted or updated
+     * @param employeeId employee (hex, dashes allowed)
+     * @param date planning date
+     */
+    public void planningsChanged(String employeeId, LocalDate date) {
+        afterCommit(() -> bumpPlannings(employeeId, date));
+    }
+
+    /**
+     * Employees were created, updated or deleted
+     */
+    public void employeesChanged() {
+        afterCommit(roster::incrementAndGet);
+    }
+
+    // ========== ETAGS ==========
+
+    /**
+     * @param parameters request parameters the response depends on
+     * @return tag of a view over plannings of any employee and date
+     */
+    public String planningsTag(Object... parameters) {
+        return tag("p", plannings.get(), parameters);
+    }
+
+    /**
+     * @return tag of a view over the plannings of one employee
+     */
+    public String employeeTag(String employeeId, Object... parameters) {
+        AtomicLong version = employeeVersions.get(normalize(employeeId));
+        return tag("e", version != null ? version.get() : 0, parameters);
+    }
+
+    /**
+     * @param date planning date, null for a view over every date
+     * @return tag of a view over the plannings of one date
+     */
+    public String dateTag(LocalDate date, Object... parameters) {
+        if (date == null) {
+            return planningsTag(parameters);
+        }
+        AtomicLong version = dateVersions.get(date);
+        return tag("d", version != null ? version.get() : 0, parameters);
+    }
+
+    // ========== INTERNAL HELPERS ==========
+
+    private void bumpGeneration() {
+        plannings.incrementAndGet();
+        generation.incrementAndGet();
+    }
+
+    private void bumpPlannings(String employeeId, LocalDate date) {
+        employeeVersions.computeIfAbsent(normalize(employeeId), id -> new AtomicLong()).incrementAndGet();
+        dateVersions.computeIfAbsent(date, d -> new AtomicLong()).incrementAndGet();
+        plannings.incrementAndGet();
+    }
+
+    /**
+     * The parameters go into the tag themselves (URL-encoded, ~ for null, which the encoder
+     * never produces) rather than as a hash, so two different requests never share a tag
+     */
+    private String tag(String scope, long version, Object[] parameters) {
+        StringBuilder tag = new StringBuilder("\"").append(epoch).append('-').append(generation.get())
+                .append('-').append(roster.get()).append('-').append(scope).append(version).append('-');
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) {
+                tag.append(',');
+            }
+            tag.append(parameters[i] == null ? "~" : URLEncoder.encode(parameters[i].toString(), StandardCharsets.UTF_8));
+        }
+        return tag.append('"').toString();
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private static String normalize(String id) {
+        return id.replace("-", "").toUpperCase();
+    }
+}
@@ -0,0 +1,83 @@
+package com.pcagrade.order.util;
+
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Bounded retry helper for optimistic-lock conflicts
+ *
+ * Each attempt runs in its own transaction, so the action re-reads the current
+ * row version before writing. Intended for internal callers (planners, background
+ * jobs); REST clients get a 409 instead and decide themselves.
+ */
+@Component
+@Slf4j
+public class OptimisticRetryTemplate {
+
+    /**
+     * Default number of attempts before giving up
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /**
+     * Base backoff between attempts (in milliseconds), multiplied by the attempt number
+     */
+    private static final long BACKOFF_MILLIS = 20;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Run an action with the default number of attempts
+     * @param action the action to run, must be idempotent on retry
+     * @return action result
+     */
+    public <T> T execute(Supplier<T> action) {
+        return execute(DEFAULT_MAX_ATTEMPTS, action);
+    }
+
+    /**
+     * Run an action, retrying on optimistic-lock conflicts
+     * @param maxAttempts maximum number of attempts (1 = no retry)
+     * @param action the action to run, must be idempotent on retry
+     * @return action result
+     * @throws OptimisticLockingFailureException if every attempt conflicted
+     */
+    public <T> T execute(int maxAttempts, Supplier<T> action) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        OptimisticLockingFailureException lastConflict = null;
+        for (int attempt = 1; attempt <= Math.max(1, maxAttempts); attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                lastConflict = e;
+            } catch (OptimisticLockException e) {
+                lastConflict = new OptimisticLockingFailureException(e.getMessage(), e);
+            }
+
+            log.debug("Optimistic lock conflict on attempt {}/{}: {}", attempt, maxAttempts, lastConflict.getMessage());
+            if (attempt < maxAttempts) {
+                sleepQuietly(BACKOFF_MILLIS * attempt);
+            }
+        }
+        throw lastConflict;
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
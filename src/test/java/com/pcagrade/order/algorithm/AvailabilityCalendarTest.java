@@ -0,0 +1,172 @@
+package com.pcagrade.order.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AvailabilityCalendarTest {
+
+    /**
+     * A Monday
+     */
+    private static final LocalDate START = LocalDate.of(2025, 6, 2);
+
+    private static final long[] NINE_TO_FIVE = AvailabilityCalendar.slots(LocalTime.of(9, 0), 480);
+    private static final long[] WHOLE_DAY = AvailabilityCalendar.slots(LocalTime.MIDNIGHT, 24 * 60);
+
+    private static long minute(LocalDate date, int hour, int minute) {
+        return WorkCalendar.epochMinute(date.atTime(hour, minute));
+    }
+
+    private static LocalDateTime dateTime(long epochMinute) {
+        return WorkCalendar.dateTime(epochMinute);
+    }
+
+    // ========== SLOT HELPERS ==========
+
+    @Test
+    void slotsSpanTheWordBoundary() {
+        // 09:00-17:00 = slots 36..67: 28 bits of the low word, 4 of the high word
+        assertEquals(-1L << 36, NINE_TO_FIVE[0]);
+        assertEquals(0xFL, NINE_TO_FIVE[1]);
+    }
+
+    @Test
+    void slotsCoverTheWholeDayAndStopAtMidnight() {
+        assertArrayEquals(new long[]{-1L, 0xFFFFFFFFL}, WHOLE_DAY);
+
+        long[] lateEvening = AvailabilityCalendar.slots(LocalTime.of(23, 0), 120);
+        assertEquals(0, lateEvening[0]);
+        assertEquals(0xFL << 28, lateEvening[1]);
+    }
+
+    @Test
+    void slotsRoundToWholeSlots() {
+        long[] slots = AvailabilityCalendar.slots(LocalTime.of(10, 10), 10);
+
+        // 10:10-10:20 touches slots 40 (10:00) and 41 (10:15)
+        assertEquals(3L << 40, slots[0]);
+        assertEquals(0, slots[1]);
+    }
+
+    @Test
+    void rangesEndAtMidnight() {
+        List<LocalTime[]> ranges = AvailabilityCalendar.ranges(WHOLE_DAY[0], WHOLE_DAY[1]);
+
+        assertEquals(1, ranges.size());
+        assertEquals(LocalTime.MIDNIGHT, ranges.get(0)[0]);
+        assertEquals(LocalTime.MIDNIGHT, ranges.get(0)[1]);
+
+        List<LocalTime[]> workday = AvailabilityCalendar.ranges(NINE_TO_FIVE[0], NINE_TO_FIVE[1]);
+        assertEquals(LocalTime.of(9, 0), workday.get(0)[0]);
+        assertEquals(LocalTime.of(17, 0), workday.get(0)[1]);
+    }
+
+    @Test
+    void findFreeRunCrossesTheWordBoundary() {
+        long[] run = AvailabilityCalendar.slots(LocalTime.of(15, 0), 165);
+
+        // Slots 60..70
+        assertEquals(60, AvailabilityCalendar.findFreeRun(run[0], run[1], 11, 0));
+        assertEquals(-1, AvailabilityCalendar.findFreeRun(run[0], run[1], 12, 0));
+        assertEquals(64, AvailabilityCalendar.findFreeRun(run[0], run[1], 4, 64));
+        assertEquals(-1, AvailabilityCalendar.findFreeRun(run[0], run[1], 4, 68));
+    }
+
+    @Test
+    void findFreeRunAtDayEdges() {
+        assertEquals(0, AvailabilityCalendar.findFreeRun(WHOLE_DAY[0], WHOLE_DAY[1], 96, 0));
+        assertEquals(95, AvailabilityCalendar.findFreeRun(WHOLE_DAY[0], WHOLE_DAY[1], 1, 95));
+        assertEquals(-1, AvailabilityCalendar.findFreeRun(WHOLE_DAY[0], WHOLE_DAY[1], 2, 95));
+        assertEquals(-1, AvailabilityCalendar.findFreeRun(WHOLE_DAY[0], WHOLE_DAY[1], 97, 0));
+        assertEquals(-1, AvailabilityCalendar.findFreeRun(WHOLE_DAY[0], WHOLE_DAY[1], 1, 96));
+    }
+
+    @Test
+    void findFreeRunIgnoresBitsAboveTheLastSlot() {
+        assertEquals(-1, AvailabilityCalendar.findFreeRun(0, -1L << 32, 1, 0));
+    }
+
+    // ========== CALENDAR ==========
+
+    @Test
+    void availabilityAroundMidnight() {
+        long[] nights = AvailabilityCalendar.slots(LocalTime.of(22, 0), 120);
+        nights[0] |= AvailabilityCalendar.slots(LocalTime.MIDNIGHT, 60)[0];
+        AvailabilityCalendar calendar = new AvailabilityCalendar(START, 7, AvailabilityCalendar.everyDay(nights), Map.of());
+
+        assertTrue(calendar.isAvailable(minute(START, 23, 59)));
+        assertTrue(calendar.isAvailable(minute(START.plusDays(1), 0, 0)));
+        assertTrue(calendar.isAvailable(minute(START.plusDays(1), 0, 59)));
+        assertFalse(calendar.isAvailable(minute(START.plusDays(1), 1, 0)));
+        assertFalse(calendar.isAvailable(minute(START, 0, 0) - 1));
+        assertEquals(180, calendar.availableMinutes(START));
+    }
+
+    @Test
+    void freeRunsDoNotSpanMidnight() {
+        AvailabilityCalendar calendar = calendar(Map.of());
+
+        assertEquals(minute(START.plusDays(1), 9, 0), calendar.findFreeRun(minute(START, 16, 30), 4, 2));
+        assertEquals(minute(START, 16, 0), calendar.findFreeRun(minute(START, 15, 50), 4, 1));
+        assertEquals(-1, calendar.findFreeRun(minute(START, 16, 30), 4, 1));
+    }
+
+    @Test
+    void workingMinutesSkipNightsAndDaysOff() {
+        AvailabilityCalendar calendar = calendar(Map.of(START.plusDays(1), new long[2]));
+
+        assertEquals(START.atTime(9, 0), dateTime(calendar.toEpochMinute(0)));
+        assertEquals(START.atTime(16, 59), dateTime(calendar.toEpochMinute(479)));
+        assertEquals(START.plusDays(2).atTime(9, 0), dateTime(calendar.toEpochMinute(480)));
+        assertEquals(0, calendar.availableMinutes(START.plusDays(1)));
+
+        assertEquals(480, calendar.toWorkingMinute(minute(START, 17, 0)));
+        assertEquals(480, calendar.toWorkingMinute(minute(START.plusDays(1), 12, 0)));
+        assertEquals(481, calendar.toWorkingMinute(minute(START.plusDays(2), 9, 1)));
+    }
+
+    @Test
+    void weeklyPatternRepeatsAfterTheWindow() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(START, 2,
+                AvailabilityCalendar.everyDay(NINE_TO_FIVE), Map.of());
+
+        for (long workingMinute : new long[]{0, 959, 960, 480 * 9 + 15, 480 * 30}) {
+            assertEquals(workingMinute, calendar.toWorkingMinute(calendar.toEpochMinute(workingMinute)));
+        }
+        assertEquals(START.plusDays(5).atTime(9, 0), dateTime(calendar.toEpochMinute(480 * 5)));
+        assertTrue(calendar.isAvailable(minute(START.plusDays(10), 16, 45)));
+        assertFalse(calendar.isAvailable(minute(START.plusDays(10), 17, 0)));
+    }
+
+    @Test
+    void withDaysLeavesTheOriginalUnchanged() {
+        AvailabilityCalendar calendar = calendar(Map.of());
+        AvailabilityCalendar dayOff = calendar.withDays(Map.of(START, new long[2]));
+
+        assertEquals(480, calendar.availableMinutes(START));
+        assertEquals(0, dayOff.availableMinutes(START));
+        assertEquals(START.plusDays(1).atTime(9, 0), dateTime(dayOff.toEpochMinute(0)));
+    }
+
+    @Test
+    void rejectsPatternsWithoutAvailability() {
+        assertThrows(IllegalArgumentException.class, () -> new AvailabilityCalendar(START, 7, new long[14], Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> new AvailabilityCalendar(START, 0,
+                AvailabilityCalendar.everyDay(NINE_TO_FIVE), Map.of()));
+    }
+
+    private static AvailabilityCalendar calendar(Map<LocalDate, long[]> exceptions) {
+        return new AvailabilityCalendar(START, 7, AvailabilityCalendar.everyDay(NINE_TO_FIVE), exceptions);
+    }
+}
@@ -0,0 +1,132 @@
+package com.pcagrade.order.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EarliestDeadlineFirstAlgorithmTest {
+
+    // Monday; every day 09:00-17:00
+    private static final LocalDate HORIZON = LocalDate.of(2025, 6, 2);
+
+    private final EarliestDeadlineFirstAlgorithm edf = new EarliestDeadlineFirstAlgorithm();
+
+    private static PlanningResource employee(String id, double speedFactor, BusyInterval... busy) {
+        return PlanningResource.builder()
+                .employeeId(id)
+                .name(id)
+                .role("GRADER")
+                .calendar(new AvailabilityCalendar(HORIZON, 30,
+                        AvailabilityCalendar.everyDay(AvailabilityCalendar.slots(LocalTime.of(9, 0), 480)), Map.of()))
+                .speedFactor(speedFactor)
+                .busyIntervals(List.of(busy))
+                .build();
+    }
+
+    private static PlanningTask order(String id, int minutes, SlaTier tier, LocalDateTime release, LocalDateTime due) {
+        return PlanningTask.builder()
+                .orderId(id)
+                .orderNumber(id)
+                .cardCount(10)
+                .durationMinutes(minutes)
+                .tier(tier)
+                .releaseTime(release)
+                .dueTime(due)
+                .build();
+    }
+
+    private static PlanningTask order(String id, LocalDateTime due) {
+        return order(id, 60, SlaTier.CLASSIC, HORIZON.atStartOfDay().minusDays(1), due);
+    }
+
+    private static PlanningAssignment assignmentOf(PlanningSolution solution, String orderId) {
+        return solution.getAssignments().stream()
+                .filter(assignment -> assignment.getTask().getOrderId().equals(orderId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void plansTheEarliestDueDateFirst() {
+        PlanningProblem problem = PlanningProblem.builder()
+                .horizonStart(HORIZON)
+                .resource(employee("E1", 1.0))
+                .task(order("LATE", HORIZON.atTime(12, 0).plusDays(5)))
+                .task(order("SOON", HORIZON.atTime(12, 0)))
+                .task(order("MIDDLE", HORIZON.atTime(12, 0).plusDays(2)))
+                .build();
+
+        PlanningSolution solution = edf.solve(problem);
+
+        assertEquals(List.of("SOON", "MIDDLE", "LATE"),
+                solution.getAssignments().stream().map(assignment -> assignment.getTask().getOrderId()).toList());
+        assertEquals(HORIZON.atTime(9, 0), assignmentOf(solution, "SOON").getStartTime());
+        assertEquals(HORIZON.atTime(10, 0), assignmentOf(solution, "MIDDLE").getStartTime());
+        assertEquals(HORIZON.atTime(11, 0), assignmentOf(solution, "LATE").getStartTime());
+    }
+
+    @Test
+    void breaksDueDateTiesByTier() {
+        LocalDateTime due = HORIZON.atTime(17, 0);
+        PlanningProblem problem = PlanningProblem.builder()
+                .horizonStart(HORIZON)
+                .resource(employee("E1", 1.0))
+                .task(order("CLASSIC", 60, SlaTier.CLASSIC, null, due))
+                .task(order("EXCELSIOR", 60, SlaTier.EXCELSIOR, null, due))
+                .build();
+
+        PlanningSolution solution = edf.solve(problem);
+
+        assertEquals(0, assignmentOf(solution, "EXCELSIOR").getStartMinute());
+        assertEquals(60, assignmentOf(solution, "CLASSIC").getStartMinute());
+    }
+
+    @Test
+    void picksTheEmployeeThatFinishesFirstAtItsOwnSpeed() {
+        PlanningProblem problem = PlanningProblem.builder()
+                .horizonStart(HORIZON)
+                .resource(employee("SLOW", 1.0))
+                .resource(employee("FAST", 2.0))
+                .task(order("O1", 120, SlaTier.CLASSIC, null, HORIZON.atTime(17, 0)))
+                .build();
+
+        PlanningAssignment assignment = edf.solve(problem).getAssignments().get(0);
+
+        assertEquals("FAST", assignment.getResource().getEmployeeId());
+        assertEquals(60, assignment.getTask().getDurationMinutes());
+        assertEquals(HORIZON.atTime(10, 0), assignment.getEndTime());
+    }
+
+    @Test
+    void keepsExistingPlanningsAndReleaseTimes() {
+        PlanningProblem problem = PlanningProblem.builder()
+                .horizonStart(HORIZON)
+                .resource(employee("E1", 1.0, new BusyInterval(0, 90)))
+                .task(order("NOW", HORIZON.atTime(17, 0)))
+                .task(order("TOMORROW", 60, SlaTier.CLASSIC, HORIZON.plusDays(1).atTime(10, 0), HORIZON.atTime(17, 0).plusDays(1)))
+                .build();
+
+        PlanningSolution solution = edf.solve(problem);
+
+        assertEquals(HORIZON.atTime(10, 30), assignmentOf(solution, "NOW").getStartTime());
+        assertEquals(HORIZON.plusDays(1).atTime(10, 0), assignmentOf(solution, "TOMORROW").getStartTime());
+    }
+
+    @Test
+    void leavesEverythingUnassignedWithoutEmployees() {
+        PlanningTask task = order("O1", HORIZON.atTime(17, 0));
+
+        PlanningSolution solution = edf.solve(PlanningProblem.builder().horizonStart(HORIZON).task(task).build());
+
+        assertTrue(solution.getAssignments().isEmpty());
+        assertSame(task, solution.getUnassigned().get(0));
+    }
+}
@@ -0,0 +1,114 @@
+package com.pcagrade.order.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmployeeTimelineTest {
+
+    @Test
+    void emptyTimelineStartsAtOriginOrNotBefore() {
+        EmployeeTimeline timeline = new EmployeeTimeline(100);
+
+        assertEquals(100, timeline.findEarliestGap(60, 0));
+        assertEquals(250, timeline.findEarliestGap(60, 250));
+        assertEquals(100, timeline.getTailStart());
+        assertEquals(0, timeline.getBusyMinutes());
+    }
+
+    @Test
+    void findEarliestGapSkipsGapsThatAreTooShort() {
+        EmployeeTimeline timeline = new EmployeeTimeline(0);
+        timeline.insert(0, 30);
+        timeline.insert(40, 100);
+        timeline.insert(130, 200);
+
+        assertEquals(30, timeline.findEarliestGap(10, 0));
+        assertEquals(100, timeline.findEarliestGap(11, 0));
+        assertEquals(100, timeline.findEarliestGap(30, 0));
+        assertEquals(200, timeline.findEarliestGap(31, 0));
+    }
+
+    @Test
+    void findEarliestGapStartsInsideAGapAtNotBefore() {
+        EmployeeTimeline timeline = new EmployeeTimeline(0);
+        timeline.insert(0, 30);
+        timeline.insert(100, 200);
+
+        assertEquals(50, timeline.findEarliestGap(50, 50));
+        assertEquals(200, timeline.findEarliestGap(51, 50));
+        assertEquals(200, timeline.findEarliestGap(10, 150));
+    }
+
+    @Test
+    void insertFillsGapsExactly() {
+        EmployeeTimeline timeline = new EmployeeTimeline(0);
+        timeline.insert(10, 20);
+        timeline.insert(0, 10);
+        timeline.insert(20, 30);
+
+        assertEquals(30, timeline.findEarliestGap(1, 0));
+        assertEquals(30, timeline.getTailStart());
+        assertEquals(30, timeline.getBusyMinutes());
+        assertTrue(timeline.isFree(30, 1000));
+        assertFalse(timeline.isFree(29, 31));
+    }
+
+    @Test
+    void insertRejectsOverlaps() {
+        EmployeeTimeline timeline = new EmployeeTimeline(0);
+        timeline.insert(10, 20);
+
+        assertThrows(IllegalStateException.class, () -> timeline.insert(15, 25));
+        assertThrows(IllegalStateException.class, () -> timeline.insert(5, 11));
+        assertFalse(timeline.tryInsert(0, 30));
+        assertEquals(10, timeline.getBusyMinutes());
+    }
+
+    @Test
+    void releaseMergesAdjacentGaps() {
+        EmployeeTimeline timeline = new EmployeeTimeline(0);
+        timeline.insert(0, 10);
+        timeline.insert(10, 20);
+        timeline.insert(20, 30);
+
+        timeline.release(10, 20);
+        assertEquals(10, timeline.findEarliestGap(10, 0));
+        assertEquals(30, timeline.findEarliestGap(11, 0));
+
+        timeline.release(20, 30);
+        assertEquals(10, timeline.getTailStart());
+        assertEquals(10, timeline.findEarliestGap(500, 0));
+        assertEquals(10, timeline.getBusyMinutes());
+    }
+
+    @Test
+    void ofMergesOverlappingAndTouchingIntervals() {
+        EmployeeTimeline timeline = EmployeeTimeline.of(0, List.of(
+                new BusyInterval(50, 80),
+                new BusyInterval(0, 20),
+                new BusyInterval(10, 30),
+                new BusyInterval(30, 40),
+                new BusyInterval(70, 90)));
+
+        assertEquals(80, timeline.getBusyMinutes());
+        assertEquals(40, timeline.findEarliestGap(10, 0));
+        assertEquals(90, timeline.findEarliestGap(11, 0));
+        assertEquals(90, timeline.getTailStart());
+    }
+
+    @Test
+    void ofClipsIntervalsBeforeOrigin() {
+        EmployeeTimeline timeline = EmployeeTimeline.of(100, List.of(
+                new BusyInterval(0, 50),
+                new BusyInterval(80, 120)));
+
+        assertEquals(20, timeline.getBusyMinutes());
+        assertEquals(120, timeline.findEarliestGap(1, 0));
+    }
+}
@@ -0,0 +1,141 @@
+package com.pcagrade.order.algorithm;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlowShopAlgorithmTest {
+
+    // Monday; every day 09:00-17:00
+    private static final LocalDate HORIZON = LocalDate.of(2025, 6, 2);
+
+    private final FlowShopAlgorithm flowShop = new FlowShopAlgorithm();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(flowShop, "gradingShare", 0.67);
+    }
+
+    private static PlanningResource employee(String id, String role) {
+        return PlanningResource.builder()
+                .employeeId(id)
+                .name(id)
+                .role(role)
+                .calendar(new AvailabilityCalendar(HORIZON, 30,
+                        AvailabilityCalendar.everyDay(AvailabilityCalendar.slots(LocalTime.of(9, 0), 480)), Map.of()))
+                .build();
+    }
+
+    private static PlanningTask order(String id, int minutes) {
+        return PlanningTask.builder()
+                .orderId(id)
+                .orderNumber(id)
+                .cardCount(10)
+                .durationMinutes(minutes)
+                .tier(SlaTier.CLASSIC)
+                .releaseTime(HORIZON.atStartOfDay())
+                .dueTime(HORIZON.atTime(17, 0).plusDays(7))
+                .build();
+    }
+
+    private static PlanningAssignment stageOf(PlanningSolution solution, String orderId, PlanningStage stage) {
+        return solution.getAssignments().stream()
+                .filter(assignment -> assignment.getTask().getOrderId().equals(orderId))
+                .filter(assignment -> assignment.getTask().getStage() == stage)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void splitsTheModelledDurationByTheGradingShare() {
+        PlanningSolution solution = flowShop.solve(PlanningProblem.builder()
+                .horizonStart(HORIZON)
+                .resource(employee("G", "GRADER"))
+                .resource(employee("C", "CERTIFIER"))
+                .task(order("O1", 100))
+                .build());
+
+        PlanningAssignment grading = stageOf(solution, "O1", PlanningStage.GRADING);
+        PlanningAssignment certification = stageOf(solution, "O1", PlanningStage.CERTIFICATION);
+        assertEquals(67, grading.getTask().getDurationMinutes());
+        assertEquals(33, certification.getTask().getDurationMinutes());
+        assertEquals("G", grading.getResource().getEmployeeId());
+        assertEquals("C", certification.getResource().getEmployeeId());
+        assertFalse(grading.getTask().isFinalStage());
+        assertTrue(certification.getTask().isFinalStage());
+    }
+
+    @Test
+    void certificationNeverStartsBeforeGradingEnds() {
+        PlanningSolution solution = flowShop.solve(PlanningProblem.builder()
+                .horizonStart(HORIZON)
+                .resource(employee("G", "GRADER"))
+                .resource(employee("C", "CERTIFIER"))
+                .task(order("O1", 90))
+                .task(order("O2", 300))
+                .task(order("O3", 30))
+                .build());
+
+        assertEquals(6, solution.getAssignments().size());
+        for (String orderId : List.of("O1", "O2", "O3")) {
+            PlanningAssignment grading = stageOf(solution, orderId, PlanningStage.GRADING);
+            PlanningAssignment certification = stageOf(solution, orderId, PlanningStage.CERTIFICATION);
+            assertFalse(certification.getStartTime().isBefore(grading.getEndTime()), orderId);
+        }
+    }
+
+    @Test
+    void sequencesTheCertificationBottleneckWithJohnsonsRule() {
+        // One grader and one certifier: grading takes longer, so the longest certification goes first
+        PlanningSolution solution = flowShop.solve(PlanningProblem.builder()
+                .horizonStart(HORIZON)
+                .resource(employee("G", "GRADER"))
+                .resource(employee("C", "CERTIFIER"))
+                .task(order("SHORT", 30))
+                .task(order("LONG", 90))
+                .build());
+
+        assertEquals(HORIZON.atTime(9, 0), stageOf(solution, "LONG", PlanningStage.GRADING).getStartTime());
+        assertEquals(stageOf(solution, "LONG", PlanningStage.GRADING).getEndTime(),
+                stageOf(solution, "SHORT", PlanningStage.GRADING).getStartTime());
+    }
+
+    @Test
+    void graderCertifierDoesBothStagesOnOneTimeline() {
+        PlanningSolution solution = flowShop.solve(PlanningProblem.builder()
+                .horizonStart(HORIZON)
+                .resource(employee("GC", "GRADER_CERTIFIER"))
+                .task(order("O1", 60))
+                .task(order("O2", 60))
+                .build());
+
+        List<PlanningAssignment> assignments = solution.getAssignments().stream()
+                .sorted((a, b) -> Long.compare(a.getStartMinute(), b.getStartMinute()))
+                .toList();
+        assertEquals(4, assignments.size());
+        for (int i = 1; i < assignments.size(); i++) {
+            assertTrue(assignments.get(i).getStartMinute() >= assignments.get(i - 1).getEndMinute());
+        }
+    }
+
+    @Test
+    void needsBothPools() {
+        PlanningSolution solution = flowShop.solve(PlanningProblem.builder()
+                .horizonStart(HORIZON)
+                .resource(employee("G", "GRADER"))
+                .task(order("O1", 60))
+                .build());
+
+        assertTrue(solution.getAssignments().isEmpty());
+        assertEquals(1, solution.getUnassigned().size());
+    }
+}
@@ -0,0 +1,88 @@
+package com.pcagrade.order.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MinCostFlowTest {
+
+    private static final int SOURCE = 0;
+    private static final int A = 1;
+    private static final int B = 2;
+    private static final int SINK = 3;
+
+    @Test
+    void sendsFlowAlongCheapestPathsFirst() {
+        MinCostFlow flow = new MinCostFlow(4, 5);
+        int sourceA = flow.addArc(SOURCE, A, 2, 1);
+        int sourceB = flow.addArc(SOURCE, B, 1, 2);
+        int aB = flow.addArc(A, B, 1, 1);
+        int aSink = flow.addArc(A, SINK, 1, 3);
+        int bSink = flow.addArc(B, SINK, 2, 1);
+
+        // s-a-b-t and s-b-t both cost 3; s-a-t (4) is not needed for 2 units
+        assertArrayEquals(new long[]{2, 6}, flow.solve(SOURCE, SINK, 2));
+        assertEquals(1, flow.getFlow(sourceA));
+        assertEquals(1, flow.getFlow(sourceB));
+        assertEquals(1, flow.getFlow(aB));
+        assertEquals(0, flow.getFlow(aSink));
+        assertEquals(2, flow.getFlow(bSink));
+    }
+
+    @Test
+    void stopsAtMaximumFlow() {
+        MinCostFlow flow = new MinCostFlow(4, 5);
+        flow.addArc(SOURCE, A, 2, 1);
+        flow.addArc(SOURCE, B, 1, 2);
+        flow.addArc(A, B, 1, 1);
+        flow.addArc(A, SINK, 1, 3);
+        flow.addArc(B, SINK, 2, 1);
+
+        assertArrayEquals(new long[]{3, 10}, flow.solve(SOURCE, SINK, Long.MAX_VALUE));
+    }
+
+    @Test
+    void reroutesFlowThroughResidualArcs() {
+        MinCostFlow flow = new MinCostFlow(4, 5);
+        flow.addArc(SOURCE, A, 1, 1);
+        flow.addArc(SOURCE, B, 1, 5);
+        int aB = flow.addArc(A, B, 1, 1);
+        int aSink = flow.addArc(A, SINK, 1, 5);
+        int bSink = flow.addArc(B, SINK, 1, 1);
+
+        // The first unit takes s-a-b-t (3); the second cancels a-b: s-b-a-t (9)
+        assertArrayEquals(new long[]{2, 12}, flow.solve(SOURCE, SINK, 2));
+        assertEquals(0, flow.getFlow(aB));
+        assertEquals(1, flow.getFlow(aSink));
+        assertEquals(1, flow.getFlow(bSink));
+    }
+
+    @Test
+    void unreachableSinkGetsNoFlow() {
+        MinCostFlow flow = new MinCostFlow(4, 2);
+        flow.addArc(SOURCE, A, 5, 1);
+        flow.addArc(B, SINK, 5, 1);
+
+        assertArrayEquals(new long[]{0, 0}, flow.solve(SOURCE, SINK, 5));
+    }
+
+    @Test
+    void growsBeyondExpectedArcs() {
+        MinCostFlow flow = new MinCostFlow(4, 1);
+        flow.addArc(SOURCE, A, 1, 1);
+        flow.addArc(SOURCE, B, 1, 1);
+        flow.addArc(A, SINK, 1, 1);
+        flow.addArc(B, SINK, 1, 1);
+
+        assertArrayEquals(new long[]{2, 4}, flow.solve(SOURCE, SINK, 10));
+    }
+
+    @Test
+    void rejectsNegativeCosts() {
+        MinCostFlow flow = new MinCostFlow(2, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> flow.addArc(0, 1, 1, -1));
+    }
+}
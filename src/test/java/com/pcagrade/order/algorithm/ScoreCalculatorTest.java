@@ -0,0 +1,178 @@
+package com.pcagrade.order.algorithm;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ScoreCalculatorTest {
+
+    // Monday; every day 09:00-17:00, so working minute 480 is 09:00 the next day
+    private static final LocalDate HORIZON = LocalDate.of(2025, 6, 2);
+
+    private static ScoreCalculator calculator(MockEnvironment environment) {
+        ChangeoverConstraint changeover = new ChangeoverConstraint();
+        ReflectionTestUtils.setField(changeover, "changeoverMinutes", 15);
+        SplitOrderConstraint split = new SplitOrderConstraint();
+        ReflectionTestUtils.setField(split, "splitPenaltyMinutes", 30);
+        ScoreCalculator calculator = new ScoreCalculator();
+        ReflectionTestUtils.setField(calculator, "environment", environment);
+        calculator.setConstraints(List.of(new SlaLatenessConstraint(), new UnassignedOrdersConstraint(),
+                new OvertimeConstraint(), new WorkloadImbalanceConstraint(), changeover, split));
+        return calculator;
+    }
+
+    private static ScoreCalculator calculator() {
+        return calculator(new MockEnvironment());
+    }
+
+    private static PlanningResource employee(String id, int workHoursPerDay) {
+        return PlanningResource.builder()
+                .employeeId(id)
+                .name(id)
+                .role("GRADER")
+                .calendar(new AvailabilityCalendar(HORIZON, 30,
+                        AvailabilityCalendar.everyDay(AvailabilityCalendar.slots(LocalTime.of(9, 0), 480)), Map.of()))
+                .workHoursPerDay(workHoursPerDay)
+                .build();
+    }
+
+    private static PlanningTask task(String orderId, int minutes, SlaTier tier) {
+        return PlanningTask.builder()
+                .orderId(orderId)
+                .orderNumber(orderId)
+                .cardCount(10)
+                .durationMinutes(minutes)
+                .tier(tier)
+                .releaseTime(HORIZON.atStartOfDay())
+                .dueTime(HORIZON.atTime(12, 0))
+                .build();
+    }
+
+    private static PlanningAssignment place(PlanningTask task, PlanningResource resource, long start) {
+        return PlanningAssignment.of(task, resource, start, start + task.getDurationMinutes());
+    }
+
+    @Test
+    void readsWeightsFromTheEnvironmentAndDropsDisabledConstraints() {
+        ScoreCalculator calculator = calculator(new MockEnvironment()
+                .withProperty("planning.score.weight.sla-lateness", "2.5")
+                .withProperty("planning.score.weight.changeover", "0"));
+
+        assertEquals(2.5, calculator.getWeights().get("sla-lateness"));
+        assertFalse(calculator.getWeights().containsKey("changeover"));
+
+        PlanningResource employee = employee("E1", 8);
+        IncrementalScore score = calculator.newScore(List.of(employee));
+        // Ends at 13:00, one hour after the 12:00 due date, EXCELSIOR weight 8
+        score.insert(place(task("O1", 240, SlaTier.EXCELSIOR), employee, 0));
+        assertEquals(60 * 8, score.getPenalty("sla-lateness"));
+        assertEquals(2.5 * 60 * 8, score.getTotal());
+    }
+
+    @Test
+    void overtimeIsMeasuredAgainstTheDailyHours() {
+        PlanningResource employee = employee("E1", 6);
+        IncrementalScore score = calculator().newScore(List.of(employee));
+
+        PlanningAssignment morning = place(task("O1", 420, SlaTier.CLASSIC), employee, 0);
+        score.insert(morning);
+        assertEquals(60, score.getPenalty("overtime"));
+
+        // 60 minutes on Monday, 60 on Tuesday
+        score.insert(place(task("O2", 120, SlaTier.CLASSIC), employee, 420));
+        assertEquals(120, score.getPenalty("overtime"));
+
+        score.retract(morning);
+        assertEquals(0, score.getPenalty("overtime"));
+    }
+
+    @Test
+    void overtimeCountsWorkOutsideTheCalendarOnTheStartDay() {
+        PlanningResource employee = employee("E1", 8);
+        IncrementalScore score = calculator().newScore(List.of(employee));
+
+        // A stored 10-hour planning from 09:00 only covers the 8 working hours of the calendar
+        score.insert(PlanningAssignment.of(task("O1", 600, SlaTier.CLASSIC), employee, 0, 480));
+
+        assertEquals(120, score.getPenalty("overtime"));
+        assertEquals(1.25, ScoreCalculator.dailyLoad(600, 8));
+    }
+
+    @Test
+    void latenessRetractsTheGivenChunkEvenAsACopy() {
+        PlanningResource employee = employee("E1", 8);
+        IncrementalScore score = calculator().newScore(List.of(employee));
+        PlanningTask order = task("O1", 60, SlaTier.CLASSIC).toBuilder().chunkCount(2).build();
+        PlanningAssignment early = place(order, employee, 0);
+        PlanningAssignment late = place(order.toBuilder().chunkIndex(1).build(), employee, 300);
+        score.insert(early);
+        score.insert(late);
+        // Last chunk ends at 15:00, three hours late
+        assertEquals(180, score.getPenalty("sla-lateness"));
+
+        score.retract(late.toBuilder().build());
+
+        // Only the first chunk is left, it ends at 10:00
+        assertEquals(0, score.getPenalty("sla-lateness"));
+        score.retract(early);
+        assertEquals(0, score.getPenalty("sla-lateness"));
+    }
+
+    @Test
+    void unplannedTasksSuspendTheLatenessOfTheirOrder() {
+        PlanningResource employee = employee("E1", 8);
+        IncrementalScore score = calculator().newScore(List.of(employee));
+        PlanningTask first = task("O1", 300, SlaTier.FAST).toBuilder().chunkCount(2).build();
+        PlanningTask second = first.toBuilder().chunkIndex(1).build();
+
+        score.insert(place(first, employee, 0));
+        score.insertUnassigned(second);
+
+        assertEquals(0, score.getPenalty("sla-lateness"));
+        assertEquals(ScheduleMetrics.UNASSIGNED_PENALTY_MINUTES * 2, score.getPenalty("unassigned"));
+
+        score.retractUnassigned(second);
+        assertEquals(0, score.getPenalty("unassigned"));
+        assertEquals(120 * 2, score.getPenalty("sla-lateness"));
+    }
+
+    @Test
+    void replaceMatchesScoringTheNewScheduleFromScratch() {
+        PlanningResource first = employee("E1", 8);
+        PlanningResource second = employee("E2", 8);
+        List<PlanningResource> resources = List.of(first, second);
+        PlanningTask a = task("A", 200, SlaTier.FAST).toBuilder().setupKey("FR|1").build();
+        PlanningTask b = task("B", 100, SlaTier.CLASSIC).toBuilder().setupKey("JP|2").build();
+        PlanningTask c = task("C", 100, SlaTier.EXCELSIOR).toBuilder().setupKey("FR|1").build();
+        PlanningAssignment movedFrom = place(c, first, 300);
+        PlanningAssignment movedTo = place(c, second, 0);
+
+        ScoreCalculator calculator = calculator();
+        IncrementalScore score = calculator.score(PlanningSolution.builder()
+                .assignment(place(a, first, 0))
+                .assignment(place(b, first, 200))
+                .assignment(movedFrom)
+                .build(), resources);
+        double before = score.getTotal();
+        double delta = score.replace(movedFrom, movedTo);
+
+        IncrementalScore fresh = calculator.score(PlanningSolution.builder()
+                .assignment(place(a, first, 0))
+                .assignment(place(b, first, 200))
+                .assignment(movedTo)
+                .build(), resources);
+        assertEquals(fresh.getTotal(), score.getTotal(), 1e-9);
+        assertEquals(fresh.getTotal() - before, delta, 1e-9);
+        // Loads 300 / 100 minutes
+        assertEquals(100, score.getPenalty("workload-imbalance"), 1e-9);
+        assertEquals(15, score.getPenalty("changeover"));
+    }
+}
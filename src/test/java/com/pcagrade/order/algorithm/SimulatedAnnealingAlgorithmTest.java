@@ -0,0 +1,146 @@
+package com.pcagrade.order.algorithm;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulatedAnnealingAlgorithmTest {
+
+    // Monday; every day 09:00-17:00
+    private static final LocalDate HORIZON = LocalDate.of(2025, 6, 2);
+
+    private final EarliestDeadlineFirstAlgorithm edf = new EarliestDeadlineFirstAlgorithm();
+    private final ScoreCalculator scoreCalculator = new ScoreCalculator();
+    private final SimulatedAnnealingAlgorithm annealing = new SimulatedAnnealingAlgorithm();
+
+    @BeforeEach
+    void setUp() {
+        ChangeoverConstraint changeover = new ChangeoverConstraint();
+        ReflectionTestUtils.setField(changeover, "changeoverMinutes", 15);
+        SplitOrderConstraint split = new SplitOrderConstraint();
+        ReflectionTestUtils.setField(split, "splitPenaltyMinutes", 30);
+        ReflectionTestUtils.setField(scoreCalculator, "environment", new StandardEnvironment());
+        scoreCalculator.setConstraints(List.of(new SlaLatenessConstraint(), new UnassignedOrdersConstraint(),
+                new OvertimeConstraint(), new WorkloadImbalanceConstraint(), changeover, split));
+
+        ReflectionTestUtils.setField(annealing, "baseline", edf);
+        ReflectionTestUtils.setField(annealing, "scoreCalculator", scoreCalculator);
+        ReflectionTestUtils.setField(annealing, "defaultTimeBudgetMillis", 200L);
+    }
+
+    private static PlanningResource employee(String id, BusyInterval... busy) {
+        return PlanningResource.builder()
+                .employeeId(id)
+                .name(id)
+                .role("GRADER")
+                .calendar(new AvailabilityCalendar(HORIZON, 30,
+                        AvailabilityCalendar.everyDay(AvailabilityCalendar.slots(LocalTime.of(9, 0), 480)), Map.of()))
+                .busyIntervals(List.of(busy))
+                .build();
+    }
+
+    private static PlanningTask order(int index, int minutes, SlaTier tier, int dueDays, String setupKey) {
+        return PlanningTask.builder()
+                .orderId("O" + index)
+                .orderNumber("O" + index)
+                .cardCount(10)
+                .durationMinutes(minutes)
+                .tier(tier)
+                .releaseTime(HORIZON.atStartOfDay())
+                .dueTime(HORIZON.atTime(17, 0).plusDays(dueDays))
+                .setupKey(setupKey)
+                .build();
+    }
+
+    private double score(PlanningSolution solution, PlanningProblem problem) {
+        return scoreCalculator.score(solution, problem.getResources()).getTotal();
+    }
+
+    @Test
+    void groupsSetupKeysTheBaselineInterleaves() {
+        // Alternating keys with the same due date: EDF alternates employees and pays changeovers
+        PlanningProblem.PlanningProblemBuilder builder = PlanningProblem.builder()
+                .horizonStart(HORIZON)
+                .timeBudgetMillis(300)
+                .resource(employee("E1"))
+                .resource(employee("E2"));
+        for (int i = 0; i < 12; i++) {
+            builder.task(order(i, 30, SlaTier.CLASSIC, 20, i % 4 < 2 ? "FR|1" : "JP|2"));
+        }
+        PlanningProblem problem = builder.build();
+
+        PlanningSolution baseline = edf.solve(problem);
+        PlanningSolution solution = annealing.solve(problem);
+
+        assertEquals("annealing", solution.getAlgorithm());
+        assertTrue(score(solution, problem) < score(baseline, problem));
+        assertTrue(scoreCalculator.score(solution, problem.getResources()).getPenalty("changeover")
+                < scoreCalculator.score(baseline, problem.getResources()).getPenalty("changeover"));
+    }
+
+    @Test
+    void keepsEveryOrderOnceWithoutOverlaps() {
+        PlanningProblem.PlanningProblemBuilder builder = PlanningProblem.builder()
+                .horizonStart(HORIZON)
+                .timeBudgetMillis(200)
+                .resource(employee("E1", new BusyInterval(60, 180)))
+                .resource(employee("E2"))
+                .resource(employee("E3", new BusyInterval(0, 480)));
+        SlaTier[] tiers = SlaTier.values();
+        for (int i = 0; i < 40; i++) {
+            builder.task(order(i, 20 + (i * 37) % 90, tiers[i % tiers.length], i % 10, i % 3 == 0 ? "FR|1" : "JP|2"));
+        }
+        PlanningProblem problem = builder.build();
+
+        PlanningSolution baseline = edf.solve(problem);
+        PlanningSolution solution = annealing.solve(problem);
+
+        assertTrue(score(solution, problem) <= score(baseline, problem));
+        assertEquals(40, solution.getAssignments().stream().map(a -> a.getTask().getOrderId()).distinct().count());
+        assertEquals(40, solution.getAssignments().size());
+
+        Map<String, List<PlanningAssignment>> byEmployee = solution.getAssignments().stream()
+                .collect(Collectors.groupingBy(a -> a.getResource().getEmployeeId()));
+        for (List<PlanningAssignment> assignments : byEmployee.values()) {
+            PlanningResource resource = assignments.get(0).getResource();
+            List<long[]> intervals = new ArrayList<>();
+            resource.getBusyIntervals().forEach(busy -> intervals.add(new long[]{busy.getStart(), busy.getEnd()}));
+            for (PlanningAssignment assignment : assignments) {
+                assertEquals(resource.actualMinutes(assignment.getTask().getDurationMinutes()),
+                        assignment.getEndMinute() - assignment.getStartMinute());
+                intervals.add(new long[]{assignment.getStartMinute(), assignment.getEndMinute()});
+            }
+            intervals.sort(Comparator.comparingLong(interval -> interval[0]));
+            for (int i = 1; i < intervals.size(); i++) {
+                assertTrue(intervals.get(i)[0] >= intervals.get(i - 1)[1], resource.getEmployeeId());
+            }
+        }
+    }
+
+    @Test
+    void returnsTheBaselineWithASingleEmployee() {
+        PlanningProblem problem = PlanningProblem.builder()
+                .horizonStart(HORIZON)
+                .resource(employee("E1"))
+                .task(order(1, 60, SlaTier.FAST, 3, null))
+                .task(order(2, 60, SlaTier.CLASSIC, 1, null))
+                .build();
+
+        PlanningSolution solution = annealing.solve(problem);
+
+        assertEquals("annealing", solution.getAlgorithm());
+        assertEquals(edf.solve(problem).getAssignments(), solution.getAssignments());
+    }
+}
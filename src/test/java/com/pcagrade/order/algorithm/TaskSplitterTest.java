@@ -0,0 +1,143 @@
+package com.pcagrade.order.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TaskSplitterTest {
+
+    private static PlanningTask order(int cards, int minutes) {
+        return PlanningTask.builder()
+                .orderId("0123456789ABCDEF0123456789ABCDEF")
+                .orderNumber("CMD-1")
+                .cardCount(cards)
+                .durationMinutes(minutes)
+                .tier(SlaTier.CLASSIC)
+                .releaseTime(LocalDateTime.of(2025, 6, 2, 9, 0))
+                .dueTime(LocalDateTime.of(2025, 6, 30, 9, 0))
+                .setupKey("FR|1")
+                .build();
+    }
+
+    private static Map<String, Integer> keys(Object... keyAndCards) {
+        Map<String, Integer> keys = new LinkedHashMap<>();
+        for (int i = 0; i < keyAndCards.length; i += 2) {
+            keys.put((String) keyAndCards[i], (Integer) keyAndCards[i + 1]);
+        }
+        return keys;
+    }
+
+    private static int totalMinutes(List<PlanningTask> chunks) {
+        return chunks.stream().mapToInt(PlanningTask::getDurationMinutes).sum();
+    }
+
+    @Test
+    void keepsShortOrdersWhole() {
+        PlanningTask task = order(10, 50);
+
+        assertEquals(List.of(task), TaskSplitter.split(task, 60));
+    }
+
+    @Test
+    void keepsSingleCardsAndChunksAsTheyAre() {
+        PlanningTask card = order(1, 500);
+        PlanningTask chunk = order(10, 500).toBuilder().chunkIndex(1).chunkCount(3).build();
+
+        assertSame(card, TaskSplitter.split(card, 60).get(0));
+        assertSame(chunk, TaskSplitter.split(chunk, 60).get(0));
+    }
+
+    @Test
+    void cutsLongOrdersIntoEvenRangedChunks() {
+        List<PlanningTask> chunks = TaskSplitter.split(order(10, 100), 30);
+
+        assertEquals(4, chunks.size());
+        int[][] expected = {{3, 1, 3, 30}, {3, 4, 6, 30}, {2, 7, 8, 20}, {2, 9, 10, 20}};
+        for (int i = 0; i < chunks.size(); i++) {
+            PlanningTask chunk = chunks.get(i);
+            assertEquals(expected[i][0], chunk.getCardCount());
+            assertEquals(expected[i][1], chunk.getCardRangeStart());
+            assertEquals(expected[i][2], chunk.getCardRangeEnd());
+            assertEquals(expected[i][3], chunk.getDurationMinutes());
+            assertEquals(i, chunk.getChunkIndex());
+            assertEquals(4, chunk.getChunkCount());
+            assertEquals("FR|1", chunk.getSetupKey());
+            assertEquals("CMD-1", chunk.getOrderNumber());
+        }
+    }
+
+    @Test
+    void keepsTheTotalDurationWhenMinutesDoNotDivide() {
+        List<PlanningTask> chunks = TaskSplitter.split(order(7, 101), 30);
+
+        assertEquals(List.of(28, 29, 29, 15), chunks.stream().map(PlanningTask::getDurationMinutes).toList());
+        assertEquals(101, totalMinutes(chunks));
+        assertEquals(7, chunks.stream().mapToInt(PlanningTask::getCardCount).sum());
+        assertEquals(7, chunks.get(chunks.size() - 1).getCardRangeEnd());
+    }
+
+    @Test
+    void neverCutsBelowOneCard() {
+        List<PlanningTask> chunks = TaskSplitter.split(order(3, 300), 30);
+
+        assertEquals(3, chunks.size());
+        chunks.forEach(chunk -> assertEquals(1, chunk.getCardCount()));
+        assertEquals(300, totalMinutes(chunks));
+    }
+
+    @Test
+    void splitsBySetupKeyWithoutCardRanges() {
+        List<PlanningTask> chunks = TaskSplitter.split(order(10, 100), keys("FR|1", 6, "JP|2", 4), Integer.MAX_VALUE);
+
+        assertEquals(2, chunks.size());
+        assertEquals("FR|1", chunks.get(0).getSetupKey());
+        assertEquals(6, chunks.get(0).getCardCount());
+        assertEquals(60, chunks.get(0).getDurationMinutes());
+        assertEquals("JP|2", chunks.get(1).getSetupKey());
+        assertEquals(4, chunks.get(1).getCardCount());
+        assertEquals(40, chunks.get(1).getDurationMinutes());
+        chunks.forEach(chunk -> {
+            assertEquals(0, chunk.getCardRangeStart());
+            assertEquals(0, chunk.getCardRangeEnd());
+            assertEquals(2, chunk.getChunkCount());
+        });
+    }
+
+    @Test
+    void cutsLargeKeyGroupsFurther() {
+        List<PlanningTask> chunks = TaskSplitter.split(order(10, 100), keys("FR|1", 6, "JP|2", 4), 30);
+
+        assertEquals(List.of("FR|1", "FR|1", "JP|2", "JP|2"), chunks.stream().map(PlanningTask::getSetupKey).toList());
+        assertEquals(List.of(3, 3, 2, 2), chunks.stream().map(PlanningTask::getCardCount).toList());
+        assertEquals(100, totalMinutes(chunks));
+        chunks.forEach(chunk -> assertEquals(0, chunk.getCardRangeStart()));
+    }
+
+    @Test
+    void singleKeyGroupKeepsTheWholeOrderWithItsKey() {
+        List<PlanningTask> tasks = TaskSplitter.split(order(10, 100), keys("JP|2", 10), Integer.MAX_VALUE);
+
+        assertEquals(1, tasks.size());
+        assertEquals("JP|2", tasks.get(0).getSetupKey());
+        assertFalse(tasks.get(0).isChunk());
+    }
+
+    @Test
+    void ignoresKeysThatDoNotCoverTheOrder() {
+        List<PlanningTask> chunks = TaskSplitter.split(order(10, 100), keys("JP|2", 4), 50);
+
+        assertEquals(2, chunks.size());
+        assertEquals("FR|1", chunks.get(0).getSetupKey());
+        assertEquals(1, chunks.get(0).getCardRangeStart());
+        assertEquals(5, chunks.get(0).getCardRangeEnd());
+        assertEquals(6, chunks.get(1).getCardRangeStart());
+        assertEquals(10, chunks.get(1).getCardRangeEnd());
+    }
+}
@@ -0,0 +1,166 @@
+package com.pcagrade.order.service;
+
+import com.pcagrade.order.algorithm.AvailabilityCalendar;
+import com.pcagrade.order.algorithm.BusyInterval;
+import com.pcagrade.order.algorithm.PlanningAssignment;
+import com.pcagrade.order.algorithm.PlanningResource;
+import com.pcagrade.order.algorithm.PlanningTask;
+import com.pcagrade.order.algorithm.SlaTier;
+import com.pcagrade.order.algorithm.WorkCalendar;
+import com.pcagrade.order.service.PlanningProblemService.ScheduledPlanning;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IncrementalPlanningServiceTest {
+
+    private static final String EMPLOYEE = "E1";
+
+    @Mock
+    private PlanningProblemService planningProblemService;
+
+    @Mock
+    private PlanningPersistenceService planningPersistenceService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private IncrementalPlanningService incrementalPlanningService;
+
+    // Plannings are put on tomorrow so that none of them has started
+    private final LocalDate today = LocalDate.now();
+    private final LocalDate tomorrow = today.plusDays(1);
+    private final AvailabilityCalendar calendar = new AvailabilityCalendar(today, 30,
+            AvailabilityCalendar.everyDay(AvailabilityCalendar.slots(LocalTime.MIDNIGHT, 24 * 60)), Map.of());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(incrementalPlanningService, "enabled", true);
+        ReflectionTestUtils.setField(incrementalPlanningService, "maxAgeMinutes", 15L);
+        ReflectionTestUtils.setField(incrementalPlanningService, "maxShiftedPlannings", 50);
+    }
+
+    private LocalDateTime at(int hour) {
+        return tomorrow.atTime(hour, 0);
+    }
+
+    private ScheduledPlanning planning(String id, int startHour, int endHour, String status, LocalDateTime due) {
+        return new ScheduledPlanning(id, EMPLOYEE, at(startHour), at(endHour), status, due);
+    }
+
+    /**
+     * One employee available around the clock, busy with the given plannings
+     */
+    private void schedule(ScheduledPlanning... plannings) {
+        PlanningResource.PlanningResourceBuilder resource = PlanningResource.builder()
+                .employeeId(EMPLOYEE)
+                .name(EMPLOYEE)
+                .role("GRADER")
+                .calendar(calendar);
+        for (ScheduledPlanning planning : plannings) {
+            resource.busyInterval(new BusyInterval(
+                    calendar.toWorkingMinute(WorkCalendar.epochMinute(planning.getStartTime())),
+                    calendar.toWorkingMinute(WorkCalendar.epochMinute(planning.getEndTime()))));
+        }
+        when(planningProblemService.loadResources(today)).thenReturn(List.of(resource.build()));
+        when(planningProblemService.loadScheduledPlannings(today)).thenReturn(List.of(plannings));
+    }
+
+    private void order(String orderId, LocalDateTime due) {
+        when(planningProblemService.loadTasksByIds(anyList())).thenReturn(List.of(PlanningTask.builder()
+                .orderId(orderId)
+                .orderNumber(orderId)
+                .cardCount(10)
+                .durationMinutes(60)
+                .tier(SlaTier.EXCELSIOR)
+                .releaseTime(at(8))
+                .dueTime(due)
+                .build()));
+    }
+
+    private PlanningAssignment savedAssignment() {
+        ArgumentCaptor<PlanningAssignment> saved = ArgumentCaptor.forClass(PlanningAssignment.class);
+        verify(planningPersistenceService).saveAssignment(saved.capture(), eq("incremental"));
+        return saved.getValue();
+    }
+
+    @Test
+    void takesTheEarliestGapWhenItMeetsTheDueDate() {
+        schedule(planning("P1", 8, 10, "SCHEDULED", at(8).plusDays(5)));
+        order("O1", at(20));
+
+        List<Map<String, Object>> created = incrementalPlanningService.planOrders(List.of("O1"));
+
+        assertEquals(at(10), savedAssignment().getStartTime());
+        assertEquals(0, created.get(0).get("shiftedPlannings"));
+        verify(planningPersistenceService, never()).moveScheduled(anyString(), any(), any());
+    }
+
+    @Test
+    void pushesBackLaterDuePlanningsUntilAGapAbsorbsThePush() {
+        when(planningPersistenceService.moveScheduled(anyString(), any(), any())).thenReturn(true);
+        schedule(planning("P1", 8, 10, "SCHEDULED", at(8).plusDays(5)),
+                planning("P2", 10, 12, "SCHEDULED", at(8).plusDays(6)),
+                planning("P3", 14, 15, "SCHEDULED", at(8).plusDays(7)));
+        order("O1", at(9).plusMinutes(30));
+
+        List<Map<String, Object>> created = incrementalPlanningService.planOrders(List.of("O1"));
+
+        assertEquals(at(8), savedAssignment().getStartTime());
+        assertEquals(2, created.get(0).get("shiftedPlannings"));
+        verify(planningPersistenceService).moveScheduled("P1", at(9), at(11));
+        verify(planningPersistenceService).moveScheduled("P2", at(11), at(13));
+        verify(planningPersistenceService, never()).moveScheduled(eq("P3"), any(), any());
+    }
+
+    @Test
+    void neverPushesAStartedPlanning() {
+        schedule(planning("P1", 8, 10, "SCHEDULED", at(8).plusDays(5)),
+                planning("P2", 10, 12, "IN_PROGRESS", at(8).plusDays(6)));
+        order("O1", at(9).plusMinutes(30));
+
+        incrementalPlanningService.planOrders(List.of("O1"));
+
+        assertEquals(at(12), savedAssignment().getStartTime());
+        verify(planningPersistenceService, never()).moveScheduled(anyString(), any(), any());
+    }
+
+    @Test
+    void reloadsTheScheduleOnlyAfterAnInvalidation() {
+        when(planningPersistenceService.saveAssignment(any(), anyString())).thenReturn("N1", "N2", "N3");
+        schedule();
+        order("O1", at(20));
+
+        incrementalPlanningService.planOrders(List.of("O1"));
+        incrementalPlanningService.planOrders(List.of("O1"));
+        verify(planningProblemService, times(1)).loadResources(today);
+
+        incrementalPlanningService.invalidate();
+        incrementalPlanningService.planOrders(List.of("O1"));
+        verify(planningProblemService, times(2)).loadResources(today);
+    }
+}